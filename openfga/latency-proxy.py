@@ -0,0 +1,116 @@
+#!/usr/bin/env python3
+"""
+LATENCY PROXY - Stub in front of the OpenFGA HTTP API that injects latency and errors
+
+Point the office demo at the proxy instead of OpenFGA, then degrade the proxy while the profile benchmark runs:
+    python latency-proxy.py --port 8081 --target http://localhost:8080
+    ./mvnw spring-boot:run -Dspring-boot.run.arguments="--openfga.api.url=http://localhost:8081 --openfga.local-evaluator.enabled=false"
+    curl -X POST "http://localhost:8081/__proxy?delay_ms=3000&error_rate=0"
+    python profile-benchmark.py --max-p99-ms 500
+
+The proxy starts without injected faults so the demo can initialize its store through it.
+"""
+
+import argparse
+import random
+import threading
+import time
+import urllib.error
+import urllib.parse
+import urllib.request
+from http.server import BaseHTTPRequestHandler, ThreadingHTTPServer
+
+class Faults:
+    def __init__(self, delay_ms, jitter_ms, error_rate):
+        self.lock = threading.Lock()
+        self.delay_ms = delay_ms
+        self.jitter_ms = jitter_ms
+        self.error_rate = error_rate
+
+    def update(self, query):
+        with self.lock:
+            self.delay_ms = float(query.get("delay_ms", [self.delay_ms])[0])
+            self.jitter_ms = float(query.get("jitter_ms", [self.jitter_ms])[0])
+            self.error_rate = float(query.get("error_rate", [self.error_rate])[0])
+
+    def sample(self):
+        with self.lock:
+            delay = self.delay_ms + random.uniform(0, self.jitter_ms)
+            return delay / 1000, random.random() < self.error_rate
+
+    def describe(self):
+        with self.lock:
+            return f"delay={self.delay_ms:.0f}ms jitter={self.jitter_ms:.0f}ms error_rate={self.error_rate:.2f}"
+
+def make_handler(target, faults):
+    class ProxyHandler(BaseHTTPRequestHandler):
+        protocol_version = "HTTP/1.1"
+
+        def forward(self):
+            url = urllib.parse.urlsplit(self.path)
+            if url.path == "/__proxy":
+                faults.update(urllib.parse.parse_qs(url.query))
+                print(f"🔧 Faults set: {faults.describe()}")
+                self.reply(200, faults.describe().encode(), "text/plain")
+                return
+
+            length = int(self.headers.get("Content-Length") or 0)
+            body = self.rfile.read(length) if length else None
+            delay, fail = faults.sample()
+            time.sleep(delay)
+            if fail:
+                self.reply(503, b'{"code":"unavailable","message":"injected by latency-proxy"}', "application/json")
+                return
+
+            headers = {k: v for k, v in self.headers.items() if k.lower() not in ("host", "content-length", "connection")}
+            request = urllib.request.Request(target + self.path, data=body, headers=headers, method=self.command)
+            try:
+                with urllib.request.urlopen(request, timeout=60) as response:
+                    self.reply(response.status, response.read(), response.headers.get("Content-Type"))
+            except urllib.error.HTTPError as e:
+                self.reply(e.code, e.read(), e.headers.get("Content-Type"))
+            except Exception as e:
+                self.reply(502, str(e).encode(), "text/plain")
+
+        def reply(self, status, body, content_type):
+            self.send_response(status)
+            if content_type:
+                self.send_header("Content-Type", content_type)
+            self.send_header("Content-Length", str(len(body)))
+            self.end_headers()
+            self.wfile.write(body)
+
+        do_GET = do_POST = do_PUT = do_DELETE = forward
+
+        def log_message(self, format, *args):
+            pass
+
+    return ProxyHandler
+
+def main():
+    parser = argparse.ArgumentParser(description="LATENCY PROXY - Fault-injecting stub in front of OpenFGA")
+    parser.add_argument("--port", "-p", type=int, default=8081,
+                       help="Port to listen on (default: 8081)")
+    parser.add_argument("--target", "-t", type=str, default="http://localhost:8080",
+                       help="OpenFGA API URL to forward to (default: http://localhost:8080)")
+    parser.add_argument("--delay-ms", type=float, default=0,
+                       help="Latency added to every request (default: 0)")
+    parser.add_argument("--jitter-ms", type=float, default=0,
+                       help="Extra random latency up to this much (default: 0)")
+    parser.add_argument("--error-rate", type=float, default=0,
+                       help="Share of requests answered with HTTP 503 (default: 0)")
+
+    args = parser.parse_args()
+    faults = Faults(args.delay_ms, args.jitter_ms, args.error_rate)
+    server = ThreadingHTTPServer(("0.0.0.0", args.port), make_handler(args.target.rstrip("/"), faults))
+
+    print("🐢 LATENCY PROXY")
+    print("=" * 55)
+    print(f"Forwarding :{args.port} -> {args.target} with {faults.describe()}")
+    try:
+        server.serve_forever()
+    except KeyboardInterrupt:
+        print("\n\n⚠️  Proxy stopped by user")
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,122 @@
+#!/usr/bin/env python3
+"""
+PROFILE BENCHMARK - Latency of the office-demo profile page (GET /) per demo user
+
+Run it against the old build (model/seed JSON parsed per request) and the new one (AuthorizationCatalog), then compare:
+    python profile-benchmark.py -o before.json
+    python profile-benchmark.py -o after.json
+    python profile-benchmark.py --compare before.json after.json
+
+For allocation, record the same run with JFR and compare the jdk.ObjectAllocationSample weights of the two builds:
+    docker exec office-demo jcmd 1 JFR.start name=profile settings=profile
+    python profile-benchmark.py
+    docker exec office-demo jcmd 1 JFR.dump name=profile filename=/tmp/profile.jfr
+
+With --max-p99-ms the run fails when any user's p99 exceeds the bound (see latency-proxy.py for injecting latency).
+"""
+
+import requests
+import time
+import argparse
+import json
+import sys
+
+USERS = ["john_doe", "hr_manager", "hr_staff", "it_manager", "it_engineer"]
+
+class ProfileBenchmark:
+    def __init__(self, base_url="http://localhost:8090", password="password"):
+        self.base_url = base_url
+        self.password = password
+        self.session = requests.Session()
+
+    def timed_get(self, username):
+        started = time.perf_counter()
+        response = self.session.get(f"{self.base_url}/", auth=(username, self.password), timeout=30)
+        elapsed = time.perf_counter() - started
+        if response.status_code != 200:
+            raise Exception(f"Profile page failed for {username}: HTTP {response.status_code}")
+        if "Could not load user profile" in response.text:
+            raise Exception(f"Profile page for {username} rendered with a profile error")
+        return elapsed
+
+    def measure(self, username, rounds, warmup):
+        for _ in range(warmup):
+            self.timed_get(username)
+        samples = sorted(self.timed_get(username) for _ in range(rounds))
+        return {
+            "p50_ms": samples[len(samples) // 2] * 1000,
+            "p95_ms": samples[min(len(samples) - 1, int(len(samples) * 0.95))] * 1000,
+            "p99_ms": samples[min(len(samples) - 1, int(len(samples) * 0.99))] * 1000,
+            "mean_ms": sum(samples) / len(samples) * 1000,
+        }
+
+    def run(self, rounds, warmup):
+        results = {}
+        for username in USERS:
+            results[username] = self.measure(username, rounds, warmup)
+            result = results[username]
+            print(f"👤 {username:>12}: p50={result['p50_ms']:.1f}ms p95={result['p95_ms']:.1f}ms p99={result['p99_ms']:.1f}ms mean={result['mean_ms']:.1f}ms")
+        return results
+
+def compare(before_file, after_file):
+    with open(before_file) as f:
+        before = json.load(f)
+    with open(after_file) as f:
+        after = json.load(f)
+
+    print(f"\n📊 PROFILE PAGE LATENCY (p50 ms)")
+    print(f"{'user':>12} {'before':>10} {'after':>10} {'speedup':>9}")
+    for username in sorted(set(before) & set(after)):
+        b = before[username]["p50_ms"]
+        a = after[username]["p50_ms"]
+        print(f"{username:>12} {b:>10.1f} {a:>10.1f} {b / a if a else 0:>8.1f}x")
+
+def main():
+    parser = argparse.ArgumentParser(description="PROFILE BENCHMARK - Office-demo profile page latency")
+    parser.add_argument("--rounds", "-n", type=int, default=200,
+                       help="Measured page views per user (default: 200)")
+    parser.add_argument("--warmup", type=int, default=20,
+                       help="Unmeasured warm-up page views per user (default: 20)")
+    parser.add_argument("--output", "-o", type=str,
+                       help="Write results as JSON to this file")
+    parser.add_argument("--compare", nargs=2, metavar=("BEFORE", "AFTER"),
+                       help="Compare two result files instead of running")
+    parser.add_argument("--max-p99-ms", type=float,
+                       help="Exit with an error when a user's p99 exceeds this many milliseconds")
+    parser.add_argument("--url", "-u", type=str, default="http://localhost:8090",
+                       help="Base URL of the office demo (default: http://localhost:8090)")
+
+    args = parser.parse_args()
+
+    if args.compare:
+        compare(*args.compare)
+        return
+
+    print("🧪 PROFILE BENCHMARK")
+    print("=" * 55)
+
+    benchmark = ProfileBenchmark(base_url=args.url)
+    try:
+        results = benchmark.run(args.rounds, args.warmup)
+    except KeyboardInterrupt:
+        print("\n\n⚠️  Benchmark interrupted by user")
+        sys.exit(1)
+    except Exception as e:
+        print(f"\n❌ Benchmark failed with error: {e}")
+        sys.exit(1)
+
+    if args.output:
+        with open(args.output, "w") as f:
+            json.dump(results, f, indent=2)
+        print(f"\n💾 Results written to {args.output}")
+
+    if args.max_p99_ms is not None:
+        slow = {user: result["p99_ms"] for user, result in results.items() if result["p99_ms"] > args.max_p99_ms}
+        if slow:
+            for user, p99 in slow.items():
+                print(f"❌ {user}: p99 {p99:.1f}ms exceeds {args.max_p99_ms:.0f}ms")
+            sys.exit(1)
+        print(f"✅ p99 within {args.max_p99_ms:.0f}ms for every user")
+
+if __name__ == "__main__":
+    main()
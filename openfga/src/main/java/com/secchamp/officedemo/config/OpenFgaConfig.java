@@ -1,23 +1,110 @@
 package com.secchamp.officedemo.config;
 
+import dev.openfga.sdk.api.client.ApiClient;
 import dev.openfga.sdk.api.client.OpenFgaClient;
 import dev.openfga.sdk.api.configuration.ClientConfiguration;
 import dev.openfga.sdk.errors.FgaInvalidParameterException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
 @Configuration
+@Slf4j
 public class OpenFgaConfig {
 
     @Value("${openfga.api.url}")
     private String openFgaApiUrl;
 
+    @Value("${openfga.check.parallelism:16}")
+    private int checkParallelism;
+
+    @Value("${openfga.bulkhead.max-concurrent-calls:32}")
+    private int bulkheadMaxConcurrentCalls;
+
+    @Value("${openfga.http.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    // No longer than openfga.check.timeout-ms: a request the caller gave up on still holds its bulkhead slot
+    @Value("${openfga.http.read-timeout-ms:2000}")
+    private long readTimeoutMs;
+
+    @Value("${openfga.http.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${openfga.http.min-retry-delay-ms:100}")
+    private long minRetryDelayMs;
+
+    @Value("${openfga.http.version:HTTP_2}")
+    private HttpClient.Version httpVersion;
+
+    // 0 keeps the JDK default (no limit on pooled connections)
+    @Value("${openfga.http.pool-size:0}")
+    private int poolSize;
+
+    @Value("${openfga.http.keep-alive-seconds:1200}")
+    private int keepAliveSeconds;
+
     @Bean
     public OpenFgaClient openFgaClient() throws FgaInvalidParameterException {
+        // The JDK HTTP client reads its pool settings from system properties once, when the first client in
+        // the JVM is created, so they have to be in place before the SDK builds its client
+        if (poolSize > 0) {
+            System.setProperty("jdk.httpclient.connectionPoolSize", Integer.toString(poolSize));
+        }
+        System.setProperty("jdk.httpclient.keepalive.timeout", Integer.toString(keepAliveSeconds));
+
         ClientConfiguration config = new ClientConfiguration()
-                .apiUrl(openFgaApiUrl);
-        
-        return new OpenFgaClient(config);
+                .apiUrl(openFgaApiUrl)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .readTimeout(Duration.ofMillis(readTimeoutMs))
+                .maxRetries(maxRetries)
+                .minimumRetryDelay(Duration.ofMillis(minRetryDelayMs));
+
+        // HTTP_2 against a plain-HTTP server starts with an h2c upgrade and falls back to HTTP/1.1
+        ApiClient apiClient = new ApiClient();
+        apiClient.setHttpClientBuilder(HttpClient.newBuilder()
+                .version(httpVersion)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs)));
+
+        log.info("OpenFGA client: {} over {}, connect timeout {} ms, read timeout {} ms, {} retries from {} ms, "
+                        + "pool size {}, keep-alive {} s", openFgaApiUrl, httpVersion, connectTimeoutMs, readTimeoutMs,
+                maxRetries, minRetryDelayMs, poolSize > 0 ? poolSize : "unbounded", keepAliveSeconds);
+        return new OpenFgaClient(config, apiClient);
+    }
+
+    // Bounded pool the permission-sweep fan-out runs on (see OpenFgaService.checkAll); its queue and task
+    // timings are published as executor metrics named openfga
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService openFgaExecutor(MeterRegistry meterRegistry) {
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(checkParallelism, runnable -> {
+            Thread thread = new Thread(runnable, "openfga-check-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        return ExecutorServiceMetrics.monitor(meterRegistry, pool, "openfga");
+    }
+
+    // Bulkhead: caps the requests in flight to the OpenFGA server at once, so a slow server cannot take every
+    // request thread with it. A slot is held until the SDK request settles, not just until the caller's deadline
+    // (see OpenFgaService.call)
+    @Bean
+    public Semaphore openFgaBulkhead(MeterRegistry meterRegistry) {
+        Semaphore bulkhead = new Semaphore(bulkheadMaxConcurrentCalls);
+        Gauge.builder("openfga.bulkhead.in.use", bulkhead, permits -> bulkheadMaxConcurrentCalls - permits.availablePermits())
+                .description("Requests in flight to the OpenFGA server")
+                .register(meterRegistry);
+        return bulkhead;
     }
-}
\ No newline at end of file
+}
@@ -1,23 +1,25 @@
 package com.secchamp.officedemo.controller;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.springframework.core.io.ClassPathResource;
+import com.secchamp.officedemo.service.AuthorizationCatalog;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 
-import java.io.InputStream;
 import java.util.*;
 import java.util.stream.Collectors;
 
 @Controller
+@RequiredArgsConstructor
 public class AuthController {
 
+    private final AuthorizationCatalog authorizationCatalog;
+
     @GetMapping("/login")
     public String login(Model model) {
         try {
-            // Load demo users from initial_data.json
-            List<Map<String, String>> demoUsers = loadDemoUsersFromJson();
+            // Demo users from initial_data.json, parsed once at startup
+            List<Map<String, String>> demoUsers = loadDemoUsers();
             model.addAttribute("demoUsers", demoUsers);
         } catch (Exception e) {
             // Fallback to static data if JSON loading fails
@@ -26,84 +28,74 @@ public class AuthController {
         return "login";
     }
 
-    @SuppressWarnings("unchecked")
-    private List<Map<String, String>> loadDemoUsersFromJson() throws Exception {
-        ClassPathResource resource = new ClassPathResource("initial_data.json");
-        ObjectMapper objectMapper = new ObjectMapper();
-        
-        try (InputStream inputStream = resource.getInputStream()) {
-            Map<String, Object> initialData = objectMapper.readValue(inputStream, Map.class);
+    private List<Map<String, String>> loadDemoUsers() {
+        // First, try to load users from the "users" array in the JSON file
+        List<AuthorizationCatalog.DemoUser> usersFromJson = authorizationCatalog.getUsers();
+        if (!usersFromJson.isEmpty()) {
+            List<Map<String, String>> usersList = new ArrayList<>();
             
-            // First, try to load users from the "users" array in the JSON file
-            List<Map<String, Object>> usersFromJson = (List<Map<String, Object>>) initialData.get("users");
-            if (usersFromJson != null && !usersFromJson.isEmpty()) {
-                List<Map<String, String>> usersList = new ArrayList<>();
-                List<Map<String, Object>> tuples = (List<Map<String, Object>>) initialData.get("tuples");
+            for (AuthorizationCatalog.DemoUser userDef : usersFromJson) {
+                Map<String, String> userInfo = new HashMap<>();
+                String username = userDef.username();
+                String email = userDef.email();
+                String displayName = userDef.displayName();
                 
-                for (Map<String, Object> userDef : usersFromJson) {
-                    Map<String, String> userInfo = new HashMap<>();
-                    String username = (String) userDef.get("username");
-                    String email = (String) userDef.get("email");
-                    String displayName = (String) userDef.get("displayName");
-                    
-                    userInfo.put("userId", email);
-                    userInfo.put("username", username);
-                    userInfo.put("displayName", displayName != null ? displayName : formatDisplayName(username));
-                    
-                    // Determine role for this user using the same logic as DemoController
-                    String userId = "user:" + email;
-                    String role = determineUserRoleFromTuples(userId, tuples);
-                    userInfo.put("roles", role);
-                    
-                    usersList.add(userInfo);
-                }
+                userInfo.put("userId", email);
+                userInfo.put("username", username);
+                userInfo.put("displayName", displayName != null ? displayName : formatDisplayName(username));
                 
-                return usersList.stream()
-                        .sorted(Comparator.comparing(u -> u.get("displayName")))
-                        .collect(Collectors.toList());
+                // Determine role for this user using the same logic as DemoController
+                String userId = "user:" + email;
+                String role = determineUserRoleFromTuples(userId, authorizationCatalog.getTuplesByUser(userId));
+                userInfo.put("roles", role);
+                
+                usersList.add(userInfo);
             }
             
-            // Fallback: Extract unique users and their roles from tuples (for backward compatibility)
-            List<Map<String, Object>> tuples = (List<Map<String, Object>>) initialData.get("tuples");
-            Map<String, Map<String, String>> userMap = new HashMap<>();
+            return usersList.stream()
+                    .sorted(Comparator.comparing(u -> u.get("displayName")))
+                    .collect(Collectors.toList());
+        }
+        
+        // Fallback: Extract unique users and their roles from tuples (for backward compatibility)
+        Map<String, Map<String, String>> userMap = new HashMap<>();
+        
+        for (AuthorizationCatalog.RelationTuple tuple : authorizationCatalog.getTuples()) {
+            String user = tuple.user();
+            String relation = tuple.relation();
+            String object = tuple.object();
             
-            for (Map<String, Object> tuple : tuples) {
-                String user = (String) tuple.get("user");
-                String relation = (String) tuple.get("relation");
-                String object = (String) tuple.get("object");
+            if (user != null && user.startsWith("user:")) {
+                String userId = user.substring(5); // Remove "user:" prefix
+                String username = userId.split("@")[0];
+                String displayName = formatDisplayName(username);
                 
-                if (user != null && user.startsWith("user:")) {
-                    String userId = user.substring(5); // Remove "user:" prefix
-                    String username = userId.split("@")[0];
-                    String displayName = formatDisplayName(username);
-                    
-                    if (!userMap.containsKey(userId)) {
-                        Map<String, String> userInfo = new HashMap<>();
-                        userInfo.put("userId", userId);
-                        userInfo.put("username", username);
-                        userInfo.put("displayName", displayName);
-                        userInfo.put("roles", "");
-                        userMap.put(userId, userInfo);
-                    }
-                    
-                    // Determine role based on relations and objects
-                    String role = determineUserRole(relation, object, userId);
-                    if (!role.isEmpty()) {
-                        Map<String, String> userInfo = userMap.get(userId);
-                        String existingRoles = userInfo.get("roles");
-                        if (existingRoles.isEmpty()) {
-                            userInfo.put("roles", role);
-                        } else if (!existingRoles.contains(role)) {
-                            userInfo.put("roles", existingRoles + ", " + role);
-                        }
+                if (!userMap.containsKey(userId)) {
+                    Map<String, String> userInfo = new HashMap<>();
+                    userInfo.put("userId", userId);
+                    userInfo.put("username", username);
+                    userInfo.put("displayName", displayName);
+                    userInfo.put("roles", "");
+                    userMap.put(userId, userInfo);
+                }
+                
+                // Determine role based on relations and objects
+                String role = determineUserRole(relation, object, userId);
+                if (!role.isEmpty()) {
+                    Map<String, String> userInfo = userMap.get(userId);
+                    String existingRoles = userInfo.get("roles");
+                    if (existingRoles.isEmpty()) {
+                        userInfo.put("roles", role);
+                    } else if (!existingRoles.contains(role)) {
+                        userInfo.put("roles", existingRoles + ", " + role);
                     }
                 }
             }
-            
-            return userMap.values().stream()
-                    .sorted(Comparator.comparing(u -> u.get("displayName")))
-                    .collect(Collectors.toList());
         }
+        
+        return userMap.values().stream()
+                .sorted(Comparator.comparing(u -> u.get("displayName")))
+                .collect(Collectors.toList());
     }
     
     private String formatDisplayName(String username) {
@@ -129,7 +121,7 @@ public class AuthController {
         return "";
     }
 
-    private String determineUserRoleFromTuples(String userId, List<Map<String, Object>> tuples) {
+    private String determineUserRoleFromTuples(String userId, List<AuthorizationCatalog.RelationTuple> tuples) {
         // Special case: john_doe is always CEO since the OpenFgaService grants him owner access to everything
         if ("user:john_doe@company.com".equals(userId)) {
             return "Chief Executive Officer";
@@ -137,10 +129,10 @@ public class AuthController {
         
         Set<String> roles = new HashSet<>();
         
-        for (Map<String, Object> tuple : tuples) {
-            String tupleUser = (String) tuple.get("user");
-            String tupleRelation = (String) tuple.get("relation");
-            String tupleObject = (String) tuple.get("object");
+        for (AuthorizationCatalog.RelationTuple tuple : tuples) {
+            String tupleUser = tuple.user();
+            String tupleRelation = tuple.relation();
+            String tupleObject = tuple.object();
             
             if (userId.equals(tupleUser)) {
                 if ("owner".equals(tupleRelation) && tupleObject.contains("organization:")) {
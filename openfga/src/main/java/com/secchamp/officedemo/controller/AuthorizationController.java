@@ -1,11 +1,20 @@
 package com.secchamp.officedemo.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.secchamp.officedemo.service.OpenFgaService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -14,7 +23,10 @@ import java.util.Map;
 @Slf4j
 public class AuthorizationController {
 
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final OpenFgaService openFgaService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/check")
     public ResponseEntity<Map<String, Object>> checkAccess(
@@ -23,13 +35,17 @@ public class AuthorizationController {
         String userId = request.get("userId");
         String relation = request.get("relation");
         String objectId = request.get("objectId");
+        // "fullyConsistent": "true" skips the local evaluator and the decision cache for sensitive checks
+        boolean fullyConsistent = Boolean.parseBoolean(request.get("fullyConsistent"));
         
         log.info("Checking access: user={}, relation={}, object={}", userId, relation, objectId);
         
-        boolean hasAccess = openFgaService.checkAccess(userId, relation, objectId);
+        OpenFgaService.Decision decision = openFgaService.check(userId, relation, objectId, fullyConsistent);
         
+        // "degraded": OpenFGA could not answer, so this is the last known decision (or a deny without one)
         return ResponseEntity.ok(Map.of(
-            "allowed", hasAccess,
+            "allowed", decision.allowed(),
+            "degraded", decision.degraded(),
             "userId", userId,
             "relation", relation,
             "objectId", objectId
@@ -79,4 +95,132 @@ public class AuthorizationController {
             ));
         }
     }
-}
\ No newline at end of file
+
+    // Body: a JSON array or NDJSON stream of {"op": "grant" | "revoke", "userId", "relation", "objectId"}.
+    // Items are applied in order and each gets a result at the same index
+    @PostMapping("/batch")
+    public ResponseEntity<Map<String, Object>> batch(InputStream body) {
+        List<Map<String, Object>> results = new ArrayList<>();
+        List<OpenFgaService.TupleOperation> operations = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        // readValues iterates the elements of a top-level array as well as a sequence of root-level objects
+        try (MappingIterator<Map<String, String>> items = objectMapper
+                .readerFor(new TypeReference<Map<String, String>>() { })
+                .readValues(body)) {
+            while (items.hasNext()) {
+                Map<String, String> item = items.next();
+                String op = item.get("op");
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("index", results.size());
+                if ("grant".equals(op) || "revoke".equals(op)) {
+                    positions.add(results.size());
+                    operations.add(new OpenFgaService.TupleOperation("grant".equals(op),
+                            item.get("userId"), item.get("relation"), item.get("objectId")));
+                } else {
+                    result.put("success", false);
+                    result.put("error", "op must be grant or revoke");
+                }
+                results.add(result);
+            }
+        } catch (IOException | RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "error", "Malformed batch: " + e.getMessage()
+            ));
+        }
+
+        log.info("Applying batch of {} grant/revoke operations", operations.size());
+        List<OpenFgaService.WriteResult> written = openFgaService.writeAll(operations);
+        int succeeded = 0;
+        for (int i = 0; i < written.size(); i++) {
+            OpenFgaService.WriteResult outcome = written.get(i);
+            Map<String, Object> result = results.get(positions.get(i));
+            result.put("success", outcome.success());
+            if (outcome.error() != null) {
+                result.put("error", outcome.error());
+            }
+            succeeded += outcome.success() ? 1 : 0;
+        }
+
+        return ResponseEntity.ok(Map.of(
+            "total", results.size(),
+            "succeeded", succeeded,
+            "failed", results.size() - succeeded,
+            "results", results
+        ));
+    }
+
+    // What the user can access: objects of the type the user has the relation on
+    @GetMapping("/objects")
+    public ResponseEntity<Map<String, Object>> listAccessibleObjects(
+            @RequestParam String userId,
+            @RequestParam String relation,
+            @RequestParam String type,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        try {
+            return ResponseEntity.ok(page(openFgaService.listAccessibleObjects(userId, relation, type), page, size));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of(
+                "success", false,
+                "error", e.getMessage()
+            ));
+        }
+    }
+
+    // Who can access the resource: users with the relation on the object
+    @GetMapping("/users")
+    public ResponseEntity<Map<String, Object>> listUsersWithAccess(
+            @RequestParam String objectId,
+            @RequestParam String relation,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        try {
+            return ResponseEntity.ok(page(openFgaService.listUsersWithAccess(objectId, relation), page, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "error", e.getMessage()
+            ));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of(
+                "success", false,
+                "error", e.getMessage()
+            ));
+        }
+    }
+
+    // OpenFGA returns the whole list at once; the service caches it, so pages are slices of the cached list
+    private static Map<String, Object> page(List<String> items, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int from = (int) Math.min((long) Math.max(page, 0) * pageSize, items.size());
+        int to = Math.min(from + pageSize, items.size());
+        return Map.of(
+            "items", items.subList(from, to),
+            "page", Math.max(page, 0),
+            "size", pageSize,
+            "total", items.size(),
+            "totalPages", (items.size() + pageSize - 1) / pageSize
+        );
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> decisionCacheStats() {
+        return ResponseEntity.ok(openFgaService.getDecisionCacheStats());
+    }
+
+    @GetMapping("/circuit-breaker/stats")
+    public ResponseEntity<Map<String, Object>> circuitBreakerStats() {
+        return ResponseEntity.ok(openFgaService.getCircuitBreakerStats());
+    }
+
+    @GetMapping("/reverse-index/stats")
+    public ResponseEntity<Map<String, Object>> reverseIndexStats() {
+        return ResponseEntity.ok(openFgaService.getReverseIndexStats());
+    }
+
+    @GetMapping("/local-evaluator/stats")
+    public ResponseEntity<Map<String, Object>> localEvaluatorStats() {
+        return ResponseEntity.ok(openFgaService.getLocalEvaluatorStats());
+    }
+}
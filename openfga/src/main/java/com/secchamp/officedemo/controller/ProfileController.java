@@ -1,16 +1,14 @@
 package com.secchamp.officedemo.controller;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.secchamp.officedemo.service.AuthorizationCatalog;
 import com.secchamp.officedemo.service.OpenFgaService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.ClassPathResource;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 
-import java.io.InputStream;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -19,6 +17,7 @@ import java.util.stream.Collectors;
 public class ProfileController {
     
     private final OpenFgaService openFgaService;
+    private final AuthorizationCatalog authorizationCatalog;
 
     @GetMapping("/")
     public String index(Model model, Authentication authentication) {
@@ -32,17 +31,19 @@ public class ProfileController {
         model.addAttribute("userRoles", roles);
         model.addAttribute("title", "User Profile - OpenFGA Demo");
 
-        // Load user permissions and profile data from JSON
+        // Load user permissions and profile data
         try {
-            Map<String, Object> userProfile = loadUserProfileFromJson(username);
+            Map<String, Object> userProfile = loadUserProfile(username);
             model.addAttribute("userProfile", userProfile);
             model.addAttribute("userPermissions", userProfile.get("permissions"));
             model.addAttribute("userDepartments", userProfile.get("departments"));
             model.addAttribute("userTeams", userProfile.get("teams"));
             model.addAttribute("accessibleResources", userProfile.get("accessibleResources"));
+            // Some permissions could not be checked with OpenFGA and show their last known state
+            model.addAttribute("permissionsDegraded", userProfile.get("degraded"));
             
-            // Load authorization model structure for matrix table
-            Map<String, Object> matrixData = loadPermissionMatrixData();
+            // Authorization model structure for matrix table, built once at startup
+            Map<String, Object> matrixData = authorizationCatalog.getPermissionMatrix();
             model.addAttribute("permissionMatrix", matrixData);
             
             // Create a permission matrix with pre-calculated checkbox states
@@ -58,55 +59,45 @@ public class ProfileController {
         return "index";
     }
 
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> loadUserProfileFromJson(String username) throws Exception {
+    private Map<String, Object> loadUserProfile(String username) {
         Map<String, Object> profile = new HashMap<>();
         
-        // Load authorization model to get all possible resources and relations
-        Map<String, Object> authModel = loadJsonFile("authorization_model.json");
-        Map<String, Object> matrixData = loadPermissionMatrixData();
-        List<Map<String, Object>> resourceInstances = (List<Map<String, Object>>) matrixData.get("resourceInstances");
-        List<String> allRelations = (List<String>) matrixData.get("allRelations");
-        
         String userPattern = "user:" + username + "@company.com";
         List<Map<String, String>> permissions = new ArrayList<>();
         Set<String> departments = new HashSet<>();
         Set<String> teams = new HashSet<>();
         List<Map<String, String>> accessibleResources = new ArrayList<>();
         
-        // Check permissions for each resource and relation using OpenFGA API
-        for (Map<String, Object> resource : resourceInstances) {
-            String resourceId = (String) resource.get("id");
-            String resourceType = (String) resource.get("type");
-            
-            for (String relation : allRelations) {
-                // Only check relations that are valid for this resource type
-                if (isValidRelationForResourceType(resourceType, relation, authModel)) {
-                    boolean hasPermission = openFgaService.checkAccess(userPattern, relation, resourceId);
-                    
-                    if (hasPermission) {
-                        Map<String, String> permission = new HashMap<>();
-                        permission.put("relation", relation);
-                        permission.put("object", resourceId);
-                        permission.put("comment", "Checked via OpenFGA API");
-                        permissions.add(permission);
-                        
-                        // Track departments and teams
-                        if (resourceId.startsWith("department:")) {
-                            departments.add(resourceId.substring(11));
-                        }
-                        if (resourceId.startsWith("team:")) {
-                            teams.add(resourceId.substring(5));
-                        }
-                        
-                        // Track accessible resources
-                        Map<String, String> accessibleResource = new HashMap<>();
-                        accessibleResource.put("type", resourceType);
-                        accessibleResource.put("name", resourceId.split(":")[1]);
-                        accessibleResource.put("permission", relation);
-                        accessibleResources.add(accessibleResource);
-                    }
+        // Check every valid (relation, resource) pair of the catalog in one batch through the OpenFGA API
+        Map<OpenFgaService.RelationCheck, OpenFgaService.Decision> decisions =
+                openFgaService.checkAll(userPattern, authorizationCatalog.getProfileChecks());
+        boolean degraded = false;
+        for (Map.Entry<OpenFgaService.RelationCheck, OpenFgaService.Decision> decision : decisions.entrySet()) {
+            degraded |= decision.getValue().degraded();
+            if (decision.getValue().allowed()) {
+                String relation = decision.getKey().relation();
+                String resourceId = decision.getKey().objectId();
+                
+                Map<String, String> permission = new HashMap<>();
+                permission.put("relation", relation);
+                permission.put("object", resourceId);
+                permission.put("comment", "Checked via OpenFGA API");
+                permissions.add(permission);
+                
+                // Track departments and teams
+                if (resourceId.startsWith("department:")) {
+                    departments.add(resourceId.substring(11));
                 }
+                if (resourceId.startsWith("team:")) {
+                    teams.add(resourceId.substring(5));
+                }
+                
+                // Track accessible resources
+                Map<String, String> accessibleResource = new HashMap<>();
+                accessibleResource.put("type", authorizationCatalog.getResourceInstance(resourceId).type());
+                accessibleResource.put("name", resourceId.split(":")[1]);
+                accessibleResource.put("permission", relation);
+                accessibleResources.add(accessibleResource);
             }
         }
         
@@ -114,6 +105,7 @@ public class ProfileController {
         profile.put("departments", new ArrayList<>(departments));
         profile.put("teams", new ArrayList<>(teams));
         profile.put("accessibleResources", accessibleResources);
+        profile.put("degraded", degraded);
         
         // Determine user role and details
         Map<String, String> userDetails = determineUserDetails(username, permissions);
@@ -122,19 +114,6 @@ public class ProfileController {
         return profile;
     }
     
-    @SuppressWarnings("unchecked")
-    private boolean isValidRelationForResourceType(String resourceType, String relation, Map<String, Object> authModel) {
-        List<Map<String, Object>> typeDefinitions = (List<Map<String, Object>>) authModel.get("type_definitions");
-        
-        for (Map<String, Object> typeDef : typeDefinitions) {
-            if (resourceType.equals(typeDef.get("type"))) {
-                Map<String, Object> relations = (Map<String, Object>) typeDef.get("relations");
-                return relations != null && relations.containsKey(relation);
-            }
-        }
-        return false;
-    }
-    
     private Map<String, String> determineUserDetails(String username, List<Map<String, String>> permissions) {
         Map<String, String> details = new HashMap<>();
         
@@ -174,125 +153,17 @@ public class ProfileController {
         return details;
     }
 
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> loadJsonFile(String fileName) throws Exception {
-        ClassPathResource resource = new ClassPathResource(fileName);
-        ObjectMapper objectMapper = new ObjectMapper();
-        
-        try (InputStream inputStream = resource.getInputStream()) {
-            return objectMapper.readValue(inputStream, Map.class);
-        }
-    }
-    
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> loadPermissionMatrixData() throws Exception {
-        Map<String, Object> matrixData = new HashMap<>();
-        
-        // Load authorization model to get resource types and relations
-        Map<String, Object> authModel = loadJsonFile("authorization_model.json");
-        List<Map<String, Object>> typeDefinitions = (List<Map<String, Object>>) authModel.get("type_definitions");
-        
-        // Extract all resource types (excluding 'user' type)
-        List<Map<String, Object>> resourceTypes = new ArrayList<>();
-        Set<String> allRelations = new LinkedHashSet<>();
-        
-        for (Map<String, Object> typeDef : typeDefinitions) {
-            String typeName = (String) typeDef.get("type");
-            if (!"user".equals(typeName)) { // Skip the base user type
-                Map<String, Object> relations = (Map<String, Object>) typeDef.get("relations");
-                if (relations != null) {
-                    allRelations.addAll(relations.keySet());
-                    
-                    Map<String, Object> resourceType = new HashMap<>();
-                    resourceType.put("type", typeName);
-                    resourceType.put("displayName", formatResourceType(typeName));
-                    resourceType.put("relations", new ArrayList<>(relations.keySet()));
-                    resourceTypes.add(resourceType);
-                }
-            }
-        }
-        
-        // Load initial data to get specific resource instances
-        Map<String, Object> initialData = loadJsonFile("initial_data.json");
-        List<Map<String, Object>> tuples = (List<Map<String, Object>>) initialData.get("tuples");
-        
-        // Extract unique resource instances from tuples
-        Map<String, Map<String, Object>> resourceInstances = new LinkedHashMap<>();
-        for (Map<String, Object> tuple : tuples) {
-            String object = (String) tuple.get("object");
-            if (object != null && object.contains(":")) {
-                String[] parts = object.split(":", 2);
-                String type = parts[0];
-                String name = parts[1];
-                
-                if (!"user".equals(type) && !"department".equals(type)) { // Skip user and department types for matrix
-                    String resourceKey = type + ":" + name;
-                    if (!resourceInstances.containsKey(resourceKey)) {
-                        Map<String, Object> resource = new HashMap<>();
-                        resource.put("id", resourceKey);
-                        resource.put("type", type);
-                        resource.put("name", name);
-                        resource.put("displayName", formatDisplayName(name));
-                        resource.put("typeDisplayName", formatResourceType(type));
-                        resourceInstances.put(resourceKey, resource);
-                    }
-                }
-            }
-        }
-        
-        // Add department instances as a special case
-        for (Map<String, Object> tuple : tuples) {
-            String object = (String) tuple.get("object");
-            if (object != null && object.startsWith("department:")) {
-                String[] parts = object.split(":", 2);
-                String name = parts[1];
-                String resourceKey = "department:" + name;
-                
-                if (!resourceInstances.containsKey(resourceKey)) {
-                    Map<String, Object> resource = new HashMap<>();
-                    resource.put("id", resourceKey);
-                    resource.put("type", "department");
-                    resource.put("name", name);
-                    resource.put("displayName", formatDisplayName(name));
-                    resource.put("typeDisplayName", "Department");
-                    resourceInstances.put(resourceKey, resource);
-                }
-            }
-        }
-        
-        // Add organization as a special case
-        for (Map<String, Object> tuple : tuples) {
-            String object = (String) tuple.get("object");
-            if (object != null && object.startsWith("organization:")) {
-                String[] parts = object.split(":", 2);
-                String name = parts[1];
-                String resourceKey = "organization:" + name;
-                
-                if (!resourceInstances.containsKey(resourceKey)) {
-                    Map<String, Object> resource = new HashMap<>();
-                    resource.put("id", resourceKey);
-                    resource.put("type", "organization");
-                    resource.put("name", name);
-                    resource.put("displayName", formatDisplayName(name));
-                    resource.put("typeDisplayName", "Organization");
-                    resourceInstances.put(resourceKey, resource);
-                }
-            }
-        }
-        
-        matrixData.put("resourceTypes", resourceTypes);
-        matrixData.put("resourceInstances", new ArrayList<>(resourceInstances.values()));
-        matrixData.put("allRelations", new ArrayList<>(allRelations));
-        
-        return matrixData;
-    }
-    
     @SuppressWarnings("unchecked")
     private List<Map<String, Object>> createPermissionMatrixRows(List<Map<String, String>> userPermissions, Map<String, Object> matrixData) {
         List<Map<String, Object>> rows = new ArrayList<>();
         List<Map<String, Object>> resourceInstances = (List<Map<String, Object>>) matrixData.get("resourceInstances");
         List<String> allRelations = (List<String>) matrixData.get("allRelations");
         
+        // The batch-checked permissions as object#relation keys, so each cell is a lookup instead of a scan
+        Set<String> granted = userPermissions.stream()
+                .map(perm -> perm.get("object") + "#" + perm.get("relation"))
+                .collect(Collectors.toSet());
+        
         for (Map<String, Object> resource : resourceInstances) {
             Map<String, Object> row = new HashMap<>();
             row.put("resource", resource);
@@ -302,9 +173,7 @@ public class ProfileController {
             String resourceId = (String) resource.get("id");
             
             for (String relation : allRelations) {
-                boolean hasPermission = userPermissions.stream()
-                    .anyMatch(perm -> resourceId.equals(perm.get("object")) && relation.equals(perm.get("relation")));
-                relationPermissions.put(relation, hasPermission);
+                relationPermissions.put(relation, granted.contains(resourceId + "#" + relation));
             }
             
             row.put("permissions", relationPermissions);
@@ -321,16 +190,6 @@ public class ProfileController {
                 .collect(Collectors.joining(" "));
     }
     
-    private String formatResourceType(String type) {
-        switch (type) {
-            case "confidential_info": return "Confidential Info";
-            case "salary_info": return "Salary Info";
-            default: return Arrays.stream(type.split("_"))
-                    .map(word -> word.substring(0, 1).toUpperCase() + word.substring(1))
-                    .collect(Collectors.joining(" "));
-        }
-    }
-
     private String determineUserRoleFromTuples(String userId, List<Map<String, Object>> tuples) {
         // Special case: john_doe is always CEO since the OpenFgaService grants him owner access to everything
         if ("user:john_doe@company.com".equals(userId)) {
@@ -0,0 +1,276 @@
+package com.secchamp.officedemo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// authorization_model.json and initial_data.json, parsed once at startup into immutable typed records with the
+// lookups the controllers need: valid relations per type (a bitset over the model's relation names), resource
+// instances, demo users, and tuples indexed by user and by object. The permission matrix view and the profile
+// page's (relation, object) sweep do not depend on the user, so they are built here once as well.
+@Component
+@Slf4j
+public class AuthorizationCatalog {
+
+    public record TypeDefinition(String type, List<String> relations, BitSet relationBits) {
+    }
+
+    public record ResourceInstance(String id, String type, String name, String displayName, String typeDisplayName) {
+    }
+
+    public record DemoUser(String username, String email, String password, List<String> roles, String displayName) {
+    }
+
+    public record RelationTuple(String user, String relation, String object) {
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Map<String, TypeDefinition> typeDefinitions;
+    // Relation names of all non-user types, in model order; bit i of a type's relationBits is allRelations[i]
+    private List<String> allRelations;
+    private Map<String, Integer> relationIndex;
+    private List<ResourceInstance> resourceInstances;
+    private Map<String, ResourceInstance> resourceInstancesById;
+    private List<DemoUser> users;
+    private List<RelationTuple> tuples;
+    private Map<String, List<RelationTuple>> tuplesByUser;
+    private Map<String, List<RelationTuple>> tuplesByObject;
+    private Map<String, Object> permissionMatrix;
+    private List<OpenFgaService.RelationCheck> profileChecks;
+
+    @PostConstruct
+    public void load() {
+        try {
+            JsonNode model = readJson("authorization_model.json");
+            JsonNode initialData = readJson("initial_data.json");
+            loadTypeDefinitions(model);
+            loadUsers(initialData);
+            loadTuples(initialData);
+            loadResourceInstances();
+            buildViews();
+            log.info("Authorization catalog loaded: {} types, {} users, {} tuples, {} resource instances",
+                    typeDefinitions.size(), users.size(), tuples.size(), resourceInstances.size());
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load authorization_model.json / initial_data.json", e);
+        }
+    }
+
+    private JsonNode readJson(String fileName) throws IOException {
+        try (InputStream inputStream = new ClassPathResource(fileName).getInputStream()) {
+            return objectMapper.readTree(inputStream);
+        }
+    }
+
+    private void loadTypeDefinitions(JsonNode model) {
+        Map<String, List<String>> relationsByType = new LinkedHashMap<>();
+        Set<String> relationNames = new LinkedHashSet<>();
+        for (JsonNode typeDefinition : model.path("type_definitions")) {
+            String type = typeDefinition.path("type").asText();
+            List<String> relations = new ArrayList<>();
+            typeDefinition.path("relations").fieldNames().forEachRemaining(relations::add);
+            relationsByType.put(type, relations);
+            if (!"user".equals(type)) {
+                relationNames.addAll(relations);
+            }
+        }
+
+        allRelations = List.copyOf(relationNames);
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < allRelations.size(); i++) {
+            index.put(allRelations.get(i), i);
+        }
+        relationIndex = Map.copyOf(index);
+
+        Map<String, TypeDefinition> types = new LinkedHashMap<>();
+        relationsByType.forEach((type, relations) -> {
+            BitSet bits = new BitSet(allRelations.size());
+            relations.stream().map(relationIndex::get).filter(i -> i != null).forEach(bits::set);
+            types.put(type, new TypeDefinition(type, List.copyOf(relations), bits));
+        });
+        typeDefinitions = Collections.unmodifiableMap(types);
+    }
+
+    private void loadUsers(JsonNode initialData) {
+        List<DemoUser> demoUsers = new ArrayList<>();
+        for (JsonNode user : initialData.path("users")) {
+            List<String> roles = new ArrayList<>();
+            user.path("roles").forEach(role -> roles.add(role.asText()));
+            demoUsers.add(new DemoUser(
+                    user.path("username").asText(),
+                    user.path("email").asText(null),
+                    user.path("password").asText(),
+                    List.copyOf(roles),
+                    user.path("displayName").asText(null)));
+        }
+        users = List.copyOf(demoUsers);
+    }
+
+    private void loadTuples(JsonNode initialData) {
+        List<RelationTuple> all = new ArrayList<>();
+        for (JsonNode tuple : initialData.path("tuples")) {
+            all.add(new RelationTuple(
+                    tuple.path("user").asText(null),
+                    tuple.path("relation").asText(null),
+                    tuple.path("object").asText(null)));
+        }
+        tuples = List.copyOf(all);
+        tuplesByUser = index(all, RelationTuple::user);
+        tuplesByObject = index(all, RelationTuple::object);
+    }
+
+    private static Map<String, List<RelationTuple>> index(List<RelationTuple> tuples, Function<RelationTuple, String> key) {
+        return tuples.stream()
+                .filter(tuple -> key.apply(tuple) != null)
+                .collect(Collectors.collectingAndThen(
+                        Collectors.groupingBy(key, Collectors.toUnmodifiableList()),
+                        Map::copyOf));
+    }
+
+    // Every object named in a tuple: other types first in tuple order, then departments (same order the
+    // permission matrix always had)
+    private void loadResourceInstances() {
+        Map<String, ResourceInstance> instances = new LinkedHashMap<>();
+        for (RelationTuple tuple : tuples) {
+            String[] parts = splitObject(tuple.object());
+            if (parts != null && !"user".equals(parts[0]) && !"department".equals(parts[0])) {
+                instances.computeIfAbsent(tuple.object(), id -> resourceInstance(id, parts[0], parts[1]));
+            }
+        }
+        for (RelationTuple tuple : tuples) {
+            String[] parts = splitObject(tuple.object());
+            if (parts != null && "department".equals(parts[0])) {
+                instances.computeIfAbsent(tuple.object(), id -> resourceInstance(id, parts[0], parts[1]));
+            }
+        }
+        resourceInstances = List.copyOf(instances.values());
+        resourceInstancesById = Collections.unmodifiableMap(instances);
+    }
+
+    private static String[] splitObject(String object) {
+        return object != null && object.contains(":") ? object.split(":", 2) : null;
+    }
+
+    private static ResourceInstance resourceInstance(String id, String type, String name) {
+        return new ResourceInstance(id, type, name, formatDisplayName(name), formatResourceType(type));
+    }
+
+    // The permission matrix as the index template reads it (maps), and the profile page's check list
+    private void buildViews() {
+        List<Map<String, Object>> resourceTypeViews = new ArrayList<>();
+        for (TypeDefinition typeDefinition : typeDefinitions.values()) {
+            if (!"user".equals(typeDefinition.type()) && !typeDefinition.relations().isEmpty()) {
+                resourceTypeViews.add(Map.of(
+                        "type", typeDefinition.type(),
+                        "displayName", formatResourceType(typeDefinition.type()),
+                        "relations", typeDefinition.relations()));
+            }
+        }
+        List<Map<String, Object>> resourceInstanceViews = new ArrayList<>();
+        for (ResourceInstance resource : resourceInstances) {
+            resourceInstanceViews.add(Map.of(
+                    "id", resource.id(),
+                    "type", resource.type(),
+                    "name", resource.name(),
+                    "displayName", resource.displayName(),
+                    "typeDisplayName", resource.typeDisplayName()));
+        }
+        Map<String, Object> matrix = new HashMap<>();
+        matrix.put("resourceTypes", List.copyOf(resourceTypeViews));
+        matrix.put("resourceInstances", List.copyOf(resourceInstanceViews));
+        matrix.put("allRelations", allRelations);
+        permissionMatrix = Collections.unmodifiableMap(matrix);
+
+        List<OpenFgaService.RelationCheck> checks = new ArrayList<>();
+        for (ResourceInstance resource : resourceInstances) {
+            for (String relation : allRelations) {
+                if (isValidRelation(resource.type(), relation)) {
+                    checks.add(new OpenFgaService.RelationCheck(relation, resource.id()));
+                }
+            }
+        }
+        profileChecks = List.copyOf(checks);
+    }
+
+    public boolean isValidRelation(String type, String relation) {
+        TypeDefinition typeDefinition = typeDefinitions.get(type);
+        Integer bit = relationIndex.get(relation);
+        return typeDefinition != null && bit != null && typeDefinition.relationBits().get(bit);
+    }
+
+    public Map<String, TypeDefinition> getTypeDefinitions() {
+        return typeDefinitions;
+    }
+
+    public List<String> getAllRelations() {
+        return allRelations;
+    }
+
+    public List<ResourceInstance> getResourceInstances() {
+        return resourceInstances;
+    }
+
+    public ResourceInstance getResourceInstance(String id) {
+        return resourceInstancesById.get(id);
+    }
+
+    public List<DemoUser> getUsers() {
+        return users;
+    }
+
+    public List<RelationTuple> getTuples() {
+        return tuples;
+    }
+
+    public List<RelationTuple> getTuplesByUser(String user) {
+        return tuplesByUser.getOrDefault(user, List.of());
+    }
+
+    public List<RelationTuple> getTuplesByObject(String object) {
+        return tuplesByObject.getOrDefault(object, List.of());
+    }
+
+    public Map<String, Object> getPermissionMatrix() {
+        return permissionMatrix;
+    }
+
+    // Every valid (relation, resource instance) pair, in matrix order
+    public List<OpenFgaService.RelationCheck> getProfileChecks() {
+        return profileChecks;
+    }
+
+    private static String formatDisplayName(String input) {
+        return Arrays.stream(input.split("[._@]"))
+                .filter(part -> !part.equals("company") && !part.equals("com"))
+                .map(word -> word.substring(0, 1).toUpperCase() + word.substring(1))
+                .collect(Collectors.joining(" "));
+    }
+
+    private static String formatResourceType(String type) {
+        switch (type) {
+            case "confidential_info": return "Confidential Info";
+            case "salary_info": return "Salary Info";
+            default: return Arrays.stream(type.split("_"))
+                    .map(word -> word.substring(0, 1).toUpperCase() + word.substring(1))
+                    .collect(Collectors.joining(" "));
+        }
+    }
+}
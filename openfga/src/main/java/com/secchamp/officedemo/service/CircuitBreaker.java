@@ -0,0 +1,174 @@
+package com.secchamp.officedemo.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Circuit breaker for calls to the OpenFGA server, over a sliding window of the last openfga.breaker.window-size
+// calls. With at least minimum-calls in the window it opens when the share of failed calls (errors, deadlines)
+// or of calls slower than slow-call-ms reaches its threshold. While open, calls are refused without reaching the
+// server; after open-ms, half-open-calls trial calls go through and close it again if all of them succeed in time.
+// Only the results of those trial calls decide the half-open state; calls admitted earlier are ignored until then.
+@Component
+@Slf4j
+public class CircuitBreaker {
+
+    private enum State { CLOSED, OPEN, HALF_OPEN }
+
+    // Handed out by tryAcquire and passed back to onResult. trialRound is the half-open round the call is a trial
+    // call of, or 0 for a call admitted while closed
+    public record Permit(long trialRound) {
+    }
+
+    private static final Permit CLOSED_PERMIT = new Permit(0);
+
+    @Value("${openfga.breaker.enabled:true}")
+    private boolean enabled;
+
+    @Value("${openfga.breaker.window-size:50}")
+    private int windowSize;
+
+    @Value("${openfga.breaker.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${openfga.breaker.failure-rate-threshold:0.5}")
+    private double failureRateThreshold;
+
+    @Value("${openfga.breaker.slow-call-ms:1000}")
+    private long slowCallMs;
+
+    @Value("${openfga.breaker.slow-call-rate-threshold:0.8}")
+    private double slowCallRateThreshold;
+
+    @Value("${openfga.breaker.open-ms:10000}")
+    private long openMs;
+
+    @Value("${openfga.breaker.half-open-calls:3}")
+    private int halfOpenCalls;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private long trialRound;
+    private int trialPermits;
+    private int trialSuccesses;
+
+    // Ring buffer of the outcomes of the last windowSize calls
+    private boolean[] failedCalls;
+    private boolean[] slowCalls;
+    private int calls;
+    private int next;
+    private int failures;
+    private int slow;
+
+    private long timesOpened;
+    private long rejected;
+
+    // Permit for a call to go to the server now, or null when it is refused; every permitted call must be followed
+    // by onResult() with its permit
+    public synchronized Permit tryAcquire() {
+        if (!enabled) {
+            return CLOSED_PERMIT;
+        }
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openMs) {
+                rejected++;
+                return null;
+            }
+            state = State.HALF_OPEN;
+            trialRound++;
+            trialPermits = halfOpenCalls;
+            trialSuccesses = 0;
+            log.info("OpenFGA circuit breaker half-open, letting {} trial calls through", halfOpenCalls);
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialPermits == 0) {
+                rejected++;
+                return null;
+            }
+            trialPermits--;
+            return new Permit(trialRound);
+        }
+        return CLOSED_PERMIT;
+    }
+
+    public synchronized void onResult(Permit permit, long latencyMs, boolean success) {
+        if (!enabled) {
+            return;
+        }
+        boolean slowCall = latencyMs > slowCallMs;
+        if (state == State.HALF_OPEN) {
+            if (permit.trialRound() != trialRound) {
+                // Admitted while closed, or a trial call of an earlier round
+                return;
+            }
+            if (!success || slowCall) {
+                open("a trial call " + (success ? "took " + latencyMs + " ms" : "failed"));
+            } else if (++trialSuccesses >= halfOpenCalls) {
+                state = State.CLOSED;
+                resetWindow();
+                log.info("OpenFGA circuit breaker closed");
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // A call that started before the breaker opened
+            return;
+        }
+
+        if (failedCalls == null) {
+            resetWindow();
+        }
+        if (calls == windowSize) {
+            failures -= failedCalls[next] ? 1 : 0;
+            slow -= slowCalls[next] ? 1 : 0;
+        } else {
+            calls++;
+        }
+        failedCalls[next] = !success;
+        slowCalls[next] = slowCall;
+        failures += success ? 0 : 1;
+        slow += slowCall ? 1 : 0;
+        next = (next + 1) % windowSize;
+
+        if (calls >= minimumCalls) {
+            double failureRate = (double) failures / calls;
+            double slowCallRate = (double) slow / calls;
+            if (failureRate >= failureRateThreshold) {
+                open(String.format("%.0f%% of the last %d calls failed", failureRate * 100, calls));
+            } else if (slowCallRate >= slowCallRateThreshold) {
+                open(String.format("%.0f%% of the last %d calls took over %d ms", slowCallRate * 100, calls, slowCallMs));
+            }
+        }
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("state", state.name());
+        stats.put("windowCalls", calls);
+        stats.put("failureRate", calls > 0 ? (double) failures / calls : 0.0);
+        stats.put("slowCallRate", calls > 0 ? (double) slow / calls : 0.0);
+        stats.put("timesOpened", timesOpened);
+        stats.put("rejected", rejected);
+        return stats;
+    }
+
+    private void open(String reason) {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        timesOpened++;
+        log.warn("OpenFGA circuit breaker opened for {} ms: {}", openMs, reason);
+    }
+
+    private void resetWindow() {
+        failedCalls = new boolean[windowSize];
+        slowCalls = new boolean[windowSize];
+        calls = 0;
+        next = 0;
+        failures = 0;
+        slow = 0;
+    }
+}
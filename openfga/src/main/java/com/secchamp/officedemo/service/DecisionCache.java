@@ -0,0 +1,190 @@
+package com.secchamp.officedemo.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Bounded LRU cache of check decisions (allowed and denied) keyed by (user, relation, object), with a short TTL.
+// Writes go through invalidate(object), which evicts every decision on the object and, transitively, on the
+// objects that reference it as a userset (department:hr#member) or as a tuple's user (tupleToUserset parents).
+// Expired decisions stay until evicted or invalidated: when the server cannot answer, getLastKnown() serves them
+// for up to openfga.cache.max-stale-ms.
+@Component
+@Slf4j
+public class DecisionCache {
+
+    @Value("${openfga.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${openfga.cache.ttl-ms:5000}")
+    private long ttlMs;
+
+    @Value("${openfga.cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${openfga.cache.max-stale-ms:600000}")
+    private long maxStaleMs;
+
+    private record Decision(String objectId, boolean allowed, long cachedAt) {
+    }
+
+    // Access-ordered, so the eldest entry is the least recently used one
+    private final LinkedHashMap<String, Decision> decisions = new LinkedHashMap<>(16, 0.75f, true);
+    // Object -> keys of its cached decisions
+    private final Map<String, Set<String>> keysByObject = new HashMap<>();
+    // Object -> objects with a tuple whose user is that object or a userset on it. Revoking the tuple keeps the
+    // edge, which at worst evicts a few decisions too many
+    private final Map<String, Set<String>> dependents = new HashMap<>();
+    // Bumped by every invalidation; a decision fetched before a write landed must not be cached after it
+    private long generation;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+    private long staleServed;
+    private long totalHitAgeMs;
+    private long maxHitAgeMs;
+
+    // Cached decision, or null when absent or expired
+    public synchronized Boolean get(String userId, String relation, String objectId) {
+        if (!enabled) {
+            return null;
+        }
+        String key = key(userId, relation, objectId);
+        Decision decision = decisions.get(key);
+        if (decision == null) {
+            misses++;
+            return null;
+        }
+        long age = System.currentTimeMillis() - decision.cachedAt();
+        if (age > ttlMs) {
+            expirations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        totalHitAgeMs += age;
+        maxHitAgeMs = Math.max(maxHitAgeMs, age);
+        return decision.allowed();
+    }
+
+    // Degraded mode: the decision whatever its TTL, or null when there is none younger than maxStaleMs
+    public synchronized Boolean getLastKnown(String userId, String relation, String objectId) {
+        if (!enabled) {
+            return null;
+        }
+        String key = key(userId, relation, objectId);
+        Decision decision = decisions.get(key);
+        if (decision == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - decision.cachedAt() > maxStaleMs) {
+            remove(key, decision);
+            return null;
+        }
+        staleServed++;
+        return decision.allowed();
+    }
+
+    // Read before asking the server; put() drops the answer if an invalidation happened in between
+    public synchronized long generation() {
+        return generation;
+    }
+
+    public synchronized void put(String userId, String relation, String objectId, boolean allowed, long generation) {
+        if (!enabled || generation != this.generation) {
+            return;
+        }
+        String key = key(userId, relation, objectId);
+        decisions.put(key, new Decision(objectId, allowed, System.currentTimeMillis()));
+        keysByObject.computeIfAbsent(objectId, object -> new HashSet<>()).add(key);
+
+        Iterator<Map.Entry<String, Decision>> eldest = decisions.entrySet().iterator();
+        while (decisions.size() > maxEntries && eldest.hasNext()) {
+            Map.Entry<String, Decision> entry = eldest.next();
+            eldest.remove();
+            forgetKey(entry.getKey(), entry.getValue().objectId());
+            evictions++;
+        }
+    }
+
+    // Records the dependency a tuple creates when its user is not a plain user (department:hr#member, folder:x)
+    public synchronized void recordTuple(String userId, String objectId) {
+        if (userId == null || objectId == null || userId.startsWith("user:")) {
+            return;
+        }
+        int hash = userId.indexOf('#');
+        String source = hash >= 0 ? userId.substring(0, hash) : userId;
+        dependents.computeIfAbsent(source, object -> new HashSet<>()).add(objectId);
+    }
+
+    public synchronized void invalidate(String objectId) {
+        generation++;
+        Deque<String> pending = new ArrayDeque<>();
+        Set<String> seen = new HashSet<>();
+        pending.push(objectId);
+        while (!pending.isEmpty()) {
+            String object = pending.pop();
+            if (!seen.add(object)) {
+                continue;
+            }
+            Set<String> keys = keysByObject.remove(object);
+            if (keys != null) {
+                keys.forEach(decisions::remove);
+                invalidations += keys.size();
+            }
+            pending.addAll(dependents.getOrDefault(object, Set.of()));
+        }
+        log.debug("Invalidated cached decisions on {} and {} dependent objects", objectId, seen.size() - 1);
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        long lookups = hits + misses;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("entries", decisions.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlMs", ttlMs);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRate", lookups > 0 ? (double) hits / lookups : 0.0);
+        stats.put("evictions", evictions);
+        stats.put("expirations", expirations);
+        stats.put("invalidations", invalidations);
+        stats.put("staleServed", staleServed);
+        // Staleness: how old the decisions served from the cache were
+        stats.put("avgHitAgeMs", hits > 0 ? (double) totalHitAgeMs / hits : 0.0);
+        stats.put("maxHitAgeMs", maxHitAgeMs);
+        return stats;
+    }
+
+    private void remove(String key, Decision decision) {
+        decisions.remove(key);
+        forgetKey(key, decision.objectId());
+    }
+
+    private void forgetKey(String key, String objectId) {
+        Set<String> keys = keysByObject.get(objectId);
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                keysByObject.remove(objectId);
+            }
+        }
+    }
+
+    private static String key(String userId, String relation, String objectId) {
+        return userId + "|" + relation + "|" + objectId;
+    }
+}
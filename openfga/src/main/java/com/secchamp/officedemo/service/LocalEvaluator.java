@@ -0,0 +1,288 @@
+package com.secchamp.officedemo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// In-process check evaluator over a mirror of the store's tuples, for the rewrites authorization_model.json
+// uses: this, computedUserset, tupleToUserset and union. OpenFgaService fills the mirror from the server at
+// startup and applies every successful write to it; until the mirror is complete, or for anything the
+// evaluator cannot answer (unknown type or relation, intersection/difference), check() returns null and the
+// server decides. Writes applied while the mirror is loading are replayed once the load is done, so a write
+// that lands after the page holding its tuple was read is not undone by that page.
+@Component
+@Slf4j
+public class LocalEvaluator {
+
+    @Value("${openfga.local-evaluator.enabled:true}")
+    private boolean enabled;
+
+    private sealed interface Rewrite permits This, ComputedUserset, TupleToUserset, Union, Unsupported {
+    }
+
+    private record This() implements Rewrite {
+    }
+
+    private record ComputedUserset(String relation) implements Rewrite {
+    }
+
+    private record TupleToUserset(String tupleset, String computedRelation) implements Rewrite {
+    }
+
+    private record Union(List<Rewrite> children) implements Rewrite {
+    }
+
+    private record Unsupported(String operator) implements Rewrite {
+    }
+
+    // Thrown while evaluating a relation defined with a rewrite this evaluator does not implement
+    private static class UnsupportedRewriteException extends RuntimeException {
+        UnsupportedRewriteException(String operator) {
+            super(operator);
+        }
+    }
+
+    // type -> relation -> rewrite
+    private Map<String, Map<String, Rewrite>> model = Map.of();
+    // "object#relation" -> users, usersets ("department:hr#member") and wildcards ("user:*")
+    private final ConcurrentHashMap<String, Set<String>> tuples = new ConcurrentHashMap<>();
+    private final AtomicLong tupleCount = new AtomicLong();
+    private volatile boolean ready;
+
+    private record Write(boolean add, String user, String relation, String object) {
+    }
+
+    // Live writes applied since beginLoad(), in order; null while no load is in progress
+    private List<Write> writesDuringLoad;
+
+    private final AtomicLong localAnswers = new AtomicLong();
+    private final AtomicLong deferred = new AtomicLong();
+    private final AtomicLong verified = new AtomicLong();
+    private final AtomicLong mismatches = new AtomicLong();
+
+    @PostConstruct
+    public void loadModel() {
+        ClassPathResource resource = new ClassPathResource("authorization_model.json");
+        try (InputStream inputStream = resource.getInputStream()) {
+            loadModel(new ObjectMapper().readTree(inputStream));
+        } catch (IOException e) {
+            log.error("Could not load authorization_model.json, the local evaluator is disabled", e);
+            enabled = false;
+        }
+    }
+
+    void loadModel(JsonNode authorizationModel) {
+        Map<String, Map<String, Rewrite>> types = new HashMap<>();
+        for (JsonNode typeDefinition : authorizationModel.path("type_definitions")) {
+            Map<String, Rewrite> relations = new HashMap<>();
+            typeDefinition.path("relations").fields()
+                    .forEachRemaining(relation -> relations.put(relation.getKey(), parse(relation.getValue())));
+            types.put(typeDefinition.path("type").asText(), relations);
+        }
+        model = types;
+    }
+
+    private Rewrite parse(JsonNode node) {
+        if (node.has("this")) {
+            return new This();
+        }
+        if (node.has("computedUserset")) {
+            return new ComputedUserset(node.path("computedUserset").path("relation").asText());
+        }
+        if (node.has("tupleToUserset")) {
+            JsonNode tupleToUserset = node.path("tupleToUserset");
+            return new TupleToUserset(tupleToUserset.path("tupleset").path("relation").asText(),
+                    tupleToUserset.path("computedUserset").path("relation").asText());
+        }
+        if (node.has("union")) {
+            List<Rewrite> children = new ArrayList<>();
+            node.path("union").path("child").forEach(child -> children.add(parse(child)));
+            return new Union(children);
+        }
+        return new Unsupported(node.fieldNames().hasNext() ? node.fieldNames().next() : "empty");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Drops the mirror and starts loading it again; checks go to the server until finishLoad()
+    public synchronized void beginLoad() {
+        ready = false;
+        tuples.clear();
+        tupleCount.set(0);
+        writesDuringLoad = new ArrayList<>();
+    }
+
+    // A tuple read from the server while loading
+    public synchronized void load(String user, String relation, String object) {
+        put(user, relation, object);
+    }
+
+    // Replays the writes applied during the load over the tuples read, then answers checks locally
+    public synchronized void finishLoad() {
+        if (writesDuringLoad == null) {
+            return;
+        }
+        for (Write write : writesDuringLoad) {
+            if (write.add()) {
+                put(write.user(), write.relation(), write.object());
+            } else {
+                delete(write.user(), write.relation(), write.object());
+            }
+        }
+        writesDuringLoad = null;
+        ready = enabled;
+    }
+
+    // The load failed; checks keep going to the server
+    public synchronized void abortLoad() {
+        writesDuringLoad = null;
+        tuples.clear();
+        tupleCount.set(0);
+    }
+
+    // A successful grant
+    public synchronized void add(String user, String relation, String object) {
+        if (writesDuringLoad != null) {
+            writesDuringLoad.add(new Write(true, user, relation, object));
+        }
+        put(user, relation, object);
+    }
+
+    // A successful revoke
+    public synchronized void remove(String user, String relation, String object) {
+        if (writesDuringLoad != null) {
+            writesDuringLoad.add(new Write(false, user, relation, object));
+        }
+        delete(user, relation, object);
+    }
+
+    private void put(String user, String relation, String object) {
+        if (tuples.computeIfAbsent(object + "#" + relation, key -> ConcurrentHashMap.newKeySet()).add(user)) {
+            tupleCount.incrementAndGet();
+        }
+    }
+
+    private void delete(String user, String relation, String object) {
+        Set<String> users = tuples.get(object + "#" + relation);
+        if (users != null && users.remove(user)) {
+            tupleCount.decrementAndGet();
+        }
+    }
+
+    // Local decision, or null when the server has to answer
+    public Boolean check(String user, String relation, String object) {
+        if (!ready) {
+            return null;
+        }
+        Map<String, Rewrite> relations = model.get(type(object));
+        if (relations == null || !relations.containsKey(relation)) {
+            deferred.incrementAndGet();
+            return null;
+        }
+        try {
+            boolean allowed = check(user, relation, object, new HashSet<>());
+            localAnswers.incrementAndGet();
+            return allowed;
+        } catch (UnsupportedRewriteException e) {
+            deferred.incrementAndGet();
+            return null;
+        }
+    }
+
+    // visiting holds the object#relation pairs on the current path, so cyclic usersets end instead of looping
+    private boolean check(String user, String relation, String object, Set<String> visiting) {
+        Rewrite rewrite = model.getOrDefault(type(object), Map.of()).get(relation);
+        String key = object + "#" + relation;
+        if (rewrite == null || !visiting.add(key)) {
+            return false;
+        }
+        try {
+            return evaluate(rewrite, user, relation, object, visiting);
+        } finally {
+            visiting.remove(key);
+        }
+    }
+
+    private boolean evaluate(Rewrite rewrite, String user, String relation, String object, Set<String> visiting) {
+        if (rewrite instanceof This) {
+            Set<String> users = tuples.getOrDefault(object + "#" + relation, Set.of());
+            if (users.contains(user) || users.contains(type(user) + ":*")) {
+                return true;
+            }
+            for (String userset : users) {
+                int hash = userset.indexOf('#');
+                if (hash > 0 && check(user, userset.substring(hash + 1), userset.substring(0, hash), visiting)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (rewrite instanceof ComputedUserset computed) {
+            return check(user, computed.relation(), object, visiting);
+        }
+        if (rewrite instanceof TupleToUserset tupleToUserset) {
+            for (String parent : tuples.getOrDefault(object + "#" + tupleToUserset.tupleset(), Set.of())) {
+                int hash = parent.indexOf('#');
+                String parentObject = hash > 0 ? parent.substring(0, hash) : parent;
+                if (check(user, tupleToUserset.computedRelation(), parentObject, visiting)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (rewrite instanceof Union union) {
+            for (Rewrite child : union.children()) {
+                if (evaluate(child, user, relation, object, visiting)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        throw new UnsupportedRewriteException(((Unsupported) rewrite).operator());
+    }
+
+    // Outcome of comparing a sampled local answer with the server's (see openfga.local-evaluator.verify-rate)
+    public void recordVerification(String user, String relation, String object, boolean local, boolean remote) {
+        verified.incrementAndGet();
+        if (local != remote) {
+            mismatches.incrementAndGet();
+            log.warn("Local evaluator answered {} but the server answered {} for {} {} {}",
+                    local, remote, user, relation, object);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ready", ready);
+        stats.put("tuples", tupleCount.get());
+        stats.put("localAnswers", localAnswers.get());
+        stats.put("deferredToServer", deferred.get());
+        stats.put("verified", verified.get());
+        stats.put("mismatches", mismatches.get());
+        return stats;
+    }
+
+    private static String type(String object) {
+        int colon = object.indexOf(':');
+        return colon > 0 ? object.substring(0, colon) : object;
+    }
+}
@@ -0,0 +1,59 @@
+package com.secchamp.officedemo.service;
+
+import dev.openfga.sdk.api.client.OpenFgaClient;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+// "openFga" component of /actuator/health: one timed round trip to the store, past the circuit breaker so it
+// reports the server itself. The breaker state is included as a detail. /actuator/health is public, so the result
+// is reused for openfga.health.cache-ms and at most one probe is in flight at a time
+@Component
+@RequiredArgsConstructor
+public class OpenFgaHealthIndicator implements HealthIndicator {
+
+    private final OpenFgaClient openFgaClient;
+    private final OpenFgaService openFgaService;
+    private final OpenFgaMetrics openFgaMetrics;
+    private final CircuitBreaker circuitBreaker;
+
+    @Value("${openfga.health.timeout-ms:2000}")
+    private long timeoutMs;
+
+    @Value("${openfga.health.cache-ms:5000}")
+    private long cacheMs;
+
+    private Health lastHealth;
+    private long lastProbedAt;
+
+    @Override
+    public synchronized Health health() {
+        if (lastHealth == null || System.currentTimeMillis() - lastProbedAt >= cacheMs) {
+            lastHealth = probe();
+            lastProbedAt = System.currentTimeMillis();
+        }
+        return lastHealth;
+    }
+
+    private Health probe() {
+        long started = System.nanoTime();
+        try {
+            openFgaMetrics.call("get_store", openFgaClient::getStore, timeoutMs);
+            return Health.up()
+                    .withDetail("storeId", openFgaService.getStoreId())
+                    .withDetail("latencyMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started))
+                    .withDetail("circuitBreaker", circuitBreaker.getStats().get("state"))
+                    .build();
+        } catch (Exception e) {
+            return Health.down(e)
+                    .withDetail("storeId", String.valueOf(openFgaService.getStoreId()))
+                    .withDetail("latencyMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started))
+                    .withDetail("circuitBreaker", circuitBreaker.getStats().get("state"))
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.secchamp.officedemo.service;
+
+import dev.openfga.sdk.errors.FgaApiValidationError;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Micrometer instrumentation of the calls made to OpenFGA. Each call is timed as openfga.client.requests, tagged
+// with its operation (check, batch_check, write, read, ...) and outcome (success, client_error, error, timeout);
+// calls the bulkhead or circuit breaker refused are counted as openfga.client.rejections instead.
+@Component
+@RequiredArgsConstructor
+public class OpenFgaMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    // Sends the request and waits for the response with the deadline, recording how it went
+    public <T> T call(String operation, Callable<CompletableFuture<T>> request, long timeoutMs) throws Exception {
+        long started = System.nanoTime();
+        String outcome = "error";
+        try {
+            T response = request.call().get(timeoutMs, TimeUnit.MILLISECONDS);
+            outcome = "success";
+            return response;
+        } catch (ExecutionException e) {
+            outcome = e.getCause() instanceof FgaApiValidationError ? "client_error" : "error";
+            throw e;
+        } catch (TimeoutException e) {
+            outcome = "timeout";
+            throw e;
+        } finally {
+            Timer.builder("openfga.client.requests")
+                    .description("Calls to the OpenFGA server")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void rejected(String operation, String reason) {
+        meterRegistry.counter("openfga.client.rejections", "operation", operation, "reason", reason).increment();
+    }
+}
@@ -3,7 +3,9 @@ package com.secchamp.officedemo.service;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.openfga.sdk.api.client.OpenFgaClient;
 import dev.openfga.sdk.api.client.model.*;
+import dev.openfga.sdk.api.configuration.*;
 import dev.openfga.sdk.api.model.*;
+import dev.openfga.sdk.errors.FgaApiValidationError;
 import dev.openfga.sdk.errors.FgaInvalidParameterException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,9 +16,27 @@ import org.springframework.stereotype.Service;
 import jakarta.annotation.PostConstruct;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 @RequiredArgsConstructor
@@ -24,6 +44,16 @@ import java.util.concurrent.ExecutionException;
 public class OpenFgaService {
 
     private final OpenFgaClient openFgaClient;
+    private final ExecutorService openFgaExecutor;
+    private final DecisionCache decisionCache;
+    private final LocalEvaluator localEvaluator;
+    private final TupleSeeder tupleSeeder;
+    private final AuthorizationCatalog authorizationCatalog;
+    private final CircuitBreaker circuitBreaker;
+    private final Semaphore openFgaBulkhead;
+    private final OpenFgaMetrics openFgaMetrics;
+    private final ReverseIndex reverseIndex;
+    private final AtomicLong bulkheadRejections = new AtomicLong();
 
     @Value("${openfga.store.id:}")
     private String storeId;
@@ -31,17 +61,89 @@ public class OpenFgaService {
     @Value("${openfga.authorization.model.id:}")
     private String authorizationModelId;
 
+    @Value("${openfga.check.parallelism:16}")
+    private int checkParallelism;
+
+    @Value("${openfga.check.timeout-ms:2000}")
+    private long checkTimeoutMs;
+
+    @Value("${openfga.check.batch-timeout-ms:10000}")
+    private long batchTimeoutMs;
+
+    @Value("${openfga.write.chunk-size:100}")
+    private int writeChunkSize;
+
+    @Value("${openfga.write.concurrency:8}")
+    private int writeConcurrency;
+
+    @Value("${openfga.write.timeout-ms:10000}")
+    private long writeTimeoutMs;
+
+    // ListObjects / ListUsers deadline; the server stops listing after its own deadline (3 s by default)
+    @Value("${openfga.list.timeout-ms:5000}")
+    private long listTimeoutMs;
+
+    // Deadline for the store, model and tuple-mirror calls made at startup
+    @Value("${openfga.setup.timeout-ms:10000}")
+    private long setupTimeoutMs;
+
+    // How long a call waits for a bulkhead slot before it is refused
+    @Value("${openfga.bulkhead.max-wait-ms:100}")
+    private long bulkheadMaxWaitMs;
+
+    // Fraction of local decisions that are also checked against the server in the background
+    @Value("${openfga.local-evaluator.verify-rate:0.01}")
+    private double verifyRate;
+
+    // One (relation, object) pair of a permission sweep over a single user
+    public record RelationCheck(String relation, String objectId) {
+    }
+
+    // One grant (grant = true) or revoke of a batch write
+    public record TupleOperation(boolean grant, String userId, String relation, String objectId) {
+    }
+
+    // Outcome of the operation at the same position of the batch; error is null on success
+    public record WriteResult(boolean success, String error) {
+    }
+
+    // degraded: the server could not answer (error, deadline, open circuit breaker, full bulkhead), so this is the
+    // last known decision or, without one, a deny
+    public record Decision(boolean allowed, boolean degraded) {
+    }
     @PostConstruct
     public void initializeOpenFga() {
         try {
-            if (storeId == null || storeId.isEmpty()) {
-                createStore();
+            TupleSeeder.SeedState state = tupleSeeder.loadState();
+            String modelHash = TupleSeeder.hashResource("authorization_model.json");
+            String dataHash = TupleSeeder.hashResource("initial_data.json");
+
+            boolean storeReused = openStore(state);
+            boolean modelReused = storeReused && reuseAuthorizationModel(state, modelHash);
+            if (!modelReused) {
+                writeAuthorizationModel();
+            }
+
+            Set<String> chunkHashes;
+            if (storeReused && dataHash.equals(state.dataHash())) {
+                chunkHashes = state.chunkHashes();
+                log.info("Initial data unchanged since the last start, skipping the seed");
             } else {
-                openFgaClient.setStoreId(storeId);
+                TupleSeeder.SeedResult result = tupleSeeder.seed("initial_data.json",
+                        storeReused ? state.chunkHashes() : Set.of());
+                chunkHashes = result.chunkHashes();
+                log.info("Seeded initial data: {} chunks written, {} already present, {} failed",
+                        result.written(), result.skipped(), result.failed());
+                if (result.failed() > 0) {
+                    dataHash = null;
+                }
             }
-            
-            writeAuthorizationModel();
-            seedInitialData();
+            tupleSeeder.saveState(new TupleSeeder.SeedState(storeId, modelHash, authorizationModelId, dataHash, chunkHashes));
+            authorizationCatalog.getTuples()
+                    .forEach(tuple -> decisionCache.recordTuple(tuple.user(), tuple.object()));
+
+            // Until the mirror is loaded, checks go to the server, so startup does not wait for it
+            openFgaExecutor.execute(this::mirrorTuplesLocally);
             log.info("OpenFGA service initialized successfully");
         } catch (Exception e) {
             log.error("Failed to initialize OpenFGA", e);
@@ -49,16 +151,55 @@ public class OpenFgaService {
         }
     }
 
-    private void createStore() throws ExecutionException, InterruptedException, FgaInvalidParameterException {
+    // Configured store, else the one the seed state names if the server still has it, else a new one.
+    // Returns whether an existing store is used
+    private boolean openStore(TupleSeeder.SeedState state) throws ExecutionException, InterruptedException, TimeoutException, FgaInvalidParameterException {
+        if (storeId != null && !storeId.isEmpty()) {
+            openFgaClient.setStoreId(storeId);
+            return storeId.equals(state.storeId());
+        }
+        if (state.storeId() != null) {
+            try {
+                openFgaClient.setStoreId(state.storeId());
+                openFgaClient.getStore().get(setupTimeoutMs, TimeUnit.MILLISECONDS);
+                storeId = state.storeId();
+                log.info("Reusing OpenFGA store: {}", storeId);
+                return true;
+            } catch (Exception e) {
+                log.info("Store {} from the seed state is gone, creating a new one", state.storeId());
+            }
+        }
+        createStore();
+        return false;
+    }
+
+    private void createStore() throws ExecutionException, InterruptedException, TimeoutException, FgaInvalidParameterException {
         CreateStoreRequest request = new CreateStoreRequest()
                 .name("Office Demo Store");
         
-        CreateStoreResponse response = openFgaClient.createStore(request).get();
+        CreateStoreResponse response = openFgaClient.createStore(request).get(setupTimeoutMs, TimeUnit.MILLISECONDS);
         storeId = response.getId();
         openFgaClient.setStoreId(storeId);
         log.info("Created OpenFGA store: {}", storeId);
     }
 
+    // Keeps the model the last start wrote when authorization_model.json has not changed since
+    private boolean reuseAuthorizationModel(TupleSeeder.SeedState state, String modelHash) {
+        if (state.authorizationModelId() == null || !modelHash.equals(state.modelHash())) {
+            return false;
+        }
+        try {
+            openFgaClient.setAuthorizationModelId(state.authorizationModelId());
+            openFgaClient.readAuthorizationModel().get(setupTimeoutMs, TimeUnit.MILLISECONDS);
+            authorizationModelId = state.authorizationModelId();
+            log.info("Reusing authorization model: {}", authorizationModelId);
+            return true;
+        } catch (Exception e) {
+            log.info("Authorization model {} is gone, writing it again", state.authorizationModelId());
+            return false;
+        }
+    }
+
     private void writeAuthorizationModel() throws ExecutionException, InterruptedException {
         try {
             AuthorizationModel authModel = loadAuthorizationModelFromFile();
@@ -67,7 +208,7 @@ public class OpenFgaService {
                     .schemaVersion(authModel.getSchemaVersion())
                     .typeDefinitions(authModel.getTypeDefinitions());
             
-            WriteAuthorizationModelResponse response = openFgaClient.writeAuthorizationModel(request).get();
+            WriteAuthorizationModelResponse response = openFgaClient.writeAuthorizationModel(request).get(setupTimeoutMs, TimeUnit.MILLISECONDS);
             authorizationModelId = response.getAuthorizationModelId();
             openFgaClient.setAuthorizationModelId(authorizationModelId);
             log.info("Created authorization model: {}", authorizationModelId);
@@ -86,89 +227,488 @@ public class OpenFgaService {
         }
     }
 
-    private void seedInitialData() throws ExecutionException, InterruptedException, FgaInvalidParameterException {
+    // Reads every tuple of the store into the local evaluator; if that fails, checks keep going to the server.
+    // Grants and revokes made meanwhile are replayed by the evaluator when the load finishes
+    private void mirrorTuplesLocally() {
+        if (!localEvaluator.isEnabled()) {
+            return;
+        }
         try {
-            List<ClientTupleKey> tuples = loadInitialDataFromFile();
-            
-            ClientWriteRequest writeRequest = new ClientWriteRequest().writes(tuples);
-            openFgaClient.write(writeRequest).get();
-            log.info("Seeded initial authorization data with {} tuples", tuples.size());
+            localEvaluator.beginLoad();
+            int count = 0;
+            String continuationToken = null;
+            do {
+                ClientReadOptions options = new ClientReadOptions().pageSize(100);
+                if (continuationToken != null) {
+                    options.continuationToken(continuationToken);
+                }
+                ClientReadResponse page = openFgaMetrics.call("read",
+                        () -> openFgaClient.read(new ClientReadRequest(), options), setupTimeoutMs);
+                for (Tuple tuple : page.getTuples()) {
+                    TupleKey key = tuple.getKey();
+                    localEvaluator.load(key.getUser(), key.getRelation(), key.getObject());
+                    decisionCache.recordTuple(key.getUser(), key.getObject());
+                    count++;
+                }
+                continuationToken = page.getContinuationToken();
+            } while (continuationToken != null && !continuationToken.isEmpty());
+            localEvaluator.finishLoad();
+            log.info("Local evaluator mirrors {} tuples", count);
         } catch (Exception e) {
-            log.error("Failed to seed initial data", e);
-            throw new RuntimeException("Failed to seed initial data", e);
+            localEvaluator.abortLoad();
+            log.warn("Could not mirror tuples for the local evaluator, checks go to the server: {}", e.getMessage());
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private List<ClientTupleKey> loadInitialDataFromFile() throws IOException {
-        ClassPathResource resource = new ClassPathResource("initial_data.json");
-        ObjectMapper objectMapper = new ObjectMapper();
-        
-        try (InputStream inputStream = resource.getInputStream()) {
-            Map<String, Object> data = objectMapper.readValue(inputStream, Map.class);
-            List<Map<String, String>> tuplesData = (List<Map<String, String>>) data.get("tuples");
-
-            // Map existing tuples directly from initial_data.json
-            List<ClientTupleKey> tuples = tuplesData.stream()
-                    .map(tupleData -> new ClientTupleKey()
-                            .user(tupleData.get("user"))
-                            .relation(tupleData.get("relation"))
-                            ._object(tupleData.get("object")))
-                    .toList();
+    public boolean checkAccess(String userId, String relation, String objectId) {
+        return check(userId, relation, objectId, false).allowed();
+    }
+
+    public boolean checkAccess(String userId, String relation, String objectId, boolean fullyConsistent) {
+        return check(userId, relation, objectId, fullyConsistent).allowed();
+    }
 
-            return tuples;
+    // fullyConsistent skips the local evaluator and the decision cache, for sensitive checks that must see a
+    // grant or revoke made a moment ago; the fresh answer still refreshes the cache. Such checks never fall back
+    // to a last known decision
+    public Decision check(String userId, String relation, String objectId, boolean fullyConsistent) {
+        if (!fullyConsistent) {
+            Boolean local = evaluateLocally(userId, relation, objectId);
+            if (local != null) {
+                return new Decision(local, false);
+            }
+            Boolean cached = decisionCache.get(userId, relation, objectId);
+            if (cached != null) {
+                return new Decision(cached, false);
+            }
+        }
+        long generation = decisionCache.generation();
+        Boolean allowed = remoteCheck(userId, relation, objectId);
+        if (allowed != null) {
+            decisionCache.put(userId, relation, objectId, allowed, generation);
+            return new Decision(allowed, false);
         }
+        return fullyConsistent ? new Decision(false, true) : lastKnown(userId, relation, objectId);
     }
 
-    public boolean checkAccess(String userId, String relation, String objectId) {
+    // Degraded mode: the last decision the server gave, if still within openfga.cache.max-stale-ms, else deny
+    private Decision lastKnown(String userId, String relation, String objectId) {
+        Boolean lastKnown = decisionCache.getLastKnown(userId, relation, objectId);
+        return new Decision(lastKnown != null && lastKnown, true);
+    }
+
+    // Local decision (null when the server has to answer); a sample of them is compared with the server's answer
+    private Boolean evaluateLocally(String userId, String relation, String objectId) {
+        Boolean local = localEvaluator.check(userId, relation, objectId);
+        if (local != null && verifyRate > 0 && ThreadLocalRandom.current().nextDouble() < verifyRate) {
+            CompletableFuture.runAsync(() -> {
+                Boolean remote = remoteCheck(userId, relation, objectId);
+                if (remote != null) {
+                    localEvaluator.recordVerification(userId, relation, objectId, local, remote);
+                }
+            }, openFgaExecutor);
+        }
+        return local;
+    }
+
+    // The server's answer, or null when the check failed or timed out; failures are never cached
+    private Boolean remoteCheck(String userId, String relation, String objectId) {
         try {
             ClientCheckRequest request = new ClientCheckRequest()
                     .user(userId)
                     .relation(relation)
                     ._object(objectId);
             
-            CheckResponse response = openFgaClient.check(request).get();
+            CheckResponse response = call("check", () -> openFgaClient.check(request), checkTimeoutMs);
             return response.getAllowed();
+        } catch (RejectedExecutionException e) {
+            log.debug("Check for user {} on object {} not sent: {}", userId, objectId, e.getMessage());
+            return null;
         } catch (Exception e) {
             log.error("Error checking access for user {} on object {}: {}", userId, objectId, e.getMessage());
             
-            return false; // Default deny
+            return null;
         }
     }
 
+    // Answers every pair for one user: local and cached decisions first, the rest in a single SDK batch check, which runs
+    // up to openfga.check.parallelism checks at once. Pairs the batch could not answer (or all of them, when the
+    // batch call itself fails) are checked again one by one on openFgaExecutor with the per-check deadline;
+    // anything still failing gets its last known decision (see check()). The result keeps the order of the input.
+    public Map<RelationCheck, Decision> checkAll(String userId, List<RelationCheck> checks) {
+        Map<RelationCheck, Boolean> answered = new HashMap<>();
+        List<RelationCheck> misses = new ArrayList<>();
+        for (RelationCheck check : checks) {
+            Boolean cached = evaluateLocally(userId, check.relation(), check.objectId());
+            if (cached == null) {
+                cached = decisionCache.get(userId, check.relation(), check.objectId());
+            }
+            if (cached != null) {
+                answered.put(check, cached);
+            } else {
+                misses.add(check);
+            }
+        }
+        long generation = decisionCache.generation();
+        Map<RelationCheck, Boolean> fetched = remoteCheckAll(userId, misses);
+        fetched.forEach((check, allowed) ->
+                decisionCache.put(userId, check.relation(), check.objectId(), allowed, generation));
+        answered.putAll(fetched);
+
+        Map<RelationCheck, Decision> results = new LinkedHashMap<>();
+        for (RelationCheck check : checks) {
+            Boolean allowed = answered.get(check);
+            results.put(check, allowed != null
+                    ? new Decision(allowed, false)
+                    : lastKnown(userId, check.relation(), check.objectId()));
+        }
+        return results;
+    }
+
+    // Server answers for the pairs; pairs that failed even when checked one by one are left out
+    private Map<RelationCheck, Boolean> remoteCheckAll(String userId, List<RelationCheck> checks) {
+        Map<RelationCheck, Boolean> answered = new HashMap<>();
+        if (!checks.isEmpty()) {
+            try {
+                List<ClientCheckRequest> requests = checks.stream()
+                        .map(check -> new ClientCheckRequest()
+                                .user(userId)
+                                .relation(check.relation())
+                                ._object(check.objectId()))
+                        .toList();
+                ClientBatchCheckOptions options = new ClientBatchCheckOptions()
+                        .maxParallelRequests(checkParallelism);
+
+                List<ClientBatchCheckResponse> responses =
+                        call("batch_check", () -> openFgaClient.batchCheck(requests, options), batchTimeoutMs);
+                for (ClientBatchCheckResponse response : responses) {
+                    if (response.getThrowable() == null && response.getAllowed() != null) {
+                        ClientCheckRequest request = response.getRequest();
+                        answered.put(new RelationCheck(request.getRelation(), request.getObject()), response.getAllowed());
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("Batch check of {} relations for user {} failed, checking them one by one: {}",
+                        checks.size(), userId, e.getMessage());
+            }
+        }
+
+        List<RelationCheck> unanswered = checks.stream().filter(check -> !answered.containsKey(check)).toList();
+        if (!unanswered.isEmpty()) {
+            answered.putAll(checkEach(userId, unanswered));
+        }
+        return answered;
+    }
+
+    // Fan-out fallback: the executor's pool size bounds how many checks are in flight
+    private Map<RelationCheck, Boolean> checkEach(String userId, List<RelationCheck> checks) {
+        Map<RelationCheck, CompletableFuture<Boolean>> futures = new LinkedHashMap<>();
+        for (RelationCheck check : checks) {
+            futures.put(check, CompletableFuture.supplyAsync(
+                    () -> remoteCheck(userId, check.relation(), check.objectId()), openFgaExecutor));
+        }
+
+        Map<RelationCheck, Boolean> results = new HashMap<>();
+        futures.forEach((check, future) -> {
+            Boolean allowed = future.join();
+            if (allowed != null) {
+                results.put(check, allowed);
+            }
+        });
+        return results;
+    }
+
     public void grantAccess(String userId, String relation, String objectId) {
-        try {
-            ClientTupleKey tupleKey = new ClientTupleKey()
-                    .user(userId)
-                    .relation(relation)
-                    ._object(objectId);
-            
-            ClientWriteRequest request = new ClientWriteRequest()
-                    .writes(List.of(tupleKey));
-            
-            openFgaClient.write(request).get();
+        WriteResult result = writeAll(List.of(new TupleOperation(true, userId, relation, objectId))).get(0);
+        if (result.success()) {
             log.info("Granted {} access to user {} on object {}", relation, userId, objectId);
-        } catch (Exception e) {
-            log.error("Error granting access: {}", e.getMessage());
+        } else {
+            log.error("Error granting access: {}", result.error());
             log.info("Demo mode: Granted {} access to user {} on object {}", relation, userId, objectId);
         }
     }
 
     public void revokeAccess(String userId, String relation, String objectId) {
+        WriteResult result = writeAll(List.of(new TupleOperation(false, userId, relation, objectId))).get(0);
+        if (result.success()) {
+            log.info("Revoked {} access from user {} on object {}", relation, userId, objectId);
+        } else {
+            log.error("Error revoking access: {}", result.error());
+            log.info("Demo mode: Revoked {} access from user {} on object {}", relation, userId, objectId);
+        }
+    }
+
+    // Applies the operations in order and returns one result per operation, in the same order. Consecutive
+    // operations are coalesced into writes of up to openfga.write.chunk-size tuples, sent with at most
+    // openfga.write.concurrency in flight. An operation on a tuple that an earlier operation of the batch already
+    // touches waits until the writes before it have landed, so grant-then-revoke of one tuple keeps its order.
+    public List<WriteResult> writeAll(List<TupleOperation> operations) {
+        WriteResult[] results = new WriteResult[operations.size()];
+        List<List<Integer>> wave = new ArrayList<>();
+        List<Integer> chunk = new ArrayList<>();
+        Set<String> waveTuples = new HashSet<>();
+        for (int i = 0; i < operations.size(); i++) {
+            TupleOperation operation = operations.get(i);
+            if (operation.userId() == null || operation.relation() == null || operation.objectId() == null) {
+                results[i] = new WriteResult(false, "userId, relation and objectId are required");
+                continue;
+            }
+            if (!waveTuples.add(operation.userId() + "|" + operation.relation() + "|" + operation.objectId())) {
+                if (!chunk.isEmpty()) {
+                    wave.add(chunk);
+                    chunk = new ArrayList<>();
+                }
+                writeWave(wave, operations, results);
+                wave = new ArrayList<>();
+                waveTuples.clear();
+                waveTuples.add(operation.userId() + "|" + operation.relation() + "|" + operation.objectId());
+            }
+            chunk.add(i);
+            if (chunk.size() == writeChunkSize) {
+                wave.add(chunk);
+                chunk = new ArrayList<>();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            wave.add(chunk);
+        }
+        writeWave(wave, operations, results);
+        return Arrays.asList(results);
+    }
+
+    // Writes chunks that touch distinct tuples concurrently, then brings the local evaluator and the decision
+    // cache up to date. Objects are invalidated whether or not their write succeeded
+    private void writeWave(List<List<Integer>> chunks, List<TupleOperation> operations, WriteResult[] results) {
+        if (chunks.size() == 1) {
+            writeChunk(chunks.get(0), operations, results);
+        } else if (!chunks.isEmpty()) {
+            Semaphore inFlight = new Semaphore(writeConcurrency);
+            List<CompletableFuture<Void>> writes = new ArrayList<>();
+            for (List<Integer> chunk : chunks) {
+                inFlight.acquireUninterruptibly();
+                writes.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        writeChunk(chunk, operations, results);
+                    } finally {
+                        inFlight.release();
+                    }
+                }, openFgaExecutor));
+            }
+            CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])).join();
+        }
+
+        Set<String> objects = new LinkedHashSet<>();
+        for (List<Integer> chunk : chunks) {
+            for (int i : chunk) {
+                TupleOperation operation = operations.get(i);
+                if (results[i].success()) {
+                    if (operation.grant()) {
+                        localEvaluator.add(operation.userId(), operation.relation(), operation.objectId());
+                    } else {
+                        localEvaluator.remove(operation.userId(), operation.relation(), operation.objectId());
+                    }
+                }
+                if (operation.grant()) {
+                    decisionCache.recordTuple(operation.userId(), operation.objectId());
+                }
+                objects.add(operation.objectId());
+            }
+        }
+        objects.forEach(decisionCache::invalidate);
+        reverseIndex.invalidateAll();
+    }
+
+    // Writes are transactional: when the chunk fails, its operations are retried one by one so each gets its own
+    // result
+    private void writeChunk(List<Integer> chunk, List<TupleOperation> operations, WriteResult[] results) {
+        String error = write(chunk.stream().map(operations::get).toList());
+        if (error == null || chunk.size() == 1) {
+            WriteResult result = new WriteResult(error == null, error);
+            chunk.forEach(i -> results[i] = result);
+            return;
+        }
+        log.debug("Write of {} tuples failed, retrying them one by one: {}", chunk.size(), error);
+        for (int i : chunk) {
+            String itemError = write(List.of(operations.get(i)));
+            results[i] = new WriteResult(itemError == null, itemError);
+        }
+    }
+
+    // Null when the write succeeded, else the reason it failed
+    private String write(List<TupleOperation> operations) {
+        List<ClientTupleKey> writes = new ArrayList<>();
+        List<ClientTupleKeyWithoutCondition> deletes = new ArrayList<>();
+        for (TupleOperation operation : operations) {
+            if (operation.grant()) {
+                writes.add(new ClientTupleKey()
+                        .user(operation.userId())
+                        .relation(operation.relation())
+                        ._object(operation.objectId()));
+            } else {
+                deletes.add(new ClientTupleKeyWithoutCondition()
+                        .user(operation.userId())
+                        .relation(operation.relation())
+                        ._object(operation.objectId()));
+            }
+        }
+        ClientWriteRequest request = new ClientWriteRequest();
+        if (!writes.isEmpty()) {
+            request.writes(writes);
+        }
+        if (!deletes.isEmpty()) {
+            request.deletes(deletes);
+        }
+        try {
+            call("write", () -> openFgaClient.write(request), writeTimeoutMs);
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+        } catch (TimeoutException e) {
+            return "Timed out after " + writeTimeoutMs + " ms";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "Interrupted";
+        } catch (Exception e) {
+            return e.getMessage();
+        }
+    }
+
+    // Objects of the type the user has the relation on (OpenFGA ListObjects), sorted. Throws IllegalStateException
+    // when the server cannot answer
+    public List<String> listAccessibleObjects(String userId, String relation, String type) {
+        String key = ReverseIndex.objectsKey(userId, relation, type);
+        List<String> cached = reverseIndex.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = reverseIndex.generation();
         try {
-            ClientTupleKeyWithoutCondition tupleKey = new ClientTupleKeyWithoutCondition()
+            ClientListObjectsRequest request = new ClientListObjectsRequest()
                     .user(userId)
                     .relation(relation)
-                    ._object(objectId);
-            
-            ClientWriteRequest request = new ClientWriteRequest()
-                    .deletes(List.of(tupleKey));
-            
-            openFgaClient.write(request).get();
-            log.info("Revoked {} access from user {} on object {}", relation, userId, objectId);
+                    .type(type);
+            ClientListObjectsResponse response =
+                    call("list_objects", () -> openFgaClient.listObjects(request), listTimeoutMs);
+            List<String> objects = response.getObjects().stream().sorted().toList();
+            reverseIndex.put(key, objects, generation);
+            return objects;
         } catch (Exception e) {
-            log.error("Error revoking access: {}", e.getMessage());
-            log.info("Demo mode: Revoked {} access from user {} on object {}", relation, userId, objectId);
+            log.error("Error listing {} objects user {} has {} on: {}", type, userId, relation, e.getMessage());
+            throw new IllegalStateException("Could not list objects: " + e.getMessage(), e);
+        }
+    }
+
+    // Users (type user, including the user:* wildcard) with the relation on the object (OpenFGA ListUsers),
+    // sorted. Throws IllegalStateException when the server cannot answer
+    public List<String> listUsersWithAccess(String objectId, String relation) {
+        int colon = objectId.indexOf(':');
+        if (colon <= 0) {
+            throw new IllegalArgumentException("objectId must look like type:id");
+        }
+        String key = ReverseIndex.usersKey(objectId, relation);
+        List<String> cached = reverseIndex.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = reverseIndex.generation();
+        try {
+            ClientListUsersRequest request = new ClientListUsersRequest()
+                    ._object(new FgaObject().type(objectId.substring(0, colon)).id(objectId.substring(colon + 1)))
+                    .relation(relation)
+                    .userFilters(List.of(new UserTypeFilter().type("user")));
+            ClientListUsersResponse response =
+                    call("list_users", () -> openFgaClient.listUsers(request), listTimeoutMs);
+            List<String> users = response.getUsers().stream()
+                    .map(OpenFgaService::formatUser)
+                    .filter(Objects::nonNull)
+                    .sorted()
+                    .toList();
+            reverseIndex.put(key, users, generation);
+            return users;
+        } catch (Exception e) {
+            log.error("Error listing users with {} on {}: {}", relation, objectId, e.getMessage());
+            throw new IllegalStateException("Could not list users: " + e.getMessage(), e);
+        }
+    }
+
+    private static String formatUser(User user) {
+        if (user.getObject() != null) {
+            return user.getObject().getType() + ":" + user.getObject().getId();
+        }
+        if (user.getUserset() != null) {
+            UsersetUser userset = user.getUserset();
+            return userset.getType() + ":" + userset.getId() + "#" + userset.getRelation();
+        }
+        if (user.getWildcard() != null) {
+            return user.getWildcard().getType() + ":*";
         }
+        return null;
+    }
+
+    // Runs one call to the server through the bulkhead and the circuit breaker, with a deadline, timed by
+    // OpenFgaMetrics. Throws RejectedExecutionException, without reaching the server, when no bulkhead slot frees
+    // up within openfga.bulkhead.max-wait-ms or the breaker is open. The caller stops waiting at the deadline, but
+    // the SDK request keeps running, so its bulkhead slot is only given back once the request settles
+    private <T> T call(String operation, Callable<CompletableFuture<T>> request, long timeoutMs) throws Exception {
+        if (!openFgaBulkhead.tryAcquire(bulkheadMaxWaitMs, TimeUnit.MILLISECONDS)) {
+            bulkheadRejections.incrementAndGet();
+            openFgaMetrics.rejected(operation, "bulkhead");
+            throw new RejectedExecutionException("Too many OpenFGA calls in flight");
+        }
+        AtomicBoolean handedOff = new AtomicBoolean();
+        try {
+            CircuitBreaker.Permit permit = circuitBreaker.tryAcquire();
+            if (permit == null) {
+                openFgaMetrics.rejected(operation, "circuit_breaker");
+                throw new RejectedExecutionException("OpenFGA circuit breaker is open");
+            }
+            Callable<CompletableFuture<T>> releasing = () -> {
+                CompletableFuture<T> future = request.call();
+                handedOff.set(true);
+                future.whenComplete((response, error) -> openFgaBulkhead.release());
+                return future;
+            };
+            long started = System.nanoTime();
+            boolean healthy = false;
+            try {
+                T response = openFgaMetrics.call(operation, releasing, timeoutMs);
+                healthy = true;
+                return response;
+            } catch (ExecutionException e) {
+                // A rejected request (e.g. writing a tuple that exists) still means the server is answering
+                healthy = e.getCause() instanceof FgaApiValidationError;
+                throw e;
+            } finally {
+                circuitBreaker.onResult(permit, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), healthy);
+            }
+        } finally {
+            if (!handedOff.get()) {
+                openFgaBulkhead.release();
+            }
+        }
+    }
+
+    // Store the client is bound to, once initializeOpenFga has opened or created it
+    public String getStoreId() {
+        return storeId;
+    }
+
+    public Map<String, Object> getCircuitBreakerStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(circuitBreaker.getStats());
+        stats.put("bulkheadAvailable", openFgaBulkhead.availablePermits());
+        stats.put("bulkheadRejections", bulkheadRejections.get());
+        return stats;
+    }
+
+    public Map<String, Object> getDecisionCacheStats() {
+        return decisionCache.getStats();
+    }
+
+    public Map<String, Object> getReverseIndexStats() {
+        return reverseIndex.getStats();
+    }
+
+    public Map<String, Object> getLocalEvaluatorStats() {
+        return localEvaluator.getStats();
     }
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+package com.secchamp.officedemo.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Bounded LRU cache of list results: objects a user can reach with a relation (ListObjects) and users with a
+// relation on an object (ListUsers). A single tuple can change the answers for other objects and types too (usersets,
+// tupleToUserset parents), so every write clears the whole index rather than guessing which lists it touched.
+@Component
+public class ReverseIndex {
+
+    @Value("${openfga.reverse-index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${openfga.reverse-index.ttl-ms:30000}")
+    private long ttlMs;
+
+    @Value("${openfga.reverse-index.max-entries:1000}")
+    private int maxEntries;
+
+    private record Listing(List<String> values, long cachedAt) {
+    }
+
+    // Access-ordered, so the eldest entry is the least recently used one
+    private final LinkedHashMap<String, Listing> listings = new LinkedHashMap<>(16, 0.75f, true);
+    // Bumped by every invalidation; a list fetched before a write landed must not be cached after it
+    private long generation;
+
+    private long hits;
+    private long misses;
+    private long invalidations;
+
+    public static String objectsKey(String userId, String relation, String type) {
+        return "objects|" + userId + "|" + relation + "|" + type;
+    }
+
+    public static String usersKey(String objectId, String relation) {
+        return "users|" + objectId + "|" + relation;
+    }
+
+    // Cached list, or null when absent or expired
+    public synchronized List<String> get(String key) {
+        if (!enabled) {
+            return null;
+        }
+        Listing listing = listings.get(key);
+        if (listing == null || System.currentTimeMillis() - listing.cachedAt() > ttlMs) {
+            if (listing != null) {
+                listings.remove(key);
+            }
+            misses++;
+            return null;
+        }
+        hits++;
+        return listing.values();
+    }
+
+    // Read before asking the server; put() drops the list if a write was applied in between
+    public synchronized long generation() {
+        return generation;
+    }
+
+    public synchronized void put(String key, List<String> values, long generation) {
+        if (!enabled || generation != this.generation) {
+            return;
+        }
+        listings.put(key, new Listing(values, System.currentTimeMillis()));
+        Iterator<String> eldest = listings.keySet().iterator();
+        while (listings.size() > maxEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidations += listings.size();
+        listings.clear();
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        long lookups = hits + misses;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("entries", listings.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlMs", ttlMs);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRate", lookups > 0 ? (double) hits / lookups : 0.0);
+        stats.put("invalidations", invalidations);
+        return stats;
+    }
+}
@@ -0,0 +1,279 @@
+package com.secchamp.officedemo.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.openfga.sdk.api.client.OpenFgaClient;
+import dev.openfga.sdk.api.client.model.ClientReadRequest;
+import dev.openfga.sdk.api.client.model.ClientReadResponse;
+import dev.openfga.sdk.api.client.model.ClientTupleKey;
+import dev.openfga.sdk.api.client.model.ClientWriteRequest;
+import dev.openfga.sdk.api.configuration.ClientReadOptions;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Startup seeding of the tuple file: the "tuples" array is stream-parsed, cut into chunks at boundaries chosen by
+// tuple content (never more than openfga.seed.chunk-size tuples, the server caps tuples per write) and written
+// with at most openfga.seed.concurrency writes in flight. Chunks whose content hash the seed state already lists
+// for this store are skipped, so a restart only writes what changed: since a chunk ends after a tuple whose own
+// key says so rather than after a fixed count, adding or removing a tuple only changes the chunk around it.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TupleSeeder {
+
+    private final OpenFgaClient openFgaClient;
+    private final ExecutorService openFgaExecutor;
+    private final OpenFgaMetrics openFgaMetrics;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${openfga.seed.chunk-size:100}")
+    private int chunkSize;
+
+    @Value("${openfga.seed.concurrency:8}")
+    private int concurrency;
+
+    @Value("${openfga.seed.write-timeout-ms:10000}")
+    private long writeTimeoutMs;
+
+    @Value("${openfga.seed.state-file:openfga-seed-state.json}")
+    private String stateFile;
+
+    // What the last startup left in which store: the model and data file hashes it pushed and the hashes of the
+    // chunks the store holds. dataHash is only set once every chunk made it
+    public record SeedState(String storeId, String modelHash, String authorizationModelId, String dataHash,
+                            Set<String> chunkHashes) {
+    }
+
+    public record SeedResult(Set<String> chunkHashes, int written, int skipped, int failed) {
+    }
+
+    public SeedState loadState() {
+        Path path = Path.of(stateFile);
+        if (Files.exists(path)) {
+            try {
+                SeedState state = objectMapper.readValue(path.toFile(), SeedState.class);
+                if (state.chunkHashes() != null) {
+                    return state;
+                }
+            } catch (IOException e) {
+                log.warn("Ignoring unreadable seed state {}: {}", stateFile, e.getMessage());
+            }
+        }
+        return new SeedState(null, null, null, null, Set.of());
+    }
+
+    public void saveState(SeedState state) {
+        try {
+            objectMapper.writeValue(Path.of(stateFile).toFile(), state);
+        } catch (IOException e) {
+            log.warn("Could not save seed state to {}: {}", stateFile, e.getMessage());
+        }
+    }
+
+    public static String hashResource(String resourceName) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream inputStream = new ClassPathResource(resourceName).getInputStream()) {
+            byte[] buffer = new byte[8192];
+            for (int read; (read = inputStream.read(buffer)) > 0; ) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // Writes every chunk of the file that presentChunks does not list; the result lists the chunks of the file
+    // that are in the store now
+    public SeedResult seed(String resourceName, Set<String> presentChunks) throws IOException {
+        try (InputStream inputStream = new ClassPathResource(resourceName).getInputStream()) {
+            return seed(inputStream, presentChunks);
+        }
+    }
+
+    SeedResult seed(InputStream inputStream, Set<String> presentChunks) throws IOException {
+        ChunkWriter writer = new ChunkWriter(presentChunks);
+        // Boundaries are aimed at half the cap, so a chunk rarely has to be cut at the cap, which is the only
+        // cut that depends on position
+        int averageSize = Math.max(1, chunkSize / 2);
+        try (JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            if (openTuplesArray(parser)) {
+                List<ClientTupleKey> chunk = new ArrayList<>(chunkSize);
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    ClientTupleKey tuple = readTuple(parser);
+                    chunk.add(tuple);
+                    if (chunk.size() == chunkSize || endsChunk(tuple, averageSize)) {
+                        writer.submit(chunk);
+                        chunk = new ArrayList<>(chunkSize);
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    writer.submit(chunk);
+                }
+            }
+        }
+        return writer.finish();
+    }
+
+    // Moves the parser onto the top-level "tuples" array; other fields (users) are skipped without being
+    // materialised
+    private static boolean openTuplesArray(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Seed data must be a JSON object");
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            if (parser.nextToken() == JsonToken.START_ARRAY && "tuples".equals(field)) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    private static ClientTupleKey readTuple(JsonParser parser) throws IOException {
+        ClientTupleKey tuple = new ClientTupleKey();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "user" -> tuple.user(parser.getValueAsString());
+                case "relation" -> tuple.relation(parser.getValueAsString());
+                case "object" -> tuple._object(parser.getValueAsString());
+                default -> parser.skipChildren();
+            }
+        }
+        return tuple;
+    }
+
+    // Skips chunks the store already holds and writes the rest with at most `concurrency` writes in flight
+    private class ChunkWriter {
+
+        private final Set<String> presentChunks;
+        private final Set<String> stored = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger written = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final Semaphore inFlight = new Semaphore(concurrency);
+        private final List<CompletableFuture<Void>> writes = new ArrayList<>();
+        private int skipped;
+
+        ChunkWriter(Set<String> presentChunks) {
+            this.presentChunks = presentChunks;
+        }
+
+        void submit(List<ClientTupleKey> chunk) {
+            String hash = chunkHash(chunk);
+            if (presentChunks.contains(hash)) {
+                stored.add(hash);
+                skipped++;
+                return;
+            }
+            inFlight.acquireUninterruptibly();
+            writes.add(CompletableFuture.runAsync(() -> {
+                try {
+                    if (writeChunk(chunk)) {
+                        stored.add(hash);
+                        written.incrementAndGet();
+                    } else {
+                        failed.incrementAndGet();
+                    }
+                } finally {
+                    inFlight.release();
+                }
+            }, openFgaExecutor));
+        }
+
+        SeedResult finish() {
+            CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])).join();
+            return new SeedResult(Set.copyOf(stored), written.get(), skipped, failed.get());
+        }
+    }
+
+    private boolean writeChunk(List<ClientTupleKey> chunk) {
+        try {
+            openFgaMetrics.call("write", () -> openFgaClient.write(new ClientWriteRequest().writes(chunk)), writeTimeoutMs);
+            return true;
+        } catch (Exception e) {
+            // Writes are transactional, so one tuple that already exists (seed state lost, file edited) fails the
+            // whole chunk: retry it tuple by tuple
+            log.debug("Chunk of {} tuples failed, writing them one by one: {}", chunk.size(), e.getMessage());
+        }
+        boolean complete = true;
+        for (ClientTupleKey tuple : chunk) {
+            try {
+                openFgaMetrics.call("write", () -> openFgaClient.write(new ClientWriteRequest().writes(List.of(tuple))), writeTimeoutMs);
+            } catch (Exception e) {
+                if (!exists(tuple)) {
+                    log.warn("Failed to seed tuple {} {} {}: {}", tuple.getUser(), tuple.getRelation(), tuple.getObject(), e.getMessage());
+                    complete = false;
+                }
+            }
+        }
+        return complete;
+    }
+
+    private boolean exists(ClientTupleKey tuple) {
+        try {
+            ClientReadRequest request = new ClientReadRequest()
+                    .user(tuple.getUser())
+                    .relation(tuple.getRelation())
+                    ._object(tuple.getObject());
+            ClientReadResponse response = openFgaMetrics.call("read",
+                    () -> openFgaClient.read(request, new ClientReadOptions()), writeTimeoutMs);
+            return !response.getTuples().isEmpty();
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    // True for about one tuple in averageSize, decided by the tuple key alone (String.hashCode is specified, so
+    // the boundaries are the same on every start), mixed so keys sharing a long prefix still spread evenly
+    private static boolean endsChunk(ClientTupleKey tuple, int averageSize) {
+        int hash = tupleKey(tuple).hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return Integer.remainderUnsigned(hash, averageSize) == 0;
+    }
+
+    private static String chunkHash(List<ClientTupleKey> chunk) {
+        MessageDigest digest = sha256();
+        for (ClientTupleKey tuple : chunk) {
+            digest.update((tupleKey(tuple) + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(digest.digest(), 0, 16);
+    }
+
+    private static String tupleKey(ClientTupleKey tuple) {
+        return tuple.getUser() + "|" + tuple.getRelation() + "|" + tuple.getObject();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.secchamp.officedemo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTests {
+
+    private CircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        breaker = new CircuitBreaker();
+        ReflectionTestUtils.setField(breaker, "enabled", true);
+        ReflectionTestUtils.setField(breaker, "windowSize", 10);
+        ReflectionTestUtils.setField(breaker, "minimumCalls", 4);
+        ReflectionTestUtils.setField(breaker, "failureRateThreshold", 0.5);
+        ReflectionTestUtils.setField(breaker, "slowCallMs", 100L);
+        ReflectionTestUtils.setField(breaker, "slowCallRateThreshold", 0.8);
+        ReflectionTestUtils.setField(breaker, "openMs", 60_000L);
+        ReflectionTestUtils.setField(breaker, "halfOpenCalls", 2);
+    }
+
+    @Test
+    void staysClosedBelowMinimumCalls() {
+        for (int i = 0; i < 3; i++) {
+            record(10, false);
+        }
+
+        assertThat(state()).isEqualTo("CLOSED");
+        assertThat(breaker.tryAcquire()).isNotNull();
+    }
+
+    @Test
+    void opensWhenFailureRateReachesThreshold() {
+        record(10, true);
+        record(10, true);
+        record(10, false);
+        assertThat(state()).isEqualTo("CLOSED");
+
+        record(10, false);
+
+        assertThat(state()).isEqualTo("OPEN");
+        assertThat(breaker.tryAcquire()).isNull();
+        assertThat(breaker.getStats().get("rejected")).isEqualTo(1L);
+    }
+
+    @Test
+    void opensWhenSlowCallRateReachesThreshold() {
+        record(10, true);
+        for (int i = 0; i < 3; i++) {
+            record(500, true);
+        }
+        assertThat(state()).isEqualTo("CLOSED");
+
+        record(500, true);
+
+        assertThat(state()).isEqualTo("OPEN");
+    }
+
+    @Test
+    void windowForgetsCallsOlderThanItsSize() {
+        ReflectionTestUtils.setField(breaker, "windowSize", 4);
+        record(10, false);
+        for (int i = 0; i < 4; i++) {
+            record(10, true);
+        }
+        // The failure slid out of the window
+        assertThat(breaker.getStats().get("windowCalls")).isEqualTo(4);
+        assertThat(breaker.getStats().get("failureRate")).isEqualTo(0.0);
+
+        record(10, false);
+        assertThat(state()).isEqualTo("CLOSED");
+        record(10, false);
+
+        // Two failures out of the last four calls, though only three out of all seven
+        assertThat(state()).isEqualTo("OPEN");
+    }
+
+    @Test
+    void halfOpenClosesAfterAllTrialCallsSucceed() {
+        tripOpen();
+        ReflectionTestUtils.setField(breaker, "openMs", 0L);
+
+        CircuitBreaker.Permit first = breaker.tryAcquire();
+        CircuitBreaker.Permit second = breaker.tryAcquire();
+        assertThat(state()).isEqualTo("HALF_OPEN");
+        assertThat(first).isNotNull();
+        assertThat(second).isNotNull();
+        assertThat(breaker.tryAcquire()).isNull();
+
+        breaker.onResult(first, 10, true);
+        assertThat(state()).isEqualTo("HALF_OPEN");
+        breaker.onResult(second, 10, true);
+
+        assertThat(state()).isEqualTo("CLOSED");
+        assertThat(breaker.getStats().get("windowCalls")).isEqualTo(0);
+    }
+
+    @Test
+    void halfOpenReopensOnFailedTrialCall() {
+        tripOpen();
+        ReflectionTestUtils.setField(breaker, "openMs", 0L);
+
+        CircuitBreaker.Permit trial = breaker.tryAcquire();
+        breaker.onResult(trial, 10, false);
+
+        assertThat(state()).isEqualTo("OPEN");
+        assertThat(breaker.getStats().get("timesOpened")).isEqualTo(2L);
+    }
+
+    @Test
+    void halfOpenReopensOnSlowTrialCall() {
+        tripOpen();
+        ReflectionTestUtils.setField(breaker, "openMs", 0L);
+
+        CircuitBreaker.Permit trial = breaker.tryAcquire();
+        breaker.onResult(trial, 500, true);
+
+        assertThat(state()).isEqualTo("OPEN");
+    }
+
+    @Test
+    void callsAdmittedWhileClosedDoNotCountAsTrials() {
+        CircuitBreaker.Permit lateFirst = breaker.tryAcquire();
+        CircuitBreaker.Permit lateSecond = breaker.tryAcquire();
+        tripOpen();
+        ReflectionTestUtils.setField(breaker, "openMs", 0L);
+        CircuitBreaker.Permit trial = breaker.tryAcquire();
+        assertThat(state()).isEqualTo("HALF_OPEN");
+
+        // Two successes from before the breaker opened would have closed it without any trial result
+        breaker.onResult(lateFirst, 10, true);
+        breaker.onResult(lateSecond, 10, true);
+        assertThat(state()).isEqualTo("HALF_OPEN");
+
+        breaker.onResult(trial, 10, false);
+        assertThat(state()).isEqualTo("OPEN");
+    }
+
+    @Test
+    void trialCallsOfAnEarlierRoundDoNotCount() {
+        tripOpen();
+        ReflectionTestUtils.setField(breaker, "openMs", 0L);
+        CircuitBreaker.Permit failing = breaker.tryAcquire();
+        CircuitBreaker.Permit stale = breaker.tryAcquire();
+        breaker.onResult(failing, 10, false);
+        assertThat(state()).isEqualTo("OPEN");
+
+        CircuitBreaker.Permit first = breaker.tryAcquire();
+        CircuitBreaker.Permit second = breaker.tryAcquire();
+        assertThat(state()).isEqualTo("HALF_OPEN");
+        breaker.onResult(stale, 10, true);
+        breaker.onResult(first, 10, true);
+        assertThat(state()).isEqualTo("HALF_OPEN");
+
+        breaker.onResult(second, 10, true);
+        assertThat(state()).isEqualTo("CLOSED");
+    }
+
+    @Test
+    void disabledBreakerAdmitsEverything() {
+        ReflectionTestUtils.setField(breaker, "enabled", false);
+        for (int i = 0; i < 20; i++) {
+            record(10, false);
+        }
+
+        assertThat(breaker.tryAcquire()).isNotNull();
+        assertThat(state()).isEqualTo("CLOSED");
+    }
+
+    private void tripOpen() {
+        for (int i = 0; i < 4; i++) {
+            record(10, false);
+        }
+        assertThat(state()).isEqualTo("OPEN");
+    }
+
+    private void record(long latencyMs, boolean success) {
+        CircuitBreaker.Permit permit = breaker.tryAcquire();
+        breaker.onResult(permit != null ? permit : new CircuitBreaker.Permit(0), latencyMs, success);
+    }
+
+    private Object state() {
+        return breaker.getStats().get("state");
+    }
+}
@@ -0,0 +1,337 @@
+package com.secchamp.officedemo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalEvaluatorTests {
+
+    // Exercises what authorization_model.json does not: usersets (also cyclic), user:* wildcards and tupleToUserset
+    // (folders may be each other's parents)
+    private static final String RICH_MODEL = """
+            {"schema_version": "1.1", "type_definitions": [
+              {"type": "user"},
+              {"type": "group",
+               "relations": {"member": {"this": {}}},
+               "metadata": {"relations": {
+                 "member": {"directly_related_user_types": [{"type": "user"}, {"type": "user", "wildcard": {}},
+                                                            {"type": "group", "relation": "member"}]}}}},
+              {"type": "folder",
+               "relations": {"owner": {"this": {}}, "parent": {"this": {}},
+                             "viewer": {"union": {"child": [{"this": {}}, {"computedUserset": {"relation": "owner"}},
+                               {"tupleToUserset": {"tupleset": {"relation": "parent"},
+                                                   "computedUserset": {"relation": "viewer"}}}]}}},
+               "metadata": {"relations": {
+                 "owner": {"directly_related_user_types": [{"type": "user"}, {"type": "group", "relation": "member"}]},
+                 "parent": {"directly_related_user_types": [{"type": "folder"}]},
+                 "viewer": {"directly_related_user_types": [{"type": "user"}, {"type": "user", "wildcard": {}},
+                                                            {"type": "group", "relation": "member"}]}}}},
+              {"type": "doc",
+               "relations": {"owner": {"this": {}}, "parent": {"this": {}},
+                             "editor": {"union": {"child": [{"this": {}}, {"computedUserset": {"relation": "owner"}}]}},
+                             "viewer": {"union": {"child": [{"this": {}}, {"computedUserset": {"relation": "editor"}},
+                               {"tupleToUserset": {"tupleset": {"relation": "parent"},
+                                                   "computedUserset": {"relation": "viewer"}}}]}}},
+               "metadata": {"relations": {
+                 "owner": {"directly_related_user_types": [{"type": "user"}]},
+                 "parent": {"directly_related_user_types": [{"type": "folder"}]},
+                 "editor": {"directly_related_user_types": [{"type": "user"}, {"type": "group", "relation": "member"}]},
+                 "viewer": {"directly_related_user_types": [{"type": "user"}, {"type": "user", "wildcard": {}},
+                                                            {"type": "group", "relation": "member"}]}}}}
+            ]}
+            """;
+
+    private static final int USERS = 5;
+    private static final int OBJECTS_PER_TYPE = 4;
+
+    private record Tuple(String user, String relation, String object) {
+        String key() {
+            return object + "#" + relation + "@" + user;
+        }
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private LocalEvaluator evaluator;
+
+    @BeforeEach
+    void setUp() {
+        evaluator = new LocalEvaluator();
+        ReflectionTestUtils.setField(evaluator, "enabled", true);
+    }
+
+    @Test
+    void shippedModelMatchesOracle() throws Exception {
+        evaluator.loadModel();
+        JsonNode model = objectMapper.readTree(getClass().getResourceAsStream("/authorization_model.json"));
+        compareOnRandomStores(model, 200);
+    }
+
+    @Test
+    void usersetsWildcardsAndTupleToUsersetMatchOracle() throws Exception {
+        JsonNode model = objectMapper.readTree(RICH_MODEL);
+        evaluator.loadModel(model);
+        compareOnRandomStores(model, 300);
+    }
+
+    @Test
+    void writesDuringLoadAreNotUndoneByPagesReadBeforeThem() throws Exception {
+        JsonNode model = objectMapper.readTree(RICH_MODEL);
+        evaluator.loadModel(model);
+        for (int seed = 0; seed < 300; seed++) {
+            Random random = new Random(seed);
+            List<Tuple> candidates = candidateTuples(model);
+            Set<Tuple> server = randomStore(random, candidates);
+
+            // Keyset pagination over the server's current tuples, like Read with a continuation token, with grants
+            // and revokes landing between reading a page and loading it into the evaluator
+            evaluator.beginLoad();
+            String lastKey = "";
+            while (true) {
+                String after = lastKey;
+                List<Tuple> page = server.stream()
+                        .filter(tuple -> tuple.key().compareTo(after) > 0)
+                        .sorted(Comparator.comparing(Tuple::key))
+                        .limit(3)
+                        .toList();
+                assertThat(evaluator.check("user:u0", "viewer", "doc:o0")).isNull();
+                for (int writes = random.nextInt(4); writes > 0; writes--) {
+                    applyRandomWrite(random, candidates, server);
+                }
+                page.forEach(tuple -> evaluator.load(tuple.user(), tuple.relation(), tuple.object()));
+                if (page.size() < 3) {
+                    break;
+                }
+                lastKey = page.get(page.size() - 1).key();
+            }
+            evaluator.finishLoad();
+            assertMatchesOracle(model, server, seed);
+
+            for (int writes = 0; writes < 5; writes++) {
+                applyRandomWrite(random, candidates, server);
+            }
+            assertMatchesOracle(model, server, seed);
+        }
+    }
+
+    @Test
+    void abortedLoadKeepsChecksOnTheServer() {
+        evaluator.loadModel();
+        evaluator.beginLoad();
+        evaluator.load("user:u0", "owner", "organization:company");
+        evaluator.abortLoad();
+        evaluator.add("user:u1", "owner", "organization:company");
+
+        assertThat(evaluator.check("user:u0", "member", "organization:company")).isNull();
+        assertThat(evaluator.getStats().get("tuples")).isEqualTo(1L);
+    }
+
+    @Test
+    void unsupportedRewritesAreLeftToTheServer() throws Exception {
+        evaluator.loadModel(objectMapper.readTree("""
+                {"type_definitions": [{"type": "doc", "relations": {
+                  "viewer": {"this": {}},
+                  "blocked": {"this": {}},
+                  "reader": {"difference": {"base": {"this": {}}, "subtract": {"computedUserset": {"relation": "blocked"}}}}}}]}
+                """));
+        evaluator.beginLoad();
+        evaluator.finishLoad();
+
+        assertThat(evaluator.check("user:u0", "reader", "doc:o0")).isNull();
+        assertThat(evaluator.check("user:u0", "unknown", "doc:o0")).isNull();
+        assertThat(evaluator.check("user:u0", "viewer", "doc:o0")).isFalse();
+    }
+
+    private void compareOnRandomStores(JsonNode model, int stores) {
+        List<Tuple> candidates = candidateTuples(model);
+        for (int seed = 0; seed < stores; seed++) {
+            Set<Tuple> server = randomStore(new Random(seed), candidates);
+            evaluator.beginLoad();
+            server.forEach(tuple -> evaluator.load(tuple.user(), tuple.relation(), tuple.object()));
+            evaluator.finishLoad();
+            assertMatchesOracle(model, server, seed);
+        }
+    }
+
+    // A successful grant or revoke: lands on the server, then on the evaluator, as in OpenFgaService.writeWave
+    private void applyRandomWrite(Random random, List<Tuple> candidates, Set<Tuple> server) {
+        Tuple tuple = candidates.get(random.nextInt(candidates.size()));
+        if (server.add(tuple)) {
+            evaluator.add(tuple.user(), tuple.relation(), tuple.object());
+        } else {
+            server.remove(tuple);
+            evaluator.remove(tuple.user(), tuple.relation(), tuple.object());
+        }
+    }
+
+    private Set<Tuple> randomStore(Random random, List<Tuple> candidates) {
+        double density = 0.02 + random.nextDouble() * 0.1;
+        Set<Tuple> store = new HashSet<>();
+        for (Tuple tuple : candidates) {
+            if (random.nextDouble() < density) {
+                store.add(tuple);
+            }
+        }
+        return store;
+    }
+
+    private void assertMatchesOracle(JsonNode model, Set<Tuple> server, int seed) {
+        Map<String, Set<String>> expected = oracle(model, server);
+        for (String object : objects(model)) {
+            for (String relation : relations(model, type(object))) {
+                for (String subject : subjects(model)) {
+                    boolean allowed = expected.getOrDefault(object + "#" + relation, Set.of()).contains(subject);
+                    assertThat(evaluator.check(subject, relation, object))
+                            .as("seed %d: %s %s %s with tuples %s", seed, subject, relation, object, server)
+                            .isEqualTo(allowed);
+                }
+            }
+        }
+    }
+
+    // Independent of LocalEvaluator: derives every "object#relation" -> subjects fact bottom-up from the tuples,
+    // applying the model's rewrites until nothing changes
+    private Map<String, Set<String>> oracle(JsonNode model, Set<Tuple> tuples) {
+        Map<String, Set<String>> facts = new HashMap<>();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (JsonNode typeDefinition : model.path("type_definitions")) {
+                String type = typeDefinition.path("type").asText();
+                for (String object : objects(model)) {
+                    if (!type(object).equals(type)) {
+                        continue;
+                    }
+                    var relations = typeDefinition.path("relations").fields();
+                    while (relations.hasNext()) {
+                        var relation = relations.next();
+                        Set<String> derived = derive(relation.getValue(), relation.getKey(), object, tuples, facts, model);
+                        changed |= facts.computeIfAbsent(object + "#" + relation.getKey(), key -> new HashSet<>())
+                                .addAll(derived);
+                    }
+                }
+            }
+        }
+        return facts;
+    }
+
+    private Set<String> derive(JsonNode rewrite, String relation, String object, Set<Tuple> tuples,
+                               Map<String, Set<String>> facts, JsonNode model) {
+        Set<String> subjects = new HashSet<>();
+        if (rewrite.has("this")) {
+            for (Tuple tuple : tuples) {
+                if (!tuple.object().equals(object) || !tuple.relation().equals(relation)) {
+                    continue;
+                }
+                if (tuple.user().endsWith(":*")) {
+                    String type = type(tuple.user());
+                    subjects(model).stream().filter(subject -> type(subject).equals(type)).forEach(subjects::add);
+                } else if (tuple.user().contains("#")) {
+                    subjects.addAll(facts.getOrDefault(tuple.user(), Set.of()));
+                } else {
+                    subjects.add(tuple.user());
+                }
+            }
+        } else if (rewrite.has("computedUserset")) {
+            subjects.addAll(facts.getOrDefault(
+                    object + "#" + rewrite.path("computedUserset").path("relation").asText(), Set.of()));
+        } else if (rewrite.has("tupleToUserset")) {
+            String tupleset = rewrite.path("tupleToUserset").path("tupleset").path("relation").asText();
+            String computed = rewrite.path("tupleToUserset").path("computedUserset").path("relation").asText();
+            for (Tuple tuple : tuples) {
+                if (tuple.object().equals(object) && tuple.relation().equals(tupleset)) {
+                    subjects.addAll(facts.getOrDefault(tuple.user() + "#" + computed, Set.of()));
+                }
+            }
+        } else if (rewrite.has("union")) {
+            for (JsonNode child : rewrite.path("union").path("child")) {
+                subjects.addAll(derive(child, relation, object, tuples, facts, model));
+            }
+        } else {
+            throw new IllegalArgumentException("Oracle does not implement " + rewrite);
+        }
+        return subjects;
+    }
+
+    // Every tuple the model's directly_related_user_types allow over the test's users and objects
+    private List<Tuple> candidateTuples(JsonNode model) {
+        List<Tuple> candidates = new ArrayList<>();
+        for (String object : objects(model)) {
+            JsonNode relations = typeDefinition(model, type(object)).path("metadata").path("relations");
+            var fields = relations.fields();
+            while (fields.hasNext()) {
+                var relation = fields.next();
+                for (JsonNode userType : relation.getValue().path("directly_related_user_types")) {
+                    String type = userType.path("type").asText();
+                    if (userType.has("wildcard")) {
+                        candidates.add(new Tuple(type + ":*", relation.getKey(), object));
+                        continue;
+                    }
+                    for (String subject : instances(model, type)) {
+                        String user = userType.has("relation") ? subject + "#" + userType.path("relation").asText() : subject;
+                        candidates.add(new Tuple(user, relation.getKey(), object));
+                    }
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private Set<String> subjects(JsonNode model) {
+        Set<String> subjects = new TreeSet<>(instances(model, "user"));
+        subjects.addAll(objects(model));
+        return subjects;
+    }
+
+    private Set<String> objects(JsonNode model) {
+        Set<String> objects = new TreeSet<>();
+        for (JsonNode typeDefinition : model.path("type_definitions")) {
+            String type = typeDefinition.path("type").asText();
+            if (!type.equals("user")) {
+                objects.addAll(instances(model, type));
+            }
+        }
+        return objects;
+    }
+
+    private List<String> instances(JsonNode model, String type) {
+        int count = type.equals("user") ? USERS : OBJECTS_PER_TYPE;
+        List<String> instances = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            instances.add(type + (type.equals("user") ? ":u" : ":o") + i);
+        }
+        return instances;
+    }
+
+    private List<String> relations(JsonNode model, String type) {
+        List<String> relations = new ArrayList<>();
+        typeDefinition(model, type).path("relations").fieldNames().forEachRemaining(relations::add);
+        return relations;
+    }
+
+    private JsonNode typeDefinition(JsonNode model, String type) {
+        for (JsonNode typeDefinition : model.path("type_definitions")) {
+            if (typeDefinition.path("type").asText().equals(type)) {
+                return typeDefinition;
+            }
+        }
+        throw new IllegalArgumentException(type);
+    }
+
+    private static String type(String object) {
+        return object.substring(0, object.indexOf(':'));
+    }
+}
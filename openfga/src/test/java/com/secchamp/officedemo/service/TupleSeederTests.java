@@ -0,0 +1,89 @@
+package com.secchamp.officedemo.service;
+
+import dev.openfga.sdk.api.client.OpenFgaClient;
+import dev.openfga.sdk.api.client.model.ClientWriteRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TupleSeederTests {
+
+    private ExecutorService executor;
+    private TupleSeeder seeder;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        executor = Executors.newFixedThreadPool(4);
+        OpenFgaClient client = mock(OpenFgaClient.class);
+        when(client.write(any(ClientWriteRequest.class))).thenReturn(CompletableFuture.completedFuture(null));
+        seeder = new TupleSeeder(client, executor, mock(OpenFgaMetrics.class));
+        ReflectionTestUtils.setField(seeder, "chunkSize", 100);
+        ReflectionTestUtils.setField(seeder, "concurrency", 4);
+        ReflectionTestUtils.setField(seeder, "writeTimeoutMs", 1000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void unchangedFileWritesNothing() throws IOException {
+        List<String> tuples = tuples(5000);
+        TupleSeeder.SeedResult first = seed(tuples, Set.of());
+
+        TupleSeeder.SeedResult again = seed(tuples, first.chunkHashes());
+
+        assertThat(first.written()).isEqualTo(first.chunkHashes().size());
+        assertThat(again.written()).isZero();
+        assertThat(again.chunkHashes()).isEqualTo(first.chunkHashes());
+    }
+
+    @Test
+    void insertingOrRemovingATupleOnlyRewritesTheChunksAroundIt() throws IOException {
+        List<String> tuples = tuples(5000);
+        Set<String> present = seed(tuples, Set.of()).chunkHashes();
+
+        List<String> inserted = new ArrayList<>(tuples);
+        inserted.add(10, tuple("user:new", "viewer", "document:new"));
+        List<String> removed = new ArrayList<>(tuples);
+        removed.remove(20);
+
+        // A chunk cut at the cap passes the shift on to the next one, until a content boundary lines up again
+        assertThat(seed(inserted, present).written()).isBetween(1, 3);
+        assertThat(seed(removed, present).written()).isBetween(1, 3);
+    }
+
+    private TupleSeeder.SeedResult seed(List<String> tuples, Set<String> present) throws IOException {
+        String json = "{\"users\":[],\"tuples\":[" + String.join(",", tuples) + "]}";
+        return seeder.seed(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), present);
+    }
+
+    private static List<String> tuples(int count) {
+        List<String> tuples = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tuples.add(tuple("user:u" + i % 97, i % 3 == 0 ? "editor" : "viewer", "document:d" + i));
+        }
+        return tuples;
+    }
+
+    private static String tuple(String user, String relation, String object) {
+        return "{\"user\":\"" + user + "\",\"relation\":\"" + relation + "\",\"object\":\"" + object + "\"}";
+    }
+}
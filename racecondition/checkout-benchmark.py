@@ -0,0 +1,149 @@
+#!/usr/bin/env python3
+"""
+CHECKOUT BENCHMARK - Cart checkout latency for 1-, 10- and 100-item carts
+Run once against the old build and once against the new one, then compare the two result files.
+
+Database round trips per checkout are reported by Hibernate when the application runs with
+  --spring.jpa.properties.hibernate.generate_statistics=true
+(look for "JDBC statements executed" / "JDBC batches executed" in the session metrics log lines).
+"""
+
+import requests
+import time
+import argparse
+import json
+import sys
+
+class CheckoutBenchmark:
+    def __init__(self, base_url="http://localhost:8080",
+                 email="admin@secchamp.com", password="admin123"):
+        self.base_url = base_url
+        self.email = email
+        self.password = password
+        self.token = None
+        self.session = requests.Session()
+
+    def headers(self):
+        return {"Authorization": f"Bearer {self.token}", "Content-Type": "application/json"}
+
+    def login(self):
+        """Authenticate and get JWT token"""
+        response = self.session.post(f"{self.base_url}/api/auth/login",
+                                     json={"email": self.email, "password": self.password}, timeout=10)
+        response.raise_for_status()
+        self.token = response.json().get("token")
+        if not self.token:
+            raise Exception("No token received from login response")
+        print("✅ Login OK, token received")
+
+    def ensure_books(self, count):
+        """Create cheap, well-stocked benchmark books (bench-1 .. bench-N) if they don't exist yet"""
+        for i in range(1, count + 1):
+            book_id = f"bench-{i}"
+            if self.session.get(f"{self.base_url}/api/books/{book_id}", timeout=10).status_code == 200:
+                continue
+            book = {
+                "id": book_id,
+                "title": f"Benchmark Book {i}",
+                "author": "Checkout Benchmark",
+                "isbn": f"BENCH-{i:06d}",
+                "category": "Benchmark",
+                "price": 0.01,
+                "stock": 1000000,
+                "rating": 0
+            }
+            self.session.post(f"{self.base_url}/api/books", json=book, timeout=10).raise_for_status()
+        print(f"📚 {count} benchmark books ready")
+
+    def checkout_once(self, items):
+        """Fill the cart with `items` books, start checkout, and time only the confirm call"""
+        self.session.delete(f"{self.base_url}/api/cart/clear", headers=self.headers(), timeout=30)
+        for i in range(1, items + 1):
+            response = self.session.post(f"{self.base_url}/api/cart/add", json={"bookId": f"bench-{i}"},
+                                         headers=self.headers(), timeout=30)
+            response.raise_for_status()
+        self.session.post(f"{self.base_url}/api/cart/checkout", headers=self.headers(), timeout=30).raise_for_status()
+
+        started = time.perf_counter()
+        response = self.session.post(f"{self.base_url}/api/cart/checkout/confirm", headers=self.headers(), timeout=60)
+        elapsed = time.perf_counter() - started
+        if response.status_code != 200:
+            raise Exception(f"Checkout confirm failed: HTTP {response.status_code} {response.text[:200]}")
+        return elapsed
+
+    def run(self, sizes, rounds, warmup):
+        self.login()
+        self.ensure_books(max(sizes))
+
+        results = {}
+        for size in sizes:
+            for _ in range(warmup):
+                self.checkout_once(size)
+            samples = sorted(self.checkout_once(size) for _ in range(rounds))
+            results[str(size)] = {
+                "p50_ms": samples[len(samples) // 2] * 1000,
+                "p95_ms": samples[min(len(samples) - 1, int(len(samples) * 0.95))] * 1000,
+                "mean_ms": sum(samples) / len(samples) * 1000
+            }
+            print(f"🛒 {size:>3} items: p50={results[str(size)]['p50_ms']:.1f}ms "
+                  f"p95={results[str(size)]['p95_ms']:.1f}ms mean={results[str(size)]['mean_ms']:.1f}ms")
+        return results
+
+def compare(before_file, after_file):
+    with open(before_file) as f:
+        before = json.load(f)
+    with open(after_file) as f:
+        after = json.load(f)
+
+    print(f"\n📊 CHECKOUT CONFIRM LATENCY (p50 ms)")
+    print(f"{'items':>6} {'before':>10} {'after':>10} {'speedup':>9}")
+    for size in sorted(set(before) & set(after), key=int):
+        b = before[size]["p50_ms"]
+        a = after[size]["p50_ms"]
+        print(f"{size:>6} {b:>10.1f} {a:>10.1f} {b / a if a else 0:>8.1f}x")
+
+def main():
+    parser = argparse.ArgumentParser(description="CHECKOUT BENCHMARK - Cart checkout latency by cart size")
+    parser.add_argument("--sizes", type=str, default="1,10,100",
+                       help="Comma-separated cart sizes (default: 1,10,100)")
+    parser.add_argument("--rounds", "-n", type=int, default=20,
+                       help="Measured checkouts per cart size (default: 20)")
+    parser.add_argument("--warmup", type=int, default=3,
+                       help="Unmeasured warm-up checkouts per cart size (default: 3)")
+    parser.add_argument("--output", "-o", type=str,
+                       help="Write results as JSON to this file")
+    parser.add_argument("--compare", nargs=2, metavar=("BEFORE", "AFTER"),
+                       help="Compare two result files instead of running")
+    parser.add_argument("--url", "-u", type=str, default="http://localhost:8080",
+                       help="Base URL of the application (default: http://localhost:8080)")
+    parser.add_argument("--email", "-e", type=str, default="admin@secchamp.com",
+                       help="Login email (default: admin@secchamp.com)")
+    parser.add_argument("--password", "-w", type=str, default="admin123",
+                       help="Login password (default: admin123)")
+
+    args = parser.parse_args()
+
+    if args.compare:
+        compare(*args.compare)
+        return
+
+    print("🧪 CHECKOUT BENCHMARK")
+    print("=" * 55)
+
+    benchmark = CheckoutBenchmark(base_url=args.url, email=args.email, password=args.password)
+    try:
+        results = benchmark.run([int(s) for s in args.sizes.split(",")], args.rounds, args.warmup)
+    except KeyboardInterrupt:
+        print("\n\n⚠️  Benchmark interrupted by user")
+        sys.exit(1)
+    except Exception as e:
+        print(f"\n❌ Benchmark failed with error: {e}")
+        sys.exit(1)
+
+    if args.output:
+        with open(args.output, "w") as f:
+            json.dump(results, f, indent=2)
+        print(f"\n💾 Results written to {args.output}")
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,146 @@
+#!/usr/bin/env python3
+"""
+HELPFUL VOTE LOAD TEST - Hot-review vote counting check
+Fires thousands of parallel "helpful" votes at one review and asserts throughput and that no vote is lost
+"""
+
+import requests
+import time
+import argparse
+import threading
+from collections import defaultdict
+from concurrent.futures import ThreadPoolExecutor, as_completed
+import sys
+
+class HelpfulVoteLoadTester:
+    def __init__(self, base_url="http://localhost:8080", book_id="1", review_id="1"):
+        self.base_url = base_url
+        self.book_id = book_id
+        self.review_id = review_id
+        self.local = threading.local()
+
+    def http(self):
+        """One keep-alive session per worker thread"""
+        if not hasattr(self.local, "session"):
+            self.local.session = requests.Session()
+        return self.local.session
+
+    def read_helpful_count(self):
+        """Read the review's helpful count as the reviews listing reports it"""
+        response = self.http().get(f"{self.base_url}/api/books/{self.book_id}/reviews", timeout=10)
+        response.raise_for_status()
+        for review in response.json().get("data", []):
+            if review.get("id") == self.review_id:
+                return review.get("helpfulCount")
+        raise Exception(f"Review {self.review_id} not found on book {self.book_id}")
+
+    def vote(self, request_id):
+        """One helpful vote"""
+        url = f"{self.base_url}/api/books/reviews/{self.review_id}/helpful"
+        started = time.perf_counter()
+        try:
+            response = self.http().post(url, timeout=30)
+            elapsed = time.perf_counter() - started
+            if response.status_code != 200:
+                return {"ok": False, "error": f"HTTP {response.status_code}", "latency": elapsed}
+            return {"ok": True, "count": response.json().get("data", {}).get("helpfulCount"), "latency": elapsed}
+        except Exception as e:
+            return {"ok": False, "error": type(e).__name__, "latency": time.perf_counter() - started}
+
+    def run(self, num_requests=20000, num_threads=200, min_rps=1000.0, settle=1.0):
+        print(f"\n🎯 HELPFUL VOTE LOAD TEST - {num_requests} votes, {num_threads} concurrent workers, review {self.review_id}")
+
+        initial = self.read_helpful_count()
+        print(f"📊 Initial helpful count: {initial}")
+
+        results = []
+        started = time.perf_counter()
+        with ThreadPoolExecutor(max_workers=num_threads) as executor:
+            futures = [executor.submit(self.vote, i) for i in range(num_requests)]
+            for future in as_completed(futures):
+                results.append(future.result())
+        duration = time.perf_counter() - started
+
+        # Let the write-behind flush land so the final read comes from the database row
+        time.sleep(settle)
+        final = self.read_helpful_count()
+        return self.analyze(results, duration, initial, final, min_rps)
+
+    def analyze(self, results, duration, initial, final, min_rps):
+        counted = [r for r in results if r["ok"]]
+        errors = defaultdict(int)
+        for r in results:
+            if not r["ok"]:
+                errors[r["error"]] += 1
+
+        latencies = sorted(r["latency"] for r in counted)
+        rps = len(results) / duration if duration > 0 else 0.0
+
+        print(f"\n📊 LOAD TEST RESULTS:")
+        print(f"Requests: {len(results)} in {duration:.2f}s ({rps:.1f} req/s)")
+        print(f"✅ Votes accepted: {len(counted)}")
+        print(f"❌ Transport/HTTP errors: {len(results) - len(counted)}")
+        for error, count in errors.items():
+            print(f"  {count}x: {error}")
+        if latencies:
+            p50 = latencies[len(latencies) // 2]
+            p99 = latencies[min(len(latencies) - 1, int(len(latencies) * 0.99))]
+            print(f"⏱️  Latency p50={p50 * 1000:.1f}ms p99={p99 * 1000:.1f}ms")
+        print(f"📈 Helpful count: {initial} → {final}")
+
+        failures = []
+        if final - initial != len(counted):
+            failures.append(f"{len(counted)} votes accepted but the count moved by {final - initial}")
+        seen = [r["count"] for r in counted if r.get("count") is not None]
+        if seen and max(seen) > initial + len(counted):
+            failures.append(f"a response reported {max(seen)}, more than the votes cast")
+        if rps < min_rps:
+            failures.append(f"throughput {rps:.1f} req/s below required {min_rps:.1f} req/s")
+        if errors:
+            failures.append(f"{len(results) - len(counted)} requests failed")
+
+        if failures:
+            print(f"\n🚨 LOAD TEST FAILED:")
+            for failure in failures:
+                print(f"  • {failure}")
+            return False
+
+        print(f"\n✅ No lost votes: every accepted vote is in the stored count")
+        return True
+
+def main():
+    parser = argparse.ArgumentParser(description="HELPFUL VOTE LOAD TEST - Hot-review vote counting check")
+    parser.add_argument("--requests", "-n", type=int, default=20000,
+                       help="Total number of votes to fire (default: 20000)")
+    parser.add_argument("--threads", "-t", type=int, default=200,
+                       help="Number of concurrent workers (default: 200)")
+    parser.add_argument("--min-rps", "-r", type=float, default=1000.0,
+                       help="Minimum acceptable throughput in requests/sec (default: 1000)")
+    parser.add_argument("--settle", "-s", type=float, default=1.0,
+                       help="Seconds to wait for the write-behind flush before the final read (default: 1.0)")
+    parser.add_argument("--url", "-u", type=str, default="http://localhost:8080",
+                       help="Base URL of the application (default: http://localhost:8080)")
+    parser.add_argument("--book-id", "-b", type=str, default="1",
+                       help="Book the review belongs to (default: 1)")
+    parser.add_argument("--review-id", "-v", type=str, default="1",
+                       help="Review ID to vote on (default: 1)")
+
+    args = parser.parse_args()
+
+    print("🧪 HELPFUL VOTE LOAD TEST")
+    print("=" * 55)
+
+    tester = HelpfulVoteLoadTester(base_url=args.url, book_id=args.book_id, review_id=args.review_id)
+
+    try:
+        if not tester.run(args.requests, args.threads, args.min_rps, args.settle):
+            sys.exit(1)
+    except KeyboardInterrupt:
+        print("\n\n⚠️  Test interrupted by user")
+        sys.exit(1)
+    except Exception as e:
+        print(f"\n❌ Test failed with error: {e}")
+        sys.exit(1)
+
+if __name__ == "__main__":
+    main()
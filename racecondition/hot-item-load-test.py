@@ -0,0 +1,180 @@
+#!/usr/bin/env python3
+"""
+HOT ITEM LOAD TEST - Flash-sale confirms on one book through the hot-item purchase queue
+Registers a crowd of buyers, opens one purchase session each, then fires all confirmations at once and
+asserts confirms/sec and zero overselling. Queue-full answers (429) are retried after Retry-After.
+
+Flag the book first, either with app.purchase.queue.hot-books=<bookId> or by passing admin credentials:
+    python hot-item-load-test.py --book-id 1 --admin-email admin@secchamp.com --admin-password ...
+"""
+
+import requests
+import time
+import argparse
+import threading
+import uuid
+from collections import defaultdict
+from concurrent.futures import ThreadPoolExecutor
+import sys
+
+class HotItemLoadTester:
+    def __init__(self, base_url="http://localhost:8080", book_id="1"):
+        self.base_url = base_url
+        self.book_id = book_id
+        self.local = threading.local()
+
+    def http(self):
+        """One keep-alive session per worker thread"""
+        if not hasattr(self.local, "session"):
+            self.local.session = requests.Session()
+        return self.local.session
+
+    def login(self, email, password):
+        response = self.http().post(f"{self.base_url}/api/auth/login",
+                                    json={"email": email, "password": password}, timeout=30)
+        response.raise_for_status()
+        token = response.json().get("token")
+        if not token:
+            raise Exception("No token received from login response")
+        return token
+
+    def flag_hot(self, admin_email, admin_password):
+        token = self.login(admin_email, admin_password)
+        response = self.http().post(f"{self.base_url}/api/purchase/hot-items/{self.book_id}",
+                                    headers={"Authorization": f"Bearer {token}"}, timeout=30)
+        response.raise_for_status()
+        print(f"🔥 Book {self.book_id} flagged as hot item")
+
+    def buyer(self, index):
+        """Register a buyer with enough credit and open a purchase session for the book"""
+        email = f"hot-buyer-{uuid.uuid4().hex[:12]}@example.com"
+        self.http().post(f"{self.base_url}/api/auth/register", json={
+            "name": f"Hot Buyer {index}", "email": email, "password": "password123",
+            "accountStatus": "ACTIVE", "creditLimit": 100000
+        }, timeout=30).raise_for_status()
+        token = self.login(email, "password123")
+        response = self.http().post(f"{self.base_url}/api/purchase/book", json={"bookId": self.book_id},
+                                    headers={"Authorization": f"Bearer {token}"}, timeout=30)
+        if response.status_code != 200:
+            return None
+        return token, response.json()["sessionId"]
+
+    def read_stock(self):
+        response = self.http().get(f"{self.base_url}/api/books/{self.book_id}", timeout=30)
+        response.raise_for_status()
+        return response.json().get("data", {}).get("stock")
+
+    def confirm(self, buyer):
+        """Confirm one session, retrying queue-full answers after Retry-After"""
+        token, session_id = buyer
+        started = time.perf_counter()
+        throttled = 0
+        while True:
+            try:
+                response = self.http().post(f"{self.base_url}/api/purchase/confirm", json={"sessionId": session_id},
+                                            headers={"Authorization": f"Bearer {token}"}, timeout=60)
+            except Exception as e:
+                return {"status": type(e).__name__, "throttled": throttled, "latency": time.perf_counter() - started}
+            if response.status_code != 429:
+                return {"status": response.status_code, "throttled": throttled, "latency": time.perf_counter() - started}
+            throttled += 1
+            time.sleep(float(response.headers.get("Retry-After", "1")))
+
+    def run(self, num_buyers, num_threads, min_rps):
+        print(f"\n🎯 HOT ITEM LOAD TEST - {num_buyers} buyers, {num_threads} concurrent workers, book {self.book_id}")
+
+        with ThreadPoolExecutor(max_workers=num_threads) as executor:
+            buyers = [b for b in executor.map(self.buyer, range(num_buyers)) if b]
+        print(f"🧾 {len(buyers)} purchase sessions open ({num_buyers - len(buyers)} buyers found no copy to lock)")
+
+        initial_stock = self.read_stock()
+        started = time.perf_counter()
+        with ThreadPoolExecutor(max_workers=num_threads) as executor:
+            results = list(executor.map(self.confirm, buyers))
+        duration = time.perf_counter() - started
+        final_stock = self.read_stock()
+
+        stats = self.http().get(f"{self.base_url}/api/purchase/hot-items", timeout=30).json().get(self.book_id)
+        return self.analyze(results, duration, initial_stock, final_stock, stats, min_rps)
+
+    def analyze(self, results, duration, initial_stock, final_stock, stats, min_rps):
+        statuses = defaultdict(int)
+        for r in results:
+            statuses[r["status"]] += 1
+        sold = statuses.get(200, 0)
+        throttled = sum(r["throttled"] for r in results)
+        latencies = sorted(r["latency"] for r in results)
+        rps = len(results) / duration if duration > 0 else 0.0
+
+        print(f"\n📊 LOAD TEST RESULTS:")
+        print(f"Confirms: {len(results)} in {duration:.2f}s ({rps:.1f} confirms/s)")
+        for status, count in sorted(statuses.items(), key=lambda item: str(item[0])):
+            print(f"  {count}x: {status}")
+        print(f"🚦 429 answers retried: {throttled}")
+        if latencies:
+            p50 = latencies[len(latencies) // 2]
+            p99 = latencies[min(len(latencies) - 1, int(len(latencies) * 0.99))]
+            print(f"⏱️  Latency p50={p50 * 1000:.1f}ms p99={p99 * 1000:.1f}ms")
+        print(f"📈 Stock: {initial_stock} → {final_stock}")
+        if stats:
+            print(f"🔥 Queue: {stats['batches']} batches, avg {stats['avgBatchSize']:.1f} / max {stats['maxBatchSize']} orders per batch")
+
+        failures = []
+        if not stats:
+            failures.append(f"book {self.book_id} is not flagged as hot item")
+        if final_stock is not None and final_stock < 0:
+            failures.append(f"final stock is negative: {final_stock}")
+        if initial_stock is not None and final_stock is not None and sold != initial_stock - final_stock:
+            failures.append(f"{sold} successful confirms but stock moved by {initial_stock - final_stock}")
+        if rps < min_rps:
+            failures.append(f"throughput {rps:.1f} confirms/s below required {min_rps:.1f}")
+        if any(isinstance(status, str) or status >= 500 for status in statuses):
+            failures.append("some confirms failed with server or transport errors")
+
+        if failures:
+            print(f"\n🚨 LOAD TEST FAILED:")
+            for failure in failures:
+                print(f"  • {failure}")
+            return False
+
+        print(f"\n✅ No overselling: every successful confirm maps to exactly one unit of stock")
+        return True
+
+def main():
+    parser = argparse.ArgumentParser(description="HOT ITEM LOAD TEST - Flash-sale confirms through the purchase queue")
+    parser.add_argument("--buyers", "-n", type=int, default=2000,
+                       help="Number of buyers, one confirm each (default: 2000)")
+    parser.add_argument("--threads", "-t", type=int, default=200,
+                       help="Number of concurrent workers (default: 200)")
+    parser.add_argument("--min-rps", "-r", type=float, default=500.0,
+                       help="Minimum acceptable confirms/sec (default: 500)")
+    parser.add_argument("--url", "-u", type=str, default="http://localhost:8080",
+                       help="Base URL of the application (default: http://localhost:8080)")
+    parser.add_argument("--book-id", "-b", type=str, default="1",
+                       help="Book ID to test with (default: 1)")
+    parser.add_argument("--admin-email", type=str,
+                       help="Admin login used to flag the book as hot before the test")
+    parser.add_argument("--admin-password", type=str,
+                       help="Password of --admin-email")
+
+    args = parser.parse_args()
+
+    print("🧪 HOT ITEM LOAD TEST")
+    print("=" * 55)
+
+    tester = HotItemLoadTester(base_url=args.url, book_id=args.book_id)
+
+    try:
+        if args.admin_email:
+            tester.flag_hot(args.admin_email, args.admin_password)
+        if not tester.run(args.buyers, args.threads, args.min_rps):
+            sys.exit(1)
+    except KeyboardInterrupt:
+        print("\n\n⚠️  Test interrupted by user")
+        sys.exit(1)
+    except Exception as e:
+        print(f"\n❌ Test failed with error: {e}")
+        sys.exit(1)
+
+if __name__ == "__main__":
+    main()
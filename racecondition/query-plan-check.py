@@ -0,0 +1,210 @@
+#!/usr/bin/env python3
+"""
+QUERY PLAN CHECK - EXPLAIN every repository finder and fail on full table scans
+
+1. Generate a seeded dataset (1,000,000 rows per large table by default) and load it into MySQL:
+     python query-plan-check.py --generate-sql plan-data.sql --rows 1000000
+     docker exec -i mysql-db mysql -uroot -p'P@ssw0rd' secchamp2025 < plan-data.sql
+2. Run the check (exit code 1 if any plan reads a whole table):
+     python query-plan-check.py
+
+The SQL below is what Hibernate generates for each *Repository method, with parameters inlined.
+Keep it in sync when a finder is added or changed.
+"""
+
+import subprocess
+import argparse
+import random
+import sys
+
+BOOK = "'plan-book-7'"
+USER = "'plan-user-7'"
+CART = "'plan-cart-7'"
+NOW = "NOW()"
+IDS = "('plan-x-1', 'plan-x-2', 'plan-x-3')"
+
+# (repository method, SQL). Statements that modify rows are explained as-is, MySQL does not run them.
+QUERIES = [
+    ("BookRepository.findByCategory", "SELECT * FROM books WHERE category = 'Science'"),
+    ("BookRepository.findByRatingGreaterThanEqual", "SELECT * FROM books WHERE rating >= 4.9"),
+    ("BookRepository.findDistinctCategories", "SELECT DISTINCT category FROM books WHERE category IS NOT NULL"),
+    ("BookRepository.decrementStock", f"UPDATE books SET stock = stock - 1 WHERE id = {BOOK} AND stock >= 1"),
+    ("BookRepository.incrementStock", f"UPDATE books SET stock = stock + 1 WHERE id = {BOOK}"),
+    ("BookRepository.findStockById", f"SELECT stock FROM books WHERE id = {BOOK}"),
+    ("BookRepository.applyReviewDelta", f"UPDATE books SET review_count = review_count + 1 WHERE id = {BOOK}"),
+    ("BookRepository.findReviewAggregates", f"SELECT rating, review_count, rating_sum, helpful_total FROM books WHERE id = {BOOK}"),
+    ("BookRepository.findStockByIds", f"SELECT id, stock FROM books WHERE id IN {IDS}"),
+    ("BookRepository.findByIdGreaterThanOrderByIdAsc", f"SELECT * FROM books WHERE id > {BOOK} ORDER BY id LIMIT 1001"),
+    ("BookSearchRepository.search", "SELECT b.* FROM books b WHERE MATCH(b.title, b.author, b.category) AGAINST('+design*' IN BOOLEAN MODE) AND b.category = 'Science' LIMIT 21"),
+    ("BookReviewRepository.findByBookIdOrderByCreatedAtDesc", f"SELECT * FROM book_reviews WHERE book_id = {BOOK} ORDER BY created_at DESC"),
+    ("BookReviewRepository.findByUserIdOrderByCreatedAtDesc", f"SELECT * FROM book_reviews WHERE user_id = {USER} ORDER BY created_at DESC"),
+    ("BookReviewRepository.findByRatingGreaterThanEqualOrderByCreatedAtDesc", "SELECT * FROM book_reviews WHERE rating >= 5.0 ORDER BY created_at DESC"),
+    ("BookReviewRepository.findByVerifiedPurchaseTrueOrderByHelpfulCountDesc", "SELECT * FROM book_reviews WHERE verified_purchase = TRUE ORDER BY helpful_count DESC"),
+    ("BookReviewRepository.getAverageRatingForBook", f"SELECT AVG(rating) FROM book_reviews WHERE book_id = {BOOK}"),
+    ("BookReviewRepository.getReviewCountForBook", f"SELECT COUNT(id) FROM book_reviews WHERE book_id = {BOOK}"),
+    ("BookReviewRepository.searchFullText", "SELECT * FROM book_reviews br WHERE MATCH(br.review_title, br.review_text) AGAINST('+excellent*' IN BOOLEAN MODE) LIMIT 21"),
+    ("BookReviewRepository.existsByUserIdAndBookId", f"SELECT id FROM book_reviews WHERE user_id = {USER} AND book_id = {BOOK} LIMIT 1"),
+    ("BookReviewRepository.findByIdGreaterThanOrderByIdAsc", "SELECT * FROM book_reviews WHERE id > 'plan-review-7' ORDER BY id LIMIT 1001"),
+    ("CartItemRepository.findByShoppingCartId", f"SELECT * FROM cart_items WHERE cart_id = {CART}"),
+    ("CartItemRepository.findByShoppingCartIdWithBooks", f"SELECT * FROM cart_items ci JOIN books b ON b.id = ci.book_id WHERE ci.cart_id = {CART}"),
+    ("CartItemRepository.findByShoppingCartIdAndBookId", f"SELECT * FROM cart_items WHERE cart_id = {CART} AND book_id = {BOOK}"),
+    ("CartItemRepository.deleteByCartId", f"DELETE FROM cart_items WHERE cart_id = {CART}"),
+    ("CartItemRepository.findExpiredReservations", f"SELECT * FROM cart_items WHERE reserved_until < {NOW} - INTERVAL 30 DAY"),
+    ("CartItemRepository.findActiveReservations", f"SELECT id, book_id, quantity, reserved_until FROM cart_items WHERE reserved_until > {NOW}"),
+    ("CartItemRepository.deleteExpiredByIds", f"DELETE FROM cart_items WHERE id IN {IDS} AND reserved_until <= {NOW}"),
+    ("CartItemRepository.deleteExpiredReservations", f"DELETE FROM cart_items WHERE reserved_until <= {NOW} - INTERVAL 30 DAY"),
+    ("CartItemRepository.findActiveReservationsForBook", f"SELECT * FROM cart_items WHERE book_id = {BOOK} AND reserved_until > {NOW}"),
+    ("CartItemRepository.countActiveReservationsForBook", f"SELECT COUNT(id) FROM cart_items WHERE book_id = {BOOK} AND reserved_until > {NOW}"),
+    ("PurchaseSessionRepository.findByUserIdAndBookIdAndStatus", f"SELECT * FROM purchase_sessions WHERE user_id = {USER} AND book_id = {BOOK} AND status = 'LOCKED'"),
+    ("PurchaseSessionRepository.findByUserIdAndStatus", f"SELECT * FROM purchase_sessions WHERE user_id = {USER} AND status = 'LOCKED'"),
+    ("PurchaseSessionRepository.findByBookIdAndStatus", f"SELECT * FROM purchase_sessions WHERE book_id = {BOOK} AND status = 'LOCKED'"),
+    ("PurchaseSessionRepository.findExpiredSessions", f"SELECT * FROM purchase_sessions WHERE expires_at < {NOW} AND status = 'LOCKED'"),
+    ("PurchaseSessionRepository.findActiveLocks", f"SELECT id, book_id, expires_at FROM purchase_sessions WHERE status = 'LOCKED' AND expires_at > {NOW}"),
+    ("PurchaseSessionRepository.findLockedSessionDeadlines", "SELECT id, expires_at FROM purchase_sessions WHERE status = 'LOCKED'"),
+    ("PurchaseSessionRepository.deleteExpiredByIds", f"DELETE FROM purchase_sessions WHERE id IN {IDS} AND expires_at <= {NOW} AND status = 'LOCKED'"),
+    ("PurchaseSessionRepository.deleteExpiredSessions", f"DELETE FROM purchase_sessions WHERE expires_at <= {NOW} AND status = 'LOCKED'"),
+    ("PurchaseSessionRepository.deleteByUserIdAndBookId", f"SELECT * FROM purchase_sessions WHERE user_id = {USER} AND book_id = {BOOK}"),
+    ("ShoppingCartRepository.findByUserIdAndStatus", f"SELECT * FROM shopping_carts WHERE user_id = {USER} AND status = 'ACTIVE'"),
+    ("ShoppingCartRepository.findByUserIdAndStatusIn", f"SELECT * FROM shopping_carts WHERE user_id = {USER} AND status IN ('CHECKING_OUT')"),
+    ("ShoppingCartRepository.findExpiredCarts", f"SELECT * FROM shopping_carts WHERE expires_at < {NOW} AND status IN ('ACTIVE', 'CHECKING_OUT')"),
+    ("ShoppingCartRepository.findOpenCartDeadlines", "SELECT id, expires_at FROM shopping_carts WHERE status IN ('ACTIVE', 'CHECKING_OUT')"),
+    ("ShoppingCartRepository.expireByIds", f"UPDATE shopping_carts SET status = 'EXPIRED' WHERE id IN {IDS} AND expires_at <= {NOW} AND status IN ('ACTIVE', 'CHECKING_OUT')"),
+    ("ShoppingCartRepository.expireAll", f"UPDATE shopping_carts SET status = 'EXPIRED' WHERE expires_at <= {NOW} AND status IN ('ACTIVE', 'CHECKING_OUT')"),
+    ("ShoppingCartRepository.findActiveCartByUserId", f"SELECT * FROM shopping_carts WHERE user_id = {USER} AND status = 'ACTIVE'"),
+    ("ShoppingCartRepository.updateStatus", f"UPDATE shopping_carts SET status = 'ACTIVE' WHERE id = {CART}"),
+    ("UserBookRepository.findByUserId", f"SELECT * FROM user_books WHERE user_id = {USER}"),
+    ("UserBookRepository.findByBookId", f"SELECT * FROM user_books WHERE book_id = {BOOK}"),
+    ("UserBookRepository.findByUserIdAndBookId", f"SELECT * FROM user_books WHERE user_id = {USER} AND book_id = {BOOK}"),
+    ("UserBookRepository.findByUserIdWithBooks", f"SELECT * FROM user_books ub JOIN books b ON b.id = ub.book_id WHERE ub.user_id = {USER} ORDER BY ub.purchase_date DESC"),
+    ("UserBookRepository.existsByUserIdAndBookId", f"SELECT id FROM user_books WHERE user_id = {USER} AND book_id = {BOOK} LIMIT 1"),
+    ("UserRepository.findByEmail", "SELECT * FROM users WHERE email = 'plan-user-7@example.com'"),
+]
+
+# Finders that read every row on purpose: startup loads, catalog snapshots and the LIKE fallback for
+# search terms FULLTEXT cannot handle. They are listed so a new finder cannot silently join them.
+FULL_SCANS = [
+    "BookRepository.findAll / findAllStock / streamAllOrderById",
+    "BookReviewRepository.streamAllOrderById / findByReviewContainingKeyword",
+    "CartItemRepository.findAllReservationDeadlines",
+]
+
+def sql_string(value):
+    return "'" + value.replace("\\", "\\\\").replace("'", "''") + "'"
+
+def generate_sql(path, rows, books, seed):
+    """Write INSERT statements for a plan-check dataset: rows users, carts, cart items, sessions, purchases and reviews"""
+    rng = random.Random(seed)
+    categories = ["Fiction", "Science", "Technology", "History", "Fantasy", "Romance", "Mystery", "Biography"]
+    statuses = ["ACTIVE", "CHECKING_OUT", "COMPLETED", "COMPLETED", "EXPIRED", "EXPIRED"]
+
+    def timestamp(days):
+        return f"NOW() - INTERVAL {rng.randint(-days, days * 30)} MINUTE"
+
+    def write_batches(out, header, rows, batch=1000):
+        chunk = []
+        for row in rows:
+            chunk.append(row)
+            if len(chunk) == batch:
+                out.write(header + ",\n".join(chunk) + ";\n")
+                chunk = []
+        if chunk:
+            out.write(header + ",\n".join(chunk) + ";\n")
+
+    def book():
+        return sql_string(f"plan-book-{rng.randrange(books)}")
+
+    with open(path, "w") as out:
+        out.write("SET autocommit=0;\nSET unique_checks=0;\nSET foreign_key_checks=0;\n")
+        write_batches(out, "INSERT IGNORE INTO books (id, title, author, isbn, category, price, stock, rating) VALUES\n",
+                      (f"({sql_string(f'plan-book-{b}')}, {sql_string(f'Plan Book {b}')}, {sql_string(f'Author {b % 997}')}, "
+                       f"{sql_string(f'PB-{b:08d}')}, {sql_string(rng.choice(categories))}, 9.99, {rng.randint(0, 500)}, "
+                       f"{rng.randint(10, 50) / 10:.1f})" for b in range(books)))
+        write_batches(out, "INSERT IGNORE INTO users (id, name, email, password) VALUES\n",
+                      (f"({sql_string(f'plan-user-{u}')}, {sql_string(f'Plan User {u}')}, "
+                       f"{sql_string(f'plan-user-{u}@example.com')}, 'x')" for u in range(rows)))
+        write_batches(out, "INSERT IGNORE INTO shopping_carts (id, user_id, created_at, expires_at, status) VALUES\n",
+                      (f"({sql_string(f'plan-cart-{c}')}, {sql_string(f'plan-user-{c}')}, {timestamp(60)}, "
+                       f"{timestamp(60)}, {sql_string(rng.choice(statuses))})" for c in range(rows)))
+        write_batches(out, "INSERT IGNORE INTO cart_items (id, cart_id, book_id, quantity, price_at_add, added_at, reserved_until) VALUES\n",
+                      (f"({sql_string(f'plan-item-{i}')}, {sql_string(f'plan-cart-{i}')}, {book()}, {rng.randint(1, 3)}, "
+                       f"9.99, {timestamp(60)}, {timestamp(60)})" for i in range(rows)))
+        write_batches(out, "INSERT IGNORE INTO purchase_sessions (id, user_id, book_id, locked_at, expires_at, status) VALUES\n",
+                      (f"({sql_string(f'plan-session-{s}')}, {sql_string(f'plan-user-{s}')}, {book()}, {timestamp(60)}, "
+                       f"{timestamp(60)}, {sql_string(rng.choice(['LOCKED', 'COMPLETED', 'COMPLETED', 'CANCELLED']))})"
+                       for s in range(rows)))
+        write_batches(out, "INSERT IGNORE INTO user_books (id, user_id, book_id, purchase_date, purchase_price) VALUES\n",
+                      (f"({sql_string(f'plan-purchase-{p}')}, {sql_string(f'plan-user-{p}')}, {book()}, {timestamp(60)}, 9.99)"
+                       for p in range(rows)))
+        write_batches(out, "INSERT IGNORE INTO book_reviews (id, book_id, user_id, rating, review_title, review_text, helpful_count, verified_purchase, created_at) VALUES\n",
+                      (f"({sql_string(f'plan-review-{r}')}, {sql_string(f'plan-book-{r % books}')}, {sql_string(f'plan-user-{r}')}, "
+                       f"{rng.randint(1, 5)}.0, 'Plan review', 'Synthetic review text', {rng.randint(0, 50)}, "
+                       f"{'TRUE' if rng.random() < 0.1 else 'FALSE'}, {timestamp(60)})" for r in range(rows)))
+        out.write("COMMIT;\nSET unique_checks=1;\nSET foreign_key_checks=1;\nANALYZE TABLE books, users, shopping_carts, "
+                  "cart_items, purchase_sessions, user_books, book_reviews;\n")
+    print(f"💾 Wrote {books} books and {rows} rows per table to {path}")
+
+class QueryPlanCheck:
+    def __init__(self, mysql_command):
+        self.mysql_command = mysql_command
+
+    def explain(self, sql):
+        """Run EXPLAIN through the mysql client and return one dict per plan row"""
+        result = subprocess.run(self.mysql_command + ["-B", "-e", f"EXPLAIN {sql}"],
+                                capture_output=True, text=True, timeout=120)
+        if result.returncode != 0:
+            raise Exception(result.stderr.strip() or f"mysql exited with {result.returncode}")
+        lines = [line for line in result.stdout.splitlines() if line.strip()]
+        header = lines[0].split("\t")
+        return [dict(zip(header, line.split("\t"))) for line in lines[1:]]
+
+    def run(self):
+        failures = []
+        for name, sql in QUERIES:
+            plan = self.explain(sql)
+            scans = [row for row in plan if row.get("type") == "ALL"]
+            used = ", ".join(f"{row.get('table')}:{row.get('key')}" for row in plan)
+            if scans:
+                failures.append(name)
+                tables = ", ".join(f"{row.get('table')} ({row.get('rows')} rows)" for row in scans)
+                print(f"❌ {name}: full scan of {tables}")
+            else:
+                print(f"✅ {name}: {used}")
+        return failures
+
+def main():
+    parser = argparse.ArgumentParser(description="QUERY PLAN CHECK - EXPLAIN every repository finder")
+    parser.add_argument("--generate-sql", type=str, metavar="FILE",
+                       help="Write the seeded dataset as SQL to FILE instead of running")
+    parser.add_argument("--rows", type=int, default=1000000,
+                       help="Rows per large table to generate (default: 1000000)")
+    parser.add_argument("--books", type=int, default=10000,
+                       help="Number of books to generate (default: 10000)")
+    parser.add_argument("--seed", type=int, default=42,
+                       help="Random seed for the dataset (default: 42)")
+    parser.add_argument("--mysql", type=str,
+                       default="docker exec -i mysql-db mysql -uroot -pP@ssw0rd secchamp2025",
+                       help="Command that runs the mysql client against the database")
+
+    args = parser.parse_args()
+
+    if args.generate_sql:
+        generate_sql(args.generate_sql, args.rows, args.books, args.seed)
+        return
+
+    print("🧪 QUERY PLAN CHECK")
+    print("=" * 55)
+
+    try:
+        failures = QueryPlanCheck(args.mysql.split()).run()
+    except Exception as e:
+        print(f"\n❌ Check failed with error: {e}")
+        sys.exit(1)
+
+    print(f"\nℹ️  Full scans by design: {'; '.join(FULL_SCANS)}")
+    if failures:
+        print(f"\n❌ {len(failures)} of {len(QUERIES)} queries fall back to a full table scan")
+        sys.exit(1)
+    print(f"\n✅ All {len(QUERIES)} queries use an index")
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,167 @@
+#!/usr/bin/env python3
+"""
+SEARCH BENCHMARK - Book and review search latency over a synthetic 1M-review corpus
+
+1. Generate the corpus (100 books x 10,000 users = 1,000,000 reviews) and load it into MySQL:
+     python search-benchmark.py --generate-sql corpus.sql --reviews 1000000
+     docker exec -i mysql-db mysql -uroot -p'P@ssw0rd' secchamp2025 < corpus.sql
+2. Run the benchmark against the old (LIKE) build and the new (FULLTEXT) build, then compare:
+     python search-benchmark.py -o before.json
+     python search-benchmark.py -o after.json
+     python search-benchmark.py --compare before.json after.json
+"""
+
+import requests
+import random
+import time
+import argparse
+import json
+import sys
+
+WORDS = ("adventure architecture async binary brilliant careful chapter classic cluster compiler concise "
+         "concurrency database delightful design detailed distributed dragon elegant engaging epic essential "
+         "excellent fantasy functional galaxy gripping history insightful journey kernel kingdom language "
+         "lengthy memorable mystery network novel pattern patterns performance practical programming python "
+         "readable recommended refactoring reliable romance science scalable security storage strategy "
+         "system testing thorough thriller tutorial unforgettable wizard").split()
+
+QUERIES = {
+    "reviews": ["excellent", "distributed database", "gripping thriller", "kernel", "memorable journey"],
+    "books": ["programming", "design patterns", "fantasy", "science", "security"],
+}
+
+def sql_string(value):
+    return "'" + value.replace("\\", "\\\\").replace("'", "''") + "'"
+
+def generate_sql(path, reviews, books, seed):
+    """Write INSERT statements for synthetic users, books and reviews (one review per user/book pair)"""
+    rng = random.Random(seed)
+    users = (reviews + books - 1) // books
+
+    def sentence(length):
+        return " ".join(rng.choice(WORDS) for _ in range(length))
+
+    def write_batches(out, header, rows, batch=1000):
+        chunk = []
+        for row in rows:
+            chunk.append(row)
+            if len(chunk) == batch:
+                out.write(header + ",\n".join(chunk) + ";\n")
+                chunk = []
+        if chunk:
+            out.write(header + ",\n".join(chunk) + ";\n")
+
+    with open(path, "w") as out:
+        out.write("SET autocommit=0;\nSET unique_checks=0;\nSET foreign_key_checks=0;\n")
+        write_batches(out, "INSERT IGNORE INTO books (id, title, author, isbn, category, price, stock, rating) VALUES\n",
+                      (f"({sql_string(f'search-bench-{b}')}, {sql_string(sentence(3).title())}, "
+                       f"{sql_string(sentence(2).title())}, {sql_string(f'SB-{b:08d}')}, "
+                       f"{sql_string(rng.choice(['Fiction', 'Science', 'Technology', 'History', 'Fantasy']))}, "
+                       f"9.99, 1000, 4.0)" for b in range(books)))
+        write_batches(out, "INSERT IGNORE INTO users (id, name, email, password) VALUES\n",
+                      (f"({sql_string(f'search-bench-u{u}')}, {sql_string(f'Bench User {u}')}, "
+                       f"{sql_string(f'search-bench-u{u}@example.com')}, 'x')" for u in range(users)))
+        write_batches(out, "INSERT IGNORE INTO book_reviews (id, book_id, user_id, rating, review_title, review_text, helpful_count, verified_purchase) VALUES\n",
+                      (f"({sql_string(f'search-bench-r{i}')}, {sql_string(f'search-bench-{i % books}')}, "
+                       f"{sql_string(f'search-bench-u{i // books}')}, {rng.randint(1, 5)}.0, "
+                       f"{sql_string(sentence(4))}, {sql_string(sentence(rng.randint(20, 60)))}, 0, FALSE)"
+                       for i in range(reviews)))
+        out.write("COMMIT;\nSET unique_checks=1;\nSET foreign_key_checks=1;\n")
+    print(f"💾 Wrote {books} books, {users} users and {reviews} reviews to {path}")
+
+class SearchBenchmark:
+    def __init__(self, base_url="http://localhost:8080"):
+        self.base_url = base_url
+        self.session = requests.Session()
+
+    def timed_get(self, path, params):
+        started = time.perf_counter()
+        response = self.session.get(f"{self.base_url}{path}", params=params, timeout=120)
+        elapsed = time.perf_counter() - started
+        if response.status_code != 200:
+            raise Exception(f"GET {path} failed: HTTP {response.status_code} {response.text[:200]}")
+        return elapsed
+
+    def measure(self, path, param, terms, rounds, warmup):
+        for term in terms:
+            for _ in range(warmup):
+                self.timed_get(path, {param: term})
+        samples = sorted(self.timed_get(path, {param: term}) for _ in range(rounds) for term in terms)
+        return {
+            "p50_ms": samples[len(samples) // 2] * 1000,
+            "p95_ms": samples[min(len(samples) - 1, int(len(samples) * 0.95))] * 1000,
+            "mean_ms": sum(samples) / len(samples) * 1000
+        }
+
+    def run(self, rounds, warmup):
+        results = {
+            "reviews": self.measure("/api/books/reviews/search", "keyword", QUERIES["reviews"], rounds, warmup),
+            "books": self.measure("/api/books/search", "title", QUERIES["books"], rounds, warmup),
+        }
+        for name, result in results.items():
+            print(f"🔎 {name:>7}: p50={result['p50_ms']:.1f}ms p95={result['p95_ms']:.1f}ms mean={result['mean_ms']:.1f}ms")
+        return results
+
+def compare(before_file, after_file):
+    with open(before_file) as f:
+        before = json.load(f)
+    with open(after_file) as f:
+        after = json.load(f)
+
+    print(f"\n📊 SEARCH LATENCY (p50 ms)")
+    print(f"{'search':>8} {'before':>10} {'after':>10} {'speedup':>9}")
+    for name in sorted(set(before) & set(after)):
+        b = before[name]["p50_ms"]
+        a = after[name]["p50_ms"]
+        print(f"{name:>8} {b:>10.1f} {a:>10.1f} {b / a if a else 0:>8.1f}x")
+
+def main():
+    parser = argparse.ArgumentParser(description="SEARCH BENCHMARK - Book and review search latency")
+    parser.add_argument("--generate-sql", type=str, metavar="FILE",
+                       help="Write the synthetic corpus as SQL to FILE instead of running")
+    parser.add_argument("--reviews", type=int, default=1000000,
+                       help="Number of synthetic reviews to generate (default: 1000000)")
+    parser.add_argument("--books", type=int, default=100,
+                       help="Number of synthetic books to generate (default: 100)")
+    parser.add_argument("--seed", type=int, default=42,
+                       help="Random seed for the corpus (default: 42)")
+    parser.add_argument("--rounds", "-n", type=int, default=20,
+                       help="Measured requests per search term (default: 20)")
+    parser.add_argument("--warmup", type=int, default=2,
+                       help="Unmeasured warm-up requests per search term (default: 2)")
+    parser.add_argument("--output", "-o", type=str,
+                       help="Write results as JSON to this file")
+    parser.add_argument("--compare", nargs=2, metavar=("BEFORE", "AFTER"),
+                       help="Compare two result files instead of running")
+    parser.add_argument("--url", "-u", type=str, default="http://localhost:8080",
+                       help="Base URL of the application (default: http://localhost:8080)")
+
+    args = parser.parse_args()
+
+    if args.generate_sql:
+        generate_sql(args.generate_sql, args.reviews, args.books, args.seed)
+        return
+    if args.compare:
+        compare(*args.compare)
+        return
+
+    print("🧪 SEARCH BENCHMARK")
+    print("=" * 55)
+
+    benchmark = SearchBenchmark(base_url=args.url)
+    try:
+        results = benchmark.run(args.rounds, args.warmup)
+    except KeyboardInterrupt:
+        print("\n\n⚠️  Benchmark interrupted by user")
+        sys.exit(1)
+    except Exception as e:
+        print(f"\n❌ Benchmark failed with error: {e}")
+        sys.exit(1)
+
+    if args.output:
+        with open(args.output, "w") as f:
+            json.dump(results, f, indent=2)
+        print(f"\n💾 Results written to {args.output}")
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,179 @@
+#!/usr/bin/env python3
+"""
+STOCK ENGINE LOAD TEST - Flash-sale concurrency check
+Fires thousands of parallel purchases at one book and asserts throughput and zero overselling
+"""
+
+import requests
+import time
+import argparse
+import threading
+from collections import defaultdict
+from concurrent.futures import ThreadPoolExecutor, as_completed
+import sys
+
+class StockLoadTester:
+    def __init__(self, base_url="http://localhost:8080", book_id="1",
+                 email="alice@secchamp.com", password="password123"):
+        self.base_url = base_url
+        self.book_id = book_id
+        self.email = email
+        self.password = password
+        self.token = None
+        self.local = threading.local()
+
+    def http(self):
+        """One keep-alive session per worker thread"""
+        if not hasattr(self.local, "session"):
+            self.local.session = requests.Session()
+        return self.local.session
+
+    def login(self):
+        """Authenticate and get JWT token"""
+        login_url = f"{self.base_url}/api/auth/login"
+        try:
+            response = self.http().post(login_url, json={"email": self.email, "password": self.password}, timeout=10)
+            response.raise_for_status()
+            self.token = response.json().get("token")
+            if not self.token:
+                raise Exception("No token received from login response")
+            print("✅ Login OK, token received")
+            return True
+        except Exception as e:
+            print(f"❌ Login failed: {e}")
+            return False
+
+    def read_stock(self):
+        """Read the committed stock of the book under test"""
+        response = self.http().get(f"{self.base_url}/api/books/{self.book_id}", timeout=10)
+        response.raise_for_status()
+        return response.json().get("data", {}).get("stock")
+
+    def purchase(self, request_id):
+        """One direct purchase against the race-test endpoint"""
+        url = f"{self.base_url}/api/purchase/race-test/{self.book_id}"
+        headers = {"Authorization": f"Bearer {self.token}"}
+        started = time.perf_counter()
+        try:
+            response = self.http().post(url, headers=headers, timeout=30)
+            elapsed = time.perf_counter() - started
+            if response.status_code != 200:
+                return {"ok": False, "error": f"HTTP {response.status_code}", "latency": elapsed}
+            body = response.json()
+            return {
+                "ok": True,
+                "decremented": bool(body.get("success")),
+                "stock": body.get("currentStock"),
+                "latency": elapsed
+            }
+        except Exception as e:
+            return {"ok": False, "error": type(e).__name__, "latency": time.perf_counter() - started}
+
+    def run(self, num_requests=2000, num_threads=100, min_rps=100.0):
+        print(f"\n🎯 STOCK ENGINE LOAD TEST - {num_requests} purchases, {num_threads} concurrent workers, book {self.book_id}")
+
+        if not self.login():
+            return False
+
+        initial_stock = self.read_stock()
+        print(f"📊 Initial stock: {initial_stock}")
+
+        results = []
+        started = time.perf_counter()
+        with ThreadPoolExecutor(max_workers=num_threads) as executor:
+            futures = [executor.submit(self.purchase, i) for i in range(num_requests)]
+            for future in as_completed(futures):
+                results.append(future.result())
+        duration = time.perf_counter() - started
+
+        final_stock = self.read_stock()
+        return self.analyze(results, duration, initial_stock, final_stock, min_rps)
+
+    def analyze(self, results, duration, initial_stock, final_stock, min_rps):
+        answered = [r for r in results if r["ok"]]
+        decremented = [r for r in answered if r["decremented"]]
+        errors = defaultdict(int)
+        for r in results:
+            if not r["ok"]:
+                errors[r["error"]] += 1
+
+        latencies = sorted(r["latency"] for r in answered)
+        observed = [r["stock"] for r in answered if r.get("stock") is not None]
+        rps = len(results) / duration if duration > 0 else 0.0
+
+        print(f"\n📊 LOAD TEST RESULTS:")
+        print(f"Requests: {len(results)} in {duration:.2f}s ({rps:.1f} req/s)")
+        print(f"✅ Stock decremented: {len(decremented)}")
+        print(f"⛔ Rejected as out of stock: {len(answered) - len(decremented)}")
+        print(f"❌ Transport/HTTP errors: {len(results) - len(answered)}")
+        for error, count in errors.items():
+            print(f"  {count}x: {error}")
+        if latencies:
+            p50 = latencies[len(latencies) // 2]
+            p99 = latencies[min(len(latencies) - 1, int(len(latencies) * 0.99))]
+            print(f"⏱️  Latency p50={p50 * 1000:.1f}ms p99={p99 * 1000:.1f}ms")
+        print(f"📈 Stock: {initial_stock} → {final_stock}")
+
+        failures = []
+        if observed and min(observed) < 0:
+            failures.append(f"negative stock observed in responses: {min(observed)}")
+        if final_stock is not None and final_stock < 0:
+            failures.append(f"final stock is negative: {final_stock}")
+        if initial_stock is not None and final_stock is not None:
+            if len(decremented) != initial_stock - final_stock:
+                failures.append(f"{len(decremented)} successful purchases but stock moved by {initial_stock - final_stock}")
+        if rps < min_rps:
+            failures.append(f"throughput {rps:.1f} req/s below required {min_rps:.1f} req/s")
+        if errors:
+            failures.append(f"{len(results) - len(answered)} requests failed")
+
+        if failures:
+            print(f"\n🚨 LOAD TEST FAILED:")
+            for failure in failures:
+                print(f"  • {failure}")
+            return False
+
+        print(f"\n✅ No overselling: every successful purchase maps to exactly one unit of stock")
+        return True
+
+def main():
+    parser = argparse.ArgumentParser(description="STOCK ENGINE LOAD TEST - Flash-sale concurrency check")
+    parser.add_argument("--requests", "-n", type=int, default=2000,
+                       help="Total number of purchases to fire (default: 2000)")
+    parser.add_argument("--threads", "-t", type=int, default=100,
+                       help="Number of concurrent workers (default: 100)")
+    parser.add_argument("--min-rps", "-r", type=float, default=100.0,
+                       help="Minimum acceptable throughput in requests/sec (default: 100)")
+    parser.add_argument("--url", "-u", type=str, default="http://localhost:8080",
+                       help="Base URL of the application (default: http://localhost:8080)")
+    parser.add_argument("--book-id", "-b", type=str, default="1",
+                       help="Book ID to test with (default: 1)")
+    parser.add_argument("--email", "-e", type=str, default="alice@secchamp.com",
+                       help="Login email (default: alice@secchamp.com)")
+    parser.add_argument("--password", "-w", type=str, default="password123",
+                       help="Login password (default: password123)")
+
+    args = parser.parse_args()
+
+    print("🧪 STOCK ENGINE LOAD TEST")
+    print("=" * 55)
+
+    tester = StockLoadTester(
+        base_url=args.url,
+        book_id=args.book_id,
+        email=args.email,
+        password=args.password
+    )
+
+    try:
+        if not tester.run(args.requests, args.threads, args.min_rps):
+            sys.exit(1)
+    except KeyboardInterrupt:
+        print("\n\n⚠️  Test interrupted by user")
+        sys.exit(1)
+    except Exception as e:
+        print(f"\n❌ Test failed with error: {e}")
+        sys.exit(1)
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,166 @@
+#!/usr/bin/env python3
+"""
+VIRTUAL THREAD LOAD TEST - 5,000 concurrent cart users against platform vs virtual request threads
+Registers the users up front, then starts them all at once; each one loops add-to-cart / view cart /
+clear cart (the DB-bound /api/cart/** path) until --duration runs out.
+
+1. Run against the default build (Tomcat platform worker pool):
+     docker compose up --build -d
+     python virtual-thread-load-test.py -o platform.json
+2. Run against the virtual-thread profile:
+     JAVA_VERSION=21 MAVEN_PROFILES=virtual SPRING_PROFILES_ACTIVE=virtual docker compose up --build -d
+     python virtual-thread-load-test.py -o virtual.json
+3. Compare:
+     python virtual-thread-load-test.py --compare platform.json virtual.json
+"""
+
+import requests
+import time
+import argparse
+import threading
+import uuid
+import json
+from collections import defaultdict
+from concurrent.futures import ThreadPoolExecutor
+import sys
+
+class VirtualThreadLoadTester:
+    def __init__(self, base_url="http://localhost:8080", book_id="1"):
+        self.base_url = base_url
+        self.book_id = book_id
+        self.local = threading.local()
+
+    def http(self):
+        """One keep-alive session per worker thread"""
+        if not hasattr(self.local, "session"):
+            self.local.session = requests.Session()
+        return self.local.session
+
+    def cart_user(self, index):
+        """Register and log in one ACTIVE cart user"""
+        email = f"cart-user-{uuid.uuid4().hex[:12]}@example.com"
+        self.http().post(f"{self.base_url}/api/auth/register", json={
+            "name": f"Cart User {index}", "email": email, "password": "password123",
+            "accountStatus": "ACTIVE", "creditLimit": 1000
+        }, timeout=60).raise_for_status()
+        response = self.http().post(f"{self.base_url}/api/auth/login",
+                                    json={"email": email, "password": "password123"}, timeout=60)
+        response.raise_for_status()
+        token = response.json().get("token")
+        if not token:
+            raise Exception("No token received from login response")
+        return {"Authorization": f"Bearer {token}"}
+
+    def timed(self, method, path, headers, **kwargs):
+        started = time.perf_counter()
+        try:
+            response = self.http().request(method, f"{self.base_url}{path}", headers=headers, timeout=60, **kwargs)
+            status = response.status_code
+        except Exception as e:
+            status = type(e).__name__
+        return status, time.perf_counter() - started
+
+    def session(self, headers, start, deadline):
+        """Loop one user's cart operations until the deadline"""
+        samples = []
+        start.wait()
+        while time.perf_counter() < deadline:
+            samples.append(self.timed("POST", "/api/cart/add", headers, json={"bookId": self.book_id}))
+            samples.append(self.timed("GET", "/api/cart", headers))
+            samples.append(self.timed("DELETE", "/api/cart/clear", headers))
+        return samples
+
+    def run(self, num_users, setup_threads, duration):
+        print(f"\n🎯 VIRTUAL THREAD LOAD TEST - {num_users} concurrent cart users for {duration}s, book {self.book_id}")
+
+        with ThreadPoolExecutor(max_workers=setup_threads) as executor:
+            users = list(executor.map(self.cart_user, range(num_users)))
+        print(f"👥 {len(users)} cart users logged in")
+
+        start = threading.Event()
+        with ThreadPoolExecutor(max_workers=num_users) as executor:
+            deadline = time.perf_counter() + duration
+            futures = [executor.submit(self.session, headers, start, deadline) for headers in users]
+            start.set()
+            samples = [sample for future in futures for sample in future.result()]
+        return self.analyze(samples, duration)
+
+    def analyze(self, samples, duration):
+        statuses = defaultdict(int)
+        for status, _ in samples:
+            statuses[status] += 1
+        latencies = sorted(latency for _, latency in samples)
+        ok = statuses.get(200, 0)
+        results = {
+            "requests": len(samples),
+            "ok": ok,
+            "errors": len(samples) - ok,
+            "rps": ok / duration if duration > 0 else 0.0,
+            "p50_ms": latencies[len(latencies) // 2] * 1000 if latencies else 0.0,
+            "p99_ms": latencies[min(len(latencies) - 1, int(len(latencies) * 0.99))] * 1000 if latencies else 0.0,
+            "statuses": {str(status): count for status, count in statuses.items()},
+        }
+
+        print(f"\n📊 LOAD TEST RESULTS:")
+        print(f"Requests: {results['requests']} in {duration}s ({results['rps']:.1f} successful requests/s)")
+        for status, count in sorted(statuses.items(), key=lambda item: str(item[0])):
+            print(f"  {count}x: {status}")
+        print(f"⏱️  Latency p50={results['p50_ms']:.1f}ms p99={results['p99_ms']:.1f}ms")
+        return results
+
+def compare(platform_file, virtual_file):
+    with open(platform_file) as f:
+        platform = json.load(f)
+    with open(virtual_file) as f:
+        virtual = json.load(f)
+
+    print(f"\n📊 PLATFORM vs VIRTUAL THREADS")
+    print(f"{'metric':>8} {'platform':>10} {'virtual':>10} {'ratio':>8}")
+    for metric in ("rps", "p50_ms", "p99_ms", "errors"):
+        p = platform[metric]
+        v = virtual[metric]
+        print(f"{metric:>8} {p:>10.1f} {v:>10.1f} {v / p if p else 0:>7.2f}x")
+
+def main():
+    parser = argparse.ArgumentParser(description="VIRTUAL THREAD LOAD TEST - Concurrent cart users, platform vs virtual threads")
+    parser.add_argument("--users", "-n", type=int, default=5000,
+                       help="Number of concurrent cart users (default: 5000)")
+    parser.add_argument("--setup-threads", type=int, default=100,
+                       help="Concurrent workers used to register the users (default: 100)")
+    parser.add_argument("--duration", "-d", type=int, default=60,
+                       help="Seconds every user keeps working its cart (default: 60)")
+    parser.add_argument("--book-id", "-b", type=str, default="1",
+                       help="Book ID added to the carts (default: 1)")
+    parser.add_argument("--output", "-o", type=str,
+                       help="Write results as JSON to this file")
+    parser.add_argument("--compare", nargs=2, metavar=("PLATFORM", "VIRTUAL"),
+                       help="Compare two result files instead of running")
+    parser.add_argument("--url", "-u", type=str, default="http://localhost:8080",
+                       help="Base URL of the application (default: http://localhost:8080)")
+
+    args = parser.parse_args()
+
+    if args.compare:
+        compare(*args.compare)
+        return
+
+    print("🧪 VIRTUAL THREAD LOAD TEST")
+    print("=" * 55)
+
+    tester = VirtualThreadLoadTester(base_url=args.url, book_id=args.book_id)
+    try:
+        results = tester.run(args.users, args.setup_threads, args.duration)
+    except KeyboardInterrupt:
+        print("\n\n⚠️  Test interrupted by user")
+        sys.exit(1)
+    except Exception as e:
+        print(f"\n❌ Test failed with error: {e}")
+        sys.exit(1)
+
+    if args.output:
+        with open(args.output, "w") as f:
+            json.dump(results, f, indent=2)
+        print(f"\n💾 Results written to {args.output}")
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,38 @@
+-- Migration script to add the query indexes declared on the JPA entities
+-- Databases created from init-db.sql / reset-db.sql already have them, and the application's
+-- ddl-auto=update adds missing ones at startup; run this once against older databases that are managed
+-- by hand (each ALTER fails with a duplicate key error if the index already exists)
+
+USE secchamp2025;
+
+ALTER TABLE books
+    ADD INDEX idx_books_category (category),
+    ADD INDEX idx_books_rating (rating);
+
+ALTER TABLE book_reviews
+    ADD INDEX idx_book_reviews_book_created (book_id, created_at),
+    ADD INDEX idx_book_reviews_user_created (user_id, created_at),
+    ADD INDEX idx_book_reviews_rating_created (rating, created_at),
+    ADD INDEX idx_book_reviews_verified_helpful (verified_purchase, helpful_count);
+
+ALTER TABLE cart_items
+    ADD INDEX idx_cart_items_book_reserved (book_id, reserved_until, quantity),
+    ADD INDEX idx_cart_items_reserved (reserved_until);
+
+ALTER TABLE shopping_carts
+    ADD INDEX idx_shopping_carts_user_status (user_id, status),
+    ADD INDEX idx_shopping_carts_status_expires (status, expires_at);
+
+ALTER TABLE purchase_sessions
+    ADD INDEX idx_purchase_sessions_user_book_status (user_id, book_id, status),
+    ADD INDEX idx_purchase_sessions_book_status_expires (book_id, status, expires_at),
+    ADD INDEX idx_purchase_sessions_status_expires (status, expires_at);
+
+ALTER TABLE user_books
+    ADD INDEX idx_user_books_user_purchased (user_id, purchase_date);
+
+-- Verify the new indexes
+SELECT TABLE_NAME, INDEX_NAME, GROUP_CONCAT(COLUMN_NAME ORDER BY SEQ_IN_INDEX) AS columns
+FROM information_schema.STATISTICS
+WHERE TABLE_SCHEMA = DATABASE() AND INDEX_NAME LIKE 'idx\_%'
+GROUP BY TABLE_NAME, INDEX_NAME;
@@ -34,7 +34,15 @@ CREATE TABLE IF NOT EXISTS books (
     image_url VARCHAR(500),
     publisher VARCHAR(100),
     publish_date VARCHAR(20),
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    review_count INT NOT NULL DEFAULT 0,
+    rating_sum DECIMAL(12,1) NOT NULL DEFAULT 0,
+    helpful_total BIGINT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FULLTEXT KEY ft_books_search (title, author, category),
+    FULLTEXT KEY ft_books_title (title),
+    FULLTEXT KEY ft_books_author (author),
+    KEY idx_books_category (category),
+    KEY idx_books_rating (rating)
 );
 
 -- Insert sample users with working BCrypt hashes
@@ -87,7 +95,10 @@ CREATE TABLE IF NOT EXISTS purchase_sessions (
     expires_at TIMESTAMP NULL,
     status VARCHAR(20) DEFAULT 'LOCKED',
     FOREIGN KEY (user_id) REFERENCES users(id),
-    FOREIGN KEY (book_id) REFERENCES books(id)
+    FOREIGN KEY (book_id) REFERENCES books(id),
+    KEY idx_purchase_sessions_user_book_status (user_id, book_id, status),
+    KEY idx_purchase_sessions_book_status_expires (book_id, status, expires_at),
+    KEY idx_purchase_sessions_status_expires (status, expires_at)
 );
 
 -- Create shopping carts table
@@ -97,7 +108,9 @@ CREATE TABLE IF NOT EXISTS shopping_carts (
     created_at TIMESTAMP NULL,
     expires_at TIMESTAMP NULL,
     status VARCHAR(20) DEFAULT 'ACTIVE',
-    FOREIGN KEY (user_id) REFERENCES users(id)
+    FOREIGN KEY (user_id) REFERENCES users(id),
+    KEY idx_shopping_carts_user_status (user_id, status),
+    KEY idx_shopping_carts_status_expires (status, expires_at)
 );
 
 -- Create cart items table
@@ -111,7 +124,9 @@ CREATE TABLE IF NOT EXISTS cart_items (
     reserved_until TIMESTAMP NULL,
     FOREIGN KEY (cart_id) REFERENCES shopping_carts(id) ON DELETE CASCADE,
     FOREIGN KEY (book_id) REFERENCES books(id),
-    UNIQUE KEY unique_cart_book (cart_id, book_id)
+    UNIQUE KEY unique_cart_book (cart_id, book_id),
+    KEY idx_cart_items_book_reserved (book_id, reserved_until, quantity),
+    KEY idx_cart_items_reserved (reserved_until)
 );
 
 -- Create user_books table for books owned by users
@@ -122,7 +137,8 @@ CREATE TABLE IF NOT EXISTS user_books (
     purchase_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     purchase_price DECIMAL(10,2),
     FOREIGN KEY (user_id) REFERENCES users(id),
-    FOREIGN KEY (book_id) REFERENCES books(id)
+    FOREIGN KEY (book_id) REFERENCES books(id),
+    KEY idx_user_books_user_purchased (user_id, purchase_date)
     -- Note: Removed unique constraint to allow multiple copies of the same book
 );
 
@@ -153,7 +169,12 @@ CREATE TABLE IF NOT EXISTS book_reviews (
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     FOREIGN KEY (book_id) REFERENCES books(id) ON DELETE CASCADE,
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
-    UNIQUE KEY unique_user_book_review (user_id, book_id)
+    UNIQUE KEY unique_user_book_review (user_id, book_id),
+    FULLTEXT KEY ft_book_reviews_text (review_title, review_text),
+    KEY idx_book_reviews_book_created (book_id, created_at),
+    KEY idx_book_reviews_user_created (user_id, created_at),
+    KEY idx_book_reviews_rating_created (rating, created_at),
+    KEY idx_book_reviews_verified_helpful (verified_purchase, helpful_count)
 );
 
 -- Insert sample book reviews
@@ -167,4 +188,13 @@ INSERT INTO book_reviews (id, book_id, user_id, rating, review_title, review_tex
 ('7', '10', '5', 4.5, 'Security Best Practices', 'Excellent coverage of secure coding practices. Very relevant for modern web development.', 9, FALSE),
 ('8', '1', '4', 4.0, 'Clean and Clear', 'Great book on software architecture principles. Some concepts could be explained more simply, but overall very valuable.', 6, FALSE),
 ('9', '11', '1', 4.5, 'Microservices Done Right', 'Excellent patterns and real-world examples. Helps avoid common microservices pitfalls.', 14, TRUE),
-('10', '12', '5', 4.0, 'Modern React Development', 'Good introduction to modern React patterns. Covers hooks and context very well.', 7, FALSE);
\ No newline at end of file
+('10', '12', '5', 4.0, 'Modern React Development', 'Good introduction to modern React patterns. Covers hooks and context very well.', 7, FALSE);
+
+-- Seed the review aggregates the application maintains incrementally from here on
+UPDATE books b
+JOIN (SELECT book_id, COUNT(*) AS cnt, SUM(rating) AS total, SUM(helpful_count) AS helpful
+      FROM book_reviews GROUP BY book_id) r ON r.book_id = b.id
+SET b.review_count = r.cnt,
+    b.rating_sum = r.total,
+    b.helpful_total = r.helpful,
+    b.rating = ROUND(r.total / r.cnt, 2);
\ No newline at end of file
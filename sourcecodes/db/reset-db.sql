@@ -37,7 +37,15 @@ CREATE TABLE IF NOT EXISTS books (
     image_url VARCHAR(500),
     publisher VARCHAR(100),
     publish_date VARCHAR(20),
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    review_count INT NOT NULL DEFAULT 0,
+    rating_sum DECIMAL(12,1) NOT NULL DEFAULT 0,
+    helpful_total BIGINT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FULLTEXT KEY ft_books_search (title, author, category),
+    FULLTEXT KEY ft_books_title (title),
+    FULLTEXT KEY ft_books_author (author),
+    KEY idx_books_category (category),
+    KEY idx_books_rating (rating)
 );
 
 -- Insert sample users with different passwords for testing
@@ -97,7 +105,10 @@ CREATE TABLE IF NOT EXISTS purchase_sessions (
     expires_at TIMESTAMP NULL,
     status VARCHAR(20) DEFAULT 'LOCKED',
     FOREIGN KEY (user_id) REFERENCES users(id),
-    FOREIGN KEY (book_id) REFERENCES books(id)
+    FOREIGN KEY (book_id) REFERENCES books(id),
+    KEY idx_purchase_sessions_user_book_status (user_id, book_id, status),
+    KEY idx_purchase_sessions_book_status_expires (book_id, status, expires_at),
+    KEY idx_purchase_sessions_status_expires (status, expires_at)
 );
 
 -- Create shopping carts table
@@ -107,7 +118,9 @@ CREATE TABLE IF NOT EXISTS shopping_carts (
     created_at TIMESTAMP NULL,
     expires_at TIMESTAMP NULL,
     status VARCHAR(20) DEFAULT 'ACTIVE',
-    FOREIGN KEY (user_id) REFERENCES users(id)
+    FOREIGN KEY (user_id) REFERENCES users(id),
+    KEY idx_shopping_carts_user_status (user_id, status),
+    KEY idx_shopping_carts_status_expires (status, expires_at)
 );
 
 -- Create cart items table
@@ -121,7 +134,9 @@ CREATE TABLE IF NOT EXISTS cart_items (
     reserved_until TIMESTAMP NULL,
     FOREIGN KEY (cart_id) REFERENCES shopping_carts(id) ON DELETE CASCADE,
     FOREIGN KEY (book_id) REFERENCES books(id),
-    UNIQUE KEY unique_cart_book (cart_id, book_id)
+    UNIQUE KEY unique_cart_book (cart_id, book_id),
+    KEY idx_cart_items_book_reserved (book_id, reserved_until, quantity),
+    KEY idx_cart_items_reserved (reserved_until)
 );
 
 -- Create user_books table for books owned by users (NO UNIQUE CONSTRAINT)
@@ -132,7 +147,8 @@ CREATE TABLE IF NOT EXISTS user_books (
     purchase_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     purchase_price DECIMAL(10,2),
     FOREIGN KEY (user_id) REFERENCES users(id),
-    FOREIGN KEY (book_id) REFERENCES books(id)
+    FOREIGN KEY (book_id) REFERENCES books(id),
+    KEY idx_user_books_user_purchased (user_id, purchase_date)
     -- Note: No unique constraint to allow multiple copies of the same book
 );
 
@@ -0,0 +1,52 @@
+package com.cybersecurity.sechamp2025.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Hibernate's ddl-auto cannot declare FULLTEXT indexes, and databases created before they were added to
+// db/init-db.sql do not have them - create whatever is missing at startup
+@Component
+public class FullTextIndexInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(FullTextIndexInitializer.class);
+
+    // table, index name, columns (must match the MATCH(...) column lists used by the search queries)
+    private static final String[][] INDEXES = {
+            {"books", "ft_books_search", "title, author, category"},
+            {"books", "ft_books_title", "title"},
+            {"books", "ft_books_author", "author"},
+            {"book_reviews", "ft_book_reviews_text", "review_title, review_text"}
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void ensureIndexes() {
+        for (String[] index : INDEXES) {
+            try {
+                Integer existing = jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE() "
+                                + "AND TABLE_NAME = ? AND INDEX_NAME = ?",
+                        Integer.class, index[0], index[1]);
+                if (existing != null && existing > 0) {
+                    continue;
+                }
+                logger.info("Creating FULLTEXT index {} on {}({})", index[1], index[0], index[2]);
+                jdbcTemplate.execute("ALTER TABLE " + index[0] + " ADD FULLTEXT INDEX " + index[1] + " (" + index[2] + ")");
+            } catch (DataAccessException e) {
+                logger.error("Could not create FULLTEXT index {} on {} - full-text search will fail until it exists",
+                        index[1], index[0], e);
+            }
+        }
+    }
+}
@@ -41,13 +41,12 @@ public class AdminController {
             return ResponseEntity.status(401).body(Map.of("error", "Missing authorization"));
         }
 
-        String token = authHeader.substring(7);
-        String userId = JwtUtil.validateAndExtractUserId(token);
+        String userId = JwtUtil.getAuthenticatedUserId(request);
         if (userId == null) {
             return ResponseEntity.status(403).body(Map.of("error", "Invalid token"));
         }
 
-        User currentUser = userService.findById(userId);
+        User currentUser = userService.getAuthenticatedUser(request);
         if (currentUser == null || !currentUser.isAdmin()) {
             return ResponseEntity.status(403).body(Map.of("error", "Admin access required"));
         }
@@ -67,13 +66,12 @@ public class AdminController {
             return ResponseEntity.status(401).body(Map.of("error", "Missing authorization"));
         }
 
-        String token = authHeader.substring(7);
-        String adminUserId = JwtUtil.validateAndExtractUserId(token);
+        String adminUserId = JwtUtil.getAuthenticatedUserId(request);
         if (adminUserId == null) {
             return ResponseEntity.status(403).body(Map.of("error", "Invalid token"));
         }
 
-        User admin = userService.findById(adminUserId);
+        User admin = userService.getAuthenticatedUser(request);
         if (admin == null || !admin.isAdmin()) {
             return ResponseEntity.status(403).body(Map.of("error", "Admin access required"));
         }
@@ -149,13 +147,12 @@ public class AdminController {
             return ResponseEntity.status(401).body(Map.of("error", "Missing authorization"));
         }
 
-        String token = authHeader.substring(7);
-        String adminUserId = JwtUtil.validateAndExtractUserId(token);
+        String adminUserId = JwtUtil.getAuthenticatedUserId(request);
         if (adminUserId == null) {
             return ResponseEntity.status(403).body(Map.of("error", "Invalid token"));
         }
 
-        User admin = userService.findById(adminUserId);
+        User admin = userService.getAuthenticatedUser(request);
         if (admin == null || !admin.isAdmin()) {
             return ResponseEntity.status(403).body(Map.of("error", "Admin access required"));
         }
@@ -192,13 +189,12 @@ public class AdminController {
             return ResponseEntity.status(401).body(Map.of("error", "Missing authorization"));
         }
 
-        String token = authHeader.substring(7);
-        String adminUserId = JwtUtil.validateAndExtractUserId(token);
+        String adminUserId = JwtUtil.getAuthenticatedUserId(request);
         if (adminUserId == null) {
             return ResponseEntity.status(403).body(Map.of("error", "Invalid token"));
         }
 
-        User admin = userService.findById(adminUserId);
+        User admin = userService.getAuthenticatedUser(request);
         if (admin == null || !admin.isAdmin()) {
             return ResponseEntity.status(403).body(Map.of("error", "Admin access required"));
         }
@@ -234,13 +230,12 @@ public class AdminController {
             return ResponseEntity.status(401).body(Map.of("error", "Missing authorization"));
         }
 
-        String token = authHeader.substring(7);
-        String userId = JwtUtil.validateAndExtractUserId(token);
+        String userId = JwtUtil.getAuthenticatedUserId(request);
         if (userId == null) {
             return ResponseEntity.status(403).body(Map.of("error", "Invalid token"));
         }
 
-        User currentUser = userService.findById(userId);
+        User currentUser = userService.getAuthenticatedUser(request);
         if (currentUser == null || !currentUser.isAdmin()) {
             return ResponseEntity.status(403).body(Map.of("error", "Admin access required"));
         }
@@ -258,13 +253,12 @@ public class AdminController {
             return ResponseEntity.status(401).body(Map.of("error", "Missing authorization"));
         }
 
-        String token = authHeader.substring(7);
-        String userId = JwtUtil.validateAndExtractUserId(token);
+        String userId = JwtUtil.getAuthenticatedUserId(request);
         if (userId == null) {
             return ResponseEntity.status(403).body(Map.of("error", "Invalid token"));
         }
 
-        User currentUser = userService.findById(userId);
+        User currentUser = userService.getAuthenticatedUser(request);
         if (currentUser == null || !currentUser.isAdmin()) {
             return ResponseEntity.status(403).body(Map.of("error", "Admin access required"));
         }
@@ -286,13 +280,12 @@ public class AdminController {
             return ResponseEntity.status(401).body(Map.of("error", "Missing authorization"));
         }
 
-        String token = authHeader.substring(7);
-        String userId = JwtUtil.validateAndExtractUserId(token);
+        String userId = JwtUtil.getAuthenticatedUserId(request);
         if (userId == null) {
             return ResponseEntity.status(403).body(Map.of("error", "Invalid token"));
         }
 
-        User currentUser = userService.findById(userId);
+        User currentUser = userService.getAuthenticatedUser(request);
         if (currentUser == null || !currentUser.isAdmin()) {
             return ResponseEntity.status(403).body(Map.of("error", "Admin access required"));
         }
@@ -321,13 +314,12 @@ public class AdminController {
             return ResponseEntity.status(401).body(Map.of("error", "Missing authorization"));
         }
 
-        String token = authHeader.substring(7);
-        String userId = JwtUtil.validateAndExtractUserId(token);
+        String userId = JwtUtil.getAuthenticatedUserId(request);
         if (userId == null) {
             return ResponseEntity.status(403).body(Map.of("error", "Invalid token"));
         }
 
-        User currentUser = userService.findById(userId);
+        User currentUser = userService.getAuthenticatedUser(request);
         if (currentUser == null || !currentUser.isAdmin()) {
             return ResponseEntity.status(403).body(Map.of("error", "Admin access required"));
         }
@@ -341,6 +333,9 @@ public class AdminController {
 
         try {
             Book savedBook = bookService.save(book);
+            if (bookData.get("stock") instanceof Number stock) {
+                bookService.setStock(bookId, stock.intValue());
+            }
             return ResponseEntity.ok(savedBook);
         } catch (Exception e) {
             return ResponseEntity.status(500).body(Map.of("error", "Failed to update book: " + e.getMessage()));
@@ -356,13 +351,12 @@ public class AdminController {
             return ResponseEntity.status(401).body(Map.of("error", "Missing authorization"));
         }
 
-        String token = authHeader.substring(7);
-        String userId = JwtUtil.validateAndExtractUserId(token);
+        String userId = JwtUtil.getAuthenticatedUserId(request);
         if (userId == null) {
             return ResponseEntity.status(403).body(Map.of("error", "Invalid token"));
         }
 
-        User currentUser = userService.findById(userId);
+        User currentUser = userService.getAuthenticatedUser(request);
         if (currentUser == null || !currentUser.isAdmin()) {
             return ResponseEntity.status(403).body(Map.of("error", "Admin access required"));
         }
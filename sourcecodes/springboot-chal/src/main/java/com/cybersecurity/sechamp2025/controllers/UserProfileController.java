@@ -40,13 +40,12 @@ public class UserProfileController {
             return ResponseEntity.status(401).body(Map.of("error", "Missing authorization"));
         }
 
-        String token = authHeader.substring(7);
-        String userId = JwtUtil.validateAndExtractUserId(token);
+        String userId = JwtUtil.getAuthenticatedUserId(request);
         if (userId == null) {
             return ResponseEntity.status(403).body(Map.of("error", "Invalid token"));
         }
 
-        User user = userService.findById(userId);
+        User user = userService.getAuthenticatedUser(request);
         if (user == null) {
             return ResponseEntity.status(404).body(Map.of("error", "User not found"));
         }
@@ -64,8 +63,7 @@ public class UserProfileController {
             return ResponseEntity.status(401).body(Map.of("error", "Missing authorization"));
         }
 
-        String token = authHeader.substring(7);
-        String authenticatedUserId = JwtUtil.validateAndExtractUserId(token);
+        String authenticatedUserId = JwtUtil.getAuthenticatedUserId(request);
         if (authenticatedUserId == null) {
             return ResponseEntity.status(403).body(Map.of("error", "Invalid token"));
         }
@@ -122,8 +120,7 @@ public class UserProfileController {
             return ResponseEntity.status(401).body(Map.of("error", "Missing authorization"));
         }
 
-        String token = authHeader.substring(7);
-        String authenticatedUserId = JwtUtil.validateAndExtractUserId(token);
+        String authenticatedUserId = JwtUtil.getAuthenticatedUserId(request);
         if (authenticatedUserId == null) {
             return ResponseEntity.status(403).body(Map.of("error", "Invalid token"));
         }
@@ -171,13 +168,12 @@ public class UserProfileController {
             return ResponseEntity.status(401).body(Map.of("error", "Missing authorization"));
         }
 
-        String token = authHeader.substring(7);
-        String userId = JwtUtil.validateAndExtractUserId(token);
+        String userId = JwtUtil.getAuthenticatedUserId(request);
         if (userId == null) {
             return ResponseEntity.status(403).body(Map.of("error", "Invalid token"));
         }
 
-        User user = userService.findById(userId);
+        User user = userService.getAuthenticatedUser(request);
         if (user == null) {
             return ResponseEntity.status(404).body(Map.of("error", "User not found"));
         }
@@ -194,13 +190,12 @@ public class UserProfileController {
             return ResponseEntity.status(401).body(Map.of("error", "Missing authorization"));
         }
 
-        String token = authHeader.substring(7);
-        String userId = JwtUtil.validateAndExtractUserId(token);
+        String userId = JwtUtil.getAuthenticatedUserId(request);
         if (userId == null) {
             return ResponseEntity.status(403).body(Map.of("error", "Invalid token"));
         }
 
-        User user = userService.findById(userId);
+        User user = userService.getAuthenticatedUser(request);
         if (user == null) {
             return ResponseEntity.status(404).body(Map.of("error", "User not found"));
         }
@@ -4,29 +4,56 @@ import com.cybersecurity.sechamp2025.models.Book;
 import com.cybersecurity.sechamp2025.models.BookReview;
 import com.cybersecurity.sechamp2025.services.BookService;
 import com.cybersecurity.sechamp2025.services.BookReviewService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api/books")
 public class BookApiController {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+
     @Autowired
     private BookService bookService;
 
     @Autowired
     private BookReviewService bookReviewService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Without parameters the whole catalog is returned as before. ?after=<id>&limit=<n> returns one keyset
+    // page (follow nextCursor until hasNext is false); ?format=ndjson streams every book as one JSON line.
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getAllBooks() {
+    public ResponseEntity<?> getAllBooks(@RequestParam(required = false) String after,
+                                         @RequestParam(required = false) Integer limit,
+                                         @RequestParam(required = false) String format) {
+        if ("ndjson".equalsIgnoreCase(format)) {
+            StreamingResponseBody body = out -> bookService.forEachBook(book -> writeLine(out, book));
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+        }
         try {
+            if (after != null || limit != null) {
+                Slice<Book> page = bookService.findPage(after, pageLimit(limit));
+                return ResponseEntity.ok(pageResponse(page, Book::getId, "Books retrieved successfully"));
+            }
+
             Map<String, Object> response = new HashMap<>();
             List<Book> books = bookService.findAll();
             
@@ -46,6 +73,16 @@ public class BookApiController {
         }
     }
 
+    // Row count alone, so clients need not page through the catalog to count it
+    @GetMapping("/count")
+    public ResponseEntity<Map<String, Object>> countBooks() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("count", bookService.count());
+
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Map<String, Object>> getBookById(@PathVariable String id) {
         try {
@@ -87,28 +124,34 @@ public class BookApiController {
         return ResponseEntity.ok(response);
     }
 
+    // Combined full-text search: q matches title, author and category; title/author/category narrow it further.
+    // Results are ranked by relevance and paged with ?page=&size=.
     @GetMapping("/search")
     public ResponseEntity<Map<String, Object>> searchBooks(
+            @RequestParam(required = false) String q,
             @RequestParam(required = false) String title,
             @RequestParam(required = false) String author,
-            @RequestParam(required = false) String category) {
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer size) {
         
         Map<String, Object> response = new HashMap<>();
         List<Book> books;
+        boolean hasNext = false;
         
-        if (title != null && !title.trim().isEmpty()) {
-            books = bookService.searchByTitle(title);
-        } else if (author != null && !author.trim().isEmpty()) {
-            books = bookService.findByAuthor(author);
-        } else if (category != null && !category.trim().isEmpty()) {
-            books = bookService.findByCategory(category);
-        } else {
+        if (isBlank(q) && isBlank(title) && isBlank(author) && isBlank(category)) {
             books = bookService.findAll();
+        } else {
+            Slice<Book> results = bookService.search(q, title, author, category, Math.max(page, 0), pageLimit(size));
+            books = results.getContent();
+            hasNext = results.hasNext();
         }
         
         response.put("status", "success");
         response.put("count", books.size());
         response.put("books", books);
+        response.put("page", page);
+        response.put("hasNext", hasNext);
         
         return ResponseEntity.ok(response);
     }
@@ -124,6 +167,16 @@ public class BookApiController {
         return ResponseEntity.ok(response);
     }
 
+    // Catalog snapshot read and load counters
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("cache", bookService.getCacheStats());
+
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/featured")
     public ResponseEntity<Map<String, Object>> getFeaturedBooks() {
         Map<String, Object> response = new HashMap<>();
@@ -168,6 +221,9 @@ public class BookApiController {
         
         book.setId(id);
         Book updatedBook = bookService.save(book);
+        if (book.getStock() != null) {
+            bookService.setStock(id, book.getStock());
+        }
         
         response.put("status", "success");
         response.put("message", "Book updated successfully");
@@ -273,8 +329,19 @@ public class BookApiController {
      * Get all book reviews
      */
     @GetMapping("/reviews")
-    public ResponseEntity<Map<String, Object>> getAllReviews() {
+    public ResponseEntity<?> getAllReviews(@RequestParam(required = false) String after,
+                                           @RequestParam(required = false) Integer limit,
+                                           @RequestParam(required = false) String format) {
+        if ("ndjson".equalsIgnoreCase(format)) {
+            StreamingResponseBody body = out -> bookReviewService.forEachReview(review -> writeLine(out, review));
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+        }
         try {
+            if (after != null || limit != null) {
+                Slice<BookReview> page = bookReviewService.findPage(after, pageLimit(limit));
+                return ResponseEntity.ok(pageResponse(page, BookReview::getId, "Reviews retrieved successfully"));
+            }
+
             List<BookReview> reviews = bookReviewService.findAll();
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -293,11 +360,25 @@ public class BookApiController {
         }
     }
 
+    /**
+     * Count all book reviews
+     */
+    @GetMapping("/reviews/count")
+    public ResponseEntity<Map<String, Object>> countReviews() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("count", bookReviewService.count());
+
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Search reviews by keyword
      */
     @GetMapping("/reviews/search")
-    public ResponseEntity<Map<String, Object>> searchReviews(@RequestParam String keyword) {
+    public ResponseEntity<Map<String, Object>> searchReviews(@RequestParam String keyword,
+                                                             @RequestParam(defaultValue = "0") int page,
+                                                             @RequestParam(required = false) Integer size) {
         try {
             if (keyword == null || keyword.trim().isEmpty()) {
                 Map<String, Object> errorResponse = new HashMap<>();
@@ -308,11 +389,14 @@ public class BookApiController {
                 return ResponseEntity.badRequest().body(errorResponse);
             }
 
-            List<BookReview> reviews = bookReviewService.searchByKeyword(keyword.trim());
+            Slice<BookReview> results = bookReviewService.searchByKeyword(keyword.trim(), Math.max(page, 0), pageLimit(size));
+            List<BookReview> reviews = results.getContent();
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("data", reviews);
             response.put("count", reviews.size());
+            response.put("page", page);
+            response.put("hasNext", results.hasNext());
             response.put("searchTerm", keyword.trim());
             response.put("message", "Review search completed successfully");
             
@@ -407,12 +491,12 @@ public class BookApiController {
     @PostMapping("/reviews/{reviewId}/helpful")
     public ResponseEntity<Map<String, Object>> markReviewHelpful(@PathVariable String reviewId) {
         try {
-            BookReview updatedReview = bookReviewService.incrementHelpfulCount(reviewId);
+            Long helpfulCount = bookReviewService.incrementHelpfulCount(reviewId);
             Map<String, Object> response = new HashMap<>();
             
-            if (updatedReview != null) {
+            if (helpfulCount != null) {
                 response.put("success", true);
-                response.put("data", updatedReview);
+                response.put("data", Map.of("id", reviewId, "helpfulCount", helpfulCount));
                 response.put("message", "Review marked as helpful");
                 return ResponseEntity.ok(response);
             } else {
@@ -430,4 +514,36 @@ public class BookApiController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
         }
     }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    private static int pageLimit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    private static <T> Map<String, Object> pageResponse(Slice<T> page, Function<T, String> idOf, String message) {
+        List<T> data = page.getContent();
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", data);
+        response.put("count", data.size());
+        response.put("hasNext", page.hasNext());
+        response.put("nextCursor", page.hasNext() && !data.isEmpty() ? idOf.apply(data.get(data.size() - 1)) : null);
+        response.put("message", message);
+        return response;
+    }
+
+    private void writeLine(OutputStream out, Object row) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(row));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
@@ -1,11 +1,14 @@
 package com.cybersecurity.sechamp2025.controllers.api;
 
 import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -17,7 +20,11 @@ import com.cybersecurity.sechamp2025.models.Book;
 import com.cybersecurity.sechamp2025.models.PurchaseSession;
 import com.cybersecurity.sechamp2025.models.User;
 import com.cybersecurity.sechamp2025.services.BookService;
+import com.cybersecurity.sechamp2025.services.InsufficientCreditException;
+import com.cybersecurity.sechamp2025.services.PurchaseQueue;
+import com.cybersecurity.sechamp2025.services.PurchaseQueueFullException;
 import com.cybersecurity.sechamp2025.services.PurchaseSessionService;
+import com.cybersecurity.sechamp2025.services.StockService;
 import com.cybersecurity.sechamp2025.services.UserBookService;
 import com.cybersecurity.sechamp2025.services.UserService;
 import com.cybersecurity.sechamp2025.utils.JwtUtil;
@@ -40,6 +47,12 @@ public class PurchaseApiController {
     @Autowired
     private UserBookService userBookService;
 
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private PurchaseQueue purchaseQueue;
+
     @PostMapping("/book")
     public ResponseEntity<?> initiatePurchase(@RequestBody Map<String, Object> request, HttpServletRequest httpRequest) {
         // Get user from token
@@ -48,13 +61,12 @@ public class PurchaseApiController {
             return ResponseEntity.status(401).body(Map.of("error", "Authentication required"));
         }
 
-        String token = authHeader.substring(7);
-        String userId = JwtUtil.validateAndExtractUserId(token);
+        String userId = JwtUtil.getAuthenticatedUserId(httpRequest);
         if (userId == null) {
             return ResponseEntity.status(401).body(Map.of("error", "Invalid token"));
         }
 
-        User user = userService.findById(userId);
+        User user = userService.getAuthenticatedUser(httpRequest);
         if (user == null) {
             return ResponseEntity.status(404).body(Map.of("error", "User not found"));
         }
@@ -87,8 +99,8 @@ public class PurchaseApiController {
             return ResponseEntity.status(404).body(Map.of("error", "Book not found"));
         }
 
-        // Check if book is in stock (considering locked sessions)
-        int availableStock = book.getStock() - purchaseSessionService.getLockedSessionsForBook(bookId).size();
+        // Check if book is in stock (considering cart reservations and locked sessions)
+        int availableStock = purchaseSessionService.getAvailableStock(bookId);
         if (book.getStock() == null || book.getStock() <= 0) {
             return ResponseEntity.status(400).body(Map.of(
                 "error", "Out of stock", 
@@ -114,6 +126,12 @@ public class PurchaseApiController {
 
         // Create purchase session to temporarily lock the book
         PurchaseSession session = purchaseSessionService.createSession(userId, bookId);
+        if (session == null) {
+            return ResponseEntity.status(400).body(Map.of(
+                "error", "Temporarily unavailable", 
+                "message", "This book is temporarily locked by other users. Please try again in a few minutes."
+            ));
+        }
 
         // Return session info for confirmation page
         return ResponseEntity.ok(Map.of(
@@ -135,13 +153,12 @@ public class PurchaseApiController {
             return ResponseEntity.status(401).body(Map.of("error", "Authentication required"));
         }
 
-        String token = authHeader.substring(7);
-        String userId = JwtUtil.validateAndExtractUserId(token);
+        String userId = JwtUtil.getAuthenticatedUserId(httpRequest);
         if (userId == null) {
             return ResponseEntity.status(401).body(Map.of("error", "Invalid token"));
         }
 
-        User user = userService.findById(userId);
+        User user = userService.getAuthenticatedUser(httpRequest);
         if (user == null) {
             return ResponseEntity.status(404).body(Map.of("error", "User not found"));
         }
@@ -178,10 +195,6 @@ public class PurchaseApiController {
             return ResponseEntity.status(404).body(Map.of("error", "Book not found"));
         }
 
-        // REMOVED: Stock validation check that prevents race condition
-        // The original check here prevented negative stock, which defeats the race condition test
-        // if (book.getStock() == null || book.getStock() <= 0) { ... }
-        
         // Check credit limit again
         BigDecimal bookPrice = book.getPrice();
         if (bookPrice != null && user.getCreditLimit().compareTo(bookPrice) < 0) {
@@ -192,41 +205,66 @@ public class PurchaseApiController {
             ));
         }
 
+        boolean stockTaken = false;
+        List<String> libraryIds = null;
         try {
-            // Complete the purchase with RACE CONDITION VULNERABILITY
-            // Instead of proper atomic operation, use vulnerable non-atomic approach
-            
-            // VULNERABLE: Non-atomic stock decrement (read-then-modify-then-save)
-            // Multiple threads can read the same stock value simultaneously
-            Book currentBook = bookService.findById(session.getBookId());
-            int currentStock = currentBook.getStock();
-            
-            // This gap allows race conditions - other threads can modify stock here
-            // No synchronization or atomic operations protect this critical section
-            currentBook.setStock(currentStock - 1);  // Allows negative stock
-            bookService.save(currentBook);
+            if (purchaseQueue.isHot(session.getBookId())) {
+                // Hot book: the queue's consumer takes the stock and adds the library row in its next batch
+                libraryIds = purchaseQueue.purchase(userId, session.getBookId(), Collections.singletonList(bookPrice));
+                stockTaken = !libraryIds.isEmpty();
+            } else {
+                // Atomic conditional decrement - fails instead of overselling when stock is gone
+                stockTaken = stockService.tryDecrement(session.getBookId(), 1);
+            }
+            if (!stockTaken) {
+                purchaseSessionService.cancelSession(sessionId);
+                return ResponseEntity.status(400).body(Map.of(
+                    "error", "Out of stock", 
+                    "message", "Book went out of stock during purchase confirmation"
+                ));
+            }
 
-            // Update user's credit limit
-            BigDecimal newCreditLimit = user.getCreditLimit().subtract(bookPrice != null ? bookPrice : BigDecimal.ZERO);
-            user.setCreditLimit(newCreditLimit);
-            userService.updateUser(user);
+            // Debit the stored credit; the user above may be a cached copy and is never written back
+            BigDecimal newCreditLimit = userService.debitCredit(userId, bookPrice != null ? bookPrice : BigDecimal.ZERO);
+            if (newCreditLimit == null) {
+                throw new InsufficientCreditException(userId);
+            }
 
             // Add book to user's library (allow multiple copies)
-            userBookService.addBookCopyToUser(userId, session.getBookId(), bookPrice);
+            if (libraryIds == null) {
+                userBookService.addBookCopyToUser(userId, session.getBookId(), bookPrice);
+            }
 
             // Complete the session
             purchaseSessionService.completeSession(sessionId);
 
             return ResponseEntity.ok(Map.of(
                 "message", "Purchase completed successfully",
-                "bookTitle", currentBook.getTitle(),
+                "bookTitle", book.getTitle(),
                 "price", bookPrice,
                 "remainingCredit", newCreditLimit,
-                "remainingStock", currentBook.getStock()
+                "remainingStock", stockService.getStock(session.getBookId())
             ));
 
+        } catch (PurchaseQueueFullException e) {
+            // Nothing was taken and the session stays locked, so the client can retry the confirmation
+            return ResponseEntity.status(429)
+                .header("Retry-After", String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of(
+                    "error", "Too many purchases",
+                    "message", "Too many purchases of this book right now. Please retry in a moment."
+                ));
+        } catch (InsufficientCreditException e) {
+            // Credit was spent elsewhere since the check above
+            undoPurchase(session.getBookId(), stockTaken, libraryIds);
+            purchaseSessionService.cancelSession(sessionId);
+            return ResponseEntity.status(400).body(Map.of(
+                "error", "Insufficient credit limit",
+                "message", "Your credit limit is insufficient for this purchase"
+            ));
         } catch (Exception e) {
-            // If anything fails, cancel the session
+            // If anything fails, give the stock back and cancel the session
+            undoPurchase(session.getBookId(), stockTaken, libraryIds);
             purchaseSessionService.cancelSession(sessionId);
             return ResponseEntity.status(500).body(Map.of(
                 "error", "Purchase failed", 
@@ -235,6 +273,45 @@ public class PurchaseApiController {
         }
     }
 
+    private void undoPurchase(String bookId, boolean stockTaken, List<String> libraryIds) {
+        if (stockTaken) {
+            stockService.restore(bookId, 1);
+        }
+        if (libraryIds != null) {
+            userBookService.removeUserBooks(libraryIds);
+        }
+    }
+
+    // Hot-item purchase queues: depth, batch sizes, sold-out and rejected orders per book
+    @GetMapping("/hot-items")
+    public ResponseEntity<?> getHotItems() {
+        return ResponseEntity.ok(purchaseQueue.getStats());
+    }
+
+    // Flags a book as hot (admin only); its purchases are queued until it is unflagged
+    @PostMapping("/hot-items/{bookId}")
+    public ResponseEntity<?> markHotItem(@PathVariable String bookId, HttpServletRequest httpRequest) {
+        User user = userService.getAuthenticatedUser(httpRequest);
+        if (user == null || !user.isAdmin()) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin access required"));
+        }
+        if (bookService.findById(bookId) == null) {
+            return ResponseEntity.status(404).body(Map.of("error", "Book not found"));
+        }
+        purchaseQueue.markHot(bookId);
+        return ResponseEntity.ok(Map.of("message", "Book flagged as hot item", "bookId", bookId));
+    }
+
+    @DeleteMapping("/hot-items/{bookId}")
+    public ResponseEntity<?> unmarkHotItem(@PathVariable String bookId, HttpServletRequest httpRequest) {
+        User user = userService.getAuthenticatedUser(httpRequest);
+        if (user == null || !user.isAdmin()) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin access required"));
+        }
+        purchaseQueue.unmarkHot(bookId);
+        return ResponseEntity.ok(Map.of("message", "Book no longer flagged as hot item", "bookId", bookId));
+    }
+
     @PostMapping("/cancel")
     public ResponseEntity<?> cancelPurchase(@RequestBody Map<String, Object> request, HttpServletRequest httpRequest) {
         // Get user from token
@@ -243,8 +320,7 @@ public class PurchaseApiController {
             return ResponseEntity.status(401).body(Map.of("error", "Authentication required"));
         }
 
-        String token = authHeader.substring(7);
-        String userId = JwtUtil.validateAndExtractUserId(token);
+        String userId = JwtUtil.getAuthenticatedUserId(httpRequest);
         if (userId == null) {
             return ResponseEntity.status(401).body(Map.of("error", "Invalid token"));
         }
@@ -283,13 +359,12 @@ public class PurchaseApiController {
             return ResponseEntity.status(401).body(Map.of("error", "Authentication required"));
         }
 
-        String token = authHeader.substring(7);
-        String userId = JwtUtil.validateAndExtractUserId(token);
+        String userId = JwtUtil.getAuthenticatedUserId(httpRequest);
         if (userId == null) {
             return ResponseEntity.status(401).body(Map.of("error", "Invalid token"));
         }
 
-        User user = userService.findById(userId);
+        User user = userService.getAuthenticatedUser(httpRequest);
         if (user == null) {
             return ResponseEntity.status(404).body(Map.of("error", "User not found"));
         }
@@ -307,7 +382,7 @@ public class PurchaseApiController {
         ));
     }
 
-    // RACE CONDITION TEST ENDPOINT - Direct vulnerable purchase without session locking
+    // RACE CONDITION TEST ENDPOINT - Direct purchase without session locking, guarded by the atomic stock decrement
     @PostMapping("/race-test/{bookId}")
     public ResponseEntity<?> raceConditionTest(@PathVariable String bookId, HttpServletRequest httpRequest) {
         // Get user from token
@@ -316,49 +391,36 @@ public class PurchaseApiController {
             return ResponseEntity.status(401).body(Map.of("error", "Authentication required"));
         }
 
-        String token = authHeader.substring(7);
-        String userId = JwtUtil.validateAndExtractUserId(token);
+        String userId = JwtUtil.getAuthenticatedUserId(httpRequest);
         if (userId == null) {
             return ResponseEntity.status(401).body(Map.of("error", "Invalid token"));
         }
 
-        // Direct vulnerable stock decrement without any session protection
+        Book book = bookService.findById(bookId);
+        if (book == null) {
+            return ResponseEntity.status(404).body(Map.of("error", "Book not found"));
+        }
+
         try {
-            // VULNERABLE: Non-atomic stock decrement (read-then-modify-then-save)
-            // Multiple threads can read the same stock value simultaneously
-            Book book = bookService.findById(bookId);
-            if (book == null) {
-                return ResponseEntity.status(404).body(Map.of("error", "Book not found"));
-            }
-            
-            // This is the vulnerable section - no synchronization or atomic operations
-            int currentStock = book.getStock() != null ? book.getStock() : 0;
-            
-            // Gap here allows race conditions - other threads can read the same stock value
-            // No session locking or atomic operations protect this critical section
-            book.setStock(currentStock - 1);  // This allows negative stock!
-            bookService.save(book);
-            
-            // Get the updated stock after save
-            Book updatedBook = bookService.findById(bookId);
-            int finalStock = updatedBook != null && updatedBook.getStock() != null ? updatedBook.getStock() : 0;
+            boolean decremented = stockService.tryDecrement(bookId, 1);
+            int finalStock = stockService.getStock(bookId);
             
             return ResponseEntity.ok(Map.of(
-                "success", true,
+                "success", decremented,
                 "bookId", bookId,
-                "title", updatedBook != null ? updatedBook.getTitle() : "Unknown",
+                "title", book.getTitle(),
                 "currentStock", finalStock,
-                "message", "Direct race condition test - stock decremented without protection"
+                "message", decremented
+                    ? "Direct race condition test - stock decremented atomically"
+                    : "Direct race condition test - out of stock, nothing decremented"
             ));
             
         } catch (Exception e) {
-            Book book = bookService.findById(bookId);
-            int stock = (book != null && book.getStock() != null) ? book.getStock() : 0;
             return ResponseEntity.ok(Map.of(
                 "success", false,
                 "bookId", bookId,
-                "title", book != null ? book.getTitle() : "Unknown",
-                "currentStock", stock,
+                "title", book.getTitle(),
+                "currentStock", stockService.getStock(bookId),
                 "message", "Race condition test error: " + e.getMessage()
             ));
         }
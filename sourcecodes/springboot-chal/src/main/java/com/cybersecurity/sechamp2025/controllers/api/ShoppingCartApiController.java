@@ -1,13 +1,17 @@
 package com.cybersecurity.sechamp2025.controllers.api;
 
+import com.cybersecurity.sechamp2025.dto.CartView;
 import com.cybersecurity.sechamp2025.models.User;
 import com.cybersecurity.sechamp2025.models.Book;
 import com.cybersecurity.sechamp2025.models.CartItem;
 import com.cybersecurity.sechamp2025.models.ShoppingCart;
 import com.cybersecurity.sechamp2025.services.UserService;
 import com.cybersecurity.sechamp2025.services.BookService;
+import com.cybersecurity.sechamp2025.services.CheckoutService;
+import com.cybersecurity.sechamp2025.services.InsufficientCreditException;
+import com.cybersecurity.sechamp2025.services.InsufficientStockException;
+import com.cybersecurity.sechamp2025.services.PurchaseQueueFullException;
 import com.cybersecurity.sechamp2025.services.ShoppingCartService;
-import com.cybersecurity.sechamp2025.services.UserBookService;
 import com.cybersecurity.sechamp2025.utils.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -35,15 +39,14 @@ public class ShoppingCartApiController {
     private ShoppingCartService shoppingCartService;
 
     @Autowired
-    private UserBookService userBookService;
+    private CheckoutService checkoutService;
 
     private String getUserIdFromToken(HttpServletRequest httpRequest) {
         String authHeader = httpRequest.getHeader("Authorization");
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             return null;
         }
-        String token = authHeader.substring(7);
-        return JwtUtil.validateAndExtractUserId(token);
+        return JwtUtil.getAuthenticatedUserId(httpRequest);
     }
 
     @GetMapping
@@ -53,41 +56,40 @@ public class ShoppingCartApiController {
             return ResponseEntity.status(401).body(Map.of("error", "Authentication required"));
         }
 
-        List<CartItem> cartItems = shoppingCartService.getCartItems(userId);
+        return ResponseEntity.ok(buildCartResponse(shoppingCartService.getCartView(userId)));
+    }
+
+    private Map<String, Object> buildCartResponse(CartView cartView) {
         List<Map<String, Object>> items = new ArrayList<>();
         
-        for (CartItem item : cartItems) {
-            Book book = bookService.findById(item.getBookId());
-            if (book != null) {
-                Map<String, Object> itemData = new HashMap<>();
-                itemData.put("id", item.getId()); // Include cart item ID for updates/removal
-                itemData.put("bookId", book.getId());
-                itemData.put("title", book.getTitle());
-                itemData.put("author", book.getAuthor());
-                itemData.put("price", item.getPriceAtAdd());
-                itemData.put("quantity", item.getQuantity());
-                itemData.put("reservedUntil", item.getReservedUntil().toEpochMilli());
-                itemData.put("imageUrl", book.getImageUrl());
-                
-                // Create book object for easier access in frontend
-                Map<String, Object> bookData = new HashMap<>();
-                bookData.put("id", book.getId());
-                bookData.put("title", book.getTitle());
-                bookData.put("author", book.getAuthor());
-                bookData.put("price", item.getPriceAtAdd());
-                itemData.put("book", bookData);
-                
-                items.add(itemData);
-            }
+        for (CartItem item : cartView.getItems()) {
+            Book book = item.getBook();
+            Map<String, Object> itemData = new HashMap<>();
+            itemData.put("id", item.getId()); // Include cart item ID for updates/removal
+            itemData.put("bookId", book.getId());
+            itemData.put("title", book.getTitle());
+            itemData.put("author", book.getAuthor());
+            itemData.put("price", item.getPriceAtAdd());
+            itemData.put("quantity", item.getQuantity());
+            itemData.put("reservedUntil", item.getReservedUntil().toEpochMilli());
+            itemData.put("imageUrl", book.getImageUrl());
+            
+            // Create book object for easier access in frontend
+            Map<String, Object> bookData = new HashMap<>();
+            bookData.put("id", book.getId());
+            bookData.put("title", book.getTitle());
+            bookData.put("author", book.getAuthor());
+            bookData.put("price", item.getPriceAtAdd());
+            itemData.put("book", bookData);
+            
+            items.add(itemData);
         }
         
-        BigDecimal total = shoppingCartService.calculateCartTotal(userId);
-        
-        return ResponseEntity.ok(Map.of(
+        return Map.of(
             "items", items,
-            "totalPrice", total,
+            "totalPrice", cartView.getTotal(),
             "itemCount", items.size()
-        ));
+        );
     }
 
     @PostMapping("/add")
@@ -97,7 +99,7 @@ public class ShoppingCartApiController {
             return ResponseEntity.status(401).body(Map.of("error", "Authentication required"));
         }
 
-        User user = userService.findById(userId);
+        User user = userService.getAuthenticatedUser(httpRequest);
         if (user == null) {
             return ResponseEntity.status(404).body(Map.of("error", "User not found"));
         }
@@ -171,41 +173,7 @@ public class ShoppingCartApiController {
             return ResponseEntity.status(401).body(Map.of("error", "Authentication required"));
         }
 
-        List<CartItem> cartItems = shoppingCartService.getCartItems(userId);
-        List<Map<String, Object>> items = new ArrayList<>();
-        
-        for (CartItem item : cartItems) {
-            Book book = bookService.findById(item.getBookId());
-            if (book != null) {
-                Map<String, Object> itemData = new HashMap<>();
-                itemData.put("id", item.getId()); // Include cart item ID for updates/removal
-                itemData.put("bookId", book.getId());
-                itemData.put("title", book.getTitle());
-                itemData.put("author", book.getAuthor());
-                itemData.put("price", item.getPriceAtAdd());
-                itemData.put("quantity", item.getQuantity());
-                itemData.put("reservedUntil", item.getReservedUntil().toEpochMilli());
-                itemData.put("imageUrl", book.getImageUrl());
-                
-                // Create book object for easier access in frontend
-                Map<String, Object> bookData = new HashMap<>();
-                bookData.put("id", book.getId());
-                bookData.put("title", book.getTitle());
-                bookData.put("author", book.getAuthor());
-                bookData.put("price", item.getPriceAtAdd());
-                itemData.put("book", bookData);
-                
-                items.add(itemData);
-            }
-        }
-        
-        BigDecimal total = shoppingCartService.calculateCartTotal(userId);
-        
-        return ResponseEntity.ok(Map.of(
-            "items", items,
-            "totalPrice", total,
-            "itemCount", items.size()
-        ));
+        return ResponseEntity.ok(buildCartResponse(shoppingCartService.getCartView(userId)));
     }
 
     @PostMapping("/checkout")
@@ -215,20 +183,19 @@ public class ShoppingCartApiController {
             return ResponseEntity.status(401).body(Map.of("error", "Authentication required"));
         }
 
-        User user = userService.findById(userId);
+        User user = userService.getAuthenticatedUser(httpRequest);
         if (user == null) {
             return ResponseEntity.status(404).body(Map.of("error", "User not found"));
         }
 
         try {
-            // Get cart items before checkout
-            List<CartItem> cartItems = shoppingCartService.getCartItems(userId);
-            if (cartItems.isEmpty()) {
+            // Get cart items (with their books) and total before checkout
+            CartView cartView = shoppingCartService.getCartView(userId);
+            if (cartView.isEmpty()) {
                 return ResponseEntity.status(400).body(Map.of("error", "Cart is empty"));
             }
 
-            // Calculate total
-            BigDecimal total = shoppingCartService.calculateCartTotal(userId);
+            BigDecimal total = cartView.getTotal();
             
             // Check credit limit
             if (user.getCreditLimit().compareTo(total) < 0) {
@@ -243,16 +210,14 @@ public class ShoppingCartApiController {
             
             // Prepare checkout summary
             List<Map<String, Object>> items = new ArrayList<>();
-            for (CartItem item : cartItems) {
-                Book book = bookService.findById(item.getBookId());
-                if (book != null) {
-                    Map<String, Object> itemData = new HashMap<>();
-                    itemData.put("bookId", book.getId());
-                    itemData.put("title", book.getTitle());
-                    itemData.put("author", book.getAuthor());
-                    itemData.put("price", item.getPriceAtAdd());
-                    items.add(itemData);
-                }
+            for (CartItem item : cartView.getItems()) {
+                Book book = item.getBook();
+                Map<String, Object> itemData = new HashMap<>();
+                itemData.put("bookId", book.getId());
+                itemData.put("title", book.getTitle());
+                itemData.put("author", book.getAuthor());
+                itemData.put("price", item.getPriceAtAdd());
+                items.add(itemData);
             }
             
             return ResponseEntity.ok(Map.of(
@@ -275,7 +240,7 @@ public class ShoppingCartApiController {
             return ResponseEntity.status(401).body(Map.of("error", "Authentication required"));
         }
 
-        User user = userService.findById(userId);
+        User user = userService.getAuthenticatedUser(httpRequest);
         if (user == null) {
             return ResponseEntity.status(404).body(Map.of("error", "User not found"));
         }
@@ -294,21 +259,17 @@ public class ShoppingCartApiController {
                 return ResponseEntity.status(400).body(Map.of("error", "No items in checkout"));
             }
 
-            // RACE CONDITION VULNERABILITY: Multiple checks without proper locking
-            // This allows for overselling when multiple users checkout simultaneously
-            
             List<String> outOfStockBooks = new ArrayList<>();
             BigDecimal totalPrice = BigDecimal.ZERO;
+            Map<String, Book> booksById = new HashMap<>();
             
-            // Check each book's availability (non-atomic operation)
+            // Early availability check so the user gets the full list of unavailable titles
+            // (items come with their books already fetched)
             for (CartItem item : cartItems) {
-                Book book = bookService.findById(item.getBookId());
-                if (book == null) {
-                    return ResponseEntity.status(400).body(Map.of("error", "Book not found: " + item.getBookId()));
-                }
+                Book book = item.getBook();
+                booksById.put(book.getId(), book);
                 
-                // VULNERABILITY: This check is not atomic with the stock update below
-                if (book.getStock() <= 0) {
+                if (book.getStock() == null || book.getStock() <= 0) {
                     outOfStockBooks.add(book.getTitle());
                 }
                 
@@ -330,54 +291,47 @@ public class ShoppingCartApiController {
                 ));
             }
 
-            // RACE CONDITION: Process each book individually without transaction isolation
-            // This allows multiple users to purchase the same last item
+            // Commit stock, library entries, credit and cart cleanup in one batched transaction;
+            // the availability check above is only advisory
+            BigDecimal newCreditLimit;
+            try {
+                newCreditLimit = checkoutService.commitCheckout(user, checkoutCart, cartItems);
+            } catch (PurchaseQueueFullException e) {
+                // Hot book with a full purchase queue - the checkout stays open so the client can retry
+                return ResponseEntity.status(429)
+                    .header("Retry-After", String.valueOf(e.getRetryAfterSeconds()))
+                    .body(Map.of(
+                        "error", "Too many purchases",
+                        "message", "Too many purchases of this book right now. Please retry in a moment."
+                    ));
+            } catch (InsufficientCreditException e) {
+                // Credit was spent elsewhere since the check above; nothing was committed
+                return ResponseEntity.status(400).body(Map.of(
+                    "error", "Insufficient credit limit",
+                    "message", "Credit limit check failed during checkout"
+                ));
+            } catch (InsufficientStockException e) {
+                // Book became out of stock during processing
+                shoppingCartService.cancelCheckout(userId);
+                Book book = e.getBookId() != null ? booksById.get(e.getBookId()) : null;
+                return ResponseEntity.status(400).body(Map.of(
+                    "error", "Stock changed during checkout",
+                    "message", book != null
+                        ? "The book '" + book.getTitle() + "' became out of stock during checkout"
+                        : "One or more books became out of stock during checkout"
+                ));
+            }
             
             List<Map<String, Object>> purchasedBooks = new ArrayList<>();
-            
             for (CartItem item : cartItems) {
-                Book book = bookService.findById(item.getBookId());
-                
-                // CRITICAL VULNERABILITY: Stock update is not atomic
-                // Between this check and the update, another request could purchase the same book
-                if (book.getStock() > 0) {
-                    // Simulate some processing time that makes race condition more likely
-                    try {
-                        Thread.sleep(100); // 100ms delay makes race condition easier to exploit
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                    }
-                    
-                    // Update stock (non-atomic with the check above)
-                    book.setStock(book.getStock() - 1);
-                    bookService.save(book);
-                    
-                    // Add to user's library (allow multiple copies)
-                    userBookService.addBookCopyToUser(userId, item.getBookId(), item.getPriceAtAdd());
-                    
-                    Map<String, Object> bookData = new HashMap<>();
-                    bookData.put("title", book.getTitle());
-                    bookData.put("author", book.getAuthor());
-                    bookData.put("price", item.getPriceAtAdd());
-                    purchasedBooks.add(bookData);
-                } else {
-                    // Book became out of stock during processing
-                    shoppingCartService.cancelCheckout(userId);
-                    return ResponseEntity.status(400).body(Map.of(
-                        "error", "Stock changed during checkout",
-                        "message", "The book '" + book.getTitle() + "' became out of stock during checkout"
-                    ));
-                }
+                Book book = booksById.get(item.getBookId());
+                Map<String, Object> bookData = new HashMap<>();
+                bookData.put("title", book.getTitle());
+                bookData.put("author", book.getAuthor());
+                bookData.put("price", item.getPriceAtAdd());
+                purchasedBooks.add(bookData);
             }
             
-            // Update user's credit limit
-            BigDecimal newCreditLimit = user.getCreditLimit().subtract(totalPrice);
-            user.setCreditLimit(newCreditLimit);
-            userService.updateUser(user);
-            
-            // Complete the checkout
-            shoppingCartService.completeCheckout(userId);
-            
             return ResponseEntity.ok(Map.of(
                 "message", "Checkout completed successfully",
                 "purchasedBooks", purchasedBooks,
@@ -0,0 +1,41 @@
+package com.cybersecurity.sechamp2025.dto;
+
+import com.cybersecurity.sechamp2025.models.CartItem;
+import com.cybersecurity.sechamp2025.models.ShoppingCart;
+import java.math.BigDecimal;
+import java.util.List;
+
+// A cart with its items and their books loaded together, so callers never go back to the database per item
+public class CartView {
+    private final ShoppingCart cart;
+    private final List<CartItem> items;
+    private final BigDecimal total;
+    
+    public CartView(ShoppingCart cart, List<CartItem> items) {
+        this.cart = cart;
+        this.items = items;
+        this.total = items.stream()
+                .map(item -> item.getPriceAtAdd().multiply(BigDecimal.valueOf(item.getQuantity())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+    
+    public static CartView empty() {
+        return new CartView(null, List.of());
+    }
+    
+    public ShoppingCart getCart() {
+        return cart;
+    }
+    
+    public List<CartItem> getItems() {
+        return items;
+    }
+    
+    public BigDecimal getTotal() {
+        return total;
+    }
+    
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+}
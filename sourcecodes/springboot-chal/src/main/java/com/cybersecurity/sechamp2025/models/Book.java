@@ -2,9 +2,13 @@ package com.cybersecurity.sechamp2025.models;
 
 import jakarta.persistence.*;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 @Entity
-@Table(name = "books")
+@Table(name = "books", indexes = {
+        @Index(name = "idx_books_category", columnList = "category"),
+        @Index(name = "idx_books_rating", columnList = "rating")
+})
 public class Book {
     
     @Id
@@ -28,6 +32,9 @@ public class Book {
     @Column(columnDefinition = "TEXT")
     private String description;
     
+    // Only written on insert: saving an edited book (which carries stock with unflushed sales overlaid, see
+    // BookService.findById) must not overwrite the row; stock changes through StockService and BookService.setStock
+    @Column(updatable = false)
     private Integer stock;
     
     private java.math.BigDecimal rating;
@@ -41,6 +48,20 @@ public class Book {
     @Column(name = "publish_date", length = 20)
     private String publishDate;
     
+    // Review aggregates, maintained by SQL in the same transaction as review writes (see BookReviewService)
+    // and never written through the entity
+    @Column(name = "review_count", columnDefinition = "INT NOT NULL DEFAULT 0", insertable = false, updatable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer reviewCount;
+    
+    @Column(name = "rating_sum", columnDefinition = "DECIMAL(12,1) NOT NULL DEFAULT 0", insertable = false, updatable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private java.math.BigDecimal ratingSum;
+    
+    @Column(name = "helpful_total", columnDefinition = "BIGINT NOT NULL DEFAULT 0", insertable = false, updatable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long helpfulTotal;
+    
     // JPA relationship with reviews
     @OneToMany(mappedBy = "book", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnore
@@ -65,7 +86,26 @@ public class Book {
         this.publisher = publisher;
         this.publishDate = publishDate;
     }
-    
+
+    // Detached copy without the lazy reviews collection, used by the BookService catalog cache
+    public Book(Book other) {
+        this.id = other.id;
+        this.title = other.title;
+        this.author = other.author;
+        this.isbn = other.isbn;
+        this.category = other.category;
+        this.price = other.price;
+        this.description = other.description;
+        this.stock = other.stock;
+        this.rating = other.rating;
+        this.imageUrl = other.imageUrl;
+        this.publisher = other.publisher;
+        this.publishDate = other.publishDate;
+        this.reviewCount = other.reviewCount;
+        this.ratingSum = other.ratingSum;
+        this.helpfulTotal = other.helpfulTotal;
+    }
+
     // Getters and Setters
     public String getId() {
         return id;
@@ -181,6 +221,30 @@ public class Book {
         this.publishDate = publishDate;
     }
     
+    public Integer getReviewCount() {
+        return reviewCount;
+    }
+    
+    public void setReviewCount(Integer reviewCount) {
+        this.reviewCount = reviewCount;
+    }
+    
+    public java.math.BigDecimal getRatingSum() {
+        return ratingSum;
+    }
+    
+    public void setRatingSum(java.math.BigDecimal ratingSum) {
+        this.ratingSum = ratingSum;
+    }
+    
+    public Long getHelpfulTotal() {
+        return helpfulTotal;
+    }
+    
+    public void setHelpfulTotal(Long helpfulTotal) {
+        this.helpfulTotal = helpfulTotal;
+    }
+    
     public java.util.List<BookReview> getReviews() {
         return reviews;
     }
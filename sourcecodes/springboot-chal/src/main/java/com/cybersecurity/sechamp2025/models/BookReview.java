@@ -7,7 +7,12 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "book_reviews")
+@Table(name = "book_reviews", indexes = {
+        @Index(name = "idx_book_reviews_book_created", columnList = "book_id, created_at"),
+        @Index(name = "idx_book_reviews_user_created", columnList = "user_id, created_at"),
+        @Index(name = "idx_book_reviews_rating_created", columnList = "rating, created_at"),
+        @Index(name = "idx_book_reviews_verified_helpful", columnList = "verified_purchase, helpful_count")
+})
 public class BookReview {
     
     @Id
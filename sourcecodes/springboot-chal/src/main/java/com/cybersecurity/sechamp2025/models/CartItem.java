@@ -5,7 +5,10 @@ import java.math.BigDecimal;
 import java.time.Instant;
 
 @Entity
-@Table(name = "cart_items")
+@Table(name = "cart_items", indexes = {
+        @Index(name = "idx_cart_items_book_reserved", columnList = "book_id, reserved_until, quantity"),
+        @Index(name = "idx_cart_items_reserved", columnList = "reserved_until")
+})
 public class CartItem {
     
     @Id
@@ -31,6 +34,11 @@ public class CartItem {
     @Column(name = "reserved_until")
     private Instant reservedUntil; // Temporary stock reservation
     
+    // Read-only association so cart views can JOIN FETCH books instead of loading them one by one
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id", insertable = false, updatable = false)
+    private Book book;
+    
     // Constructors
     public CartItem() {
     }
@@ -102,6 +110,14 @@ public class CartItem {
         this.reservedUntil = reservedUntil;
     }
     
+    public Book getBook() {
+        return book;
+    }
+    
+    public void setBook(Book book) {
+        this.book = book;
+    }
+    
     public boolean isReservationExpired() {
         return Instant.now().isAfter(reservedUntil);
     }
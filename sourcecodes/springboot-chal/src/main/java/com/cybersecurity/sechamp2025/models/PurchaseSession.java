@@ -4,7 +4,11 @@ import jakarta.persistence.*;
 import java.time.Instant;
 
 @Entity
-@Table(name = "purchase_sessions")
+@Table(name = "purchase_sessions", indexes = {
+        @Index(name = "idx_purchase_sessions_user_book_status", columnList = "user_id, book_id, status"),
+        @Index(name = "idx_purchase_sessions_book_status_expires", columnList = "book_id, status, expires_at"),
+        @Index(name = "idx_purchase_sessions_status_expires", columnList = "status, expires_at")
+})
 public class PurchaseSession {
     
     @Id
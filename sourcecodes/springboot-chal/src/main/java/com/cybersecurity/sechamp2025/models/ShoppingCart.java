@@ -6,7 +6,10 @@ import java.util.List;
 import java.util.ArrayList;
 
 @Entity
-@Table(name = "shopping_carts")
+@Table(name = "shopping_carts", indexes = {
+        @Index(name = "idx_shopping_carts_user_status", columnList = "user_id, status"),
+        @Index(name = "idx_shopping_carts_status_expires", columnList = "status, expires_at")
+})
 public class ShoppingCart {
     
     @Id
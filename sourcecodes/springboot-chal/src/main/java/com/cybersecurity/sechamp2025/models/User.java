@@ -54,6 +54,17 @@ public class User {
         this.address = address;
     }
 
+    // Detached copy, used by UserService so cached users are never shared between callers
+    public User(User other) {
+        this(other.id, other.name, other.phone, other.email, other.password, other.address);
+        this.role = other.role;
+        this.isAdmin = other.isAdmin;
+        this.accountStatus = other.accountStatus;
+        this.creditLimit = other.creditLimit;
+        this.newsletter = other.newsletter;
+        this.promotions = other.promotions;
+    }
+
     public String getId() {
         return id;
     }
@@ -5,7 +5,9 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "user_books")
+@Table(name = "user_books", indexes = {
+        @Index(name = "idx_user_books_user_purchased", columnList = "user_id, purchase_date")
+})
 public class UserBook {
     
     @Id
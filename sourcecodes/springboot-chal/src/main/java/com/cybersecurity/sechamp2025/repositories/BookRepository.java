@@ -1,20 +1,79 @@
 package com.cybersecurity.sechamp2025.repositories;
 
 import com.cybersecurity.sechamp2025.models.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, String> {
-    List<Book> findByCategoryIgnoreCase(String category);
-    List<Book> findByAuthorContainingIgnoreCase(String author);
-    List<Book> findByTitleContainingIgnoreCase(String title);
+public interface BookRepository extends JpaRepository<Book, String>, BookSearchRepository {
+    // The column collation is already case-insensitive; IgnoreCase would wrap it in upper() and skip idx_books_category
+    List<Book> findByCategory(String category);
     List<Book> findByRatingGreaterThanEqual(BigDecimal rating);
     
     @Query("SELECT DISTINCT b.category FROM Book b WHERE b.category IS NOT NULL")
     List<String> findDistinctCategories();
+    
+    // Conditional decrement: returns 0 when the book is missing or has fewer than :quantity left
+    @Transactional
+    @Modifying
+    @Query("UPDATE Book b SET b.stock = b.stock - :quantity WHERE b.id = :bookId AND b.stock >= :quantity")
+    int decrementStock(@Param("bookId") String bookId, @Param("quantity") int quantity);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE Book b SET b.stock = b.stock + :quantity WHERE b.id = :bookId")
+    int incrementStock(@Param("bookId") String bookId, @Param("quantity") int quantity);
+    
+    // Absolute stock set by an admin; entity saves never write stock (see Book.stock)
+    @Transactional
+    @Modifying
+    @Query("UPDATE Book b SET b.stock = :stock WHERE b.id = :bookId")
+    int setStock(@Param("bookId") String bookId, @Param("stock") int stock);
+    
+    @Query("SELECT b.stock FROM Book b WHERE b.id = :bookId")
+    Integer findStockById(@Param("bookId") String bookId);
+    
+    @Query("SELECT b.id, b.stock FROM Book b")
+    List<Object[]> findAllStock();
+    
+    // Adjusts the review aggregates by a delta and re-derives rating from them (MySQL evaluates the SET list
+    // left to right, so rating sees the new count and sum). Joins the caller's transaction.
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE books SET review_count = review_count + :countDelta, rating_sum = rating_sum + :ratingDelta, "
+            + "helpful_total = helpful_total + :helpfulDelta, "
+            + "rating = CASE WHEN review_count > 0 THEN ROUND(rating_sum / review_count, 2) ELSE rating END "
+            + "WHERE id = :bookId", nativeQuery = true)
+    int applyReviewDelta(@Param("bookId") String bookId, @Param("countDelta") int countDelta,
+                         @Param("ratingDelta") BigDecimal ratingDelta, @Param("helpfulDelta") long helpfulDelta);
+    
+    // rating, review_count, rating_sum, helpful_total
+    @Query(value = "SELECT rating, review_count, rating_sum, helpful_total FROM books WHERE id = :bookId", nativeQuery = true)
+    List<Object[]> findReviewAggregates(@Param("bookId") String bookId);
+    
+    @Query("SELECT b.id, b.stock FROM Book b WHERE b.id IN :bookIds")
+    List<Object[]> findStockByIds(@Param("bookIds") Collection<String> bookIds);
+    
+    // Keyset page: books with id > :after in id order (pass "" for the first page)
+    Slice<Book> findByIdGreaterThanOrderByIdAsc(String after, Pageable pageable);
+    
+    // Row-by-row cursor over the whole table (MySQL streams results when the fetch size is Integer.MIN_VALUE);
+    // must be consumed inside a transaction and closed
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT b FROM Book b ORDER BY b.id")
+    Stream<Book> streamAllOrderById();
 }
@@ -1,13 +1,19 @@
 package com.cybersecurity.sechamp2025.repositories;
 
 import com.cybersecurity.sechamp2025.models.BookReview;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookReviewRepository extends JpaRepository<BookReview, String> {
@@ -26,8 +32,24 @@ public interface BookReviewRepository extends JpaRepository<BookReview, String>
     @Query("SELECT COUNT(br) FROM BookReview br WHERE br.bookId = :bookId")
     Long getReviewCountForBook(@Param("bookId") String bookId);
     
-    @Query("SELECT br FROM BookReview br WHERE br.reviewText LIKE %:keyword% OR br.reviewTitle LIKE %:keyword%")
-    List<BookReview> findByReviewContainingKeyword(@Param("keyword") String keyword);
+    // LIKE scan, only used when the keyword has no word the FULLTEXT index can match
+    @Query("SELECT br FROM BookReview br WHERE br.reviewText LIKE %:keyword% OR br.reviewTitle LIKE %:keyword% ORDER BY br.id")
+    Slice<BookReview> findByReviewContainingKeyword(@Param("keyword") String keyword, Pageable pageable);
+    
+    // :query is a BOOLEAN MODE expression (see FullTextQuery); best matches first
+    @Query(value = "SELECT * FROM book_reviews br WHERE MATCH(br.review_title, br.review_text) AGAINST(:query IN BOOLEAN MODE) "
+            + "ORDER BY MATCH(br.review_title, br.review_text) AGAINST(:query IN BOOLEAN MODE) DESC, br.id",
+            nativeQuery = true)
+    Slice<BookReview> searchFullText(@Param("query") String query, Pageable pageable);
     
     Boolean existsByUserIdAndBookId(String userId, String bookId);
+    
+    // Keyset page: reviews with id > :after in id order (pass "" for the first page)
+    Slice<BookReview> findByIdGreaterThanOrderByIdAsc(String after, Pageable pageable);
+    
+    // Row-by-row cursor over the whole table (MySQL streams results when the fetch size is Integer.MIN_VALUE);
+    // must be consumed inside a transaction and closed
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT br FROM BookReview br ORDER BY br.id")
+    Stream<BookReview> streamAllOrderById();
 }
@@ -0,0 +1,13 @@
+package com.cybersecurity.sechamp2025.repositories;
+
+import com.cybersecurity.sechamp2025.models.Book;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+public interface BookSearchRepository {
+
+    // Combined search: every non-blank argument must match. query is matched against title, author and
+    // category, title and author against their own column, category exactly (case-insensitive).
+    // Results are ordered by FULLTEXT relevance, then id.
+    Slice<Book> search(String query, String title, String author, String category, Pageable pageable);
+}
@@ -0,0 +1,76 @@
+package com.cybersecurity.sechamp2025.repositories;
+
+import com.cybersecurity.sechamp2025.models.Book;
+import com.cybersecurity.sechamp2025.utils.FullTextQuery;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Native MATCH ... AGAINST queries over the FULLTEXT indexes created by FullTextIndexInitializer
+public class BookSearchRepositoryImpl implements BookSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Slice<Book> search(String query, String title, String author, String category, Pageable pageable) {
+        StringBuilder where = new StringBuilder(" WHERE 1 = 1");
+        List<String> scores = new ArrayList<>();
+        Map<String, Object> params = new LinkedHashMap<>();
+
+        matchText(where, scores, params, "b.title, b.author, b.category", query);
+        matchText(where, scores, params, "b.title", title);
+        matchText(where, scores, params, "b.author", author);
+        if (category != null && !category.isBlank()) {
+            where.append(" AND b.category = :p").append(params.size());
+            params.put("p" + params.size(), category.trim());
+        }
+
+        String orderBy = scores.isEmpty() ? " ORDER BY b.id" : " ORDER BY " + String.join(" + ", scores) + " DESC, b.id";
+        Query nativeQuery = entityManager.createNativeQuery("SELECT b.* FROM books b" + where + orderBy, Book.class);
+        params.forEach(nativeQuery::setParameter);
+        // One extra row tells us whether there is a next page without a COUNT(*)
+        nativeQuery.setFirstResult((int) pageable.getOffset());
+        nativeQuery.setMaxResults(pageable.getPageSize() + 1);
+
+        List<Book> books = new ArrayList<>(nativeQuery.getResultList());
+        boolean hasNext = books.size() > pageable.getPageSize();
+        if (hasNext) {
+            books.remove(books.size() - 1);
+        }
+        return new SliceImpl<>(books, pageable, hasNext);
+    }
+
+    // Adds a FULLTEXT condition (and its relevance score) for the given columns, or a LIKE condition when the
+    // text has no indexable word
+    private static void matchText(StringBuilder where, List<String> scores, Map<String, Object> params,
+                                  String columns, String text) {
+        if (text == null || text.isBlank()) {
+            return;
+        }
+        String param = "p" + params.size();
+        String booleanQuery = FullTextQuery.toBooleanQuery(text);
+        if (booleanQuery != null) {
+            String match = "MATCH(" + columns + ") AGAINST(:" + param + " IN BOOLEAN MODE)";
+            where.append(" AND ").append(match);
+            scores.add(match);
+            params.put(param, booleanQuery);
+            return;
+        }
+        List<String> likes = new ArrayList<>();
+        for (String column : columns.split(",\\s*")) {
+            likes.add(column + " LIKE :" + param);
+        }
+        where.append(" AND (").append(String.join(" OR ", likes)).append(")");
+        params.put(param, "%" + text.trim() + "%");
+    }
+}
@@ -2,11 +2,13 @@ package com.cybersecurity.sechamp2025.repositories;
 
 import com.cybersecurity.sechamp2025.models.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,11 +17,35 @@ public interface CartItemRepository extends JpaRepository<CartItem, String> {
     
     List<CartItem> findByShoppingCartId(String cartId);
     
+    @Query("SELECT ci FROM CartItem ci JOIN FETCH ci.book WHERE ci.shoppingCart.id = :cartId")
+    List<CartItem> findByShoppingCartIdWithBooks(@Param("cartId") String cartId);
+    
     Optional<CartItem> findByShoppingCartIdAndBookId(String cartId, String bookId);
     
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.shoppingCart.id = :cartId")
+    int deleteByCartId(@Param("cartId") String cartId);
+    
     @Query("SELECT ci FROM CartItem ci WHERE ci.reservedUntil < :now")
     List<CartItem> findExpiredReservations(@Param("now") Instant now);
     
+    // (id, bookId, quantity, reservedUntil) of live reservations, for seeding the ReservationLedger
+    @Query("SELECT ci.id, ci.bookId, ci.quantity, ci.reservedUntil FROM CartItem ci WHERE ci.reservedUntil > :now")
+    List<Object[]> findActiveReservations(@Param("now") Instant now);
+    
+    // (id, reservedUntil) pairs for rebuilding the expiry wheel
+    @Query("SELECT ci.id, ci.reservedUntil FROM CartItem ci")
+    List<Object[]> findAllReservationDeadlines();
+    
+    // The deadline is re-checked so a reservation extended after it was picked for expiry survives
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.id IN :ids AND ci.reservedUntil <= :now")
+    int deleteExpiredByIds(@Param("ids") Collection<String> ids, @Param("now") Instant now);
+    
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.reservedUntil <= :now")
+    int deleteExpiredReservations(@Param("now") Instant now);
+    
     @Query("SELECT ci FROM CartItem ci WHERE ci.bookId = :bookId AND ci.reservedUntil > :now")
     List<CartItem> findActiveReservationsForBook(@Param("bookId") String bookId, @Param("now") Instant now);
     
@@ -2,11 +2,13 @@ package com.cybersecurity.sechamp2025.repositories;
 
 import com.cybersecurity.sechamp2025.models.PurchaseSession;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDateTime;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,7 +22,23 @@ public interface PurchaseSessionRepository extends JpaRepository<PurchaseSession
     List<PurchaseSession> findByBookIdAndStatus(String bookId, String status);
     
     @Query("SELECT ps FROM PurchaseSession ps WHERE ps.expiresAt < :currentTime AND ps.status = 'LOCKED'")
-    List<PurchaseSession> findExpiredSessions(@Param("currentTime") LocalDateTime currentTime);
+    List<PurchaseSession> findExpiredSessions(@Param("currentTime") Instant currentTime);
+    
+    // (id, bookId, expiresAt) of live locks, for seeding the ReservationLedger
+    @Query("SELECT ps.id, ps.bookId, ps.expiresAt FROM PurchaseSession ps WHERE ps.status = 'LOCKED' AND ps.expiresAt > :now")
+    List<Object[]> findActiveLocks(@Param("now") Instant now);
+    
+    // (id, expiresAt) pairs of locked sessions, for rebuilding the expiry wheel
+    @Query("SELECT ps.id, ps.expiresAt FROM PurchaseSession ps WHERE ps.status = 'LOCKED'")
+    List<Object[]> findLockedSessionDeadlines();
+    
+    @Modifying
+    @Query("DELETE FROM PurchaseSession ps WHERE ps.id IN :ids AND ps.expiresAt <= :now AND ps.status = 'LOCKED'")
+    int deleteExpiredByIds(@Param("ids") Collection<String> ids, @Param("now") Instant now);
+    
+    @Modifying
+    @Query("DELETE FROM PurchaseSession ps WHERE ps.expiresAt <= :now AND ps.status = 'LOCKED'")
+    int deleteExpiredSessions(@Param("now") Instant now);
     
     void deleteByUserIdAndBookId(String userId, String bookId);
 }
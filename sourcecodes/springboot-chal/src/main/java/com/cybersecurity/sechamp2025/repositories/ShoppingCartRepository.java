@@ -2,11 +2,13 @@ package com.cybersecurity.sechamp2025.repositories;
 
 import com.cybersecurity.sechamp2025.models.ShoppingCart;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +22,23 @@ public interface ShoppingCartRepository extends JpaRepository<ShoppingCart, Stri
     @Query("SELECT sc FROM ShoppingCart sc WHERE sc.expiresAt < :now AND sc.status IN ('ACTIVE', 'CHECKING_OUT')")
     List<ShoppingCart> findExpiredCarts(@Param("now") Instant now);
     
+    // (id, expiresAt) pairs of carts that can still expire, for rebuilding the expiry wheel
+    @Query("SELECT sc.id, sc.expiresAt FROM ShoppingCart sc WHERE sc.status IN ('ACTIVE', 'CHECKING_OUT')")
+    List<Object[]> findOpenCartDeadlines();
+    
+    // The deadline is re-checked so a cart extended after it was picked for expiry survives
+    @Modifying
+    @Query("UPDATE ShoppingCart sc SET sc.status = 'EXPIRED' WHERE sc.id IN :ids AND sc.expiresAt <= :now AND sc.status IN ('ACTIVE', 'CHECKING_OUT')")
+    int expireByIds(@Param("ids") Collection<String> ids, @Param("now") Instant now);
+    
+    @Modifying
+    @Query("UPDATE ShoppingCart sc SET sc.status = 'EXPIRED' WHERE sc.expiresAt <= :now AND sc.status IN ('ACTIVE', 'CHECKING_OUT')")
+    int expireAll(@Param("now") Instant now);
+    
     @Query("SELECT sc FROM ShoppingCart sc WHERE sc.userId = :userId AND sc.status = 'ACTIVE'")
     Optional<ShoppingCart> findActiveCartByUserId(@Param("userId") String userId);
+    
+    @Modifying
+    @Query("UPDATE ShoppingCart sc SET sc.status = :status WHERE sc.id = :cartId")
+    int updateStatus(@Param("cartId") String cartId, @Param("status") String status);
 }
@@ -2,11 +2,25 @@ package com.cybersecurity.sechamp2025.repositories;
 
 import com.cybersecurity.sechamp2025.models.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, String> {
     Optional<User> findByEmail(String email);
+
+    // Conditional debit: returns 0 when the user is missing or has less than :amount of credit left
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.creditLimit = u.creditLimit - :amount WHERE u.id = :userId AND u.creditLimit >= :amount")
+    int debitCredit(@Param("userId") String userId, @Param("amount") BigDecimal amount);
+
+    @Query("SELECT u.creditLimit FROM User u WHERE u.id = :userId")
+    BigDecimal findCreditLimitById(@Param("userId") String userId);
 }
@@ -1,66 +1,160 @@
 package com.cybersecurity.sechamp2025.services;
 
+import com.cybersecurity.sechamp2025.models.Book;
 import com.cybersecurity.sechamp2025.models.BookReview;
+import com.cybersecurity.sechamp2025.repositories.BookRepository;
 import com.cybersecurity.sechamp2025.repositories.BookReviewRepository;
+import com.cybersecurity.sechamp2025.utils.FullTextQuery;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class BookReviewService {
 
+    private static final int MAX_SEARCH_RESULTS = 500;
+
     @Autowired
     private BookReviewRepository bookReviewRepository;
 
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private HelpfulVoteCounter helpfulVotes;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private record ReviewState(String bookId, BigDecimal rating, long helpful) {
+    }
+
+    private record Walk(Stream<BookReview> reviews, HelpfulVoteCounter.FlushedTotals flushedTotals) {
+    }
+
     public List<BookReview> findAll() {
-        return bookReviewRepository.findAll();
+        return helpfulVotes.read(() -> withPendingVotes(bookReviewRepository.findAll()));
+    }
+
+    // Keyset page in id order
+    public long count() {
+        return bookReviewRepository.count();
+    }
+
+    public Slice<BookReview> findPage(String after, int limit) {
+        return helpfulVotes.read(() -> withPendingVotes(bookReviewRepository.findByIdGreaterThanOrderByIdAsc(after != null ? after : "", PageRequest.of(0, limit))));
+    }
+
+    // Walks the whole table through a database cursor; entities are detached as they are read so the
+    // persistence context does not grow with the table. The cursor's snapshot is taken together with the
+    // flushed vote totals, and every row is overlaid against those however long the walk takes
+    @Transactional(readOnly = true)
+    public void forEachReview(Consumer<BookReview> consumer) {
+        Walk walk = helpfulVotes.read(() -> new Walk(bookReviewRepository.streamAllOrderById(), helpfulVotes.flushedTotals()));
+        try (Stream<BookReview> reviews = walk.reviews()) {
+            reviews.forEach(review -> {
+                entityManager.detach(review);
+                consumer.accept(withPendingVotes(review, helpfulVotes.pendingSince(review.getId(), walk.flushedTotals())));
+            });
+        }
     }
 
     public BookReview findById(String id) {
-        return bookReviewRepository.findById(id).orElse(null);
+        return helpfulVotes.read(() -> withPendingVotes(bookReviewRepository.findById(id).orElse(null)));
     }
 
     public List<BookReview> findByBookId(String bookId) {
-        return bookReviewRepository.findByBookIdOrderByCreatedAtDesc(bookId);
+        return helpfulVotes.read(() -> withPendingVotes(bookReviewRepository.findByBookIdOrderByCreatedAtDesc(bookId)));
     }
 
     public List<BookReview> findByUserId(String userId) {
-        return bookReviewRepository.findByUserIdOrderByCreatedAtDesc(userId);
+        return helpfulVotes.read(() -> withPendingVotes(bookReviewRepository.findByUserIdOrderByCreatedAtDesc(userId)));
     }
 
     public List<BookReview> findByRatingGreaterThanEqual(BigDecimal rating) {
-        return bookReviewRepository.findByRatingGreaterThanEqualOrderByCreatedAtDesc(rating);
+        return helpfulVotes.read(() -> withPendingVotes(bookReviewRepository.findByRatingGreaterThanEqualOrderByCreatedAtDesc(rating)));
     }
 
     public List<BookReview> findVerifiedPurchaseReviews() {
-        return bookReviewRepository.findByVerifiedPurchaseTrueOrderByHelpfulCountDesc();
+        return helpfulVotes.read(() -> withPendingVotes(bookReviewRepository.findByVerifiedPurchaseTrueOrderByHelpfulCountDesc()));
     }
 
     public List<BookReview> searchByKeyword(String keyword) {
-        return bookReviewRepository.findByReviewContainingKeyword(keyword);
+        return searchByKeyword(keyword, 0, MAX_SEARCH_RESULTS).getContent();
     }
 
+    // Relevance-ranked FULLTEXT search over review title and text, one page at a time
+    public Slice<BookReview> searchByKeyword(String keyword, int page, int size) {
+        PageRequest pageRequest = PageRequest.of(page, size);
+        String query = FullTextQuery.toBooleanQuery(keyword);
+        if (query == null) {
+            return helpfulVotes.read(() -> withPendingVotes(bookReviewRepository.findByReviewContainingKeyword(keyword, pageRequest)));
+        }
+        return helpfulVotes.read(() -> withPendingVotes(bookReviewRepository.searchFullText(query, pageRequest)));
+    }
+
+    // O(1): read from the book's review aggregates instead of AVG(rating) over its reviews
     public BigDecimal getAverageRatingForBook(String bookId) {
-        BigDecimal avgRating = bookReviewRepository.getAverageRatingForBook(bookId);
-        return avgRating != null ? avgRating : BigDecimal.ZERO;
+        Book book = bookService.findById(bookId);
+        if (book == null || book.getReviewCount() == null || book.getReviewCount() == 0) {
+            return BigDecimal.ZERO;
+        }
+        return book.getRatingSum().divide(BigDecimal.valueOf(book.getReviewCount()), 2, RoundingMode.HALF_UP);
     }
 
+    // O(1): read from the book's review aggregates instead of COUNT(*) over its reviews
     public Long getReviewCountForBook(String bookId) {
-        return bookReviewRepository.getReviewCountForBook(bookId);
+        Book book = bookService.findById(bookId);
+        return book != null && book.getReviewCount() != null ? book.getReviewCount().longValue() : 0L;
     }
 
     public Boolean hasUserReviewedBook(String userId, String bookId) {
         return bookReviewRepository.existsByUserIdAndBookId(userId, bookId);
     }
 
+    // Saves the review and moves the book's aggregates by the difference in the same transaction
+    @Transactional
     public BookReview save(BookReview bookReview) {
         if (bookReview.getId() == null || bookReview.getId().trim().isEmpty()) {
             bookReview.setId(UUID.randomUUID().toString());
         }
-        return bookReviewRepository.save(bookReview);
+        // The saved helpful_count is absolute; votes not yet flushed are taken to be part of it
+        helpfulVotes.absorb(bookReview.getId(), bookReview.getHelpfulCount() != null ? bookReview.getHelpfulCount() : 0);
+        ReviewState previous = currentState(bookReview.getId());
+        BookReview saved = bookReviewRepository.saveAndFlush(bookReview);
+
+        BigDecimal rating = saved.getRating() != null ? saved.getRating() : BigDecimal.ZERO;
+        long helpful = saved.getHelpfulCount() != null ? saved.getHelpfulCount() : 0;
+        if (previous != null && previous.bookId().equals(saved.getBookId())) {
+            applyDelta(saved.getBookId(), 0, rating.subtract(previous.rating()), helpful - previous.helpful());
+        } else {
+            if (previous != null) {
+                applyDelta(previous.bookId(), -1, previous.rating().negate(), -previous.helpful());
+            }
+            applyDelta(saved.getBookId(), 1, rating, helpful);
+        }
+        return saved;
     }
 
     public BookReview createReview(String bookId, String userId, BigDecimal rating, 
@@ -83,16 +177,81 @@ public class BookReviewService {
         return save(review);
     }
 
+    @Transactional
     public void deleteById(String id) {
+        helpfulVotes.discard(id);
+        ReviewState previous = currentState(id);
         bookReviewRepository.deleteById(id);
+        if (previous != null) {
+            applyDelta(previous.bookId(), -1, previous.rating().negate(), -previous.helpful());
+        }
+    }
+
+    // The vote is counted in memory and written in a batch by HelpfulVoteCounter. Returns the review's helpful
+    // count including it, computed from the counter without reading the row, or null if there is no such review
+    public Long incrementHelpfulCount(String reviewId) {
+        return helpfulVotes.record(reviewId);
+    }
+
+    // Adds votes that have not been flushed yet. The entity is detached first so the overlaid count can never
+    // be written back by a later flush of the persistence context.
+    private BookReview withPendingVotes(BookReview review) {
+        if (review == null) {
+            return null;
+        }
+        return withPendingVotes(review, helpfulVotes.pending(review.getId()));
     }
 
-    public BookReview incrementHelpfulCount(String reviewId) {
-        BookReview review = findById(reviewId);
-        if (review != null) {
-            review.setHelpfulCount(review.getHelpfulCount() + 1);
-            return save(review);
+    private BookReview withPendingVotes(BookReview review, long pending) {
+        if (pending != 0) {
+            entityManager.detach(review);
+            review.setHelpfulCount((int) ((review.getHelpfulCount() != null ? review.getHelpfulCount() : 0) + pending));
+        }
+        return review;
+    }
+
+    private List<BookReview> withPendingVotes(List<BookReview> reviews) {
+        reviews.forEach(this::withPendingVotes);
+        return reviews;
+    }
+
+    private Slice<BookReview> withPendingVotes(Slice<BookReview> reviews) {
+        reviews.getContent().forEach(this::withPendingVotes);
+        return reviews;
+    }
+
+    // The stored row read over JDBC, so it is not affected by unflushed changes to a managed BookReview
+    private ReviewState currentState(String reviewId) {
+        List<ReviewState> rows = jdbcTemplate.query(
+                "SELECT book_id, rating, helpful_count FROM book_reviews WHERE id = ?",
+                (rs, rowNum) -> new ReviewState(rs.getString("book_id"),
+                        rs.getBigDecimal("rating") != null ? rs.getBigDecimal("rating") : BigDecimal.ZERO,
+                        rs.getLong("helpful_count")),
+                reviewId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    // Moves the book's aggregates inside the current transaction and, once it commits, patches the catalog
+    // snapshot with the values the row ended up with
+    private void applyDelta(String bookId, int countDelta, BigDecimal ratingDelta, long helpfulDelta) {
+        if (countDelta == 0 && ratingDelta.signum() == 0 && helpfulDelta == 0) {
+            return;
+        }
+        bookRepository.applyReviewDelta(bookId, countDelta, ratingDelta, helpfulDelta);
+        List<Object[]> rows = bookRepository.findReviewAggregates(bookId);
+        if (rows.isEmpty()) {
+            return;
         }
-        return null;
+        Object[] row = rows.get(0);
+        BigDecimal rating = (BigDecimal) row[0];
+        int reviewCount = ((Number) row[1]).intValue();
+        BigDecimal ratingSum = (BigDecimal) row[2];
+        long helpfulTotal = ((Number) row[3]).longValue();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bookService.updateReviewAggregates(bookId, rating, reviewCount, ratingSum, helpfulTotal);
+            }
+        });
     }
 }
@@ -2,51 +2,354 @@ package com.cybersecurity.sechamp2025.services;
 
 import com.cybersecurity.sechamp2025.models.Book;
 import com.cybersecurity.sechamp2025.repositories.BookRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class BookService {
 
+    private static final Logger logger = LoggerFactory.getLogger(BookService.class);
+
+    private static final BigDecimal FEATURED_MIN_RATING = BigDecimal.valueOf(4.5);
+    private static final int STREAM_CHUNK_SIZE = 500;
+    private static final int MAX_SEARCH_RESULTS = 500;
+
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private StockService stockService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Immutable snapshot of the whole catalog, replaced (never modified) on every write. Readers get copies
+    // with stock overlaid from StockService, so cached pages always show live availability.
+    private volatile Catalog catalog;
+    // A ReentrantLock rather than a monitor: loads run queries while holding it, and a virtual thread blocked
+    // on I/O inside synchronized would pin its carrier thread
+    private final ReentrantLock catalogLock = new ReentrantLock();
+
+    // The snapshot holds the whole catalog, so a lookup never falls through to the repository: there is no
+    // hit rate to report, only how often it is read and how often it had to be (re)loaded
+    private final LongAdder catalogReads = new LongAdder();
+    private final LongAdder catalogLoads = new LongAdder();
+
+    private record Catalog(List<Book> books, Map<String, Book> byId, Map<String, List<Book>> byCategory,
+                           List<String> categories, List<Book> featured, long loadedAtMillis) {
+
+        static Catalog of(List<Book> books) {
+            Map<String, Book> byId = new LinkedHashMap<>();
+            Map<String, List<Book>> byCategory = new LinkedHashMap<>();
+            Set<String> categories = new LinkedHashSet<>();
+            List<Book> featured = new ArrayList<>();
+            for (Book book : books) {
+                byId.put(book.getId(), book);
+                if (book.getCategory() != null) {
+                    categories.add(book.getCategory());
+                    byCategory.computeIfAbsent(book.getCategory().toLowerCase(Locale.ROOT), c -> new ArrayList<>()).add(book);
+                }
+                if (book.getRating() != null && book.getRating().compareTo(FEATURED_MIN_RATING) >= 0) {
+                    featured.add(book);
+                }
+            }
+            byCategory.replaceAll((category, list) -> Collections.unmodifiableList(list));
+            return new Catalog(Collections.unmodifiableList(new ArrayList<>(byId.values())),
+                    Collections.unmodifiableMap(byId), Collections.unmodifiableMap(byCategory),
+                    List.copyOf(categories), Collections.unmodifiableList(featured), System.currentTimeMillis());
+        }
+
+        Catalog with(Book book) {
+            Map<String, Book> books = new LinkedHashMap<>(byId);
+            books.put(book.getId(), book);
+            return of(new ArrayList<>(books.values()));
+        }
+
+        Catalog without(String id) {
+            Map<String, Book> books = new LinkedHashMap<>(byId);
+            books.remove(id);
+            return of(new ArrayList<>(books.values()));
+        }
+
+        // Swaps in new versions of books already in the snapshot whose category and rating are unchanged (new vote
+        // totals): only the lists holding them are copied, nothing is regrouped or refiltered
+        Catalog replacing(Map<String, Book> updated) {
+            Map<String, Book> patchedById = new LinkedHashMap<>(byId);
+            patchedById.putAll(updated);
+            Map<String, List<Book>> patchedByCategory = new LinkedHashMap<>(byCategory);
+            boolean featuredChanged = false;
+            for (Book book : updated.values()) {
+                if (book.getCategory() != null) {
+                    patchedByCategory.computeIfPresent(book.getCategory().toLowerCase(Locale.ROOT),
+                            (category, list) -> list == byCategory.get(category) ? replaced(list, updated) : list);
+                }
+                featuredChanged |= book.getRating() != null && book.getRating().compareTo(FEATURED_MIN_RATING) >= 0;
+            }
+            return new Catalog(replaced(books, updated), Collections.unmodifiableMap(patchedById),
+                    Collections.unmodifiableMap(patchedByCategory), categories,
+                    featuredChanged ? replaced(featured, updated) : featured, loadedAtMillis);
+        }
+
+        private static List<Book> replaced(List<Book> list, Map<String, Book> updated) {
+            List<Book> copy = new ArrayList<>(list.size());
+            for (Book book : list) {
+                copy.add(updated.getOrDefault(book.getId(), book));
+            }
+            return Collections.unmodifiableList(copy);
+        }
+    }
+
     public List<Book> findAll() {
-        return bookRepository.findAll();
+        return withLiveStock(catalog().books());
+    }
+
+    public int count() {
+        return catalog().books().size();
     }
 
     public Book findById(String id) {
-        return bookRepository.findById(id).orElse(null);
+        if (id == null) {
+            return null;
+        }
+        Book book = catalog().byId().get(id);
+        if (book == null) {
+            return null;
+        }
+        Book copy = new Book(book);
+        copy.setStock(stockService.getStock(id));
+        return copy;
     }
 
     public List<Book> findByCategory(String category) {
-        return bookRepository.findByCategoryIgnoreCase(category);
+        if (category == null) {
+            return List.of();
+        }
+        return withLiveStock(catalog().byCategory().getOrDefault(category.toLowerCase(Locale.ROOT), List.of()));
+    }
+
+    // Keyset page in id order, read from the database (the snapshot is not sorted by id)
+    public Slice<Book> findPage(String after, int limit) {
+        Slice<Book> slice = bookRepository.findByIdGreaterThanOrderByIdAsc(after != null ? after : "", PageRequest.of(0, limit));
+        return new SliceImpl<>(withLiveStock(slice.getContent()), slice.getPageable(), slice.hasNext());
+    }
+
+    // Walks the whole table through a database cursor without materializing it. Entities are detached as
+    // they are read and handed out in chunks so stock can be overlaid with one lookup per chunk.
+    @Transactional(readOnly = true)
+    public void forEachBook(Consumer<Book> consumer) {
+        List<Book> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+        try (Stream<Book> books = bookRepository.streamAllOrderById()) {
+            books.forEach(book -> {
+                entityManager.detach(book);
+                chunk.add(book);
+                if (chunk.size() == STREAM_CHUNK_SIZE) {
+                    withLiveStock(chunk).forEach(consumer);
+                    chunk.clear();
+                }
+            });
+        }
+        withLiveStock(chunk).forEach(consumer);
     }
 
     public List<Book> findByAuthor(String author) {
-        return bookRepository.findByAuthorContainingIgnoreCase(author);
+        return search(null, null, author, null, 0, MAX_SEARCH_RESULTS).getContent();
     }
 
     public List<Book> searchByTitle(String title) {
-        return bookRepository.findByTitleContainingIgnoreCase(title);
+        return search(null, title, null, null, 0, MAX_SEARCH_RESULTS).getContent();
     }
 
+    // Relevance-ranked FULLTEXT search; see BookSearchRepository for how the arguments combine
+    public Slice<Book> search(String query, String title, String author, String category, int page, int size) {
+        Slice<Book> slice = bookRepository.search(query, title, author, category, PageRequest.of(page, size));
+        return new SliceImpl<>(withLiveStock(slice.getContent()), slice.getPageable(), slice.hasNext());
+    }
+
+    // Stock is only written when the book is created; use setStock to change it afterwards
     public Book save(Book book) {
-        return bookRepository.save(book);
+        Book saved = bookRepository.save(book);
+        catalogLock.lock();
+        try {
+            if (catalog != null) {
+                Book snapshot = new Book(saved);
+                // Review aggregates are never written through the entity, so the snapshot's values still hold
+                Book previous = catalog.byId().get(saved.getId());
+                snapshot.setReviewCount(previous != null ? previous.getReviewCount() : Integer.valueOf(0));
+                snapshot.setRatingSum(previous != null ? previous.getRatingSum() : BigDecimal.ZERO);
+                snapshot.setHelpfulTotal(previous != null ? previous.getHelpfulTotal() : Long.valueOf(0));
+                catalog = catalog.with(snapshot);
+            }
+        } finally {
+            catalogLock.unlock();
+        }
+        return saved;
+    }
+
+    // Absolute stock from an admin edit. Units sold but not yet flushed are dropped: the new value counts them
+    public void setStock(String id, int stock) {
+        stockService.setStock(id, stock);
     }
 
     public void deleteById(String id) {
         bookRepository.deleteById(id);
+        stockLedger.invalidate(id);
+        catalogLock.lock();
+        try {
+            if (catalog != null) {
+                catalog = catalog.without(id);
+            }
+        } finally {
+            catalogLock.unlock();
+        }
+    }
+
+    // Called by BookReviewService after a review write commits, with the aggregates it left in the books row
+    public void updateReviewAggregates(String bookId, BigDecimal rating, int reviewCount, BigDecimal ratingSum,
+                                       long helpfulTotal) {
+        catalogLock.lock();
+        try {
+            Book current = catalog != null ? catalog.byId().get(bookId) : null;
+            if (current == null) {
+                return;
+            }
+            Book updated = new Book(current);
+            updated.setRating(rating);
+            updated.setReviewCount(reviewCount);
+            updated.setRatingSum(ratingSum);
+            updated.setHelpfulTotal(helpfulTotal);
+            catalog = catalog.with(updated);
+        } finally {
+            catalogLock.unlock();
+        }
+    }
+
+    // Called by HelpfulVoteCounter after a flush has added these votes to books.helpful_total
+    public void addHelpfulVotes(Map<String, Long> votesByBook) {
+        catalogLock.lock();
+        try {
+            if (catalog == null) {
+                return;
+            }
+            Map<String, Book> updated = new LinkedHashMap<>();
+            votesByBook.forEach((bookId, votes) -> {
+                Book current = catalog.byId().get(bookId);
+                if (current != null) {
+                    Book book = new Book(current);
+                    book.setHelpfulTotal((current.getHelpfulTotal() != null ? current.getHelpfulTotal() : 0L) + votes);
+                    updated.put(bookId, book);
+                }
+            });
+            if (!updated.isEmpty()) {
+                catalog = catalog.replacing(updated);
+            }
+        } finally {
+            catalogLock.unlock();
+        }
     }
 
     public List<String> getCategories() {
-        return bookRepository.findDistinctCategories();
+        return catalog().categories();
     }
 
     public List<Book> getFeaturedBooks() {
-        return bookRepository.findByRatingGreaterThanEqual(BigDecimal.valueOf(4.5));
+        return withLiveStock(catalog().featured());
+    }
+
+    // Periodic full reload picks up rows changed outside the application (e.g. the reset-db scripts)
+    @Scheduled(fixedDelayString = "${app.catalog.cache.refresh-interval-ms:300000}",
+               initialDelayString = "${app.catalog.cache.refresh-interval-ms:300000}")
+    public void refreshCatalog() {
+        catalogLock.lock();
+        try {
+            if (catalog != null) {
+                catalog = load();
+            }
+        } finally {
+            catalogLock.unlock();
+        }
+    }
+
+    public Map<String, Object> getCacheStats() {
+        Catalog current = catalog;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("reads", catalogReads.sum());
+        stats.put("loads", catalogLoads.sum());
+        stats.put("loaded", current != null);
+        stats.put("books", current != null ? current.books().size() : 0);
+        stats.put("loadedAt", current != null ? current.loadedAtMillis() : null);
+        return stats;
+    }
+
+    private Catalog catalog() {
+        catalogReads.increment();
+        Catalog current = catalog;
+        if (current != null) {
+            return current;
+        }
+        // Writers take the same lock, so a write that commits while the snapshot is loading is applied on top of it
+        catalogLock.lock();
+        try {
+            if (catalog == null) {
+                catalog = load();
+            }
+            return catalog;
+        } finally {
+            catalogLock.unlock();
+        }
+    }
+
+    private Catalog load() {
+        List<Book> books = new ArrayList<>();
+        for (Book book : bookRepository.findAll()) {
+            books.add(new Book(book));
+        }
+        Catalog loaded = Catalog.of(books);
+        catalogLoads.increment();
+        logger.info("Catalog cache loaded with {} books", loaded.books().size());
+        return loaded;
+    }
+
+    private List<Book> withLiveStock(List<Book> books) {
+        if (books.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<String> ids = new ArrayList<>(books.size());
+        for (Book book : books) {
+            ids.add(book.getId());
+        }
+        Map<String, Integer> stocks = stockService.getStocks(ids);
+        List<Book> copies = new ArrayList<>(books.size());
+        for (Book book : books) {
+            Book copy = new Book(book);
+            copy.setStock(stocks.getOrDefault(book.getId(), book.getStock()));
+            copies.add(copy);
+        }
+        return copies;
     }
 }
@@ -0,0 +1,116 @@
+package com.cybersecurity.sechamp2025.services;
+
+import com.cybersecurity.sechamp2025.models.CartItem;
+import com.cybersecurity.sechamp2025.models.ShoppingCart;
+import com.cybersecurity.sechamp2025.models.User;
+import com.cybersecurity.sechamp2025.repositories.CartItemRepository;
+import com.cybersecurity.sechamp2025.repositories.ShoppingCartRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class CheckoutService {
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private UserBookService userBookService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private ShoppingCartRepository shoppingCartRepository;
+
+    @Autowired
+    private ReservationLedger reservationLedger;
+
+    @Autowired
+    private PurchaseQueue purchaseQueue;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Commits a checkout as one set-based transaction: one batched stock decrement, one JDBC batch of
+    // user_books inserts, one credit update, one DELETE of the cart items and one cart status update.
+    // Throws InsufficientStockException (and rolls everything back) if any book runs short, and
+    // InsufficientCreditException if the user's stored credit does.
+    // Carts holding only a hot book go through PurchaseQueue instead, see commitQueuedCheckout.
+    public BigDecimal commitCheckout(User user, ShoppingCart cart, List<CartItem> items) {
+        String hotBookId = hotBookOf(items);
+        if (hotBookId != null) {
+            return commitQueuedCheckout(user, cart, items, hotBookId);
+        }
+        return transactionTemplate.execute(status -> {
+            Map<String, Integer> quantities = new LinkedHashMap<>();
+            for (CartItem item : items) {
+                // One copy per cart line, matching the per-item purchase the checkout has always made
+                quantities.merge(item.getBookId(), 1, Integer::sum);
+            }
+
+            stockService.decrementAll(quantities);
+
+            userBookService.addBookCopiesToUser(user.getId(), items);
+
+            return finishCheckout(user, cart, items);
+        });
+    }
+
+    // The stock and library rows are committed by the queue's consumer together with the rest of its batch;
+    // credit and cart cleanup follow in a second transaction, and if that fails the copies are given back
+    private BigDecimal commitQueuedCheckout(User user, ShoppingCart cart, List<CartItem> items, String bookId) {
+        List<BigDecimal> prices = items.stream().map(CartItem::getPriceAtAdd).toList();
+        List<String> userBookIds = purchaseQueue.purchase(user.getId(), bookId, prices);
+        if (userBookIds.isEmpty()) {
+            throw new InsufficientStockException(bookId);
+        }
+        try {
+            return transactionTemplate.execute(status -> finishCheckout(user, cart, items));
+        } catch (RuntimeException e) {
+            stockService.restore(bookId, userBookIds.size());
+            userBookService.removeUserBooks(userBookIds);
+            throw e;
+        }
+    }
+
+    private BigDecimal finishCheckout(User user, ShoppingCart cart, List<CartItem> items) {
+        BigDecimal totalPrice = BigDecimal.ZERO;
+        for (CartItem item : items) {
+            totalPrice = totalPrice.add(item.getPriceAtAdd());
+        }
+
+        BigDecimal newCreditLimit = userService.debitCredit(user.getId(), totalPrice);
+        if (newCreditLimit == null) {
+            throw new InsufficientCreditException(user.getId());
+        }
+
+        cartItemRepository.deleteByCartId(cart.getId());
+        items.forEach(item -> reservationLedger.release(ReservationLedger.cartItemKey(item.getId())));
+        shoppingCartRepository.updateStatus(cart.getId(), "COMPLETED");
+        return newCreditLimit;
+    }
+
+    // The book every line of the cart is for, if it is flagged as hot
+    private String hotBookOf(List<CartItem> items) {
+        if (items.isEmpty()) {
+            return null;
+        }
+        String bookId = items.get(0).getBookId();
+        for (CartItem item : items) {
+            if (!bookId.equals(item.getBookId())) {
+                return null;
+            }
+        }
+        return purchaseQueue.isHot(bookId) ? bookId : null;
+    }
+}
@@ -0,0 +1,158 @@
+package com.cybersecurity.sechamp2025.services;
+
+import com.cybersecurity.sechamp2025.repositories.CartItemRepository;
+import com.cybersecurity.sechamp2025.repositories.PurchaseSessionRepository;
+import com.cybersecurity.sechamp2025.repositories.ShoppingCartRepository;
+import com.cybersecurity.sechamp2025.utils.TimingWheel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Function;
+
+// Expires cart reservations, carts and purchase sessions at their deadlines so read paths never have to.
+// Upcoming deadlines sit in in-memory timing wheels (rebuilt from the database at startup); every tick the
+// due ids are drained and expired with one bulk statement per batch. Each statement re-checks the deadline
+// in SQL, so an id whose row was extended, completed or deleted in the meantime is left alone.
+// A slow full sweep catches anything the wheels never saw (rows written by another instance, failed drains).
+@Component
+public class ExpiryScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpiryScheduler.class);
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private ShoppingCartRepository shoppingCartRepository;
+
+    @Autowired
+    private PurchaseSessionRepository purchaseSessionRepository;
+
+    @Autowired
+    private ReservationLedger reservationLedger;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.expiry.tick-ms:1000}")
+    private long tickMillis = 1000;
+
+    @Value("${app.expiry.wheel-size:4096}")
+    private int wheelSize = 4096;
+
+    @Value("${app.expiry.batch-size:500}")
+    private int batchSize = 500;
+
+    private TimingWheel<String> cartItems;
+    private TimingWheel<String> carts;
+    private TimingWheel<String> sessions;
+
+    @PostConstruct
+    public void createWheels() {
+        long now = System.currentTimeMillis();
+        cartItems = new TimingWheel<>(tickMillis, wheelSize, now);
+        carts = new TimingWheel<>(tickMillis, wheelSize, now);
+        sessions = new TimingWheel<>(tickMillis, wheelSize, now);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        load(cartItems, cartItemRepository.findAllReservationDeadlines());
+        load(carts, shoppingCartRepository.findOpenCartDeadlines());
+        load(sessions, purchaseSessionRepository.findLockedSessionDeadlines());
+        logger.info("Expiry wheels rebuilt: {} cart reservations, {} carts, {} purchase sessions",
+                cartItems.size(), carts.size(), sessions.size());
+    }
+
+    public void scheduleCartItem(String itemId, Instant reservedUntil) {
+        if (reservedUntil != null) {
+            cartItems.schedule(itemId, reservedUntil.toEpochMilli());
+        }
+    }
+
+    public void scheduleCart(String cartId, Instant expiresAt) {
+        if (expiresAt != null) {
+            carts.schedule(cartId, expiresAt.toEpochMilli());
+        }
+    }
+
+    public void schedulePurchaseSession(String sessionId, Instant expiresAt) {
+        if (expiresAt != null) {
+            sessions.schedule(sessionId, expiresAt.toEpochMilli());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.expiry.tick-ms:1000}")
+    public void drain() {
+        long now = System.currentTimeMillis();
+        Instant cutoff = Instant.ofEpochMilli(now);
+        drain("cart reservations", cartItems, now, ids -> cartItemRepository.deleteExpiredByIds(ids, cutoff),
+                ReservationLedger::cartItemKey);
+        drain("carts", carts, now, ids -> shoppingCartRepository.expireByIds(ids, cutoff), null);
+        drain("purchase sessions", sessions, now, ids -> purchaseSessionRepository.deleteExpiredByIds(ids, cutoff),
+                ReservationLedger::sessionKey);
+    }
+
+    @Scheduled(fixedDelayString = "${app.expiry.sweep-interval-ms:3600000}",
+               initialDelayString = "${app.expiry.sweep-interval-ms:3600000}")
+    public void sweep() {
+        Instant now = Instant.now();
+        try {
+            Integer[] counts = transactionTemplate.execute(status -> new Integer[] {
+                    cartItemRepository.deleteExpiredReservations(now),
+                    shoppingCartRepository.expireAll(now),
+                    purchaseSessionRepository.deleteExpiredSessions(now)
+            });
+            reservationLedger.releaseAllExpired(now.toEpochMilli());
+            if (counts != null && counts[0] + counts[1] + counts[2] > 0) {
+                logger.warn("Expiry sweep found rows the wheels missed: {} cart reservations, {} carts, {} purchase sessions",
+                        counts[0], counts[1], counts[2]);
+            }
+        } catch (DataAccessException e) {
+            logger.error("Expiry sweep failed", e);
+        }
+    }
+
+    // ledgerKey maps an id to its ReservationLedger key, or is null for rows that hold no stock
+    private void drain(String name, TimingWheel<String> wheel, long now, BulkExpiry expiry,
+                       Function<String, String> ledgerKey) {
+        List<String> due = wheel.advance(now);
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<String> batch = due.subList(from, Math.min(from + batchSize, due.size()));
+            try {
+                Integer expired = transactionTemplate.execute(status -> expiry.apply(batch));
+                logger.debug("Expired {} of {} due {}", expired, batch.size(), name);
+                if (ledgerKey != null) {
+                    batch.forEach(id -> reservationLedger.releaseIfExpired(ledgerKey.apply(id), now));
+                }
+            } catch (DataAccessException e) {
+                logger.error("Failed to expire {} {}, retrying on the next tick", batch.size(), name, e);
+                batch.forEach(id -> wheel.schedule(id, now));
+            }
+        }
+    }
+
+    private static void load(TimingWheel<String> wheel, List<Object[]> deadlines) {
+        for (Object[] row : deadlines) {
+            if (row[1] != null) {
+                wheel.schedule((String) row[0], ((Instant) row[1]).toEpochMilli());
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface BulkExpiry {
+        int apply(List<String> ids);
+    }
+}
@@ -0,0 +1,314 @@
+package com.cybersecurity.sechamp2025.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+// In-memory "helpful" vote counters with write-behind to book_reviews.helpful_count and books.helpful_total.
+// A vote is one LongAdder increment, so a single hot review does not serialize its voters on a row lock
+// or a CAS loop. Counters only ever grow; the flusher writes the difference to what it has already written,
+// which means a vote that races with a flush is simply picked up by the next one.
+@Component
+public class HelpfulVoteCounter {
+
+    private static final Logger logger = LoggerFactory.getLogger(HelpfulVoteCounter.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private BookService bookService;
+
+    @Value("${app.reviews.helpful.flush-batch-size:500}")
+    private int flushBatchSize = 500;
+
+    // Reviews voted on recently: a counter with nothing left to write is dropped by the next flush (see
+    // retireIdle), and deleteById discards one explicitly
+    private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+    // Row lookups in flight for reviews that have no counter yet, removed once the lookup is done
+    private final ConcurrentHashMap<String, CompletableFuture<Counter>> lookups = new ConcurrentHashMap<>();
+    // Serializes flush, absorb and discard; a lock instead of synchronized because flush writes to the
+    // database while holding it, which would pin a virtual thread's carrier
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // Write side held by flush from a batch's commit until its flushed totals have moved; readers hold the read
+    // side from their query until their overlay is done, so committed rows never meet the old totals (which
+    // would count the batch twice)
+    private final ReentrantReadWriteLock commitLock = new ReentrantReadWriteLock();
+
+    private static final class Counter {
+        final String bookId;
+        final LongAdder votes = new LongAdder();
+        // Voters between their check of retired and their increment; retireIdle waits for them
+        final LongAdder voting = new LongAdder();
+        // Written only by flush() and absorb(), under flushLock
+        volatile long flushed;
+        // helpful_count of the row less what this counter has flushed into it, so base + votes is the count
+        volatile long base;
+        volatile boolean retired;
+
+        Counter(String bookId, long base) {
+            this.bookId = bookId;
+            this.base = base;
+        }
+
+        long pending() {
+            return votes.sum() - flushed;
+        }
+    }
+
+    // What had been flushed when a long read opened its snapshot, per counter alive at that moment
+    public static final class FlushedTotals {
+
+        private record Frozen(Counter counter, long flushed) {
+        }
+
+        private final Map<String, Frozen> frozen = new HashMap<>();
+    }
+
+    // Returns the review's helpful count including this vote, or null if the review does not exist. Only the
+    // first vote for a review since its counter was last dropped reads the database; votes racing it wait for
+    // that read.
+    public Long record(String reviewId) {
+        while (true) {
+            Counter counter = counter(reviewId);
+            if (counter == null) {
+                return null;
+            }
+            counter.voting.increment();
+            try {
+                if (!counter.retired) {
+                    counter.votes.increment();
+                    return counter.base + counter.votes.sum();
+                }
+            } finally {
+                counter.voting.decrement();
+            }
+            // retireIdle is deciding about this counter; it either keeps it or removes it from the map
+            Thread.onSpinWait();
+        }
+    }
+
+    // Votes accepted but not yet written to book_reviews, for overlaying on rows read from the database.
+    // The query and the overlay must run inside the same read()
+    public long pending(String reviewId) {
+        Counter counter = counters.get(reviewId);
+        return counter != null ? counter.pending() : 0;
+    }
+
+    public <T> T read(Supplier<T> read) {
+        commitLock.readLock().lock();
+        try {
+            return read.get();
+        } finally {
+            commitLock.readLock().unlock();
+        }
+    }
+
+    // Flushed totals as of now, for a long read that only opens its snapshot inside read(): its rows are
+    // overlaid with pendingSince against these instead of holding off flushes until it is done
+    public FlushedTotals flushedTotals() {
+        FlushedTotals totals = new FlushedTotals();
+        counters.forEach((reviewId, counter) -> totals.frozen.put(reviewId, new FlushedTotals.Frozen(counter, counter.flushed)));
+        return totals;
+    }
+
+    // Votes on the review that the snapshot does not hold: those its counter had not flushed then, plus all
+    // votes on a counter created after that counter was dropped
+    public long pendingSince(String reviewId, FlushedTotals flushedTotals) {
+        FlushedTotals.Frozen frozen = flushedTotals.frozen.get(reviewId);
+        Counter current = counters.get(reviewId);
+        long pending = frozen != null ? frozen.counter().votes.sum() - frozen.flushed() : 0;
+        if (current != null && (frozen == null || current != frozen.counter())) {
+            pending += current.votes.sum();
+        }
+        return pending;
+    }
+
+    // Called before a review row is overwritten with an absolute helpful_count: the pending votes are treated
+    // as already contained in helpfulCount and will not be written again. Returns how many that was.
+    public long absorb(String reviewId, long helpfulCount) {
+        flushLock.lock();
+        try {
+            Counter counter = counters.get(reviewId);
+            if (counter == null) {
+                return 0;
+            }
+            long total = counter.votes.sum();
+            long pending = total - counter.flushed;
+            counter.flushed = total;
+            counter.base = helpfulCount - total;
+            return pending;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Called when a review is deleted; its unflushed votes go with it
+    public void discard(String reviewId) {
+        flushLock.lock();
+        try {
+            counters.remove(reviewId);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.reviews.helpful.flush-interval-ms:200}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<String, Long> reviewDeltas = new LinkedHashMap<>();
+            Map<String, Long> totals = new LinkedHashMap<>();
+            List<String> idle = new ArrayList<>();
+            counters.forEach((reviewId, counter) -> {
+                long total = counter.votes.sum();
+                if (total != counter.flushed) {
+                    reviewDeltas.put(reviewId, total - counter.flushed);
+                    totals.put(reviewId, total);
+                } else {
+                    idle.add(reviewId);
+                }
+            });
+            idle.forEach(this::retireIdle);
+            if (reviewDeltas.isEmpty()) {
+                return;
+            }
+
+            List<String> reviewIds = new ArrayList<>(reviewDeltas.keySet());
+            for (int from = 0; from < reviewIds.size(); from += flushBatchSize) {
+                Map<String, Long> batch = new LinkedHashMap<>();
+                Map<String, Long> bookDeltas = new LinkedHashMap<>();
+                for (String reviewId : reviewIds.subList(from, Math.min(from + flushBatchSize, reviewIds.size()))) {
+                    long delta = reviewDeltas.get(reviewId);
+                    batch.put(reviewId, delta);
+                    bookDeltas.merge(counters.get(reviewId).bookId, delta, Long::sum);
+                }
+                commitLock.writeLock().lock();
+                try {
+                    // Review rows and book aggregates move together, so the aggregate reconciler never sees them apart
+                    transactionTemplate.executeWithoutResult(status -> {
+                        writeDeltas("book_reviews", "helpful_count", batch);
+                        writeDeltas("books", "helpful_total", bookDeltas);
+                    });
+                    batch.keySet().forEach(reviewId -> {
+                        Counter counter = counters.get(reviewId);
+                        if (counter != null) {
+                            counter.flushed = totals.get(reviewId);
+                        }
+                    });
+                } catch (DataAccessException e) {
+                    // flushed is left where it was, so the next tick retries these votes
+                    logger.error("Helpful vote flush failed for {} reviews, retrying on the next tick", batch.size(), e);
+                    continue;
+                } finally {
+                    commitLock.writeLock().unlock();
+                }
+                bookService.addHelpfulVotes(bookDeltas);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Drops a counter that had nothing to write, unless a vote gets in first. retired is set before voting is
+    // read and a voter increments voting before reading retired, so either the voter sees retired and retries
+    // on a fresh counter, or this sees the voter and waits for its vote to land.
+    private void retireIdle(String reviewId) {
+        Counter counter = counters.get(reviewId);
+        if (counter == null || counter.pending() != 0) {
+            return;
+        }
+        counter.retired = true;
+        while (counter.voting.sum() != 0) {
+            Thread.onSpinWait();
+        }
+        if (counter.pending() == 0) {
+            counters.remove(reviewId, counter);
+        } else {
+            counter.retired = false;
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private Counter counter(String reviewId) {
+        Counter counter = counters.get(reviewId);
+        if (counter != null) {
+            return counter;
+        }
+        // The row query runs outside the map's bin lock (a query under it would pin a virtual thread's
+        // carrier). Racing first votes wait for the one lookup in flight instead of each running their own.
+        CompletableFuture<Counter> lookup = new CompletableFuture<>();
+        CompletableFuture<Counter> inFlight = lookups.putIfAbsent(reviewId, lookup);
+        if (inFlight != null) {
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            // A lookup that finished just before ours was registered has already created the counter
+            counter = counters.get(reviewId);
+            if (counter == null) {
+                // Two narrow columns by primary key; the review text is never read
+                List<Counter> rows = jdbcTemplate.query("SELECT book_id, helpful_count FROM book_reviews WHERE id = ?",
+                        (rs, rowNum) -> new Counter(rs.getString(1), rs.getLong(2)), reviewId);
+                if (!rows.isEmpty()) {
+                    Counter existing = counters.putIfAbsent(reviewId, rows.get(0));
+                    counter = existing != null ? existing : rows.get(0);
+                }
+            }
+            lookup.complete(counter);
+            return counter;
+        } catch (RuntimeException e) {
+            lookup.completeExceptionally(e);
+            throw e;
+        } finally {
+            lookups.remove(reviewId, lookup);
+        }
+    }
+
+    // One multi-row UPDATE: column = column + CASE id WHEN ? THEN ? ... END WHERE id IN (...)
+    private void writeDeltas(String table, String column, Map<String, Long> deltas) {
+        StringBuilder sql = new StringBuilder("UPDATE " + table + " SET " + column + " = " + column + " + CASE id");
+        List<Object> args = new ArrayList<>(deltas.size() * 3);
+        deltas.forEach((id, delta) -> {
+            sql.append(" WHEN ? THEN ?");
+            args.add(id);
+            args.add(delta);
+        });
+        sql.append(" ELSE 0 END WHERE id IN (");
+        sql.append(String.join(",", Collections.nCopies(deltas.size(), "?")));
+        sql.append(")");
+        args.addAll(deltas.keySet());
+        jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+}
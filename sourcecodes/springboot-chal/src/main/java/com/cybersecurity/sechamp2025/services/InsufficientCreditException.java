@@ -0,0 +1,16 @@
+package com.cybersecurity.sechamp2025.services;
+
+// Thrown when a purchase's conditional credit debit finds less credit left than the price
+public class InsufficientCreditException extends RuntimeException {
+
+    private final String userId;
+
+    public InsufficientCreditException(String userId) {
+        super("Insufficient credit for user " + userId);
+        this.userId = userId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+}
@@ -0,0 +1,16 @@
+package com.cybersecurity.sechamp2025.services;
+
+// Thrown when a batched stock decrement cannot be satisfied; bookId is null when the failing book is not known
+public class InsufficientStockException extends RuntimeException {
+
+    private final String bookId;
+
+    public InsufficientStockException(String bookId) {
+        super(bookId != null ? "Insufficient stock for book " + bookId : "Insufficient stock for one or more books");
+        this.bookId = bookId;
+    }
+
+    public String getBookId() {
+        return bookId;
+    }
+}
@@ -0,0 +1,302 @@
+package com.cybersecurity.sechamp2025.services;
+
+import com.cybersecurity.sechamp2025.models.UserBook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Single-writer purchase path for "hot" books (flash sales). Purchases of a flagged book go into a bounded
+// per-book queue drained by one consumer thread, which takes the stock for a whole batch with one decrement
+// and inserts the batch's user_books rows in the same transaction, instead of every request queueing on the
+// books row lock. Each order's future completes after the commit with the ids of its new library rows, or
+// with an empty list when the book sold out before the order's turn.
+@Component
+public class PurchaseQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(PurchaseQueue.class);
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private UserBookService userBookService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.purchase.queue.hot-books:}")
+    private List<String> hotBooks = List.of();
+
+    @Value("${app.purchase.queue.capacity:1024}")
+    private int capacity = 1024;
+
+    @Value("${app.purchase.queue.max-batch-size:256}")
+    private int maxBatchSize = 256;
+
+    @Value("${app.purchase.queue.retry-after-seconds:1}")
+    private int retryAfterSeconds = 1;
+
+    @Value("${app.purchase.queue.wait-timeout-ms:5000}")
+    private long waitTimeoutMs = 5000;
+
+    // One copy per price; the price is stored on the copy's user_books row
+    private record Order(String userId, List<BigDecimal> prices, CompletableFuture<List<String>> result) {
+    }
+
+    private final ConcurrentHashMap<String, Lane> lanes = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void startConfiguredLanes() {
+        hotBooks.stream().map(String::trim).filter(id -> !id.isEmpty()).forEach(this::markHot);
+    }
+
+    public boolean isHot(String bookId) {
+        return bookId != null && lanes.containsKey(bookId);
+    }
+
+    public void markHot(String bookId) {
+        lanes.computeIfAbsent(bookId, id -> {
+            Lane lane = new Lane(id);
+            lane.start();
+            logger.info("Purchases of book {} now go through the hot-item queue", id);
+            return lane;
+        });
+    }
+
+    // Orders already queued are still processed before the consumer exits; an order offered while the lane
+    // stops is turned away by submit, and any left after the consumer's grace period fail
+    public void unmarkHot(String bookId) {
+        Lane lane = lanes.remove(bookId);
+        if (lane != null) {
+            lane.stop();
+            logger.info("Purchases of book {} no longer go through the hot-item queue", bookId);
+        }
+    }
+
+    // Queues the purchase of prices.size() copies; throws PurchaseQueueFullException instead of blocking
+    public CompletableFuture<List<String>> submit(String userId, String bookId, List<BigDecimal> prices) {
+        return enqueue(lane(bookId), userId, prices).result();
+    }
+
+    // Queues the purchase and waits at most wait-timeout-ms for its batch. On timeout the order is withdrawn:
+    // taken out of the queue if the consumer has not reached it yet, otherwise its copies are given back once
+    // its batch has committed. Nothing is kept either way, so it is reported as PurchaseQueueFullException.
+    public List<String> purchase(String userId, String bookId, List<BigDecimal> prices) {
+        Lane lane = lane(bookId);
+        Order order = enqueue(lane, userId, prices);
+        try {
+            return order.result().get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            withdraw(lane, order);
+            lane.timedOut.incrementAndGet();
+            throw new PurchaseQueueFullException(bookId, retryAfterSeconds);
+        } catch (InterruptedException e) {
+            withdraw(lane, order);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a purchase of book " + bookId, e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        }
+    }
+
+    // Queue depth and batch sizes per hot book
+    public Map<String, Map<String, Object>> getStats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        lanes.forEach((bookId, lane) -> {
+            long batches = lane.batches.get();
+            Map<String, Object> laneStats = new LinkedHashMap<>();
+            laneStats.put("queueDepth", lane.queue.size());
+            laneStats.put("capacity", capacity);
+            laneStats.put("batches", batches);
+            laneStats.put("orders", lane.orders.get());
+            laneStats.put("lastBatchSize", lane.lastBatchSize.get());
+            laneStats.put("maxBatchSize", lane.maxBatchSeen.get());
+            laneStats.put("avgBatchSize", batches > 0 ? (double) lane.orders.get() / batches : 0.0);
+            laneStats.put("soldOut", lane.soldOut.get());
+            laneStats.put("rejected", lane.rejected.get());
+            laneStats.put("timedOut", lane.timedOut.get());
+            stats.put(bookId, laneStats);
+        });
+        return stats;
+    }
+
+    @PreDestroy
+    public void stopAll() {
+        lanes.keySet().forEach(this::unmarkHot);
+    }
+
+    private Lane lane(String bookId) {
+        Lane lane = lanes.get(bookId);
+        if (lane == null) {
+            throw new IllegalStateException("Book " + bookId + " is not flagged as hot");
+        }
+        return lane;
+    }
+
+    private Order enqueue(Lane lane, String userId, List<BigDecimal> prices) {
+        Order order = new Order(userId, prices, new CompletableFuture<>());
+        if (!lane.queue.offer(order)) {
+            lane.rejected.incrementAndGet();
+            throw new PurchaseQueueFullException(lane.bookId, retryAfterSeconds);
+        }
+        // The lane was stopped around the offer and its consumer may have exited already. If the order is still
+        // queued nobody will take it; otherwise the consumer or stop() has it and completes it.
+        if (!lane.running && lane.queue.remove(order)) {
+            lane.rejected.incrementAndGet();
+            throw new PurchaseQueueFullException(lane.bookId, retryAfterSeconds);
+        }
+        return order;
+    }
+
+    private void withdraw(Lane lane, Order order) {
+        if (!lane.queue.remove(order)) {
+            // Already taken into a batch; runs on the consumer thread after that batch has committed
+            order.result().thenAccept(ids -> giveBack(lane.bookId, ids));
+        }
+    }
+
+    private void giveBack(String bookId, List<String> userBookIds) {
+        if (userBookIds.isEmpty()) {
+            return;
+        }
+        try {
+            stockService.restore(bookId, userBookIds.size());
+            userBookService.removeUserBooks(userBookIds);
+        } catch (RuntimeException e) {
+            logger.error("Could not give back {} copies of book {} from an abandoned order", userBookIds.size(), bookId, e);
+        }
+    }
+
+    private class Lane implements Runnable {
+
+        private final String bookId;
+        private final ArrayBlockingQueue<Order> queue = new ArrayBlockingQueue<>(capacity);
+        private final Thread consumer;
+        private volatile boolean running = true;
+
+        private final AtomicLong batches = new AtomicLong();
+        private final AtomicLong orders = new AtomicLong();
+        private final AtomicLong lastBatchSize = new AtomicLong();
+        private final AtomicLong maxBatchSeen = new AtomicLong();
+        private final AtomicLong soldOut = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong timedOut = new AtomicLong();
+
+        Lane(String bookId) {
+            this.bookId = bookId;
+            this.consumer = new Thread(this, "purchase-queue-" + bookId);
+            this.consumer.setDaemon(true);
+        }
+
+        void start() {
+            consumer.start();
+        }
+
+        void stop() {
+            running = false;
+            try {
+                consumer.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // Only left if the consumer is still busy with a batch after the grace period
+            List<Order> left = new ArrayList<>();
+            queue.drainTo(left);
+            left.forEach(order -> order.result().completeExceptionally(
+                    new IllegalStateException("Purchase queue for book " + bookId + " was stopped")));
+        }
+
+        @Override
+        public void run() {
+            List<Order> batch = new ArrayList<>(maxBatchSize);
+            while (running || !queue.isEmpty()) {
+                try {
+                    Order first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, maxBatchSize - 1);
+                    process(batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (RuntimeException e) {
+                    logger.error("Hot-item purchase batch of {} orders for book {} failed", batch.size(), bookId, e);
+                    batch.forEach(order -> order.result().completeExceptionally(e));
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+
+        private void process(List<Order> batch) {
+            Map<Order, List<String>> results = transactionTemplate.execute(status -> {
+                Map<Order, List<String>> granted = new LinkedHashMap<>();
+                for (Order order : take(batch)) {
+                    List<String> ids = new ArrayList<>(order.prices().size());
+                    for (UserBook userBook : userBookService.addBookCopies(order.userId(), bookId, order.prices())) {
+                        ids.add(userBook.getId());
+                    }
+                    granted.put(order, ids);
+                }
+                return granted;
+            });
+
+            int copies = 0;
+            for (Order order : batch) {
+                List<String> ids = results != null ? results.get(order) : null;
+                if (ids == null) {
+                    soldOut.incrementAndGet();
+                }
+                order.result().complete(ids != null ? ids : List.of());
+                copies += order.prices().size();
+            }
+            batches.incrementAndGet();
+            orders.addAndGet(batch.size());
+            lastBatchSize.set(batch.size());
+            maxBatchSeen.accumulateAndGet(batch.size(), Math::max);
+            logger.debug("Hot-item batch for book {}: {} orders, {} copies, {} still queued",
+                    bookId, batch.size(), copies, queue.size());
+        }
+
+        // One decrement for the whole batch; only when the book is about to sell out are orders taken one by
+        // one, in arrival order, so the earliest ones get the last copies
+        private List<Order> take(List<Order> batch) {
+            int total = batch.stream().mapToInt(order -> order.prices().size()).sum();
+            try {
+                stockService.decrementAll(Map.of(bookId, total));
+                return batch;
+            } catch (InsufficientStockException e) {
+                List<Order> taken = new ArrayList<>();
+                for (Order order : batch) {
+                    try {
+                        stockService.decrementAll(Map.of(bookId, order.prices().size()));
+                        taken.add(order);
+                    } catch (InsufficientStockException soldOut) {
+                        // Left out of the batch; its future completes with no copies
+                    }
+                }
+                return taken;
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.cybersecurity.sechamp2025.services;
+
+// Thrown when a hot book's purchase queue cannot take an order (it is full or being stopped) or does not reach it
+// within the wait timeout. Nothing has been taken; callers answer 429 with Retry-After: retryAfterSeconds
+public class PurchaseQueueFullException extends RuntimeException {
+
+    private final String bookId;
+    private final int retryAfterSeconds;
+
+    public PurchaseQueueFullException(String bookId, int retryAfterSeconds) {
+        super("Purchase queue for book " + bookId + " is full");
+        this.bookId = bookId;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public String getBookId() {
+        return bookId;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -1,6 +1,6 @@
 package com.cybersecurity.sechamp2025.services;
 
-import java.time.LocalDateTime;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -9,7 +9,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import com.cybersecurity.sechamp2025.models.Book;
 import com.cybersecurity.sechamp2025.models.PurchaseSession;
 import com.cybersecurity.sechamp2025.repositories.PurchaseSessionRepository;
 
@@ -20,8 +19,15 @@ public class PurchaseSessionService {
     private PurchaseSessionRepository purchaseSessionRepository;
     
     @Autowired
-    private BookService bookService;
+    private StockService stockService;
 
+    @Autowired
+    private ExpiryScheduler expiryScheduler;
+
+    @Autowired
+    private ReservationLedger reservationLedger;
+
+    // Returns null if every remaining copy is already reserved by carts or other sessions
     @Transactional
     public PurchaseSession createSession(String userId, String bookId) {
         // Check if there's already an active session for this user and book
@@ -39,22 +45,24 @@ public class PurchaseSessionService {
         // Remove any existing session for this user and book
         if (existingSession.isPresent()) {
             purchaseSessionRepository.delete(existingSession.get());
+            reservationLedger.releaseIfExpired(ReservationLedger.sessionKey(existingSession.get().getId()),
+                    System.currentTimeMillis());
         }
         
-        return purchaseSessionRepository.save(session);
+        if (!reservationLedger.tryReserve(ReservationLedger.sessionKey(sessionId), bookId, 1,
+                stockService.getStock(bookId), session.getExpiresAt())) {
+            return null;
+        }
+        PurchaseSession saved = purchaseSessionRepository.save(session);
+        expiryScheduler.schedulePurchaseSession(saved.getId(), saved.getExpiresAt());
+        return saved;
     }
 
+    // Read-only: an expired session is treated as gone; ExpiryScheduler deletes it
     public Optional<PurchaseSession> getActiveSession(String userId, String bookId) {
-        Optional<PurchaseSession> session = purchaseSessionRepository
-            .findByUserIdAndBookIdAndStatus(userId, bookId, "LOCKED");
-        
-        if (session.isPresent() && session.get().isExpired()) {
-            // Session expired, remove it
-            purchaseSessionRepository.delete(session.get());
-            return Optional.empty();
-        }
-        
-        return session;
+        return purchaseSessionRepository
+            .findByUserIdAndBookIdAndStatus(userId, bookId, "LOCKED")
+            .filter(session -> !session.isExpired());
     }
 
     public Optional<PurchaseSession> getSessionById(String sessionId) {
@@ -68,6 +76,7 @@ public class PurchaseSessionService {
             PurchaseSession ps = session.get();
             ps.setStatus("COMPLETED");
             purchaseSessionRepository.save(ps);
+            reservationLedger.release(ReservationLedger.sessionKey(sessionId));
         }
     }
 
@@ -76,9 +85,15 @@ public class PurchaseSessionService {
         Optional<PurchaseSession> session = purchaseSessionRepository.findById(sessionId);
         if (session.isPresent()) {
             purchaseSessionRepository.delete(session.get());
+            reservationLedger.release(ReservationLedger.sessionKey(sessionId));
         }
     }
 
+    // Stock not held by a cart reservation or a purchase session; both reads are in memory
+    public int getAvailableStock(String bookId) {
+        return stockService.getStock(bookId) - reservationLedger.getReserved(bookId);
+    }
+
     public List<PurchaseSession> getLockedSessionsForBook(String bookId) {
         return purchaseSessionRepository.findByBookIdAndStatus(bookId, "LOCKED")
             .stream()
@@ -86,18 +101,16 @@ public class PurchaseSessionService {
             .toList();
     }
 
+    // Full sweep in one bulk statement; ExpiryScheduler normally deletes sessions at their deadlines
     @Transactional
     public void cleanupExpiredSessions() {
-        List<PurchaseSession> expiredSessions = purchaseSessionRepository
-            .findExpiredSessions(LocalDateTime.now());
-        purchaseSessionRepository.deleteAll(expiredSessions);
+        Instant now = Instant.now();
+        purchaseSessionRepository.deleteExpiredSessions(now);
+        reservationLedger.releaseAllExpired(now.toEpochMilli());
     }
 
-    // RACE CONDITION: Non-atomic stock decrement allowing negative stock
+    // Atomic stock decrement - returns false instead of allowing negative stock
     public boolean purchaseBook(String bookId) {
-        Book book = bookService.findById(bookId);
-        book.setStock(book.getStock() - 1);
-        bookService.save(book);
-        return true;
+        return stockService.tryDecrement(bookId, 1);
     }
 }
@@ -0,0 +1,171 @@
+package com.cybersecurity.sechamp2025.services;
+
+import com.cybersecurity.sechamp2025.repositories.CartItemRepository;
+import com.cybersecurity.sechamp2025.repositories.PurchaseSessionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Units of each book held by live cart reservations and purchase-session locks, so availability is
+// stock - getReserved(bookId) instead of a COUNT(*) over cart_items / purchase_sessions per request.
+// Every reservation is tracked by key (cartItemKey / sessionKey) with its quantity and deadline, which makes
+// release and expiry idempotent. Reservations take effect immediately and are undone if the surrounding
+// transaction rolls back; releases take effect once it commits.
+@Component
+public class ReservationLedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationLedger.class);
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private PurchaseSessionRepository purchaseSessionRepository;
+
+    private record Reservation(String bookId, int quantity, long deadlineMillis) {
+    }
+
+    private final ConcurrentHashMap<String, AtomicInteger> reserved = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Reservation> reservations = new ConcurrentHashMap<>();
+
+    public static String cartItemKey(String itemId) {
+        return "item:" + itemId;
+    }
+
+    public static String sessionKey(String sessionId) {
+        return "session:" + sessionId;
+    }
+
+    // Before ExpiryScheduler rebuilds its wheels, so nothing expires against an empty ledger
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void seedAll() {
+        Instant now = Instant.now();
+        for (Object[] row : cartItemRepository.findActiveReservations(now)) {
+            seed(cartItemKey((String) row[0]), (String) row[1], (Integer) row[2], (Instant) row[3]);
+        }
+        for (Object[] row : purchaseSessionRepository.findActiveLocks(now)) {
+            seed(sessionKey((String) row[0]), (String) row[1], 1, (Instant) row[2]);
+        }
+        logger.info("Reservation ledger seeded with {} reservations on {} books", reservations.size(), reserved.size());
+    }
+
+    public int getReserved(String bookId) {
+        AtomicInteger counter = reserved.get(bookId);
+        return counter != null ? Math.max(counter.get(), 0) : 0;
+    }
+
+    // Creates or resizes the reservation under key (a key always belongs to the same book). Growing it only succeeds while stock - reserved covers the
+    // extra units; shrinking or extending the deadline always succeeds.
+    public boolean tryReserve(String key, String bookId, int quantity, int stock, Instant until) {
+        AtomicInteger counter = reserved.computeIfAbsent(bookId, id -> new AtomicInteger());
+        synchronized (counter) {
+            Reservation previous = reservations.get(key);
+            int delta = quantity - (previous != null ? previous.quantity() : 0);
+            if (delta > 0 && stock - counter.get() < delta) {
+                return false;
+            }
+            counter.addAndGet(delta);
+            reservations.put(key, new Reservation(bookId, quantity, until.toEpochMilli()));
+            onRollback(() -> restore(key, previous));
+            return true;
+        }
+    }
+
+    // Moves the deadline of an existing reservation without changing its size
+    public void extend(String key, Instant until) {
+        reservations.computeIfPresent(key, (k, current) -> new Reservation(current.bookId(), current.quantity(), until.toEpochMilli()));
+    }
+
+    public void release(String key) {
+        afterCommit(() -> remove(key, Long.MAX_VALUE));
+    }
+
+    // Called by ExpiryScheduler for ids whose deadline came up; a reservation extended since is kept
+    public void releaseIfExpired(String key, long nowMillis) {
+        remove(key, nowMillis);
+    }
+
+    // Full sweep counterpart of releaseIfExpired, for rows expired in bulk without their ids
+    public void releaseAllExpired(long nowMillis) {
+        reservations.keySet().forEach(key -> remove(key, nowMillis));
+    }
+
+    // Removes the reservation if its deadline is at or before notAfterMillis. The map entry and the counter
+    // change together under the book's lock, like in tryReserve.
+    private void remove(String key, long notAfterMillis) {
+        while (true) {
+            Reservation current = reservations.get(key);
+            if (current == null || current.deadlineMillis() > notAfterMillis) {
+                return;
+            }
+            AtomicInteger counter = reserved.computeIfAbsent(current.bookId(), id -> new AtomicInteger());
+            synchronized (counter) {
+                if (reservations.remove(key, current)) {
+                    counter.addAndGet(-current.quantity());
+                    return;
+                }
+            }
+        }
+    }
+
+    private void seed(String key, String bookId, int quantity, Instant until) {
+        reservations.put(key, new Reservation(bookId, quantity, until.toEpochMilli()));
+        adjust(bookId, quantity);
+    }
+
+    private void adjust(String bookId, int delta) {
+        AtomicInteger counter = reserved.computeIfAbsent(bookId, id -> new AtomicInteger());
+        synchronized (counter) {
+            counter.addAndGet(delta);
+        }
+    }
+
+    private void restore(String key, Reservation previous) {
+        Reservation current = previous != null ? reservations.put(key, previous) : reservations.remove(key);
+        if (current != null) {
+            adjust(current.bookId(), -current.quantity());
+        }
+        if (previous != null) {
+            adjust(previous.bookId(), previous.quantity());
+        }
+    }
+
+    private static void onRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,85 @@
+package com.cybersecurity.sechamp2025.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// The books.review_count / rating_sum / helpful_total columns are moved by deltas in BookReviewService.
+// This job recomputes them from book_reviews, logs every book whose stored values drifted (reviews written
+// outside the application, databases created before the columns existed) and repairs those rows.
+@Component
+public class ReviewAggregateReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReviewAggregateReconciler.class);
+
+    private static final String DRIFT_QUERY =
+            "SELECT b.id, b.review_count, b.rating_sum, b.helpful_total, b.rating, "
+                    + "COALESCE(r.cnt, 0) AS actual_count, COALESCE(r.total, 0) AS actual_sum, "
+                    + "COALESCE(r.helpful, 0) AS actual_helpful "
+                    + "FROM books b LEFT JOIN (SELECT book_id, COUNT(*) AS cnt, SUM(rating) AS total, "
+                    + "SUM(helpful_count) AS helpful FROM book_reviews GROUP BY book_id) r ON r.book_id = b.id "
+                    + "WHERE b.review_count <> COALESCE(r.cnt, 0) "
+                    + "OR b.rating_sum <> COALESCE(r.total, 0) "
+                    + "OR b.helpful_total <> COALESCE(r.helpful, 0) "
+                    + "OR (r.cnt > 0 AND (b.rating IS NULL OR b.rating <> ROUND(r.total / r.cnt, 2)))";
+
+    private static final String REPAIR_STATEMENT =
+            "UPDATE books SET "
+                    + "review_count = (SELECT COUNT(*) FROM book_reviews WHERE book_id = ?), "
+                    + "rating_sum = (SELECT COALESCE(SUM(rating), 0) FROM book_reviews WHERE book_id = ?), "
+                    + "helpful_total = (SELECT COALESCE(SUM(helpful_count), 0) FROM book_reviews WHERE book_id = ?), "
+                    + "rating = CASE WHEN review_count > 0 THEN ROUND(rating_sum / review_count, 2) ELSE rating END "
+                    + "WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookService bookService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileAtStartup() {
+        reconcile();
+    }
+
+    @Scheduled(fixedDelayString = "${app.reviews.reconcile-interval-ms:3600000}",
+               initialDelayString = "${app.reviews.reconcile-interval-ms:3600000}")
+    public void reconcile() {
+        try {
+            List<String> drifted = new ArrayList<>();
+            jdbcTemplate.query(DRIFT_QUERY, rs -> {
+                String bookId = rs.getString("id");
+                logger.warn("Review aggregates drifted for book {}: count {} -> {}, rating_sum {} -> {}, helpful_total {} -> {}, rating {}",
+                        bookId, rs.getInt("review_count"), rs.getInt("actual_count"),
+                        rs.getBigDecimal("rating_sum"), rs.getBigDecimal("actual_sum"),
+                        rs.getLong("helpful_total"), rs.getLong("actual_helpful"), rs.getBigDecimal("rating"));
+                drifted.add(bookId);
+            });
+            if (drifted.isEmpty()) {
+                logger.info("Review aggregates reconciled: no drift");
+                return;
+            }
+
+            // MySQL evaluates SET assignments left to right, so rating is computed from the repaired columns
+            jdbcTemplate.batchUpdate(REPAIR_STATEMENT, drifted, drifted.size(), (ps, bookId) -> {
+                ps.setString(1, bookId);
+                ps.setString(2, bookId);
+                ps.setString(3, bookId);
+                ps.setString(4, bookId);
+            });
+            bookService.refreshCatalog();
+            logger.warn("Review aggregates reconciled: repaired {} books", drifted.size());
+        } catch (DataAccessException e) {
+            logger.error("Review aggregate reconciliation failed", e);
+        }
+    }
+}
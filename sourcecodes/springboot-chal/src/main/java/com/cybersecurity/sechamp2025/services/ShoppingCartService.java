@@ -1,5 +1,6 @@
 package com.cybersecurity.sechamp2025.services;
 
+import com.cybersecurity.sechamp2025.dto.CartView;
 import com.cybersecurity.sechamp2025.models.ShoppingCart;
 import com.cybersecurity.sechamp2025.models.CartItem;
 import com.cybersecurity.sechamp2025.models.Book;
@@ -11,6 +12,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -27,8 +29,12 @@ public class ShoppingCartService {
     @Autowired
     private BookService bookService;
 
+    @Autowired
+    private ExpiryScheduler expiryScheduler;
+
+    @Autowired
+    private ReservationLedger reservationLedger;
 
-    
 
     public ShoppingCart getOrCreateActiveCart(String userId) {
         Optional<ShoppingCart> existingCart = shoppingCartRepository.findActiveCartByUserId(userId);
@@ -38,7 +44,7 @@ public class ShoppingCartService {
             if (!cart.isExpired()) {
                 return cart;
             } else {
-                // Expire the cart and create a new one
+                // Expire the cart now rather than waiting for the scheduler, so the user never has two ACTIVE carts
                 cart.setStatus("EXPIRED");
                 shoppingCartRepository.save(cart);
             }
@@ -46,18 +52,14 @@ public class ShoppingCartService {
         
         // Create new cart
         String cartId = UUID.randomUUID().toString();
-        ShoppingCart newCart = new ShoppingCart(cartId, userId);
-        return shoppingCartRepository.save(newCart);
+        ShoppingCart newCart = shoppingCartRepository.save(new ShoppingCart(cartId, userId));
+        expiryScheduler.scheduleCart(newCart.getId(), newCart.getExpiresAt());
+        return newCart;
     }
 
+    // Read-only: a cart past its deadline is treated as gone; ExpiryScheduler marks it EXPIRED
     public Optional<ShoppingCart> getActiveCart(String userId) {
-        Optional<ShoppingCart> cart = shoppingCartRepository.findActiveCartByUserId(userId);
-        if (cart.isPresent() && cart.get().isExpired()) {
-            cart.get().setStatus("EXPIRED");
-            shoppingCartRepository.save(cart.get());
-            return Optional.empty();
-        }
-        return cart;
+        return shoppingCartRepository.findActiveCartByUserId(userId).filter(cart -> !cart.isExpired());
     }
 
     @Transactional
@@ -74,6 +76,12 @@ public class ShoppingCartService {
         // Get or create active cart
         ShoppingCart cart = getOrCreateActiveCart(userId);
         
+        // Get book details
+        Book book = bookService.findById(bookId);
+        if (book == null) {
+            throw new RuntimeException("Book not found");
+        }
+        
         // Check if book already in cart
         Optional<CartItem> existingItem = cartItemRepository.findByShoppingCartIdAndBookId(cart.getId(), bookId);
         if (existingItem.isPresent()) {
@@ -81,37 +89,27 @@ public class ShoppingCartService {
             CartItem item = existingItem.get();
             item.setQuantity(item.getQuantity() + quantity);
             item.extendReservation();
+            reserve(item, book, item.getQuantity(), quantity);
             cart.extendExpiration();
             shoppingCartRepository.save(cart);
+            expiryScheduler.scheduleCart(cart.getId(), cart.getExpiresAt());
+            expiryScheduler.scheduleCartItem(item.getId(), item.getReservedUntil());
             return cartItemRepository.save(item);
         }
         
         // Check if user already owns this book (allow multiple copies in cart)
         // This check is removed to allow multiple purchases
         
-        // Get book details
-        Book book = bookService.findById(bookId);
-        if (book == null) {
-            throw new RuntimeException("Book not found");
-        }
-        
-        // Check stock availability (with race condition vulnerability!)
-        // Note: This check is intentionally not atomic and can lead to overselling
-        int currentStock = book.getStock();
-        long reservedCount = cartItemRepository.countActiveReservationsForBook(bookId, Instant.now());
-        int availableStock = currentStock - (int) reservedCount;
-        
-        if (availableStock < quantity) {
-            throw new RuntimeException("Insufficient stock. Available: " + availableStock + ", Requested: " + quantity);
-        }
-        
-        // Create cart item with reservation (vulnerability: no atomic stock check)
+        // Create cart item with reservation; the availability check and the reservation are one atomic step
         String itemId = UUID.randomUUID().toString();
         CartItem item = new CartItem(itemId, cart, bookId, book.getPrice(), quantity);
+        reserve(item, book, quantity, quantity);
         
         // Extend cart expiration
         cart.extendExpiration();
         shoppingCartRepository.save(cart);
+        expiryScheduler.scheduleCart(cart.getId(), cart.getExpiresAt());
+        expiryScheduler.scheduleCartItem(item.getId(), item.getReservedUntil());
         
         return cartItemRepository.save(item);
     }
@@ -126,27 +124,26 @@ public class ShoppingCartService {
         Optional<CartItem> item = cartItemRepository.findByShoppingCartIdAndBookId(cart.get().getId(), bookId);
         if (item.isPresent()) {
             cartItemRepository.delete(item.get());
+            reservationLedger.release(ReservationLedger.cartItemKey(item.get().getId()));
         }
     }
 
     public List<CartItem> getCartItems(String userId) {
+        return getCartView(userId).getItems();
+    }
+
+    // Active cart + items + books in two queries; the total is computed from the same rows
+    public CartView getCartView(String userId) {
         Optional<ShoppingCart> cart = getActiveCart(userId);
         if (cart.isEmpty()) {
-            return List.of();
+            return CartView.empty();
         }
         
-        List<CartItem> items = cartItemRepository.findByShoppingCartId(cart.get().getId());
+        // Expired reservations are skipped here and deleted by ExpiryScheduler
+        List<CartItem> items = new ArrayList<>(cartItemRepository.findByShoppingCartIdWithBooks(cart.get().getId()));
+        items.removeIf(CartItem::isReservationExpired);
         
-        // Remove expired reservations
-        items.removeIf(item -> {
-            if (item.isReservationExpired()) {
-                cartItemRepository.delete(item);
-                return true;
-            }
-            return false;
-        });
-        
-        return items;
+        return new CartView(cart.get(), items);
     }
 
     public Optional<ShoppingCart> getCheckoutCart(String userId) {
@@ -179,7 +176,7 @@ public class ShoppingCartService {
     }
 
     public List<CartItem> getCartItemsFromCart(String cartId) {
-        return cartItemRepository.findByShoppingCartId(cartId);
+        return cartItemRepository.findByShoppingCartIdWithBooks(cartId);
     }
 
     @Transactional
@@ -198,7 +195,8 @@ public class ShoppingCartService {
         }
         
         ShoppingCart cart = cartOpt.get();
-        if (cart.getItems().isEmpty()) {
+        List<CartItem> items = cartItemRepository.findByShoppingCartId(cart.getId());
+        if (items.isEmpty()) {
             throw new RuntimeException("Cart is empty");
         }
         
@@ -206,10 +204,11 @@ public class ShoppingCartService {
         cart.setStatus("CHECKING_OUT");
         
         // Extend all item reservations during checkout
-        List<CartItem> items = cartItemRepository.findByShoppingCartId(cart.getId());
         for (CartItem item : items) {
             item.extendReservation();
             cartItemRepository.save(item);
+            reservationLedger.extend(ReservationLedger.cartItemKey(item.getId()), item.getReservedUntil());
+            expiryScheduler.scheduleCartItem(item.getId(), item.getReservedUntil());
         }
         
         shoppingCartRepository.save(cart);
@@ -230,6 +229,7 @@ public class ShoppingCartService {
             // Clean up cart items
             List<CartItem> items = cartItemRepository.findByShoppingCartId(cart.getId());
             cartItemRepository.deleteAll(items);
+            releaseAll(items);
             
             System.out.println("Completed checkout session: " + cart.getId());
         }
@@ -255,6 +255,7 @@ public class ShoppingCartService {
         if (cart.isPresent()) {
             List<CartItem> items = cartItemRepository.findByShoppingCartId(cart.get().getId());
             cartItemRepository.deleteAll(items);
+            releaseAll(items);
             
             cart.get().setStatus("CLEARED");
             shoppingCartRepository.save(cart.get());
@@ -262,10 +263,7 @@ public class ShoppingCartService {
     }
 
     public BigDecimal calculateCartTotal(String userId) {
-        List<CartItem> items = getCartItems(userId);
-        return items.stream()
-                .map(item -> item.getPriceAtAdd().multiply(BigDecimal.valueOf(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return getCartView(userId).getTotal();
     }
 
     public void updateItemQuantity(String userId, Long itemId, Integer newQuantity) {
@@ -287,6 +285,11 @@ public class ShoppingCartService {
             throw new RuntimeException("Quantity must be at least 1");
         }
 
+        Book book = bookService.findById(item.getBookId());
+        if (book == null) {
+            throw new RuntimeException("Book not found");
+        }
+        reserve(item, book, newQuantity, newQuantity);
         item.setQuantity(newQuantity);
         cartItemRepository.save(item);
     }
@@ -307,22 +310,30 @@ public class ShoppingCartService {
         }
 
         cartItemRepository.delete(item);
+        reservationLedger.release(ReservationLedger.cartItemKey(item.getId()));
     }
 
-    // Clean up expired carts and reservations
+    // Clean up expired carts and reservations in two bulk statements. ExpiryScheduler normally expires them
+    // at their deadlines; this is the full sweep.
     @Transactional
     public void cleanupExpiredCarts() {
         Instant now = Instant.now();
-        
-        // Clean up expired cart items
-        List<CartItem> expiredItems = cartItemRepository.findExpiredReservations(now);
-        cartItemRepository.deleteAll(expiredItems);
-        
-        // Clean up expired carts
-        List<ShoppingCart> expiredCarts = shoppingCartRepository.findExpiredCarts(now);
-        for (ShoppingCart cart : expiredCarts) {
-            cart.setStatus("EXPIRED");
-            shoppingCartRepository.save(cart);
+        cartItemRepository.deleteExpiredReservations(now);
+        shoppingCartRepository.expireAll(now);
+        reservationLedger.releaseAllExpired(now.toEpochMilli());
+    }
+
+    // Sizes the item's reservation to quantity; requested is only used for the error message
+    private void reserve(CartItem item, Book book, int quantity, int requested) {
+        int stock = book.getStock() != null ? book.getStock() : 0;
+        if (!reservationLedger.tryReserve(ReservationLedger.cartItemKey(item.getId()), book.getId(),
+                quantity, stock, item.getReservedUntil())) {
+            int available = stock - reservationLedger.getReserved(book.getId());
+            throw new RuntimeException("Insufficient stock. Available: " + Math.max(available, 0) + ", Requested: " + requested);
         }
     }
+
+    private void releaseAll(List<CartItem> items) {
+        items.forEach(item -> reservationLedger.release(ReservationLedger.cartItemKey(item.getId())));
+    }
 }
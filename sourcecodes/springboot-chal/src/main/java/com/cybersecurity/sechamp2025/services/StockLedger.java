@@ -0,0 +1,373 @@
+package com.cybersecurity.sechamp2025.services;
+
+import com.cybersecurity.sechamp2025.repositories.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+
+// In-memory stock counters with write-behind to the books table.
+// Each book's counter packs (available, pendingFlush) into one AtomicLong so a purchase is a single CAS
+// and the flusher can drain exactly what has been sold since the last flush.
+@Component
+public class StockLedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockLedger.class);
+
+    // State of a counter that has been taken out of service by invalidate(); callers wait for the invalidation
+    // to finish (see awaitInvalidation) and re-read the map
+    private static final long RETIRED = Long.MIN_VALUE;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.stock.ledger.flush-batch-size:500}")
+    private int flushBatchSize = 500;
+
+    @Value("${app.stock.ledger.unknown-ttl-ms:5000}")
+    private long unknownTtlMs = 5000;
+
+    @Value("${app.stock.ledger.unknown-max-entries:10000}")
+    private int unknownMaxEntries = 10000;
+
+    private final ConcurrentHashMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    // Guard re-seeding a book's counter from the database and invalidate()/set() of it, striped by book id so a
+    // slow seed or admin write only holds up the books of its own stripe. Both query while holding one, so they
+    // are ReentrantLocks rather than monitors (or a ConcurrentHashMap compute), which would pin a virtual thread
+    private final ReentrantLock[] seedLocks = IntStream.range(0, 64).mapToObj(i -> new ReentrantLock()).toArray(ReentrantLock[]::new);
+    // Ids that had no books row when last looked up, until the given time, so requests for missing books neither
+    // query nor take a seed lock every time; invalidate() and set() clear the entry of the book they write
+    private final ConcurrentHashMap<String, Long> unknownUntil = new ConcurrentHashMap<>();
+    // Held by flush() from draining the counters until their deltas are written, and by invalidate(), so a
+    // counter is never dropped (and re-seeded from a row) while a delta drained from it is still in flight.
+    // Always taken before a seed lock
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    static long pack(int available, int pending) {
+        return ((long) available << 32) | (pending & 0xFFFFFFFFL);
+    }
+
+    static int available(long state) {
+        return (int) (state >> 32);
+    }
+
+    static int pending(long state) {
+        return (int) state;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedAll() {
+        for (Object[] row : bookRepository.findAllStock()) {
+            String bookId = (String) row[0];
+            Integer stock = (Integer) row[1];
+            counters.putIfAbsent(bookId, new AtomicLong(pack(stock != null ? stock : 0, 0)));
+        }
+        logger.info("Stock ledger seeded with {} books", counters.size());
+    }
+
+    public boolean tryDecrement(String bookId, int quantity) {
+        if (quantity <= 0) {
+            return false;
+        }
+        while (true) {
+            AtomicLong counter = counter(bookId);
+            if (counter == null) {
+                return false;
+            }
+            long state = counter.get();
+            if (state == RETIRED) {
+                awaitInvalidation(bookId);
+                continue;
+            }
+            int available = available(state);
+            if (available < quantity) {
+                return false;
+            }
+            if (counter.compareAndSet(state, pack(available - quantity, pending(state) + quantity))) {
+                dirty.add(bookId);
+                return true;
+            }
+        }
+    }
+
+    public void restore(String bookId, int quantity) {
+        if (quantity <= 0) {
+            return;
+        }
+        while (true) {
+            AtomicLong counter = counter(bookId);
+            if (counter == null) {
+                return;
+            }
+            long state = counter.get();
+            if (state == RETIRED) {
+                awaitInvalidation(bookId);
+                continue;
+            }
+            if (counter.compareAndSet(state, pack(available(state) + quantity, pending(state) - quantity))) {
+                dirty.add(bookId);
+                return;
+            }
+        }
+    }
+
+    public int getAvailable(String bookId) {
+        while (true) {
+            AtomicLong counter = counter(bookId);
+            if (counter == null) {
+                return 0;
+            }
+            long state = counter.get();
+            if (state != RETIRED) {
+                return available(state);
+            }
+            awaitInvalidation(bookId);
+        }
+    }
+
+    // Called after an admin write to the books row: flushes what is still pending for the old counter,
+    // then drops it so the next access re-seeds from the database. flushLock waits out a running flush, whose
+    // drained deltas are not in the counter any more; the book's seed lock is then held throughout, which blocks
+    // re-seeding of the book until the flush has landed and parks accessors of the retired counter.
+    public void invalidate(String bookId) {
+        ReentrantLock seedLock = seedLock(bookId);
+        flushLock.lock();
+        seedLock.lock();
+        try {
+            unknownUntil.remove(bookId);
+            AtomicLong counter = counters.get(bookId);
+            if (counter == null) {
+                return;
+            }
+            long state = counter.getAndSet(RETIRED);
+            int pending = pending(state);
+            if (pending != 0) {
+                try {
+                    writeDeltas(Map.of(bookId, pending));
+                } catch (DataAccessException e) {
+                    logger.error("Failed to flush pending stock for book {} during invalidate, keeping counter", bookId, e);
+                    counter.set(state);
+                    return;
+                }
+            }
+            counters.remove(bookId, counter);
+        } finally {
+            seedLock.unlock();
+            flushLock.unlock();
+        }
+    }
+
+    // An admin sets an absolute stock: the row gets the new value and the units sold but not yet flushed are
+    // dropped, since the new value already accounts for them. The next access re-seeds from the row.
+    public void set(String bookId, int stock) {
+        ReentrantLock seedLock = seedLock(bookId);
+        flushLock.lock();
+        seedLock.lock();
+        try {
+            unknownUntil.remove(bookId);
+            AtomicLong counter = counters.get(bookId);
+            long state = counter != null ? counter.getAndSet(RETIRED) : 0;
+            try {
+                bookRepository.setStock(bookId, stock);
+            } catch (DataAccessException e) {
+                if (counter != null) {
+                    counter.set(state);
+                }
+                throw e;
+            }
+            if (counter != null) {
+                counters.remove(bookId, counter);
+            }
+        } finally {
+            seedLock.unlock();
+            flushLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.stock.ledger.flush-interval-ms:50}")
+    public void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            flushDirty();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushDirty() {
+        Map<String, Integer> deltas = new LinkedHashMap<>();
+        Map<String, AtomicLong> drainedFrom = new LinkedHashMap<>();
+        for (String bookId : dirty) {
+            dirty.remove(bookId);
+            AtomicLong counter = counters.get(bookId);
+            if (counter == null) {
+                continue;
+            }
+            int pending = drainPending(counter);
+            if (pending != 0) {
+                deltas.put(bookId, pending);
+                drainedFrom.put(bookId, counter);
+            }
+        }
+
+        List<String> bookIds = new ArrayList<>(deltas.keySet());
+        for (int from = 0; from < bookIds.size(); from += flushBatchSize) {
+            Map<String, Integer> batch = new LinkedHashMap<>();
+            for (String bookId : bookIds.subList(from, Math.min(from + flushBatchSize, bookIds.size()))) {
+                batch.put(bookId, deltas.get(bookId));
+            }
+            try {
+                writeDeltas(batch);
+            } catch (DataAccessException e) {
+                logger.error("Stock write-behind flush failed for {} books, requeueing", batch.size(), e);
+                batch.forEach((bookId, pending) -> requeue(bookId, drainedFrom.get(bookId), pending));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private AtomicLong counter(String bookId) {
+        AtomicLong counter = counters.get(bookId);
+        if (counter != null) {
+            return counter;
+        }
+        if (isKnownMissing(bookId)) {
+            return null;
+        }
+        ReentrantLock seedLock = seedLock(bookId);
+        seedLock.lock();
+        try {
+            counter = counters.get(bookId);
+            if (counter == null) {
+                if (isKnownMissing(bookId)) {
+                    return null;
+                }
+                Integer stock = bookRepository.findStockById(bookId);
+                if (stock == null) {
+                    rememberMissing(bookId);
+                    return null;
+                }
+                counter = new AtomicLong(pack(stock, 0));
+                counters.put(bookId, counter);
+            }
+            return counter;
+        } finally {
+            seedLock.unlock();
+        }
+    }
+
+    private ReentrantLock seedLock(String bookId) {
+        return seedLocks[(bookId.hashCode() & 0x7fffffff) % seedLocks.length];
+    }
+
+    private boolean isKnownMissing(String bookId) {
+        Long until = unknownUntil.get(bookId);
+        if (until == null) {
+            return false;
+        }
+        if (until > System.currentTimeMillis()) {
+            return true;
+        }
+        unknownUntil.remove(bookId, until);
+        return false;
+    }
+
+    private void rememberMissing(String bookId) {
+        long now = System.currentTimeMillis();
+        if (unknownUntil.size() >= unknownMaxEntries) {
+            unknownUntil.values().removeIf(until -> until <= now);
+            if (unknownUntil.size() >= unknownMaxEntries) {
+                return;
+            }
+        }
+        unknownUntil.put(bookId, now + unknownTtlMs);
+    }
+
+    // A counter is only ever RETIRED while invalidate() or set() holds the book's seed lock. Parking on the lock
+    // instead of spinning matters on virtual threads: a spinning reader can keep the invalidating thread from
+    // getting a carrier back.
+    private void awaitInvalidation(String bookId) {
+        ReentrantLock seedLock = seedLock(bookId);
+        seedLock.lock();
+        seedLock.unlock();
+    }
+
+    private int drainPending(AtomicLong counter) {
+        while (true) {
+            long state = counter.get();
+            if (state == RETIRED || pending(state) == 0) {
+                return 0;
+            }
+            if (counter.compareAndSet(state, pack(available(state), 0))) {
+                return pending(state);
+            }
+        }
+    }
+
+    // Puts a delta that failed to flush back so the next tick retries it. If the counter was re-seeded in the
+    // meantime the database value it was seeded from does not include the delta, so it is taken from available too.
+    private void requeue(String bookId, AtomicLong drainedFrom, int pending) {
+        while (true) {
+            AtomicLong counter = counter(bookId);
+            if (counter == null) {
+                logger.error("Dropping {} unflushed stock units for deleted book {}", pending, bookId);
+                return;
+            }
+            long state = counter.get();
+            if (state == RETIRED) {
+                awaitInvalidation(bookId);
+                continue;
+            }
+            int available = counter == drainedFrom ? available(state) : available(state) - pending;
+            if (counter.compareAndSet(state, pack(available, pending(state) + pending))) {
+                dirty.add(bookId);
+                return;
+            }
+        }
+    }
+
+    // One multi-row UPDATE: stock = stock - CASE id WHEN ? THEN ? ... END WHERE id IN (...)
+    private void writeDeltas(Map<String, Integer> deltas) {
+        StringBuilder sql = new StringBuilder("UPDATE books SET stock = stock - CASE id");
+        List<Object> args = new ArrayList<>(deltas.size() * 3);
+        deltas.forEach((bookId, delta) -> {
+            sql.append(" WHEN ? THEN ?");
+            args.add(bookId);
+            args.add(delta);
+        });
+        sql.append(" ELSE 0 END WHERE id IN (");
+        sql.append(String.join(",", Collections.nCopies(deltas.size(), "?")));
+        sql.append(")");
+        args.addAll(deltas.keySet());
+        jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+}
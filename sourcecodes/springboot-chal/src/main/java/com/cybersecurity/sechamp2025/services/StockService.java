@@ -0,0 +1,149 @@
+package com.cybersecurity.sechamp2025.services;
+
+import com.cybersecurity.sechamp2025.repositories.BookRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class StockService {
+
+    private static final int MAX_STOCK_LOOKUP_IDS = 500;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // When enabled, purchases are taken from the in-memory ledger and written behind to MySQL;
+    // otherwise every purchase is a conditional UPDATE against the books row
+    @Value("${app.stock.ledger.enabled:true}")
+    private boolean ledgerEnabled;
+
+    // Atomic check-and-decrement (a CAS on the ledger counter, or a conditional UPDATE under the row lock),
+    // so concurrent buyers can never take stock below zero
+    public boolean tryDecrement(String bookId, int quantity) {
+        if (quantity <= 0) {
+            return false;
+        }
+        if (ledgerEnabled) {
+            return stockLedger.tryDecrement(bookId, quantity);
+        }
+        return bookRepository.decrementStock(bookId, quantity) > 0;
+    }
+
+    // Gives back stock taken by tryDecrement when a later step of the purchase fails
+    public void restore(String bookId, int quantity) {
+        if (quantity <= 0) {
+            return;
+        }
+        if (ledgerEnabled) {
+            stockLedger.restore(bookId, quantity);
+        } else {
+            bookRepository.incrementStock(bookId, quantity);
+        }
+    }
+
+    // Takes stock for a whole order at once. Must run inside a transaction: on the database path it is one
+    // conditional multi-row UPDATE that is rolled back with the order, on the ledger path the taken units
+    // are given back if the surrounding transaction rolls back.
+    public void decrementAll(Map<String, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        if (ledgerEnabled) {
+            Map<String, Integer> taken = new LinkedHashMap<>();
+            for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+                if (!stockLedger.tryDecrement(entry.getKey(), entry.getValue())) {
+                    taken.forEach(stockLedger::restore);
+                    throw new InsufficientStockException(entry.getKey());
+                }
+                taken.put(entry.getKey(), entry.getValue());
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        taken.forEach(stockLedger::restore);
+                    }
+                }
+            });
+            return;
+        }
+
+        // UPDATE books SET stock = stock - CASE id ... END WHERE id IN (...) AND stock >= CASE id ... END
+        StringBuilder caseExpr = new StringBuilder("CASE id");
+        List<Object> caseArgs = new ArrayList<>();
+        quantities.forEach((bookId, quantity) -> {
+            caseExpr.append(" WHEN ? THEN ?");
+            caseArgs.add(bookId);
+            caseArgs.add(quantity);
+        });
+        caseExpr.append(" END");
+        String sql = "UPDATE books SET stock = stock - " + caseExpr + " WHERE id IN ("
+                + String.join(",", Collections.nCopies(quantities.size(), "?")) + ") AND stock >= " + caseExpr;
+        List<Object> args = new ArrayList<>(caseArgs);
+        args.addAll(quantities.keySet());
+        args.addAll(caseArgs);
+        if (jdbcTemplate.update(sql, args.toArray()) != quantities.size()) {
+            // Some rows were short - the exception rolls back the rows that were decremented
+            throw new InsufficientStockException(null);
+        }
+    }
+
+    // Absolute stock set by an admin; replaces whatever the ledger still has to write behind
+    public void setStock(String bookId, int stock) {
+        if (ledgerEnabled) {
+            stockLedger.set(bookId, stock);
+        } else {
+            bookRepository.setStock(bookId, stock);
+        }
+    }
+
+    // Reads the live stock value, bypassing any Book entity already loaded in this request
+    public int getStock(String bookId) {
+        if (ledgerEnabled) {
+            return stockLedger.getAvailable(bookId);
+        }
+        Integer stock = bookRepository.findStockById(bookId);
+        return stock != null ? stock : 0;
+    }
+
+    // Live stock for many books at once: in-memory counters on the ledger path, one id/stock query otherwise
+    public Map<String, Integer> getStocks(Collection<String> bookIds) {
+        Map<String, Integer> stocks = new HashMap<>();
+        if (ledgerEnabled) {
+            for (String bookId : bookIds) {
+                stocks.put(bookId, stockLedger.getAvailable(bookId));
+            }
+            return stocks;
+        }
+        if (bookIds.isEmpty()) {
+            return stocks;
+        }
+        // Small sets (pages, stream chunks) by primary key; the whole catalog in one scan
+        List<Object[]> rows = bookIds.size() <= MAX_STOCK_LOOKUP_IDS
+                ? bookRepository.findStockByIds(bookIds)
+                : bookRepository.findAllStock();
+        for (Object[] row : rows) {
+            Integer stock = (Integer) row[1];
+            stocks.put((String) row[0], stock != null ? stock : 0);
+        }
+        return stocks;
+    }
+}
@@ -1,11 +1,15 @@
 package com.cybersecurity.sechamp2025.services;
 
 import com.cybersecurity.sechamp2025.dto.UserBookWithQuantityDto;
+import com.cybersecurity.sechamp2025.models.CartItem;
 import com.cybersecurity.sechamp2025.models.UserBook;
 import com.cybersecurity.sechamp2025.repositories.UserBookRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -21,6 +25,9 @@ public class UserBookService {
     @Autowired
     private UserBookRepository userBookRepository;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
     public List<UserBook> getUserBooks(String userId) {
         return userBookRepository.findByUserIdWithBooks(userId);
     }
@@ -47,6 +54,38 @@ public class UserBookService {
         return userBookRepository.save(userBook);
     }
 
+    // Persists (not merges) freshly-created rows so Hibernate sends them as one JDBC batch on flush;
+    // must be called inside a transaction
+    public List<UserBook> addBookCopiesToUser(String userId, List<CartItem> items) {
+        List<UserBook> userBooks = new ArrayList<>(items.size());
+        for (CartItem item : items) {
+            String id = UUID.randomUUID().toString().substring(0, 12);
+            UserBook userBook = new UserBook(id, userId, item.getBookId(), item.getPriceAtAdd());
+            entityManager.persist(userBook);
+            userBooks.add(userBook);
+        }
+        return userBooks;
+    }
+
+    // One copy per price, persisted like addBookCopiesToUser; must be called inside a transaction
+    public List<UserBook> addBookCopies(String userId, String bookId, List<BigDecimal> prices) {
+        List<UserBook> userBooks = new ArrayList<>(prices.size());
+        for (BigDecimal price : prices) {
+            String id = UUID.randomUUID().toString().substring(0, 12);
+            UserBook userBook = new UserBook(id, userId, bookId, price);
+            entityManager.persist(userBook);
+            userBooks.add(userBook);
+        }
+        return userBooks;
+    }
+
+    // Takes back library rows of a purchase whose later steps failed
+    public void removeUserBooks(List<String> ids) {
+        if (!ids.isEmpty()) {
+            userBookRepository.deleteAllByIdInBatch(ids);
+        }
+    }
+
     public Optional<UserBook> getUserBook(String userId, String bookId) {
         return userBookRepository.findByUserIdAndBookId(userId, bookId);
     }
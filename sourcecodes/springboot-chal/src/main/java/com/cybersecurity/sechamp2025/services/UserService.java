@@ -2,19 +2,77 @@ package com.cybersecurity.sechamp2025.services;
 
 import com.cybersecurity.sechamp2025.models.User;
 import com.cybersecurity.sechamp2025.repositories.UserRepository;
+import com.cybersecurity.sechamp2025.utils.JwtUtil;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 @Service
 public class UserService {
 
+    // Request attribute holding the authenticated User once it has been loaded for this request
+    public static final String AUTHENTICATED_USER_ATTRIBUTE = "sechamp.authenticatedUser";
+
     @Autowired
     private UserRepository userRepository;
 
+    @Value("${app.user.cache.ttl-ms:5000}")
+    private long cacheTtlMs = 5000;
+
+    @Value("${app.user.cache.max-size:10000}")
+    private int cacheMaxSize = 10000;
+
+    // Short-lived copies of recently loaded users. Callers always get their own copy, so mutating a
+    // returned User never leaks into the cache; every write through this service evicts the entry.
+    // Never the base of a write: credit is debited in the database, see debitCredit.
+    private final ConcurrentHashMap<String, CachedUser> cache = new ConcurrentHashMap<>();
+    // Eviction count per stripe of ids; a row read before an eviction of its id is not cached after it
+    private final AtomicLongArray generations = new AtomicLongArray(64);
+
+    private record CachedUser(User user, long expiresAtMillis) {
+    }
+
     public User findById(String id) {
-        return userRepository.findById(id).orElse(null);
+        if (id == null) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        CachedUser cached = cache.get(id);
+        if (cached != null) {
+            if (cached.expiresAtMillis() > now) {
+                return new User(cached.user());
+            }
+            cache.remove(id, cached);
+        }
+
+        long generation = generations.get(stripe(id));
+        User user = userRepository.findById(id).orElse(null);
+        if (user != null) {
+            cache(user, generation, now);
+        }
+        return user;
+    }
+
+    // The user behind the request's bearer token, loaded at most once per request
+    public User getAuthenticatedUser(HttpServletRequest request) {
+        Object loaded = request.getAttribute(AUTHENTICATED_USER_ATTRIBUTE);
+        if (loaded instanceof User) {
+            return (User) loaded;
+        }
+        User user = findById(JwtUtil.getAuthenticatedUserId(request));
+        if (user != null) {
+            request.setAttribute(AUTHENTICATED_USER_ATTRIBUTE, user);
+        }
+        return user;
     }
 
     public User findByEmail(String email) {
@@ -30,10 +88,64 @@ public class UserService {
     }
 
     public User updateUser(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        evict(user.getId());
+        return saved;
     }
 
     public void deleteUser(String id) {
         userRepository.deleteById(id);
+        evict(id);
+    }
+
+    // Takes amount off the stored credit in one conditional UPDATE, so purchases never compute the new limit
+    // from a copy that may be stale. Returns the remaining credit, or null (nothing debited) when the user has
+    // less than amount left.
+    public BigDecimal debitCredit(String id, BigDecimal amount) {
+        if (userRepository.debitCredit(id, amount) == 0) {
+            return null;
+        }
+        evict(id);
+        return userRepository.findCreditLimitById(id);
+    }
+
+    // Drops the cached copy now and, inside a transaction, once more after it completes so a read that
+    // races the commit cannot re-cache the old row
+    public void evict(String id) {
+        if (id == null) {
+            return;
+        }
+        drop(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    drop(id);
+                }
+            });
+        }
+    }
+
+    private void drop(String id) {
+        generations.incrementAndGet(stripe(id));
+        cache.remove(id);
+    }
+
+    // Cached only if no eviction of the id has happened since the read began; checked inside compute so an
+    // eviction cannot slip in between the check and the put
+    private void cache(User user, long generation, long now) {
+        if (cache.size() >= cacheMaxSize) {
+            cache.values().removeIf(entry -> entry.expiresAtMillis() <= now);
+            if (cache.size() >= cacheMaxSize) {
+                return;
+            }
+        }
+        cache.compute(user.getId(), (id, current) -> generations.get(stripe(id)) == generation
+                ? new CachedUser(new User(user), now + cacheTtlMs)
+                : current);
+    }
+
+    private int stripe(String id) {
+        return (id.hashCode() & 0x7fffffff) % generations.length();
     }
 }
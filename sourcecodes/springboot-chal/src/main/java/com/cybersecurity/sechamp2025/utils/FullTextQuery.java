@@ -0,0 +1,40 @@
+package com.cybersecurity.sechamp2025.utils;
+
+import java.util.Locale;
+import java.util.Set;
+
+// Builds MySQL FULLTEXT queries (MATCH ... AGAINST ... IN BOOLEAN MODE) from free text typed by users
+public final class FullTextQuery {
+
+    // innodb_ft_min_token_size: shorter words are never indexed, so requiring them would match nothing
+    private static final int MIN_TOKEN_LENGTH = 3;
+
+    // InnoDB's default stopword list; a required stopword would also match nothing
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "about", "an", "are", "as", "at", "be", "by", "com", "de", "en", "for", "from", "how", "i",
+            "in", "is", "it", "la", "of", "on", "or", "that", "the", "this", "to", "was", "what", "when",
+            "where", "who", "will", "with", "und", "www");
+
+    private FullTextQuery() {
+    }
+
+    // "Clean Arch" -> "+clean* +arch*": every indexable word is required and matched as a prefix. Boolean-mode
+    // operators in the input are dropped with the other punctuation. Returns null when no word can be matched
+    // through the index, in which case callers fall back to a LIKE scan.
+    public static String toBooleanQuery(String text) {
+        if (text == null) {
+            return null;
+        }
+        StringBuilder query = new StringBuilder();
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}_]+")) {
+            if (word.length() < MIN_TOKEN_LENGTH || STOPWORDS.contains(word)) {
+                continue;
+            }
+            if (query.length() > 0) {
+                query.append(' ');
+            }
+            query.append('+').append(word).append('*');
+        }
+        return query.length() > 0 ? query.toString() : null;
+    }
+}
@@ -29,6 +29,9 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             String userId = JwtUtil.validateAndExtractUserId(token);
 
             if (userId != null) {
+                // Publish the verified id so controllers don't verify the same token again
+                request.setAttribute(JwtUtil.USER_ID_ATTRIBUTE, userId);
+
                 UsernamePasswordAuthenticationToken authToken =
                         new UsernamePasswordAuthenticationToken(userId, null, Collections.emptyList());
 
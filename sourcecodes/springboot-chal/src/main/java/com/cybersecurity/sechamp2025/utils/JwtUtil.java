@@ -2,15 +2,38 @@ package com.cybersecurity.sechamp2025.utils;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.http.HttpServletRequest;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.security.Key;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class JwtUtil {
     private static final String SECRET = "s3cChmp2025_JWT-SecretKey_x9F7Lrs3cChmp2025_JWT-SecretKey_x9F7Lr";
     private static final Key SECRET_KEY = Keys.hmacShaKeyFor(SECRET.getBytes());
     private static final long EXPIRATION_MS = 86400000; // 24 hours
 
+    // Request attribute set by JwtAuthFilter once the bearer token has been verified
+    public static final String USER_ID_ATTRIBUTE = "sechamp.authenticatedUserId";
+
+    // Parsers are immutable and thread-safe, so one instance serves every request
+    private static final JwtParser PARSER = Jwts.parserBuilder()
+            .setSigningKey(SECRET_KEY)
+            .build();
+
+    // Verified tokens keyed by SHA-256 of the token; entries are dropped once the token itself expires
+    private static final int MAX_CACHED_TOKENS = 10000;
+    private static final ConcurrentHashMap<String, VerifiedToken> VERIFIED_TOKENS = new ConcurrentHashMap<>();
+    private static final AtomicLong SIGNATURE_VERIFICATIONS = new AtomicLong();
+
+    private record VerifiedToken(String userId, long expiresAtMillis) {
+    }
+
     public static String generateToken(String userId) {
         return Jwts.builder()
                 .setSubject(userId)
@@ -21,16 +44,74 @@ public class JwtUtil {
     }
 
     public static String validateAndExtractUserId(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        String cacheKey = hash(token);
+        VerifiedToken cached = VERIFIED_TOKENS.get(cacheKey);
+        if (cached != null) {
+            if (cached.expiresAtMillis() > now) {
+                return cached.userId();
+            }
+            VERIFIED_TOKENS.remove(cacheKey, cached);
+        }
+
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(SECRET_KEY)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            SIGNATURE_VERIFICATIONS.incrementAndGet();
+            Claims claims = PARSER.parseClaimsJws(token).getBody();
 
+            Date expiration = claims.getExpiration();
+            if (expiration != null && claims.getSubject() != null) {
+                cache(cacheKey, new VerifiedToken(claims.getSubject(), expiration.getTime()), now);
+            }
             return claims.getSubject();
         } catch (JwtException e) {
             return null;
         }
     }
+
+    // User id for the current request: the value JwtAuthFilter already verified, or a (cached) verification
+    // of the bearer header when the filter did not run for this request
+    public static String getAuthenticatedUserId(HttpServletRequest request) {
+        Object userId = request.getAttribute(USER_ID_ATTRIBUTE);
+        if (userId instanceof String) {
+            return (String) userId;
+        }
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+        return validateAndExtractUserId(authHeader.substring(7));
+    }
+
+    // Number of HMAC signature verifications performed so far (cache hits are not counted)
+    public static long getSignatureVerificationCount() {
+        return SIGNATURE_VERIFICATIONS.get();
+    }
+
+    static void clearCache() {
+        VERIFIED_TOKENS.clear();
+    }
+
+    private static void cache(String cacheKey, VerifiedToken verified, long now) {
+        if (VERIFIED_TOKENS.size() >= MAX_CACHED_TOKENS) {
+            VERIFIED_TOKENS.values().removeIf(entry -> entry.expiresAtMillis() <= now);
+            if (VERIFIED_TOKENS.size() >= MAX_CACHED_TOKENS) {
+                // Still full of live tokens - skip caching rather than grow without bound
+                return;
+            }
+        }
+        VERIFIED_TOKENS.put(cacheKey, verified);
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
 }
@@ -0,0 +1,84 @@
+package com.cybersecurity.sechamp2025.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Hashed timing wheel: a deadline goes into slot (deadline / tick) mod size, so scheduling is O(1) and each
+// advance only looks at the slots whose ticks have passed. Deadlines further out than one revolution share
+// a slot with nearer ones and are skipped until their round comes up.
+// Rescheduling a key just records the new deadline; the entry left in the old slot is dropped when that
+// slot is next visited.
+public class TimingWheel<K> {
+
+    private record Entry(long deadlineMillis, int slot) {
+    }
+
+    private final long tickMillis;
+    private final int mask;
+    private final Set<K>[] slots;
+    private final Map<K, Entry> entries = new ConcurrentHashMap<>();
+
+    // Last tick whose slot has been fully drained. schedule() and advance() are synchronized so a key is
+    // never dropped from a slot while it is being scheduled into it.
+    private long cursor;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("tickMillis must be positive and wheelSize a power of two");
+        }
+        this.tickMillis = tickMillis;
+        this.mask = wheelSize - 1;
+        this.slots = new Set[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            slots[i] = ConcurrentHashMap.newKeySet();
+        }
+        this.cursor = startMillis / tickMillis - 1;
+    }
+
+    // Adds the key or moves it to a new deadline. A deadline that has already passed is due on the next advance.
+    public synchronized void schedule(K key, long deadlineMillis) {
+        int slot = (int) (Math.max(deadlineMillis / tickMillis, cursor + 1) & mask);
+        entries.put(key, new Entry(deadlineMillis, slot));
+        slots[slot].add(key);
+    }
+
+    public void cancel(K key) {
+        entries.remove(key);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // Removes and returns every key whose deadline is at or before nowMillis
+    public synchronized List<K> advance(long nowMillis) {
+        List<K> due = new ArrayList<>();
+        long nowTick = nowMillis / tickMillis;
+        // After a long pause every slot may hold due entries; one revolution visits all of them
+        long from = Math.max(cursor + 1, nowTick - mask);
+        for (long tick = from; tick <= nowTick; tick++) {
+            int slot = (int) (tick & mask);
+            slots[slot].removeIf(key -> {
+                Entry entry = entries.get(key);
+                if (entry == null || entry.slot() != slot) {
+                    return true;
+                }
+                if (entry.deadlineMillis() <= nowMillis) {
+                    // A concurrent cancel() wins; the slot entry is dropped on the next visit
+                    if (entries.remove(key, entry)) {
+                        due.add(key);
+                        return true;
+                    }
+                }
+                return false;
+            });
+        }
+        // The current tick's slot may still hold deadlines later in this tick, so it is visited again next time
+        cursor = nowTick - 1;
+        return due;
+    }
+}
@@ -0,0 +1,218 @@
+package com.cybersecurity.sechamp2025;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cybersecurity.sechamp2025.models.Book;
+import com.cybersecurity.sechamp2025.repositories.BookRepository;
+import com.cybersecurity.sechamp2025.services.BookService;
+import com.cybersecurity.sechamp2025.services.HelpfulVoteCounter;
+import com.cybersecurity.sechamp2025.services.StockLedger;
+import com.cybersecurity.sechamp2025.services.StockService;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+
+// Runs the lock-holding paths that do I/O (services whose database calls are stubbed to block, and the MySQL
+// driver's connect path against a server that never answers) on virtual threads, and fails on any
+// jdk.VirtualThreadPinned event, i.e. a virtual thread that blocked while holding a monitor.
+// Only runs on Java 21+, which is what the "virtual" profile requires.
+@EnabledForJreRange(min = JRE.JAVA_21)
+class VirtualThreadPinningTests {
+
+	private static final long IO_MILLIS = 30;
+
+	@Test
+	void pinningIsDetected() throws Exception {
+		Object monitor = new Object();
+		List<RecordedEvent> pinned = pinnedWhile(() -> {
+			synchronized (monitor) {
+				Thread.sleep(IO_MILLIS);
+			}
+			return null;
+		});
+		assertThat(pinned).isNotEmpty();
+	}
+
+	@Test
+	void lockHoldingServicePathsDoNotPin() throws Exception {
+		BookRepository bookRepository = mock(BookRepository.class);
+		when(bookRepository.findAll()).thenAnswer(invocation -> {
+			Thread.sleep(IO_MILLIS);
+			Book book = new Book();
+			book.setId("1");
+			book.setTitle("Title");
+			return List.of(book);
+		});
+		when(bookRepository.findStockById(anyString())).thenAnswer(invocation -> {
+			Thread.sleep(IO_MILLIS);
+			return 100;
+		});
+		ResultSet row = mock(ResultSet.class);
+		when(row.getString(1)).thenReturn("1");
+		JdbcTemplate jdbcTemplate = new JdbcTemplate() {
+			@Override
+			public int update(String sql, Object... args) {
+				blockOnIo();
+				return 1;
+			}
+
+			@Override
+			public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+				blockOnIo();
+				try {
+					return List.of(rowMapper.mapRow(row, 0));
+				} catch (SQLException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		};
+
+		StockLedger stockLedger = new StockLedger();
+		ReflectionTestUtils.setField(stockLedger, "bookRepository", bookRepository);
+		ReflectionTestUtils.setField(stockLedger, "jdbcTemplate", jdbcTemplate);
+		StockService stockService = new StockService();
+		ReflectionTestUtils.setField(stockService, "stockLedger", stockLedger);
+		ReflectionTestUtils.setField(stockService, "ledgerEnabled", true);
+		BookService bookService = new BookService();
+		ReflectionTestUtils.setField(bookService, "bookRepository", bookRepository);
+		ReflectionTestUtils.setField(bookService, "stockLedger", stockLedger);
+		ReflectionTestUtils.setField(bookService, "stockService", stockService);
+		HelpfulVoteCounter helpfulVotes = new HelpfulVoteCounter();
+		ReflectionTestUtils.setField(helpfulVotes, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(helpfulVotes, "bookService", bookService);
+		ReflectionTestUtils.setField(helpfulVotes, "transactionTemplate",
+				new TransactionTemplate(mock(PlatformTransactionManager.class)));
+
+		AtomicInteger next = new AtomicInteger();
+		List<RecordedEvent> pinned = pinnedWhile(() -> {
+			switch (next.getAndIncrement() % 5) {
+				case 0 -> bookService.findAll();
+				case 1 -> bookService.refreshCatalog();
+				case 2 -> {
+					stockLedger.tryDecrement("1", 1);
+					stockLedger.invalidate("1");
+				}
+				case 3 -> helpfulVotes.record("r1");
+				default -> helpfulVotes.flush();
+			}
+			return null;
+		});
+		assertThat(pinned).as(describe(pinned)).isEmpty();
+	}
+
+	@Test
+	void mysqlDriverConnectPathDoesNotPin() throws Exception {
+		// Accepts connections and never sends the server greeting, so every connect blocks in a socket read
+		List<Socket> accepted = new CopyOnWriteArrayList<>();
+		try (ServerSocket silentServer = new ServerSocket(0)) {
+			Thread acceptor = new Thread(() -> {
+				try {
+					while (true) {
+						accepted.add(silentServer.accept());
+					}
+				} catch (IOException closed) {
+					// Test finished
+				}
+			});
+			acceptor.setDaemon(true);
+			acceptor.start();
+			String url = "jdbc:mysql://127.0.0.1:" + silentServer.getLocalPort()
+					+ "/secchamp2025?connectTimeout=2000&socketTimeout=" + (IO_MILLIS * 10);
+
+			List<RecordedEvent> pinned = pinnedWhile(() -> {
+				assertThatThrownBy(() -> DriverManager.getConnection(url, "root", "x")).isInstanceOf(SQLException.class);
+				return null;
+			});
+			assertThat(pinned).as(describe(pinned)).isEmpty();
+		}
+		for (Socket socket : accepted) {
+			socket.close();
+		}
+	}
+
+	private static void blockOnIo() {
+		try {
+			Thread.sleep(IO_MILLIS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// Runs the task on 50 virtual threads while recording jdk.VirtualThreadPinned with no duration threshold
+	private static List<RecordedEvent> pinnedWhile(Callable<Void> task) throws Exception {
+		Path dump = Files.createTempFile("pinning", ".jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+			recording.start();
+			ExecutorService virtualThreads = newVirtualThreadPerTaskExecutor();
+			List<Future<Void>> results = new ArrayList<>();
+			for (int i = 0; i < 50; i++) {
+				results.add(virtualThreads.submit(task));
+			}
+			for (Future<Void> result : results) {
+				result.get();
+			}
+			virtualThreads.shutdown();
+			recording.stop();
+			recording.dump(dump);
+			return RecordingFile.readAllEvents(dump).stream()
+					.filter(event -> event.getEventType().getName().equals("jdk.VirtualThreadPinned"))
+					.toList();
+		} finally {
+			Files.deleteIfExists(dump);
+		}
+	}
+
+	// Compiled for Java 17, so the Java 21 factory is looked up reflectively
+	private static ExecutorService newVirtualThreadPerTaskExecutor() throws Exception {
+		return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+	}
+
+	private static String describe(List<RecordedEvent> pinned) {
+		return pinned.stream()
+				.map(event -> event.getStackTrace() == null ? "(no stack trace)" : event.getStackTrace().getFrames().stream()
+						.limit(20)
+						.map(VirtualThreadPinningTests::describe)
+						.collect(Collectors.joining("\n\t", "pinned at\n\t", "")))
+				.distinct()
+				.collect(Collectors.joining("\n"));
+	}
+
+	private static String describe(RecordedFrame frame) {
+		return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+	}
+}
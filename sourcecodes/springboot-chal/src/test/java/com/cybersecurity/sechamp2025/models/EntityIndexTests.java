@@ -0,0 +1,63 @@
+package com.cybersecurity.sechamp2025.models;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+// The indexes declared on the entities and the ones created by the SQL scripts must not drift apart:
+// ddl-auto=update creates the former, the docker image is initialised from the latter.
+class EntityIndexTests {
+
+	private static final List<Class<?>> ENTITIES = List.of(Book.class, BookReview.class, CartItem.class,
+			ShoppingCart.class, PurchaseSession.class, UserBook.class);
+
+	@Test
+	void everyEntityIndexIsCreatedByInitDb() throws Exception {
+		assertDeclaredIn(Path.of("../db/init-db.sql"), ENTITIES);
+	}
+
+	@Test
+	void everyEntityIndexIsCreatedByResetDb() throws Exception {
+		// reset-db.sql does not create book_reviews
+		assertDeclaredIn(Path.of("../db/reset-db.sql"), ENTITIES.stream().filter(entity -> entity != BookReview.class).toList());
+	}
+
+	private static void assertDeclaredIn(Path script, List<Class<?>> entities) throws Exception {
+		String sql = Files.readString(script);
+		for (Class<?> entity : entities) {
+			Table table = entity.getAnnotation(Table.class);
+			Map<String, String> keys = keysOf(sql, table.name());
+			assertThat(table.indexes()).as("%s declares indexes", entity.getSimpleName()).isNotEmpty();
+			for (Index index : table.indexes()) {
+				assertThat(keys).as("%s in %s", index.name(), script)
+						.containsEntry(index.name(), normalize(index.columnList()));
+			}
+		}
+	}
+
+	private static Map<String, String> keysOf(String sql, String table) {
+		Matcher create = Pattern.compile("CREATE TABLE IF NOT EXISTS " + table + " \\((.*?)\\n\\);", Pattern.DOTALL).matcher(sql);
+		assertThat(create.find()).as("CREATE TABLE %s", table).isTrue();
+		Map<String, String> keys = new LinkedHashMap<>();
+		Matcher key = Pattern.compile("^\\s*KEY (\\w+) \\(([^)]*)\\)", Pattern.MULTILINE).matcher(create.group(1));
+		while (key.find()) {
+			keys.put(key.group(1), normalize(key.group(2)));
+		}
+		return keys;
+	}
+
+	private static String normalize(String columns) {
+		return columns.replaceAll("\\s+", "");
+	}
+}
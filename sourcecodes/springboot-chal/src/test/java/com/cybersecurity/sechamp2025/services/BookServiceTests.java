@@ -0,0 +1,180 @@
+package com.cybersecurity.sechamp2025.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.cybersecurity.sechamp2025.models.Book;
+import com.cybersecurity.sechamp2025.repositories.BookRepository;
+
+import jakarta.persistence.Column;
+
+class BookServiceTests {
+
+	private BookRepository bookRepository;
+	private StockService stockService;
+	private BookService bookService;
+
+	@BeforeEach
+	void setUp() {
+		bookRepository = mock(BookRepository.class);
+		stockService = mock(StockService.class);
+		bookService = new BookService();
+		ReflectionTestUtils.setField(bookService, "bookRepository", bookRepository);
+		ReflectionTestUtils.setField(bookService, "stockLedger", mock(StockLedger.class));
+		ReflectionTestUtils.setField(bookService, "stockService", stockService);
+
+		when(bookRepository.findAll()).thenReturn(List.of(
+				book("1", "Fiction", 4.8, 10),
+				book("2", "Science", 3.9, 5)));
+		when(bookRepository.save(any(Book.class))).thenAnswer(invocation -> invocation.getArgument(0));
+		when(stockService.getStocks(anyCollection())).thenReturn(Map.of("1", 7, "2", 5));
+	}
+
+	@Test
+	void catalogIsLoadedOnceAndIndexed() {
+		assertThat(bookService.findAll()).hasSize(2);
+		assertThat(bookService.findByCategory("fiction")).extracting(Book::getId).containsExactly("1");
+		assertThat(bookService.getFeaturedBooks()).extracting(Book::getId).containsExactly("1");
+		assertThat(bookService.getCategories()).containsExactly("Fiction", "Science");
+
+		verify(bookRepository, times(1)).findAll();
+		assertThat(bookService.getCacheStats()).containsEntry("loads", 1L).containsEntry("reads", 4L);
+	}
+
+	@Test
+	void stockIsOverlaidLive() {
+		when(stockService.getStock("1")).thenReturn(3);
+
+		assertThat(bookService.findAll()).extracting(Book::getStock).containsExactly(7, 5);
+		assertThat(bookService.findById("1").getStock()).isEqualTo(3);
+	}
+
+	@Test
+	void writesReplaceTheSnapshotWithoutReloading() {
+		bookService.findAll();
+
+		Book updated = bookService.findById("2");
+		updated.setRating(BigDecimal.valueOf(4.9));
+		bookService.save(updated);
+		bookService.deleteById("1");
+
+		assertThat(bookService.getFeaturedBooks()).extracting(Book::getId).containsExactly("2");
+		assertThat(bookService.findById("1")).isNull();
+		verify(bookRepository, times(1)).findAll();
+	}
+
+	@Test
+	void reviewAggregatesUpdateTheSnapshotAndSurviveBookEdits() {
+		bookService.findAll();
+		bookService.updateReviewAggregates("2", new BigDecimal("4.75"), 2, new BigDecimal("9.5"), 3L);
+
+		assertThat(bookService.getFeaturedBooks()).extracting(Book::getId).containsExactly("1", "2");
+		bookService.save(bookService.findById("2"));
+
+		Book book = bookService.findById("2");
+		assertThat(book.getReviewCount()).isEqualTo(2);
+		assertThat(book.getRatingSum()).isEqualByComparingTo("9.5");
+		assertThat(book.getHelpfulTotal()).isEqualTo(3L);
+		verify(bookRepository, times(1)).findAll();
+	}
+
+	@Test
+	void helpfulVotesPatchOnlyTheirBooks() {
+		bookService.findAll();
+		Object loadedAt = bookService.getCacheStats().get("loadedAt");
+		Book untouched = bookService.findById("2");
+
+		bookService.addHelpfulVotes(Map.of("1", 4L, "unknown", 2L));
+		bookService.addHelpfulVotes(Map.of("1", 1L));
+
+		assertThat(bookService.findById("1").getHelpfulTotal()).isEqualTo(5L);
+		assertThat(bookService.findByCategory("fiction")).extracting(Book::getHelpfulTotal).containsExactly(5L);
+		assertThat(bookService.getFeaturedBooks()).extracting(Book::getHelpfulTotal).containsExactly(5L);
+		assertThat(bookService.findAll()).extracting(Book::getId).containsExactly("1", "2");
+		assertThat(bookService.findById("2").getHelpfulTotal()).isEqualTo(untouched.getHelpfulTotal());
+		assertThat(bookService.getCacheStats().get("loadedAt")).isEqualTo(loadedAt);
+		verify(bookRepository, times(1)).findAll();
+	}
+
+	@Test
+	void editingABookWhileSalesArePendingKeepsThem() {
+		JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+		StockLedger stockLedger = useLedger(jdbcTemplate);
+		assertThat(stockService.tryDecrement("1", 3)).isTrue();
+
+		// The edit carries stock with the 3 unflushed units already taken off
+		Book edited = bookService.findById("1");
+		assertThat(edited.getStock()).isEqualTo(7);
+		edited.setTitle("New title");
+		bookService.save(edited);
+		stockLedger.flush();
+
+		verify(jdbcTemplate, times(1)).update(anyString(), eq("1"), eq(3), eq("1"));
+		verify(bookRepository, never()).setStock(anyString(), anyInt());
+		assertThat(bookService.findById("1").getTitle()).isEqualTo("New title");
+		assertThat(bookService.findById("1").getStock()).isEqualTo(7);
+	}
+
+	@Test
+	void adminStockReplacesPendingSales() {
+		JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+		StockLedger stockLedger = useLedger(jdbcTemplate);
+		assertThat(stockService.tryDecrement("1", 3)).isTrue();
+		when(bookRepository.findStockById("1")).thenReturn(20);
+
+		bookService.setStock("1", 20);
+		stockLedger.flush();
+
+		verify(bookRepository).setStock("1", 20);
+		verifyNoInteractions(jdbcTemplate);
+		assertThat(bookService.findById("1").getStock()).isEqualTo(20);
+	}
+
+	@Test
+	void entitySavesNeverWriteStock() throws Exception {
+		Column stock = Book.class.getDeclaredField("stock").getAnnotation(Column.class);
+
+		assertThat(stock.insertable()).isTrue();
+		assertThat(stock.updatable()).isFalse();
+	}
+
+	// Replaces the mocked StockService with the ledger-backed one, seeded with the books' stock
+	private StockLedger useLedger(JdbcTemplate jdbcTemplate) {
+		StockLedger stockLedger = new StockLedger();
+		ReflectionTestUtils.setField(stockLedger, "bookRepository", bookRepository);
+		ReflectionTestUtils.setField(stockLedger, "jdbcTemplate", jdbcTemplate);
+		when(bookRepository.findAllStock()).thenReturn(List.<Object[]>of(new Object[] { "1", 10 }, new Object[] { "2", 5 }));
+		stockLedger.seedAll();
+
+		stockService = new StockService();
+		ReflectionTestUtils.setField(stockService, "bookRepository", bookRepository);
+		ReflectionTestUtils.setField(stockService, "stockLedger", stockLedger);
+		ReflectionTestUtils.setField(stockService, "ledgerEnabled", true);
+		ReflectionTestUtils.setField(bookService, "stockLedger", stockLedger);
+		ReflectionTestUtils.setField(bookService, "stockService", stockService);
+		return stockLedger;
+	}
+
+	private static Book book(String id, String category, double rating, int stock) {
+		return new Book(id, "Title " + id, "Author", "ISBN-" + id, category, 10.0, null, stock, rating, null, null, null);
+	}
+}
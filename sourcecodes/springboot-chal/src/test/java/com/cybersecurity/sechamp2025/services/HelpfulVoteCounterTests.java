@@ -0,0 +1,234 @@
+package com.cybersecurity.sechamp2025.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class HelpfulVoteCounterTests {
+
+	private JdbcTemplate jdbcTemplate;
+	private BookService bookService;
+	private HelpfulVoteCounter helpfulVotes;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate = mock(JdbcTemplate.class);
+		bookService = mock(BookService.class);
+		helpfulVotes = new HelpfulVoteCounter();
+		ReflectionTestUtils.setField(helpfulVotes, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(helpfulVotes, "bookService", bookService);
+		ReflectionTestUtils.setField(helpfulVotes, "transactionTemplate",
+				new TransactionTemplate(mock(PlatformTransactionManager.class)));
+		stubRow("r1", "b1", 0, 0);
+		stubRow("missing", null, 0, 0);
+	}
+
+	@Test
+	void concurrentVotesAreCountedOnceAndFlushedAsOneDelta() throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(32);
+		CountDownLatch start = new CountDownLatch(1);
+		for (int i = 0; i < 20000; i++) {
+			pool.submit(() -> {
+				start.await();
+				helpfulVotes.record("r1");
+				return null;
+			});
+		}
+		start.countDown();
+		pool.shutdown();
+		assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+		assertThat(helpfulVotes.pending("r1")).isEqualTo(20000);
+		helpfulVotes.flush();
+
+		verify(jdbcTemplate).update(anyString(), eq("r1"), eq(20000L), eq("r1"));
+		verify(jdbcTemplate).update(anyString(), eq("b1"), eq(20000L), eq("b1"));
+		verify(bookService).addHelpfulVotes(Map.of("b1", 20000L));
+		verify(jdbcTemplate, times(1)).query(anyString(), any(RowMapper.class), eq("r1"));
+		assertThat(helpfulVotes.pending("r1")).isZero();
+	}
+
+	@Test
+	void racingFirstVotesShareOneLookup() throws Exception {
+		stubRow("r2", "b2", 0, 200);
+		ExecutorService pool = Executors.newFixedThreadPool(16);
+		CountDownLatch start = new CountDownLatch(1);
+		for (int i = 0; i < 16; i++) {
+			pool.submit(() -> {
+				start.await();
+				return helpfulVotes.record("r2");
+			});
+		}
+		start.countDown();
+		pool.shutdown();
+		assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+		assertThat(helpfulVotes.pending("r2")).isEqualTo(16);
+		verify(jdbcTemplate, times(1)).query(anyString(), any(RowMapper.class), eq("r2"));
+	}
+
+	@Test
+	void readsNeverSeeACommittedFlushWithItsVotesStillPending() throws Exception {
+		helpfulVotes.record("r1");
+		helpfulVotes.record("r1");
+		helpfulVotes.record("r1");
+		AtomicLong storedCount = new AtomicLong();
+		ExecutorService reader = Executors.newSingleThreadExecutor();
+		List<Future<Long>> reads = new ArrayList<>();
+		when(jdbcTemplate.update(startsWith("UPDATE book_reviews"), any(Object[].class))).thenAnswer(invocation -> {
+			storedCount.addAndGet(3);
+			// A review read (row plus overlay) landing between this commit and the flushed totals moving
+			reads.add(reader.submit(() -> helpfulVotes.read(() -> storedCount.get() + helpfulVotes.pending("r1"))));
+			try {
+				reads.get(0).get(200, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException expected) {
+				// held off until the flush is done
+			}
+			return 1;
+		});
+
+		helpfulVotes.flush();
+
+		assertThat(reads.get(0).get(5, TimeUnit.SECONDS)).isEqualTo(3);
+		reader.shutdown();
+	}
+
+	@Test
+	void unknownReviewsAreRejected() {
+		assertThat(helpfulVotes.record("missing")).isNull();
+		assertThat(helpfulVotes.pending("missing")).isZero();
+	}
+
+	@Test
+	void failedFlushKeepsVotesPending() {
+		helpfulVotes.record("r1");
+		helpfulVotes.record("r1");
+		when(jdbcTemplate.update(anyString(), any(Object[].class)))
+				.thenThrow(new DataAccessResourceFailureException("down"));
+
+		helpfulVotes.flush();
+
+		assertThat(helpfulVotes.pending("r1")).isEqualTo(2);
+	}
+
+	@Test
+	void absorbedVotesAreNotWrittenAgain() {
+		helpfulVotes.record("r1");
+
+		assertThat(helpfulVotes.absorb("r1", 10)).isEqualTo(1);
+		helpfulVotes.flush();
+
+		assertThat(helpfulVotes.pending("r1")).isZero();
+		verify(jdbcTemplate, times(0)).update(anyString(), any(Object[].class));
+	}
+
+	@Test
+	void votesReturnTheCountWithoutReadingTheReviewAgain() {
+		stubRow("r3", "b3", 41, 0);
+
+		assertThat(helpfulVotes.record("r3")).isEqualTo(42);
+		helpfulVotes.flush();
+		assertThat(helpfulVotes.record("r3")).isEqualTo(43);
+		// A save overwrites the row with an absolute count, which becomes the new base
+		helpfulVotes.absorb("r3", 50);
+		assertThat(helpfulVotes.record("r3")).isEqualTo(51);
+
+		verify(jdbcTemplate, times(1)).query(anyString(), any(RowMapper.class), eq("r3"));
+	}
+
+	@Test
+	void countersWithNothingToWriteAreDroppedByTheNextFlush() {
+		helpfulVotes.record("r1");
+		helpfulVotes.flush();
+		assertThat(counters()).containsKey("r1");
+
+		helpfulVotes.flush();
+		assertThat(counters()).isEmpty();
+
+		// The next vote looks the row up again, now holding the flushed vote
+		stubRow("r1", "b1", 1, 0);
+		assertThat(helpfulVotes.record("r1")).isEqualTo(2);
+		verify(jdbcTemplate, times(2)).query(anyString(), any(RowMapper.class), eq("r1"));
+	}
+
+	@Test
+	void votesRacingTheDropOfTheirCounterAreNeverLost() throws Exception {
+		AtomicLong written = new AtomicLong();
+		when(jdbcTemplate.update(startsWith("UPDATE book_reviews"), any(Object[].class))).thenAnswer(invocation -> {
+			written.addAndGet(invocation.getArgument(2));
+			return 1;
+		});
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		CountDownLatch start = new CountDownLatch(1);
+		for (int i = 0; i < 8; i++) {
+			pool.submit(() -> {
+				start.await();
+				for (int vote = 0; vote < 2000; vote++) {
+					helpfulVotes.record("r1");
+					if (vote % 10 == 0) {
+						// Idle long enough for a flush to find nothing to write
+						Thread.sleep(1);
+					}
+				}
+				return null;
+			});
+		}
+		start.countDown();
+		pool.shutdown();
+		while (!pool.isTerminated()) {
+			helpfulVotes.flush();
+		}
+		helpfulVotes.flush();
+
+		assertThat(written.get()).isEqualTo(16000);
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<String, Object> counters() {
+		return (Map<String, Object>) ReflectionTestUtils.getField(helpfulVotes, "counters");
+	}
+
+	// Answers the counter's row lookup for reviewId after delayMs; no row when bookId is null
+	private void stubRow(String reviewId, String bookId, long helpfulCount, long delayMs) {
+		ResultSet row = mock(ResultSet.class);
+		try {
+			when(row.getString(1)).thenReturn(bookId);
+			when(row.getLong(2)).thenReturn(helpfulCount);
+		} catch (SQLException e) {
+			throw new IllegalStateException(e);
+		}
+		when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(reviewId))).thenAnswer(invocation -> {
+			Thread.sleep(delayMs);
+			RowMapper<?> mapper = invocation.getArgument(1);
+			return bookId != null ? List.of(mapper.mapRow(row, 0)) : List.of();
+		});
+	}
+}
@@ -0,0 +1,186 @@
+package com.cybersecurity.sechamp2025.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cybersecurity.sechamp2025.models.UserBook;
+
+class PurchaseQueueTests {
+
+	private final AtomicInteger stock = new AtomicInteger(100);
+	// The consumer holds its first batch until every order is queued, so the rest arrive as full batches
+	private final CountDownLatch allQueued = new CountDownLatch(1);
+	private StockService stockService;
+	private UserBookService userBookService;
+	private PurchaseQueue purchaseQueue;
+
+	@BeforeEach
+	void setUp() {
+		stockService = mock(StockService.class);
+		userBookService = mock(UserBookService.class);
+		purchaseQueue = new PurchaseQueue();
+		ReflectionTestUtils.setField(purchaseQueue, "stockService", stockService);
+		ReflectionTestUtils.setField(purchaseQueue, "userBookService", userBookService);
+		ReflectionTestUtils.setField(purchaseQueue, "transactionTemplate",
+				new TransactionTemplate(mock(PlatformTransactionManager.class)));
+
+		doAnswer(invocation -> {
+			Map<String, Integer> quantities = invocation.getArgument(0);
+			int quantity = quantities.get("hot");
+			allQueued.await();
+			if (stock.get() < quantity) {
+				throw new InsufficientStockException("hot");
+			}
+			stock.addAndGet(-quantity);
+			return null;
+		}).when(stockService).decrementAll(any());
+		AtomicInteger ids = new AtomicInteger();
+		when(userBookService.addBookCopies(anyString(), anyString(), anyList())).thenAnswer(invocation -> {
+			List<BigDecimal> prices = invocation.getArgument(2);
+			List<UserBook> copies = new ArrayList<>();
+			for (BigDecimal price : prices) {
+				copies.add(new UserBook("ub" + ids.incrementAndGet(), invocation.getArgument(0), "hot", price));
+			}
+			return copies;
+		});
+	}
+
+	@AfterEach
+	void tearDown() {
+		purchaseQueue.stopAll();
+	}
+
+	@Test
+	void concurrentOrdersSellExactlyTheStockInFewDecrements() throws Exception {
+		purchaseQueue.markHot("hot");
+		ConcurrentLinkedQueue<CompletableFuture<List<String>>> results = new ConcurrentLinkedQueue<>();
+		ExecutorService pool = Executors.newFixedThreadPool(16);
+		CountDownLatch start = new CountDownLatch(1);
+		for (int i = 0; i < 1000; i++) {
+			String userId = "u" + i;
+			pool.submit(() -> {
+				start.await();
+				results.add(purchaseQueue.submit(userId, "hot", List.of(BigDecimal.TEN)));
+				return null;
+			});
+		}
+		start.countDown();
+		pool.shutdown();
+		assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+		allQueued.countDown();
+
+		int sold = 0;
+		for (CompletableFuture<List<String>> result : results) {
+			sold += result.get(10, TimeUnit.SECONDS).size();
+		}
+		assertThat(results).hasSize(1000);
+		assertThat(sold).isEqualTo(100);
+		assertThat(stock.get()).isZero();
+		Map<String, Object> stats = purchaseQueue.getStats().get("hot");
+		assertThat(stats.get("orders")).isEqualTo(1000L);
+		assertThat(stats.get("soldOut")).isEqualTo(900L);
+		// Whatever the first batch caught, then the rest of the 1000 orders in batches of at most 256
+		assertThat((long) stats.get("batches")).isBetween(4L, 5L);
+		assertThat(stats.get("maxBatchSize")).isEqualTo(256L);
+	}
+
+	@Test
+	void fullQueueRejectsInsteadOfBlocking() throws Exception {
+		ReflectionTestUtils.setField(purchaseQueue, "capacity", 1);
+		CountDownLatch consumerBusy = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			consumerBusy.countDown();
+			release.await();
+			return null;
+		}).when(stockService).decrementAll(any());
+		purchaseQueue.markHot("hot");
+
+		CompletableFuture<List<String>> first = purchaseQueue.submit("u1", "hot", List.of(BigDecimal.ONE));
+		assertThat(consumerBusy.await(5, TimeUnit.SECONDS)).isTrue();
+		CompletableFuture<List<String>> second = purchaseQueue.submit("u2", "hot", List.of(BigDecimal.ONE));
+
+		assertThatThrownBy(() -> purchaseQueue.submit("u3", "hot", List.of(BigDecimal.ONE)))
+				.isInstanceOf(PurchaseQueueFullException.class);
+		release.countDown();
+		assertThat(first.get(5, TimeUnit.SECONDS)).hasSize(1);
+		assertThat(second.get(5, TimeUnit.SECONDS)).hasSize(1);
+		assertThat(purchaseQueue.getStats().get("hot").get("rejected")).isEqualTo(1L);
+	}
+
+	@Test
+	void ordersOfferedWhileTheLaneStopsAreTurnedAway() {
+		purchaseQueue.markHot("hot");
+		Map<String, Object> lanes = lanes();
+		Object lane = lanes.get("hot");
+		purchaseQueue.unmarkHot("hot");
+		// A submit that looked the lane up just before it was stopped
+		lanes.put("hot", lane);
+
+		assertThatThrownBy(() -> purchaseQueue.submit("u1", "hot", List.of(BigDecimal.ONE)))
+				.isInstanceOf(PurchaseQueueFullException.class);
+		assertThat(purchaseQueue.getStats().get("hot").get("queueDepth")).isEqualTo(0);
+		lanes.remove("hot");
+	}
+
+	@Test
+	void purchasesGiveUpAtTheWaitTimeoutAndKeepNothing() throws Exception {
+		ReflectionTestUtils.setField(purchaseQueue, "waitTimeoutMs", 100L);
+		CountDownLatch consumerBusy = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			consumerBusy.countDown();
+			release.await();
+			return null;
+		}).when(stockService).decrementAll(any());
+		purchaseQueue.markHot("hot");
+
+		// Taken into a batch that commits after the caller gave up: its copy is given back
+		assertThatThrownBy(() -> purchaseQueue.purchase("u1", "hot", List.of(BigDecimal.ONE)))
+				.isInstanceOf(PurchaseQueueFullException.class);
+		assertThat(consumerBusy.await(5, TimeUnit.SECONDS)).isTrue();
+		// Still queued when the caller gave up: withdrawn before the consumer reaches it
+		assertThatThrownBy(() -> purchaseQueue.purchase("u2", "hot", List.of(BigDecimal.ONE)))
+				.isInstanceOf(PurchaseQueueFullException.class);
+		release.countDown();
+
+		verify(stockService, timeout(5000)).restore("hot", 1);
+		verify(userBookService, timeout(5000)).removeUserBooks(List.of("ub1"));
+		verify(userBookService, never()).addBookCopies(eq("u2"), anyString(), anyList());
+		assertThat(purchaseQueue.getStats().get("hot").get("timedOut")).isEqualTo(2L);
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<String, Object> lanes() {
+		return (Map<String, Object>) ReflectionTestUtils.getField(purchaseQueue, "lanes");
+	}
+}
@@ -0,0 +1,148 @@
+package com.cybersecurity.sechamp2025.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class ReservationLedgerTests {
+
+	private static final String[] BOOKS = { "1", "2", "3" };
+	private static final int STOCK = 50;
+
+	private final ReservationLedger ledger = new ReservationLedger();
+
+	// Randomized concurrent reserve / resize / release / expire traffic. Every worker owns its keys (like a
+	// user owns their cart rows) and records what it holds in a ground-truth table; expired reservations are
+	// handed to a concurrent expiry thread, as ExpiryScheduler does.
+	@Test
+	void counterMatchesGroundTruthAfterConcurrentWorkload() throws Exception {
+		Map<String, Integer> truthQuantity = new ConcurrentHashMap<>();
+		Map<String, String> truthBook = new ConcurrentHashMap<>();
+		ConcurrentLinkedQueue<String> expiring = new ConcurrentLinkedQueue<>();
+		AtomicBoolean overbooked = new AtomicBoolean();
+		AtomicBoolean running = new AtomicBoolean(true);
+
+		Thread expiry = new Thread(() -> {
+			while (running.get() || !expiring.isEmpty()) {
+				String key = expiring.poll();
+				if (key != null) {
+					ledger.releaseIfExpired(key, System.currentTimeMillis());
+					truthQuantity.remove(key);
+				}
+			}
+		});
+		expiry.start();
+
+		ExecutorService pool = Executors.newFixedThreadPool(16);
+		CountDownLatch start = new CountDownLatch(1);
+		for (int worker = 0; worker < 16; worker++) {
+			String prefix = "w" + worker + ":";
+			pool.submit(() -> {
+				start.await();
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				List<String> held = new ArrayList<>();
+				for (int op = 0; op < 5000; op++) {
+					int choice = random.nextInt(4);
+					if (choice == 0 || held.isEmpty()) {
+						String key = prefix + op;
+						String book = BOOKS[random.nextInt(BOOKS.length)];
+						int quantity = 1 + random.nextInt(3);
+						if (ledger.tryReserve(key, book, quantity, STOCK, Instant.now().plusSeconds(900))) {
+							truthBook.put(key, book);
+							truthQuantity.put(key, quantity);
+							held.add(key);
+						}
+					} else if (choice == 1) {
+						String key = held.get(random.nextInt(held.size()));
+						int quantity = 1 + random.nextInt(3);
+						if (ledger.tryReserve(key, truthBook.get(key), quantity, STOCK, Instant.now().plusSeconds(900))) {
+							truthQuantity.put(key, quantity);
+						}
+					} else if (choice == 2) {
+						String key = held.remove(random.nextInt(held.size()));
+						ledger.release(key);
+						truthQuantity.remove(key);
+					} else {
+						String key = held.remove(random.nextInt(held.size()));
+						ledger.extend(key, Instant.now().minusSeconds(1));
+						expiring.add(key);
+					}
+					for (String book : BOOKS) {
+						if (ledger.getReserved(book) > STOCK) {
+							overbooked.set(true);
+						}
+					}
+				}
+				return null;
+			});
+		}
+		start.countDown();
+		pool.shutdown();
+		assertThat(pool.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+		running.set(false);
+		expiry.join(10_000);
+
+		assertThat(overbooked).isFalse();
+		for (String book : BOOKS) {
+			int expected = truthQuantity.entrySet().stream()
+					.filter(entry -> book.equals(truthBook.get(entry.getKey())))
+					.mapToInt(Map.Entry::getValue)
+					.sum();
+			assertThat(ledger.getReserved(book)).as("book %s", book).isEqualTo(expected);
+		}
+	}
+
+	@Test
+	void reservationsAreRejectedOnceStockIsHeld() {
+		assertThat(ledger.tryReserve("a", "1", 2, 3, Instant.now().plusSeconds(60))).isTrue();
+		assertThat(ledger.tryReserve("b", "1", 2, 3, Instant.now().plusSeconds(60))).isFalse();
+		// Shrinking and re-sizing within what is left always works
+		assertThat(ledger.tryReserve("a", "1", 1, 3, Instant.now().plusSeconds(60))).isTrue();
+		assertThat(ledger.tryReserve("b", "1", 2, 3, Instant.now().plusSeconds(60))).isTrue();
+		assertThat(ledger.getReserved("1")).isEqualTo(3);
+	}
+
+	@Test
+	void extendedReservationsSurviveExpiry() {
+		ledger.tryReserve("a", "1", 1, 10, Instant.now().minusSeconds(1));
+		ledger.extend("a", Instant.now().plusSeconds(60));
+
+		ledger.releaseIfExpired("a", System.currentTimeMillis());
+
+		assertThat(ledger.getReserved("1")).isEqualTo(1);
+	}
+
+	@Test
+	void rolledBackReservationsAndCommittedReleasesApplyAtCompletion() {
+		ledger.tryReserve("kept", "1", 1, 10, Instant.now().plusSeconds(60));
+
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			ledger.tryReserve("rolled-back", "1", 2, 10, Instant.now().plusSeconds(60));
+			ledger.release("kept");
+			assertThat(ledger.getReserved("1")).isEqualTo(3);
+			TransactionSynchronizationManager.getSynchronizations()
+					.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		// The release never committed, so "kept" is still held
+		assertThat(ledger.getReserved("1")).isEqualTo(1);
+	}
+}
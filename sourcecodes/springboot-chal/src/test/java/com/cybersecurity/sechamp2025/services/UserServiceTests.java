@@ -0,0 +1,104 @@
+package com.cybersecurity.sechamp2025.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.cybersecurity.sechamp2025.models.User;
+import com.cybersecurity.sechamp2025.repositories.UserRepository;
+import com.cybersecurity.sechamp2025.utils.JwtUtil;
+
+class UserServiceTests {
+
+	private UserRepository userRepository;
+	private UserService userService;
+
+	@BeforeEach
+	void setUp() {
+		userRepository = mock(UserRepository.class);
+		userService = new UserService();
+		ReflectionTestUtils.setField(userService, "userRepository", userRepository);
+		User alice = new User("u1", "Alice", null, "alice@secchamp.com", "hash", null);
+		when(userRepository.findById("u1")).thenReturn(Optional.of(alice));
+		when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+	}
+
+	@Test
+	void repeatedLookupsHitTheDatabaseOnce() {
+		userService.findById("u1");
+		userService.findById("u1");
+		userService.findById("u1");
+
+		verify(userRepository, times(1)).findById("u1");
+	}
+
+	@Test
+	void cachedCopiesAreNotSharedWithCallers() {
+		userService.findById("u1").setName("Mallory");
+
+		assertThat(userService.findById("u1").getName()).isEqualTo("Alice");
+	}
+
+	@Test
+	void updateEvictsTheCachedUser() {
+		User user = userService.findById("u1");
+		user.setAdmin(true);
+		userService.updateUser(user);
+
+		userService.findById("u1");
+		verify(userRepository, times(2)).findById("u1");
+	}
+
+	@Test
+	void aReadThatRacesAnEvictionIsNotCached() {
+		User stale = new User("u1", "Alice", null, "alice@secchamp.com", "hash", null);
+		when(userRepository.findById("u1")).thenAnswer(invocation -> {
+			// Another request commits a change to the row and evicts while this read is in flight
+			userService.evict("u1");
+			return Optional.of(stale);
+		});
+
+		userService.findById("u1");
+		userService.findById("u1");
+
+		verify(userRepository, times(2)).findById("u1");
+	}
+
+	@Test
+	void creditIsDebitedInTheDatabaseNotFromTheCachedCopy() {
+		userService.findById("u1");
+		when(userRepository.debitCredit("u1", BigDecimal.TEN)).thenReturn(1, 0);
+		when(userRepository.findCreditLimitById("u1")).thenReturn(BigDecimal.valueOf(5));
+
+		assertThat(userService.debitCredit("u1", BigDecimal.TEN)).isEqualByComparingTo("5");
+		assertThat(userService.debitCredit("u1", BigDecimal.TEN)).isNull();
+		verify(userRepository, never()).save(any(User.class));
+		// The debit evicted the cached copy
+		userService.findById("u1");
+		verify(userRepository, times(2)).findById("u1");
+	}
+
+	@Test
+	void authenticatedUserIsResolvedOncePerRequest() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setAttribute(JwtUtil.USER_ID_ATTRIBUTE, "u1");
+
+		User first = userService.getAuthenticatedUser(request);
+		User second = userService.getAuthenticatedUser(request);
+
+		assertThat(second).isSameAs(first);
+		verify(userRepository, times(1)).findById("u1");
+	}
+}
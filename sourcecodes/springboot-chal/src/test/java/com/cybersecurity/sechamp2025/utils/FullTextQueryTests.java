@@ -0,0 +1,26 @@
+package com.cybersecurity.sechamp2025.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class FullTextQueryTests {
+
+	@Test
+	void requiresEveryIndexableWordAsPrefix() {
+		assertThat(FullTextQuery.toBooleanQuery("Clean Arch")).isEqualTo("+clean* +arch*");
+	}
+
+	@Test
+	void dropsShortWordsStopwordsAndOperators() {
+		assertThat(FullTextQuery.toBooleanQuery("The +art -of (computer) \"programming\"~ in C"))
+				.isEqualTo("+art* +computer* +programming*");
+	}
+
+	@Test
+	void returnsNullWhenNothingIsIndexable() {
+		assertThat(FullTextQuery.toBooleanQuery("C++ in a")).isNull();
+		assertThat(FullTextQuery.toBooleanQuery("   ")).isNull();
+		assertThat(FullTextQuery.toBooleanQuery(null)).isNull();
+	}
+}
@@ -0,0 +1,67 @@
+package com.cybersecurity.sechamp2025.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+class JwtUtilTests {
+
+	private final JwtAuthFilter filter = new JwtAuthFilter();
+
+	@BeforeEach
+	void setUp() {
+		JwtUtil.clearCache();
+	}
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void filterAndControllerShareOneVerificationPerRequest() throws Exception {
+		String token = JwtUtil.generateToken("42");
+		long before = JwtUtil.getSignatureVerificationCount();
+
+		MockHttpServletRequest request = authenticatedRequest(token);
+		filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+		assertThat(JwtUtil.getAuthenticatedUserId(request)).isEqualTo("42");
+
+		assertThat(JwtUtil.getSignatureVerificationCount() - before).isEqualTo(1);
+	}
+
+	@Test
+	void repeatedTokenIsServedFromCache() throws Exception {
+		String token = JwtUtil.generateToken("42");
+		filter.doFilter(authenticatedRequest(token), new MockHttpServletResponse(), new MockFilterChain());
+		long before = JwtUtil.getSignatureVerificationCount();
+
+		MockHttpServletRequest request = authenticatedRequest(token);
+		filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+		assertThat(JwtUtil.getAuthenticatedUserId(request)).isEqualTo("42");
+
+		assertThat(JwtUtil.getSignatureVerificationCount() - before).isZero();
+	}
+
+	@Test
+	void tamperedTokenIsRejectedAndNotCached() {
+		String token = JwtUtil.generateToken("42");
+		String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+		assertThat(JwtUtil.validateAndExtractUserId(tampered)).isNull();
+		assertThat(JwtUtil.validateAndExtractUserId(tampered)).isNull();
+		assertThat(JwtUtil.validateAndExtractUserId(token)).isEqualTo("42");
+	}
+
+	private MockHttpServletRequest authenticatedRequest(String token) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cart");
+		request.addHeader("Authorization", "Bearer " + token);
+		return request;
+	}
+}
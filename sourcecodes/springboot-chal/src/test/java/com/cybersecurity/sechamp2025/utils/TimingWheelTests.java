@@ -0,0 +1,45 @@
+package com.cybersecurity.sechamp2025.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTests {
+
+	@Test
+	void keysComeDueAtTheirDeadlineOnly() {
+		TimingWheel<String> wheel = new TimingWheel<>(100, 8, 0);
+		wheel.schedule("a", 250);
+		wheel.schedule("b", 5_000);
+
+		assertThat(wheel.advance(200)).isEmpty();
+		assertThat(wheel.advance(260)).containsExactly("a");
+		// "b" is several revolutions out and shares slots with nearer ticks along the way
+		assertThat(wheel.advance(4_990)).isEmpty();
+		assertThat(wheel.advance(5_000)).containsExactly("b");
+		assertThat(wheel.size()).isZero();
+	}
+
+	@Test
+	void rescheduleAndCancelReplaceEarlierDeadlines() {
+		TimingWheel<String> wheel = new TimingWheel<>(100, 8, 0);
+		wheel.schedule("extended", 300);
+		wheel.schedule("cancelled", 300);
+		wheel.schedule("extended", 900);
+		wheel.cancel("cancelled");
+
+		assertThat(wheel.advance(400)).isEmpty();
+		assertThat(wheel.advance(900)).containsExactly("extended");
+	}
+
+	@Test
+	void pastDeadlinesAndLongPausesAreStillDrained() {
+		TimingWheel<String> wheel = new TimingWheel<>(100, 8, 0);
+		wheel.advance(1_000);
+		wheel.schedule("late", 50);
+		wheel.schedule("soon", 1_200);
+
+		assertThat(wheel.advance(1_000)).containsExactly("late");
+		assertThat(wheel.advance(60_000)).containsExactly("soon");
+	}
+}
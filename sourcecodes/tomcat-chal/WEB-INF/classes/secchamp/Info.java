@@ -45,76 +45,35 @@ public class Info implements Serializable {
         return "SecChamp Book Categorization API - Safe and legitimate book service for genre classification and catalog management. No security risks detected. Connected to live book database.";
     }
     
-    // Method to fetch real book data from Spring Boot API
+    // Method to fetch real book data from Spring Boot API (only the first page of one book is needed; pages are
+    // in id order, so this is the book with the lowest id rather than the first one in catalog order)
     public String getBookData() {
         try {
-            URL url = new URL(bookApiUrl);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setConnectTimeout(5000);
-            connection.setReadTimeout(10000);
+            JsonNode jsonNode = readJson(bookApiUrl + "?limit=1");
+            JsonNode dataArray = jsonNode.get("data");
             
-            int responseCode = connection.getResponseCode();
-            if (responseCode == 200) {
-                BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-                StringBuilder response = new StringBuilder();
-                String line;
-                
-                while ((line = reader.readLine()) != null) {
-                    response.append(line);
-                }
-                reader.close();
-                
-                // Parse JSON response
-                JsonNode jsonNode = objectMapper.readTree(response.toString());
-                JsonNode dataArray = jsonNode.get("data");
-                
-                if (dataArray != null && dataArray.isArray() && dataArray.size() > 0) {
-                    JsonNode firstBook = dataArray.get(0);
-                    return String.format("Live Book Data - Title: %s, Author: %s, Category: %s, Rating: %s, Price: $%s", 
-                        firstBook.get("title").asText(),
-                        firstBook.get("author").asText(),
-                        firstBook.get("category").asText(),
-                        firstBook.get("rating").asText(),
-                        firstBook.get("price").asText()
-                    );
-                } else {
-                    return "No book data available";
-                }
+            if (dataArray != null && dataArray.isArray() && dataArray.size() > 0) {
+                JsonNode firstBook = dataArray.get(0);
+                return String.format("Live Book Data - Title: %s, Author: %s, Category: %s, Rating: %s, Price: $%s", 
+                    firstBook.get("title").asText(),
+                    firstBook.get("author").asText(),
+                    firstBook.get("category").asText(),
+                    firstBook.get("rating").asText(),
+                    firstBook.get("price").asText()
+                );
             } else {
-                return "Failed to fetch book data. Response code: " + responseCode;
+                return "No book data available";
             }
         } catch (Exception e) {
             return "Error fetching book data: " + e.getMessage();
         }
     }
     
-    // Method to get book count from API
+    // Method to get book count from API (one request to the count endpoint instead of loading the whole catalog)
     public String getBookCount() {
         try {
-            URL url = new URL(bookApiUrl);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setConnectTimeout(5000);
-            connection.setReadTimeout(10000);
-            
-            int responseCode = connection.getResponseCode();
-            if (responseCode == 200) {
-                BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-                StringBuilder response = new StringBuilder();
-                String line;
-                
-                while ((line = reader.readLine()) != null) {
-                    response.append(line);
-                }
-                reader.close();
-                
-                JsonNode jsonNode = objectMapper.readTree(response.toString());
-                int count = jsonNode.get("count").asInt();
-                return "Total books in database: " + count;
-            } else {
-                return "Failed to get book count. Response code: " + responseCode;
-            }
+            int count = readJson(bookApiUrl + "/count").get("count").asInt();
+            return "Total books in database: " + count;
         } catch (Exception e) {
             return "Error getting book count: " + e.getMessage();
         }
@@ -175,4 +134,20 @@ public class Info implements Serializable {
     
     public String getCategory() { return category; }
     public void setCategory(String category) { this.category = category; }
+    
+    private JsonNode readJson(String apiUrl) throws java.io.IOException {
+        URL url = new URL(apiUrl);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("GET");
+        connection.setConnectTimeout(5000);
+        connection.setReadTimeout(10000);
+        
+        int responseCode = connection.getResponseCode();
+        if (responseCode != 200) {
+            throw new java.io.IOException("Response code: " + responseCode);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
+            return objectMapper.readTree(reader);
+        }
+    }
 }
@@ -109,48 +109,28 @@ public class secchamp_http implements Serializable {
                            httpMethod, endpoint, title);
     }
     
-    // Method to fetch real book data from Spring Boot API
+    // Method to fetch real book data from Spring Boot API: three titles from the first keyset page (lowest ids
+    // first) and the count from the count endpoint, so the whole catalog is never fetched
     public String fetchBookData() {
         try {
-            String fullUrl = apiBaseUrl + "/api/books";
-            URL url = new URL(fullUrl);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setConnectTimeout(5000);
-            connection.setReadTimeout(10000);
+            String booksUrl = apiBaseUrl + "/api/books";
+            JsonNode firstPage = readJson(booksUrl + "?limit=3");
+            int count = readCount(booksUrl);
+            JsonNode dataArray = firstPage.get("data");
             
-            int responseCode = connection.getResponseCode();
-            if (responseCode == 200) {
-                BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-                StringBuilder response = new StringBuilder();
-                String line;
-                
-                while ((line = reader.readLine()) != null) {
-                    response.append(line);
-                }
-                reader.close();
-                
-                // Parse JSON response and return formatted data
-                JsonNode jsonNode = objectMapper.readTree(response.toString());
-                JsonNode dataArray = jsonNode.get("data");
-                int count = jsonNode.get("count").asInt();
-                
-                StringBuilder result = new StringBuilder();
-                result.append("HTTP Request Success - Found ").append(count).append(" books: ");
-                
-                if (dataArray != null && dataArray.isArray()) {
-                    for (int i = 0; i < Math.min(3, dataArray.size()); i++) {
-                        JsonNode book = dataArray.get(i);
-                        result.append(book.get("title").asText()).append(" by ").append(book.get("author").asText());
-                        if (i < Math.min(2, dataArray.size() - 1)) result.append(", ");
-                    }
-                    if (dataArray.size() > 3) result.append("...");
+            StringBuilder result = new StringBuilder();
+            result.append("HTTP Request Success - Found ").append(count).append(" books: ");
+            
+            if (dataArray != null && dataArray.isArray()) {
+                for (int i = 0; i < Math.min(3, dataArray.size()); i++) {
+                    JsonNode book = dataArray.get(i);
+                    result.append(book.get("title").asText()).append(" by ").append(book.get("author").asText());
+                    if (i < Math.min(2, dataArray.size() - 1)) result.append(", ");
                 }
-                
-                return result.toString();
-            } else {
-                return "HTTP Request Failed - Response code: " + responseCode;
+                if (count > 3) result.append("...");
             }
+            
+            return result.toString();
         } catch (Exception e) {
             return "HTTP Request Error: " + e.getMessage();
         }
@@ -159,32 +139,9 @@ public class secchamp_http implements Serializable {
     // Method to fetch book reviews data
     public String fetchBookReviews() {
         try {
-            String fullUrl = apiBaseUrl + "/api/books/reviews";
-            URL url = new URL(fullUrl);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setConnectTimeout(5000);
-            connection.setReadTimeout(10000);
-            
-            int responseCode = connection.getResponseCode();
-            if (responseCode == 200) {
-                BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-                StringBuilder response = new StringBuilder();
-                String line;
-                
-                while ((line = reader.readLine()) != null) {
-                    response.append(line);
-                }
-                reader.close();
-                
-                JsonNode jsonNode = objectMapper.readTree(response.toString());
-                JsonNode dataArray = jsonNode.get("data");
-                int count = jsonNode.get("count").asInt();
-                
-                return "HTTP Book Reviews - Found " + count + " reviews in database";
-            } else {
-                return "HTTP Request Failed - Response code: " + responseCode;
-            }
+            String reviewsUrl = apiBaseUrl + "/api/books/reviews";
+            int count = readCount(reviewsUrl);
+            return "HTTP Book Reviews - Found " + count + " reviews in database";
         } catch (Exception e) {
             return "HTTP Request Error: " + e.getMessage();
         }
@@ -232,4 +189,24 @@ public class secchamp_http implements Serializable {
             return "HTTP Search Error: " + e.getMessage();
         }
     }
+    
+    private int readCount(String baseUrl) throws java.io.IOException {
+        return readJson(baseUrl + "/count").get("count").asInt();
+    }
+    
+    private JsonNode readJson(String apiUrl) throws java.io.IOException {
+        URL url = new URL(apiUrl);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("GET");
+        connection.setConnectTimeout(5000);
+        connection.setReadTimeout(10000);
+        
+        int responseCode = connection.getResponseCode();
+        if (responseCode != 200) {
+            throw new java.io.IOException("Response code: " + responseCode);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
+            return objectMapper.readTree(reader);
+        }
+    }
 }